@@ -32,6 +32,15 @@ public interface BuildOperationWorkerRegistry {
      */
     Completion operationStart();
 
+    /**
+     * Marks the start of a build operation that does work in more than one thread or process, reserving the given number of leases. Blocks until the leases are available.
+     * Child operations use the reserved leases before they require leases of their own.
+     * An operation that requires more leases than are available in total is started when no other leases are in use, reserving all of them.
+     *
+     * <p>Note that the caller must call {@link Completion#operationFinish()} to mark the completion of the operation and to release the leases for other threads to use.
+     */
+    Completion operationStart(int leases);
+
     /**
      * Returns the build operation associated with the current thread. Allows child operations to be created for this operation. Fails when there is no operation associated with this thread.
      */
@@ -53,10 +53,18 @@ public class DefaultBuildOperationWorkerRegistry implements BuildOperationWorker
 
     @Override
     public Completion operationStart() {
-        return doStartOperation(root);
+        return doStartOperation(root, 1);
     }
 
-    private BuildOperationWorkerRegistry.Completion doStartOperation(LeaseHolder parent) {
+    @Override
+    public Completion operationStart(int leases) {
+        if (leases < 1) {
+            throw new IllegalArgumentException("An operation requires at least one lease.");
+        }
+        return doStartOperation(root, Math.min(leases, maxWorkerCount));
+    }
+
+    private BuildOperationWorkerRegistry.Completion doStartOperation(LeaseHolder parent, int leases) {
         synchronized (lock) {
             int workerId = counter++;
             Thread ownerThread = Thread.currentThread();
@@ -65,8 +73,8 @@ public class DefaultBuildOperationWorkerRegistry implements BuildOperationWorker
                 throw new UnsupportedOperationException("Cannot nest operations in the same thread. Each nested operation must run in its own thread.");
             }
 
-            DefaultOperation operation = new DefaultOperation(parent, workerId, ownerThread);
-            while (!parent.grantLease()) {
+            DefaultOperation operation = new DefaultOperation(parent, leases, workerId, ownerThread);
+            while (!parent.grantLeases(leases)) {
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("Worker {} waiting for a lease. Currently {} in use", operation.getDisplayName(), root.leasesInUse);
                 }
@@ -97,9 +105,9 @@ public class DefaultBuildOperationWorkerRegistry implements BuildOperationWorker
     private abstract class LeaseHolder {
         abstract String getDisplayName();
 
-        abstract boolean grantLease();
+        abstract boolean grantLeases(int count);
 
-        abstract void releaseLease();
+        abstract void releaseLeases(int count);
     }
 
     private class Root extends LeaseHolder {
@@ -110,28 +118,30 @@ public class DefaultBuildOperationWorkerRegistry implements BuildOperationWorker
         }
 
         @Override
-        boolean grantLease() {
-            if (leasesInUse >= maxWorkerCount) {
+        boolean grantLeases(int count) {
+            if (leasesInUse + count > maxWorkerCount && leasesInUse > 0) {
                 return false;
             }
-            leasesInUse++;
+            leasesInUse += count;
             return true;
         }
 
         @Override
-        void releaseLease() {
-            leasesInUse--;
+        void releaseLeases(int count) {
+            leasesInUse -= count;
         }
     }
 
     private class DefaultOperation extends LeaseHolder implements Completion, Operation {
         private final LeaseHolder parent;
+        private final int leases;
         private final int workerId;
         private final Thread ownerThread;
         int children;
 
-        DefaultOperation(LeaseHolder parent, int workerId, Thread ownerThread) {
+        DefaultOperation(LeaseHolder parent, int leases, int workerId, Thread ownerThread) {
             this.parent = parent;
+            this.leases = leases;
             this.workerId = workerId;
             this.ownerThread = ownerThread;
         }
@@ -142,25 +152,32 @@ public class DefaultBuildOperationWorkerRegistry implements BuildOperationWorker
         }
 
         @Override
-        boolean grantLease() {
-            if (children == 0 || root.grantLease()) {
-                children++;
+        boolean grantLeases(int count) {
+            // Children borrow the leases of this operation, on the assumption that this operation is not doing any real work while children are running
+            int fromRoot = leasesBeyondOwn(children + count) - leasesBeyondOwn(children);
+            if (fromRoot == 0 || root.grantLeases(fromRoot)) {
+                children += count;
                 return true;
             }
             return false;
         }
 
         @Override
-        void releaseLease() {
-            children--;
-            if (children > 0) {
-                root.releaseLease();
+        void releaseLeases(int count) {
+            int toRoot = leasesBeyondOwn(children) - leasesBeyondOwn(children - count);
+            children -= count;
+            if (toRoot > 0) {
+                root.releaseLeases(toRoot);
             }
         }
 
+        private int leasesBeyondOwn(int leasesInUse) {
+            return Math.max(0, leasesInUse - leases);
+        }
+
         @Override
         public Completion operationStart() {
-            return doStartOperation(this);
+            return doStartOperation(this, 1);
         }
 
         @Override
@@ -171,7 +188,7 @@ public class DefaultBuildOperationWorkerRegistry implements BuildOperationWorker
                     throw new UnsupportedOperationException("Must complete operation from owner thread.");
                 }
 
-                parent.releaseLease();
+                parent.releaseLeases(leases);
                 threads.remove(ownerThread);
                 lock.notifyAll();
 
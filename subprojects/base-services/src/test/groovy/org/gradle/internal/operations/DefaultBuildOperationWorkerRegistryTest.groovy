@@ -153,6 +153,65 @@ class DefaultBuildOperationWorkerRegistryTest extends ConcurrentSpec {
         registry?.stop()
     }
 
+    def "child operations borrow all leases reserved by parent"() {
+        def registry = new DefaultBuildOperationWorkerRegistry(2)
+
+        expect:
+        async {
+            start {
+                def cl = registry.operationStart(2)
+                def op = registry.current
+                start {
+                    def child = op.operationStart()
+                    instant.child1Started
+                    thread.blockUntil.child2Started
+                    child.operationFinish()
+                    instant.child1Finished
+                }
+                start {
+                    def child = op.operationStart()
+                    instant.child2Started
+                    thread.blockUntil.child1Started
+                    child.operationFinish()
+                    instant.child2Finished
+                }
+                thread.blockUntil.child1Finished
+                thread.blockUntil.child2Finished
+                cl.operationFinish()
+            }
+        }
+
+        cleanup:
+        registry?.stop()
+    }
+
+    def "operation that requires more leases than available starts when no other leases are in use"() {
+        def registry = new DefaultBuildOperationWorkerRegistry(2)
+
+        when:
+        async {
+            start {
+                def cl = registry.operationStart()
+                instant.worker1
+                thread.block()
+                instant.worker1Finished
+                cl.operationFinish()
+            }
+            start {
+                thread.blockUntil.worker1
+                def cl = registry.operationStart(3)
+                instant.worker2
+                cl.operationFinish()
+            }
+        }
+
+        then:
+        instant.worker2 > instant.worker1Finished
+
+        cleanup:
+        registry?.stop()
+    }
+
     def "fails when child operation completes after parent"() {
         def registry = new DefaultBuildOperationWorkerRegistry(2)
 
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections;
+
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.collections.jdk7.Jdk7DirectoryWalker;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.api.tasks.util.internal.PatternSpecFactory;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.internal.nativeintegration.services.FileSystems;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Walks a tree of 100 directories with 1000 files each, a tenth of which are excluded.
+ * <p>
+ * Run with {@code -prof gc}: {@code gc.alloc.rate.norm} is then the number of bytes allocated per 100k files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DirectoryWalkerBenchmark {
+
+    @Param({"jdk7", "default"})
+    String walker;
+
+    private File root;
+    private DirectoryWalker directoryWalker;
+    private Spec<FileTreeElement> spec;
+
+    @Setup(Level.Trial)
+    public void createTree() throws IOException {
+        root = Files.createTempDirectory("directory-walker-benchmark").toFile();
+        for (int i = 0; i < 100; i++) {
+            File dir = new File(root, "dir" + i + "/src");
+            dir.mkdirs();
+            for (int j = 0; j < 1000; j++) {
+                new File(dir, j % 10 == 0 ? "file" + j + ".tmp" : "file" + j + ".java").createNewFile();
+            }
+        }
+        FileSystem fileSystem = FileSystems.getDefault();
+        directoryWalker = walker.equals("jdk7") ? new Jdk7DirectoryWalker(fileSystem) : new DefaultDirectoryWalker(fileSystem);
+        spec = PatternSpecFactory.INSTANCE.createSpec(new PatternSet().exclude("**/*.tmp"));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTree() throws IOException {
+        Files.walkFileTree(root.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Benchmark
+    public int walk() {
+        final int[] count = new int[1];
+        directoryWalker.walkDir(root, new RelativePath(false), new FileVisitor() {
+            @Override
+            public void visitDir(FileVisitDetails dirDetails) {
+            }
+
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                count[0]++;
+            }
+        }, spec, new AtomicBoolean(), false);
+        return count[0];
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern;
+
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares matching a path against each of many exclude patterns with matching it against all of them at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PatternMatcherBenchmark {
+
+    @Param({"300"})
+    int patternCount;
+
+    private Spec<RelativePath> individual;
+    private Spec<RelativePath> combined;
+    private RelativePath[] paths;
+
+    @Setup
+    public void setup() {
+        List<String> patterns = new ArrayList<String>();
+        for (int i = 0; i < patternCount; i++) {
+            switch (i % 4) {
+                case 0:
+                    patterns.add("**/generated" + i + "/**");
+                    break;
+                case 1:
+                    patterns.add("src/module" + i + "/**/*.tmp");
+                    break;
+                case 2:
+                    patterns.add("**/*.ext" + i);
+                    break;
+                default:
+                    patterns.add("build/out" + i + "/");
+            }
+        }
+        List<Spec<RelativePath>> matchers = new ArrayList<Spec<RelativePath>>();
+        for (String pattern : patterns) {
+            matchers.add(PatternMatcherFactory.getPatternMatcher(false, true, pattern));
+        }
+        individual = Specs.union(matchers);
+        combined = PatternMatcherFactory.getPatternsMatcher(false, true, patterns);
+        paths = new RelativePath[]{
+            RelativePath.parse(true, "src/main/java/org/gradle/Foo.java"),
+            RelativePath.parse(false, "src/module5/sub"),
+            RelativePath.parse(true, "src/module5/sub/a.tmp"),
+            RelativePath.parse(true, "build/out3/classes/Foo.class"),
+            RelativePath.parse(true, "a/b/generated4/c/d.txt")
+        };
+    }
+
+    @Benchmark
+    public int individualPatterns() {
+        int matched = 0;
+        for (RelativePath path : paths) {
+            if (individual.isSatisfiedBy(path)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int combinedPatterns() {
+        int matched = 0;
+        for (RelativePath path : paths) {
+            if (combined.isSatisfiedBy(path)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
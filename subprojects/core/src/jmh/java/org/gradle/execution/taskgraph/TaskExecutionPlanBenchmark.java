@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Task;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.tasks.TaskContainerInternal;
+import org.gradle.api.tasks.TaskDependency;
+import org.gradle.initialization.DefaultBuildCancellationToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the execution plan of a synthetic task graph. Each task depends on up to three random earlier tasks, and every third task is requested.
+ * Optionally, every fifth task must run after one of the ten tasks before it, and every fiftieth task is finalized by a task of its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskExecutionPlanBenchmark {
+
+    @Param({"10000", "100000"})
+    int taskCount;
+
+    @Param({"false", "true"})
+    boolean finalizers;
+
+    @Param({"false", "true"})
+    boolean mustRunAfter;
+
+    private List<Task> requestedTasks;
+
+    @Setup
+    public void createGraph() {
+        Random random = new Random(42);
+        ProjectInternal project = proxy(ProjectInternal.class, new InvocationHandler() {
+            private final TaskContainerInternal tasks = proxy(TaskContainerInternal.class, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    return null;
+                }
+            });
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return method.getName().equals("getTasks") ? tasks : null;
+            }
+        });
+        List<SyntheticTask> tasks = new ArrayList<SyntheticTask>(taskCount);
+        requestedTasks = new ArrayList<Task>();
+        for (int i = 0; i < taskCount; i++) {
+            SyntheticTask task = new SyntheticTask(String.format(":task%06d", i), project);
+            for (int j = 0; j < 3 && i > 0; j++) {
+                task.dependencies.add(tasks.get(random.nextInt(i)).task);
+            }
+            if (mustRunAfter && i > 10 && i % 5 == 0) {
+                task.mustRunAfter.add(tasks.get(i - 1 - random.nextInt(10)).task);
+            }
+            if (finalizers && i % 50 == 0) {
+                task.finalizedBy.add(new SyntheticTask(String.format(":finalizer%06d", i), project).task);
+            }
+            if (i % 3 == 0) {
+                requestedTasks.add(task.task);
+            }
+            tasks.add(task);
+        }
+    }
+
+    @Benchmark
+    public DefaultTaskExecutionPlan buildExecutionPlan() {
+        DefaultTaskExecutionPlan executionPlan = new DefaultTaskExecutionPlan(new DefaultBuildCancellationToken(), false);
+        executionPlan.addToTaskGraph(requestedTasks);
+        executionPlan.determineExecutionPlan();
+        return executionPlan;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(TaskExecutionPlanBenchmark.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static TaskDependency dependency(final Set<Task> tasks) {
+        return new TaskDependency() {
+            public Set<? extends Task> getDependencies(Task task) {
+                return tasks;
+            }
+        };
+    }
+
+    /**
+     * A task that only knows its path and its relationships to other tasks.
+     */
+    private static class SyntheticTask implements InvocationHandler {
+        private final String path;
+        private final ProjectInternal project;
+        private final Set<Task> dependencies = new LinkedHashSet<Task>();
+        private final Set<Task> mustRunAfter = new LinkedHashSet<Task>();
+        private final Set<Task> finalizedBy = new LinkedHashSet<Task>();
+        private final TaskInternal task;
+
+        SyntheticTask(String path, ProjectInternal project) {
+            this.path = path;
+            this.project = project;
+            this.task = proxy(TaskInternal.class, this);
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (name.equals("compareTo")) {
+                return path.compareTo(((Task) args[0]).getPath());
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("getPath") || name.equals("toString")) {
+                return path;
+            } else if (name.equals("getProject")) {
+                return project;
+            } else if (name.equals("getTaskDependencies")) {
+                return dependency(dependencies);
+            } else if (name.equals("getMustRunAfter")) {
+                return dependency(mustRunAfter);
+            } else if (name.equals("getFinalizedBy")) {
+                return dependency(finalizedBy);
+            } else if (name.equals("getShouldRunAfter")) {
+                return dependency(Collections.<Task>emptySet());
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.filewatch;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.internal.filewatch.jdk7.Jdk7FileWatcherFactory;
+import org.gradle.internal.filewatch.jdk7.LinuxFileWatcherFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures watch registration time and event latency on a tree of {@code fanOut^1 + ... + fanOut^depth} directories (111110 by default).
+ * <p>
+ * On Linux, make sure {@code fs.inotify.max_user_watches} is large enough for the tree.
+ */
+@State(Scope.Benchmark)
+public class FileWatcherBenchmark {
+
+    @Param({"linux", "jdk7"})
+    String backend;
+
+    @Param({"10"})
+    int fanOut;
+
+    @Param({"5"})
+    int depth;
+
+    private final Random random = new Random();
+    private final LinkedBlockingQueue<File> changes = new LinkedBlockingQueue<File>();
+    private ExecutorService executor;
+    private FileWatcherFactory factory;
+    private File root;
+    private List<File> leafDirectories;
+    private FileWatcher watcher;
+
+    @Setup(Level.Trial)
+    public void createTree() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        factory = backend.equals("linux") ? new LinuxFileWatcherFactory(executor) : new Jdk7FileWatcherFactory(executor);
+        root = Files.createTempDirectory("file-watcher-benchmark").toFile();
+        leafDirectories = new ArrayList<File>();
+        createDirectories(root, depth);
+    }
+
+    private void createDirectories(File parent, int remainingDepth) {
+        if (remainingDepth == 0) {
+            leafDirectories.add(parent);
+            return;
+        }
+        for (int i = 0; i < fanOut; i++) {
+            File dir = new File(parent, "dir" + i);
+            dir.mkdir();
+            createDirectories(dir, remainingDepth - 1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTree() throws IOException {
+        executor.shutdownNow();
+        Files.walkFileTree(root.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Setup(Level.Iteration)
+    public void startWatcher() {
+        watcher = factory.watch(
+            new Action<Throwable>() {
+                @Override
+                public void execute(Throwable throwable) {
+                    throwable.printStackTrace();
+                }
+            },
+            new FileWatcherListener() {
+                @Override
+                public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+                    if (event.getType() != FileWatcherEvent.Type.UNDEFINED) {
+                        changes.offer(event.getFile());
+                    }
+                }
+            });
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopWatcher() {
+        watcher.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void registerTree() throws IOException {
+        watcher.watch(FileSystemSubset.builder().add(root).build());
+    }
+
+    @State(Scope.Benchmark)
+    public static class WatchedTree {
+        @Setup(Level.Iteration)
+        public void watch(FileWatcherBenchmark benchmark) throws IOException {
+            benchmark.watcher.watch(FileSystemSubset.builder().add(benchmark.root).build());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public File eventLatency(WatchedTree watchedTree) throws Exception {
+        File file = new File(leafDirectories.get(random.nextInt(leafDirectories.size())), "changed.txt");
+        changes.clear();
+        Files.write(file.toPath(), new byte[]{1});
+        File changed = changes.poll(10, TimeUnit.SECONDS);
+        file.delete();
+        return changed;
+    }
+}
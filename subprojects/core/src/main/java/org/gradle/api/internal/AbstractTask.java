@@ -41,6 +41,7 @@ import org.gradle.api.internal.tasks.TaskDependencyInternal;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.TaskExecutionContext;
 import org.gradle.api.internal.tasks.TaskMutator;
+import org.gradle.api.internal.tasks.TaskResourceRequirements;
 import org.gradle.api.internal.tasks.TaskStateInternal;
 import org.gradle.api.internal.tasks.execution.DefaultTaskExecutionContext;
 import org.gradle.api.internal.tasks.execution.TaskValidator;
@@ -117,6 +118,7 @@ public abstract class AbstractTask implements TaskInternal, DynamicObjectAware {
     private ObservableList observableActionList;
     private boolean impliesSubProjects;
     private boolean hasCustomActions;
+    private TaskResourceRequirements resourceRequirements = TaskResourceRequirements.DEFAULT;
 
     // toString() of AbstractTask is called a lot, so precompute.
     private final String toStringValue;
@@ -795,4 +797,12 @@ public abstract class AbstractTask implements TaskInternal, DynamicObjectAware {
     public boolean isHasCustomActions() {
         return hasCustomActions;
     }
+
+    public TaskResourceRequirements getResourceRequirements() {
+        return resourceRequirements;
+    }
+
+    public void setResourceRequirements(TaskResourceRequirements resourceRequirements) {
+        this.resourceRequirements = resourceRequirements;
+    }
 }
@@ -20,6 +20,7 @@ import org.gradle.api.Action;
 import org.gradle.api.Task;
 import org.gradle.api.internal.tasks.ContextAwareTaskAction;
 import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.TaskResourceRequirements;
 import org.gradle.api.internal.tasks.TaskStateInternal;
 import org.gradle.api.internal.tasks.execution.TaskValidator;
 import org.gradle.api.specs.Spec;
@@ -77,4 +78,11 @@ public interface TaskInternal extends Task, Configurable<Task> {
     void appendParallelSafeAction(Action<? super Task> action);
 
     boolean isHasCustomActions();
+
+    /**
+     * Returns the machine resources this task uses while it executes.
+     */
+    TaskResourceRequirements getResourceRequirements();
+
+    void setResourceRequirements(TaskResourceRequirements resourceRequirements);
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.Task;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.execution.taskgraph.TaskExecutionTimeHistory;
+import org.gradle.internal.Factory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.LONG_SERIALIZER;
+
+public class CacheBackedTaskExecutionTimeHistory implements TaskExecutionTimeHistory {
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    private final PersistentIndexedCache<String, Long> executionTimeCache;
+
+    public CacheBackedTaskExecutionTimeHistory(TaskArtifactStateCacheAccess cacheAccess) {
+        this.cacheAccess = cacheAccess;
+        executionTimeCache = cacheAccess.createCache("taskExecutionTimes", String.class, LONG_SERIALIZER);
+    }
+
+    @Override
+    public Map<Task, Long> getPreviousExecutionTimes(final Collection<? extends Task> tasks) {
+        return cacheAccess.useCache("Load task execution times", new Factory<Map<Task, Long>>() {
+            public Map<Task, Long> create() {
+                Map<Task, Long> executionTimes = new HashMap<Task, Long>();
+                for (Task task : tasks) {
+                    Long executionTime = executionTimeCache.get(task.getPath());
+                    if (executionTime != null) {
+                        executionTimes.put(task, executionTime);
+                    }
+                }
+                return executionTimes;
+            }
+        });
+    }
+
+    @Override
+    public void recordExecutionTime(final Task task, final long executionTime) {
+        cacheAccess.useCache("Update task execution time", new Runnable() {
+            public void run() {
+                executionTimeCache.put(task.getPath(), executionTime);
+            }
+        });
+    }
+}
@@ -25,13 +25,22 @@ import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.FileTreeInternal;
 import org.gradle.api.internal.file.collections.DefaultFileCollectionResolveContext;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.file.collections.FileTreeAdapter;
 
 import java.util.Collection;
 import java.util.List;
 
 public class DefaultFileCollectionSnapshotter extends AbstractFileCollectionSnapshotter {
+    private final FileSystemMirror fileSystemMirror;
+
     public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver) {
+        this(snapshotter, cacheAccess, stringInterner, fileResolver, new NoOpFileSystemMirror());
+    }
+
+    public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver, FileSystemMirror fileSystemMirror) {
         super(snapshotter, cacheAccess, stringInterner, fileResolver);
+        this.fileSystemMirror = fileSystemMirror;
     }
 
     @Override
@@ -47,7 +56,7 @@ public class DefaultFileCollectionSnapshotter extends AbstractFileCollectionSnap
 
     private Collection<? extends FileTreeElement> visitTreeForSnapshotting(FileTreeInternal fileTree) {
         final ImmutableList.Builder<FileTreeElement> fileTreeElements = ImmutableList.builder();
-        fileTree.visitTreeOrBackingFile(new FileVisitor() {
+        FileVisitor visitor = new FileVisitor() {
             @Override
             public void visitDir(FileVisitDetails dirDetails) {
                 fileTreeElements.add(dirDetails);
@@ -57,7 +66,12 @@ public class DefaultFileCollectionSnapshotter extends AbstractFileCollectionSnap
             public void visitFile(FileVisitDetails fileDetails) {
                 fileTreeElements.add(fileDetails);
             }
-        });
+        };
+        if (fileTree instanceof FileTreeAdapter && ((FileTreeAdapter) fileTree).getTree() instanceof DirectoryFileTree) {
+            fileSystemMirror.visit((DirectoryFileTree) ((FileTreeAdapter) fileTree).getTree(), visitor);
+        } else {
+            fileTree.visitTreeOrBackingFile(visitor);
+        }
         return fileTreeElements.build();
     }
 }
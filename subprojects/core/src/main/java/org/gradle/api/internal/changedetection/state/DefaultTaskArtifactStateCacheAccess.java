@@ -24,6 +24,8 @@ import org.gradle.cache.internal.CacheDecorator;
 import org.gradle.cache.internal.FileLockManager;
 import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.Serializer;
+import org.gradle.profile.CacheLockWaitTracer;
+import org.gradle.profile.TraceListener;
 
 import java.io.Closeable;
 
@@ -32,9 +34,15 @@ import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCacheAccess, Closeable {
     private final CacheDecorator inMemoryDecorator;
     private final PersistentCache cache;
+    private final CacheLockWaitTracer lockWaitTracer;
 
     public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator) {
+        this(gradle, cacheRepository, decorator, TraceListener.NOOP);
+    }
+
+    public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator, TraceListener traceListener) {
         this.inMemoryDecorator = decorator;
+        this.lockWaitTracer = new CacheLockWaitTracer("task history cache", traceListener);
         cache = cacheRepository
                 .cache(gradle, "taskArtifacts")
                 .withDisplayName("task history cache")
@@ -53,11 +61,11 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
     }
 
     public <T> T useCache(String operationDisplayName, Factory<? extends T> action) {
-        return cache.useCache(operationDisplayName, action);
+        return cache.useCache(operationDisplayName, lockWaitTracer.trace(action));
     }
 
     public void useCache(String operationDisplayName, Runnable action) {
-        cache.useCache(operationDisplayName, action);
+        cache.useCache(operationDisplayName, lockWaitTracer.trace(action));
     }
 
     public <T> T longRunningOperation(String operationDisplayName, Factory<? extends T> action) {
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+
+import java.io.File;
+
+/**
+ * Provides the contents of directory trees, potentially without accessing the file system when the tree is known not to have changed.
+ */
+public interface FileSystemMirror {
+    /**
+     * Visits the elements of the given tree, in the same way as {@link DirectoryFileTree#visit(FileVisitor)}.
+     */
+    void visit(DirectoryFileTree tree, FileVisitor visitor);
+
+    /**
+     * Discards anything known about the given files and their descendants. Called when the build itself changes the files, for example when a task writes its outputs.
+     */
+    void invalidate(Iterable<File> files);
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.Action;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.cache.HeapProportionalCacheSizer;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.api.tasks.util.internal.PatternSets;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.filewatch.FileWatcher;
+import org.gradle.internal.filewatch.FileWatcherEvent;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.FileWatcherListener;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.internal.nativeintegration.services.FileSystems;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the contents of visited directory trees in memory for the lifetime of the daemon, so that unchanged trees can be visited without accessing the file system.
+ * <p>
+ * Each mirrored tree is watched for changes. A tree is discarded as soon as the watcher reports a change to the tree, and everything is discarded
+ * when the watcher reports that it lost track of changes or stops. Changes made by the build itself are reported via {@link #invalidate(Iterable)}.
+ * A tree is only mirrored when it has been visited after the watch for it was registered, and no change has been reported while it was visited.
+ */
+public class WatchingFileSystemMirror implements FileSystemMirror, Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(WatchingFileSystemMirror.class);
+    private static final int MAX_MIRRORED_ELEMENTS = new HeapProportionalCacheSizer().scaleCacheSize(1000000);
+    private static final Class<?> INTERNAL_PATTERN_SET_TYPE = PatternSets.getNonCachingPatternSetFactory().create().getClass();
+
+    private final FileWatcherFactory fileWatcherFactory;
+    private final FileSystem fileSystem = FileSystems.getDefault();
+    private final Object lock = new Object();
+    private final NavigableMap<String, Map<TreeKey, List<MirroredElement>>> trees = new TreeMap<String, Map<TreeKey, List<MirroredElement>>>();
+    private final List<Recording> recordings = new ArrayList<Recording>();
+    private int mirroredElements;
+    private FileWatcher watcher;
+
+    public WatchingFileSystemMirror(FileWatcherFactory fileWatcherFactory) {
+        this.fileWatcherFactory = fileWatcherFactory;
+    }
+
+    @Override
+    public void visit(DirectoryFileTree tree, FileVisitor visitor) {
+        PatternSet patterns = tree.getPatterns();
+        if (!isMirrorable(patterns)) {
+            tree.visit(visitor);
+            return;
+        }
+
+        String root = tree.getDir().getAbsolutePath();
+        TreeKey key = new TreeKey(patterns);
+        List<MirroredElement> elements;
+        Recording recording = null;
+        FileWatcher currentWatcher;
+        synchronized (lock) {
+            currentWatcher = getOrStartWatcher();
+            elements = lookup(root, key);
+            if (elements == null) {
+                recording = new Recording(root);
+                recordings.add(recording);
+            }
+        }
+
+        if (recording != null) {
+            try {
+                // Register the watch before visiting, so that any change made after the visit produces an event
+                currentWatcher.watch(FileSystemSubset.builder().add(tree.getDir()).build());
+                elements = record(tree);
+            } catch (IOException e) {
+                LOGGER.debug("Could not watch {}, not mirroring it.", tree.getDir(), e);
+                recording.invalidated = true;
+                elements = record(tree);
+            } finally {
+                synchronized (lock) {
+                    recordings.remove(recording);
+                }
+            }
+            synchronized (lock) {
+                if (!recording.invalidated && watcher == currentWatcher && currentWatcher.isRunning()) {
+                    store(root, key, elements);
+                }
+            }
+        }
+
+        replay(elements, visitor);
+    }
+
+    @Override
+    public void invalidate(Iterable<File> files) {
+        synchronized (lock) {
+            if (trees.isEmpty() && recordings.isEmpty()) {
+                return;
+            }
+            for (File file : files) {
+                invalidate(file);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        FileWatcher currentWatcher;
+        synchronized (lock) {
+            currentWatcher = watcher;
+            watcher = null;
+            invalidateAll();
+        }
+        if (currentWatcher != null) {
+            currentWatcher.stop();
+        }
+    }
+
+    private static boolean isMirrorable(PatternSet patterns) {
+        // Other pattern sets, such as intersections, are not fully described by their includes and excludes
+        Class<?> type = patterns.getClass();
+        return (type == PatternSet.class || type == INTERNAL_PATTERN_SET_TYPE) && patterns.getIncludeSpecs().isEmpty() && patterns.getExcludeSpecs().isEmpty();
+    }
+
+    private List<MirroredElement> lookup(String root, TreeKey key) {
+        Map<TreeKey, List<MirroredElement>> treesForRoot = trees.get(root);
+        return treesForRoot == null ? null : treesForRoot.get(key);
+    }
+
+    private void store(String root, TreeKey key, List<MirroredElement> elements) {
+        if (mirroredElements + elements.size() > MAX_MIRRORED_ELEMENTS) {
+            LOGGER.debug("Not mirroring {}, the mirror is full.", root);
+            return;
+        }
+        Map<TreeKey, List<MirroredElement>> treesForRoot = trees.get(root);
+        if (treesForRoot == null) {
+            treesForRoot = new HashMap<TreeKey, List<MirroredElement>>();
+            trees.put(root, treesForRoot);
+        }
+        List<MirroredElement> previous = treesForRoot.put(key, elements);
+        mirroredElements += elements.size() - (previous == null ? 0 : previous.size());
+    }
+
+    private FileWatcher getOrStartWatcher() {
+        if (watcher == null || !watcher.isRunning()) {
+            // Nothing mirrored so far is covered by a watch anymore
+            invalidateAll();
+            watcher = fileWatcherFactory.watch(
+                new Action<Throwable>() {
+                    @Override
+                    public void execute(Throwable throwable) {
+                        LOGGER.debug("Watching for changes failed, discarding the file system mirror.", throwable);
+                        synchronized (lock) {
+                            invalidateAll();
+                        }
+                    }
+                },
+                new FileWatcherListener() {
+                    @Override
+                    public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+                        synchronized (lock) {
+                            if (event.getFile() == null) {
+                                invalidateAll();
+                            } else {
+                                invalidate(event.getFile());
+                            }
+                        }
+                    }
+                }
+            );
+        }
+        return watcher;
+    }
+
+    private void invalidate(File file) {
+        String path = file.getAbsolutePath();
+        for (File ancestor = file.getAbsoluteFile(); ancestor != null; ancestor = ancestor.getParentFile()) {
+            removeTrees(ancestor.getAbsolutePath());
+        }
+        String prefix = path.endsWith(File.separator) ? path : path + File.separatorChar;
+        Iterator<Map.Entry<String, Map<TreeKey, List<MirroredElement>>>> descendants = trees.subMap(prefix, true, prefix + Character.MAX_VALUE, true).entrySet().iterator();
+        while (descendants.hasNext()) {
+            mirroredElements -= countElements(descendants.next().getValue());
+            descendants.remove();
+        }
+        for (Recording recording : recordings) {
+            if (recording.root.equals(path) || recording.root.startsWith(prefix) || path.startsWith(recording.root + File.separatorChar)) {
+                recording.invalidated = true;
+            }
+        }
+    }
+
+    private void removeTrees(String root) {
+        Map<TreeKey, List<MirroredElement>> removed = trees.remove(root);
+        if (removed != null) {
+            mirroredElements -= countElements(removed);
+        }
+    }
+
+    private void invalidateAll() {
+        trees.clear();
+        mirroredElements = 0;
+        for (Recording recording : recordings) {
+            recording.invalidated = true;
+        }
+    }
+
+    private static int countElements(Map<TreeKey, List<MirroredElement>> treesForRoot) {
+        int count = 0;
+        for (List<MirroredElement> elements : treesForRoot.values()) {
+            count += elements.size();
+        }
+        return count;
+    }
+
+    private static List<MirroredElement> record(DirectoryFileTree tree) {
+        final ImmutableList.Builder<MirroredElement> elements = ImmutableList.builder();
+        tree.visit(new FileVisitor() {
+            @Override
+            public void visitDir(FileVisitDetails dirDetails) {
+                elements.add(new MirroredElement(dirDetails.getFile(), dirDetails.getRelativePath(), true, dirDetails.getLastModified(), 0));
+            }
+
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                elements.add(new MirroredElement(fileDetails.getFile(), fileDetails.getRelativePath(), false, fileDetails.getLastModified(), fileDetails.getSize()));
+            }
+        });
+        return elements.build();
+    }
+
+    private void replay(List<MirroredElement> elements, FileVisitor visitor) {
+        AtomicBoolean stopFlag = new AtomicBoolean();
+        for (int i = 0; !stopFlag.get() && i < elements.size(); i++) {
+            MirroredElement element = elements.get(i);
+            FileVisitDetails details = new DefaultFileVisitDetails(element.file, element.relativePath, stopFlag, fileSystem, fileSystem, element.directory, element.lastModified, element.size);
+            if (element.directory) {
+                visitor.visitDir(details);
+            } else {
+                visitor.visitFile(details);
+            }
+        }
+    }
+
+    private static class Recording {
+        private final String root;
+        private boolean invalidated;
+
+        private Recording(String root) {
+            this.root = root;
+        }
+    }
+
+    private static class MirroredElement {
+        private final File file;
+        private final RelativePath relativePath;
+        private final boolean directory;
+        private final long lastModified;
+        private final long size;
+
+        private MirroredElement(File file, RelativePath relativePath, boolean directory, long lastModified, long size) {
+            this.file = file;
+            this.relativePath = relativePath;
+            this.directory = directory;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+    }
+
+    private static class TreeKey {
+        private final ImmutableSet<String> includes;
+        private final ImmutableSet<String> excludes;
+        private final boolean caseSensitive;
+
+        private TreeKey(PatternSet patterns) {
+            this.includes = ImmutableSet.copyOf(patterns.getIncludes());
+            this.excludes = ImmutableSet.copyOf(patterns.getExcludes());
+            this.caseSensitive = patterns.isCaseSensitive();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TreeKey other = (TreeKey) o;
+            return caseSensitive == other.caseSensitive && includes.equals(other.includes) && excludes.equals(other.excludes);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = includes.hashCode();
+            result = 31 * result + excludes.hashCode();
+            result = 31 * result + (caseSensitive ? 1 : 0);
+            return result;
+        }
+    }
+}
@@ -21,7 +21,6 @@ import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
-import org.gradle.api.internal.file.DefaultFileVisitDetails;
 import org.gradle.api.specs.Spec;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 
@@ -48,12 +47,13 @@ public class DefaultDirectoryWalker implements DirectoryWalker {
             throw new GradleException(String.format("Could not list contents of '%s'.", file));
         }
         List<FileVisitDetails> dirs = new ArrayList<FileVisitDetails>();
+        ReusableFileTreeElement candidate = new ReusableFileTreeElement(fileSystem);
         for (int i = 0; !stopFlag.get() && i < children.length; i++) {
             File child = children[i];
             boolean isFile = child.isFile();
-            RelativePath childPath = path.append(isFile, child.getName());
-            FileVisitDetails details = new DefaultFileVisitDetails(child, childPath, stopFlag, fileSystem, fileSystem, !isFile);
-            if (DirectoryFileTree.isAllowed(details, spec)) {
+            candidate.reset(child, path.append(isFile, child.getName()), !isFile);
+            if (DirectoryFileTree.isAllowed(candidate, spec)) {
+                FileVisitDetails details = candidate.toVisitDetails(stopFlag);
                 if (isFile) {
                     visitor.visitFile(details);
                 } else {
@@ -19,13 +19,20 @@ package org.gradle.api.internal.file.collections;
 import com.google.common.base.Charsets;
 import org.gradle.api.JavaVersion;
 import org.gradle.api.internal.file.collections.jdk7.Jdk7DirectoryWalker;
+import org.gradle.api.internal.file.collections.jdk7.ParallelDirectoryWalker;
 import org.gradle.internal.Factory;
 import org.gradle.internal.nativeintegration.services.FileSystems;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
+import org.gradle.internal.util.SystemPropertiesUtil;
 
 import java.nio.charset.Charset;
 
 public class DefaultDirectoryWalkerFactory implements Factory<DirectoryWalker> {
+    /**
+     * Walks directories on several threads. The include and exclude specs of the trees are then called concurrently.
+     */
+    public static final String PARALLEL_WALKING_PROPERTY = "org.gradle.internal.parallelDirectoryWalking";
+
     private final JavaVersion javaVersion;
     private DirectoryWalker instance;
 
@@ -49,6 +56,9 @@ public class DefaultDirectoryWalkerFactory implements Factory<DirectoryWalker> {
     private DirectoryWalker createInstance() {
         FileSystem fileSystem = FileSystems.getDefault();
         if (javaVersion.isJava8Compatible() || (javaVersion.isJava7Compatible() && defaultEncodingContainsPlatformEncoding())) {
+            if (SystemPropertiesUtil.isEnabled(PARALLEL_WALKING_PROPERTY)) {
+                return new ParallelDirectoryWalker(fileSystem);
+            }
             return new Jdk7DirectoryWalker(fileSystem);
         } else {
             return new DefaultDirectoryWalker(fileSystem);
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections;
+
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The entry a {@link DirectoryWalker} currently offers to the spec. A single instance is reused for every entry of a walk, so that nothing is
+ * allocated for entries that the spec rejects. Entries that are visited are copied into a new {@link DefaultFileVisitDetails}, as visitors may
+ * hold on to them.
+ *
+ * <p>When the walker already knows the timestamp and size of an entry, they are passed on to the visit details. Otherwise they are only read
+ * from the file system when asked for. Likewise, the {@link File} of an entry reset from a path is only created when asked for.</p>
+ */
+public class ReusableFileTreeElement extends AbstractFileTreeElement {
+    private final FileSystem fileSystem;
+    private String path;
+    private File file;
+    private RelativePath relativePath;
+    private boolean isDirectory;
+    private boolean hasAttributes;
+    private long lastModified;
+    private long size;
+
+    public ReusableFileTreeElement(FileSystem fileSystem) {
+        super(fileSystem);
+        this.fileSystem = fileSystem;
+    }
+
+    /**
+     * Offers the given file, whose timestamp and size have not been read yet.
+     */
+    public void reset(File file, RelativePath relativePath, boolean isDirectory) {
+        this.path = null;
+        this.file = file;
+        this.relativePath = relativePath;
+        this.isDirectory = isDirectory;
+        this.hasAttributes = false;
+    }
+
+    /**
+     * Offers the file with the given path, whose timestamp and size are already known.
+     */
+    public void reset(String path, RelativePath relativePath, boolean isDirectory, long lastModified, long size) {
+        this.path = path;
+        this.file = null;
+        this.relativePath = relativePath;
+        this.isDirectory = isDirectory;
+        this.hasAttributes = true;
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
+    public FileVisitDetails toVisitDetails(AtomicBoolean stopFlag) {
+        if (hasAttributes) {
+            return new DefaultFileVisitDetails(getFile(), relativePath, stopFlag, fileSystem, fileSystem, isDirectory, lastModified, size);
+        }
+        return new DefaultFileVisitDetails(file, relativePath, stopFlag, fileSystem, fileSystem, isDirectory);
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "file '" + getFile() + "'";
+    }
+
+    @Override
+    public File getFile() {
+        if (file == null) {
+            file = new File(path);
+        }
+        return file;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return isDirectory;
+    }
+
+    @Override
+    public long getLastModified() {
+        return hasAttributes ? lastModified : file.lastModified();
+    }
+
+    @Override
+    public long getSize() {
+        return hasAttributes ? size : file.length();
+    }
+
+    @Override
+    public InputStream open() {
+        return GFileUtils.openInputStream(getFile());
+    }
+
+    @Override
+    public RelativePath getRelativePath() {
+        return relativePath;
+    }
+
+    @Override
+    public int getMode() {
+        return fileSystem.getUnixMode(getFile());
+    }
+}
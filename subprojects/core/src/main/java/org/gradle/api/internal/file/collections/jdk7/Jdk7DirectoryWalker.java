@@ -23,6 +23,7 @@ import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.DefaultFileVisitDetails;
 import org.gradle.api.internal.file.collections.DirectoryWalker;
+import org.gradle.api.internal.file.collections.ReusableFileTreeElement;
 import org.gradle.api.specs.Spec;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 
@@ -30,9 +31,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.EnumSet;
-import java.util.LinkedList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Jdk7DirectoryWalker implements DirectoryWalker {
@@ -48,16 +49,22 @@ public class Jdk7DirectoryWalker implements DirectoryWalker {
 
     @Override
     public void walkDir(final File rootDir, final RelativePath rootPath, final FileVisitor visitor, final Spec<FileTreeElement> spec, final AtomicBoolean stopFlag, final boolean postfix) {
-        final Deque<FileVisitDetails> directoryDetailsHolder = new LinkedList<FileVisitDetails>();
+        final Deque<FileVisitDetails> directoryDetailsHolder = new ArrayDeque<FileVisitDetails>();
+        final ReusableFileTreeElement candidate = new ReusableFileTreeElement(fileSystem);
 
         try {
             Files.walkFileTree(rootDir.toPath(), EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new java.nio.file.FileVisitor<Path>() {
                 @Override
                 public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    FileVisitDetails details = getFileVisitDetails(dir, attrs, true);
-                    if (directoryDetailsHolder.size()==0 || isAllowed(details, spec)) {
+                    if (directoryDetailsHolder.isEmpty()) {
+                        directoryDetailsHolder.push(new DefaultFileVisitDetails(rootDir, rootPath, stopFlag, fileSystem, fileSystem, true, attrs.lastModifiedTime().toMillis(), attrs.size()));
+                        return checkStopFlag();
+                    }
+                    reset(dir, attrs, true);
+                    if (isAllowed(candidate, spec)) {
+                        FileVisitDetails details = candidate.toVisitDetails(stopFlag);
                         directoryDetailsHolder.push(details);
-                        if (directoryDetailsHolder.size() > 1 && !postfix) {
+                        if (!postfix) {
                             visitor.visitDir(details);
                         }
                         return checkStopFlag();
@@ -72,22 +79,23 @@ public class Jdk7DirectoryWalker implements DirectoryWalker {
 
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    FileVisitDetails details = getFileVisitDetails(file, attrs, false);
-                    if (isAllowed(details, spec)) {
+                    reset(file, attrs, false);
+                    if (isAllowed(candidate, spec)) {
                         if (attrs.isSymbolicLink()) {
                             // when FileVisitOption.FOLLOW_LINKS, we only get here when link couldn't be followed
                             throw new GradleException(String.format("Could not list contents of '%s'. Couldn't follow symbolic link.", file));
                         }
-                        visitor.visitFile(details);
+                        visitor.visitFile(candidate.toVisitDetails(stopFlag));
                     }
                     return checkStopFlag();
                 }
 
-                private FileVisitDetails getFileVisitDetails(Path file, BasicFileAttributes attrs, boolean isDirectory) {
-                    File child = file.toFile();
-                    FileVisitDetails dirDetails = directoryDetailsHolder.peek();
-                    RelativePath childPath = dirDetails != null ? dirDetails.getRelativePath().append(!isDirectory, child.getName()) : rootPath;
-                    return new DefaultFileVisitDetails(child, childPath, stopFlag, fileSystem, fileSystem, isDirectory, attrs.lastModifiedTime().toMillis(), attrs.size());
+                private void reset(Path file, BasicFileAttributes attrs, boolean isDirectory) {
+                    // Path.toString() is cached by the path, whereas Path.getFileName() creates a new path
+                    String pathString = file.toString();
+                    String name = pathString.substring(pathString.lastIndexOf(File.separatorChar) + 1);
+                    RelativePath parentPath = directoryDetailsHolder.peek().getRelativePath();
+                    candidate.reset(pathString, parentPath.append(!isDirectory, name), isDirectory, attrs.lastModifiedTime().toMillis(), attrs.size());
                 }
 
                 @Override
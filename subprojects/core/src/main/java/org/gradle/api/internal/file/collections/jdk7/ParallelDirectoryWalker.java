@@ -0,0 +1,303 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections.jdk7;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.internal.file.collections.DirectoryWalker;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lists directories and applies the spec to their entries on a fork/join pool, while the visitor is notified on the calling thread.
+ * <p>
+ * The visit order does not depend on the file system or on thread scheduling: all files of a directory are visited before
+ * any of its child directories, and the entries of a directory are visited in the order of their names.
+ * The spec may be called concurrently, so it must be thread safe.
+ */
+public class ParallelDirectoryWalker implements DirectoryWalker {
+    // Subdirectories are no longer listed ahead of the visitor once this many entries are waiting to be visited
+    private static final int MAX_PENDING_ENTRIES = 100000;
+    private static final Comparator<FileVisitDetails> BY_NAME = new Comparator<FileVisitDetails>() {
+        @Override
+        public int compare(FileVisitDetails o1, FileVisitDetails o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    private final FileSystem fileSystem;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a walker that uses the pool shared by all walkers of the process.
+     */
+    public ParallelDirectoryWalker(FileSystem fileSystem) {
+        this(fileSystem, SharedPool.INSTANCE);
+    }
+
+    /**
+     * Creates a walker that uses the given pool. The caller is responsible for shutting the pool down.
+     */
+    public ParallelDirectoryWalker(FileSystem fileSystem, ForkJoinPool pool) {
+        this.fileSystem = fileSystem;
+        this.pool = pool;
+    }
+
+    @Override
+    public void walkDir(File rootDir, RelativePath rootPath, FileVisitor visitor, Spec<FileTreeElement> spec, AtomicBoolean stopFlag, boolean postfix) {
+        Walk walk = new Walk(spec, stopFlag);
+        ListDirectory root = new ListDirectory(walk, rootDir.toPath(), rootPath, null);
+        root.start();
+        visitContents(root, visitor, stopFlag, postfix);
+    }
+
+    private void visitContents(ListDirectory directory, FileVisitor visitor, AtomicBoolean stopFlag, boolean postfix) {
+        Listing listing = directory.getListing();
+        for (FileVisitDetails file : listing.files) {
+            if (stopFlag.get()) {
+                return;
+            }
+            visitor.visitFile(file);
+            directory.walk.pendingEntries.decrementAndGet();
+        }
+        for (int i = 0; i < listing.directories.size(); i++) {
+            if (stopFlag.get()) {
+                return;
+            }
+            FileVisitDetails details = listing.directories.get(i);
+            directory.walk.pendingEntries.decrementAndGet();
+            if (!postfix) {
+                visitor.visitDir(details);
+            }
+            visitContents(listing.children.get(i), visitor, stopFlag, postfix);
+            if (postfix && !stopFlag.get()) {
+                visitor.visitDir(details);
+            }
+        }
+    }
+
+    private static class Walk {
+        private final Spec<FileTreeElement> spec;
+        private final AtomicBoolean stopFlag;
+        private final AtomicInteger pendingEntries = new AtomicInteger();
+
+        Walk(Spec<FileTreeElement> spec, AtomicBoolean stopFlag) {
+            this.spec = spec;
+            this.stopFlag = stopFlag;
+        }
+    }
+
+    private static class Listing {
+        private final List<FileVisitDetails> files;
+        private final List<FileVisitDetails> directories;
+        private final List<ListDirectory> children;
+        private final RuntimeException failure;
+
+        Listing(List<FileVisitDetails> files, List<FileVisitDetails> directories, List<ListDirectory> children) {
+            this.files = files;
+            this.directories = directories;
+            this.children = children;
+            this.failure = null;
+        }
+
+        Listing(RuntimeException failure) {
+            this.files = Collections.emptyList();
+            this.directories = Collections.emptyList();
+            this.children = Collections.emptyList();
+            this.failure = failure;
+        }
+    }
+
+    private class ListDirectory extends RecursiveTask<Listing> {
+        private final Walk walk;
+        private final Path dir;
+        private final RelativePath path;
+        private final Ancestor ancestors;
+        private boolean started;
+
+        ListDirectory(Walk walk, Path dir, RelativePath path, Ancestor ancestors) {
+            this.walk = walk;
+            this.dir = dir;
+            this.path = path;
+            this.ancestors = ancestors;
+        }
+
+        void start() {
+            started = true;
+            if (inForkJoinPool()) {
+                fork();
+            } else {
+                pool.execute(this);
+            }
+        }
+
+        Listing getListing() {
+            // Directories that were not listed ahead are listed by the visiting thread
+            Listing listing = started ? join() : invoke();
+            if (listing.failure != null) {
+                throw listing.failure;
+            }
+            return listing;
+        }
+
+        @Override
+        protected Listing compute() {
+            // Failures are handed over as they are, as the fork/join framework would replace an exception that is rethrown on another thread
+            try {
+                return list();
+            } catch (RuntimeException e) {
+                return new Listing(e);
+            }
+        }
+
+        private Listing list() {
+            List<FileVisitDetails> files = new ArrayList<FileVisitDetails>();
+            List<FileVisitDetails> directories = new ArrayList<FileVisitDetails>();
+            List<ListDirectory> children = new ArrayList<ListDirectory>();
+            if (walk.stopFlag.get()) {
+                return new Listing(files, directories, children);
+            }
+
+            Ancestor self = new Ancestor(ancestors, readAttributes(dir, true).fileKey());
+            DirectoryStream<Path> stream;
+            try {
+                stream = Files.newDirectoryStream(dir);
+            } catch (IOException e) {
+                throw new GradleException(String.format("Could not list contents of directory '%s'.", dir), e);
+            }
+            try {
+                for (Path child : stream) {
+                    if (walk.stopFlag.get()) {
+                        break;
+                    }
+                    visitEntry(child, self, files, directories);
+                }
+            } finally {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+
+            Collections.sort(files, BY_NAME);
+            Collections.sort(directories, BY_NAME);
+            walk.pendingEntries.addAndGet(files.size() + directories.size());
+            for (FileVisitDetails directory : directories) {
+                ListDirectory child = new ListDirectory(walk, directory.getFile().toPath(), directory.getRelativePath(), self);
+                if (walk.pendingEntries.get() < MAX_PENDING_ENTRIES) {
+                    child.start();
+                }
+                children.add(child);
+            }
+            return new Listing(files, directories, children);
+        }
+
+        private void visitEntry(Path child, Ancestor self, List<FileVisitDetails> files, List<FileVisitDetails> directories) {
+            BasicFileAttributes attributes = readAttributes(child, false);
+            boolean isDirectory = attributes.isDirectory();
+            if (isDirectory && self.contains(attributes.fileKey())) {
+                // A symbolic link pointing to one of its parents
+                return;
+            }
+            File file = child.toFile();
+            RelativePath childPath = path.append(!isDirectory, file.getName());
+            FileVisitDetails details = new DefaultFileVisitDetails(file, childPath, walk.stopFlag, fileSystem, fileSystem, isDirectory, attributes.lastModifiedTime().toMillis(), attributes.size());
+            if (!walk.spec.isSatisfiedBy(details)) {
+                return;
+            }
+            if (attributes.isSymbolicLink()) {
+                // we only get here when the link couldn't be followed
+                throw new GradleException(String.format("Could not list contents of '%s'. Couldn't follow symbolic link.", child));
+            }
+            if (isDirectory) {
+                directories.add(details);
+            } else {
+                files.add(details);
+            }
+        }
+
+        private BasicFileAttributes readAttributes(Path file, boolean mustExist) {
+            try {
+                return Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (IOException e) {
+                if (mustExist) {
+                    throw new GradleException(String.format("Could not read path '%s'.", file), e);
+                }
+            }
+            try {
+                return Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                throw new GradleException(String.format("Could not read path '%s'.", file), e);
+            }
+        }
+    }
+
+    /**
+     * The pool shared by all walkers, created when the first walker is. The pool does not need to be shut down, as its threads are daemon threads
+     * that terminate once they have been idle for a while.
+     */
+    private static class SharedPool {
+        // Listing is mostly waiting for the file system, so use more threads than there are processors
+        static final ForkJoinPool INSTANCE = new ForkJoinPool(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * The chain of directories from the root of the walk, used to detect symbolic link cycles.
+     */
+    private static class Ancestor {
+        private final Ancestor parent;
+        private final Object fileKey;
+
+        Ancestor(Ancestor parent, Object fileKey) {
+            this.parent = parent;
+            this.fileKey = fileKey;
+        }
+
+        boolean contains(Object key) {
+            if (key == null) {
+                return false;
+            }
+            for (Ancestor current = this; current != null; current = current.parent) {
+                if (key.equals(current.fileKey)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
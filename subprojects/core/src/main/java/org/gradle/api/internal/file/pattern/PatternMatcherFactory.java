@@ -20,6 +20,7 @@ import org.gradle.api.file.RelativePath;
 import org.gradle.api.specs.Spec;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class PatternMatcherFactory {
@@ -32,17 +33,29 @@ public class PatternMatcherFactory {
         return new PathMatcherBackedSpec(partialMatchDirs, pathMatcher);
     }
 
+    /**
+     * Returns a matcher that is satisfied when any of the given patterns is satisfied, testing all patterns in a single pass over the path.
+     */
+    public static Spec<RelativePath> getPatternsMatcher(boolean partialMatchDirs, boolean caseSensitive, Collection<String> patterns) {
+        if (patterns.size() == 1) {
+            return getPatternMatcher(partialMatchDirs, caseSensitive, patterns.iterator().next());
+        }
+        return new PathMatcherBackedSpec(partialMatchDirs, new PatternTriePathMatcher(caseSensitive, patterns));
+    }
+
     private static PathMatcher compile(boolean caseSensitive, String pattern) {
         if (pattern.length() == 0) {
             return END_OF_PATH_MATCHER;
         }
+        return compile(split(pattern), 0, caseSensitive);
+    }
 
+    static String[] split(String pattern) {
         // trailing / or \ assumes **
         if (pattern.endsWith("/") || pattern.endsWith("\\")) {
             pattern = pattern + "**";
         }
-        String[] parts = StringUtils.split(pattern, PATH_SEPARATORS);
-        return compile(parts, 0, caseSensitive);
+        return StringUtils.split(pattern, PATH_SEPARATORS);
     }
 
     private static PathMatcher compile(String[] parts, int startIndex, boolean caseSensitive) {
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches a path against a set of patterns in a single pass, instead of testing the path against each pattern in turn.
+ * <p>
+ * The patterns are merged into a trie over their segments. Literal segments of case sensitive patterns are looked up by name,
+ * other segments are tested in turn, and a '**' segment becomes a node that consumes any number of path segments.
+ * Matching keeps track of the set of nodes that the segments seen so far lead to.
+ * <p>
+ * A path satisfies this matcher when it satisfies any of the patterns.
+ */
+public class PatternTriePathMatcher implements PathMatcher {
+    private final Node root = new Node(false);
+    private final boolean caseSensitive;
+
+    public PatternTriePathMatcher(boolean caseSensitive, Iterable<String> patterns) {
+        this.caseSensitive = caseSensitive;
+        for (String pattern : patterns) {
+            add(PatternMatcherFactory.split(pattern));
+        }
+    }
+
+    private void add(String[] parts) {
+        Node node = root;
+        for (String part : parts) {
+            if (part.equals("**")) {
+                // consecutive '**' segments are equivalent to a single one
+                if (!node.anyDepth) {
+                    node = node.anyDepthChild();
+                }
+            } else {
+                node = node.child(part, caseSensitive);
+            }
+        }
+        node.terminal = true;
+    }
+
+    public int getMinSegments() {
+        return 0;
+    }
+
+    public int getMaxSegments() {
+        return Integer.MAX_VALUE;
+    }
+
+    public boolean matches(String[] segments, int startIndex) {
+        NodeSet current = new NodeSet();
+        NodeSet next = new NodeSet();
+        current.addWithClosure(root);
+        for (int i = startIndex; i < segments.length; i++) {
+            step(current, next, segments[i]);
+            if (next.isEmpty()) {
+                return false;
+            }
+            NodeSet tmp = current;
+            current = next;
+            next = tmp;
+        }
+        return current.containsTerminal();
+    }
+
+    public boolean isPrefix(String[] segments, int startIndex) {
+        NodeSet current = new NodeSet();
+        NodeSet next = new NodeSet();
+        current.addWithClosure(root);
+        if (current.containsAnyDepth()) {
+            return true;
+        }
+        if (startIndex == segments.length) {
+            // Every pattern except the empty one can be satisfied by adding segments
+            return root.hasChildren();
+        }
+        for (int i = startIndex; i < segments.length; i++) {
+            step(current, next, segments[i]);
+            if (next.isEmpty()) {
+                return false;
+            }
+            if (next.containsAnyDepth()) {
+                return true;
+            }
+            NodeSet tmp = current;
+            current = next;
+            next = tmp;
+        }
+        return true;
+    }
+
+    private static void step(NodeSet current, NodeSet next, String segment) {
+        next.clear();
+        for (int n = 0; n < current.size; n++) {
+            Node node = current.nodes[n];
+            if (node.anyDepth) {
+                next.addWithClosure(node);
+            }
+            if (node.literals != null) {
+                Node child = node.literals.get(segment);
+                if (child != null) {
+                    next.addWithClosure(child);
+                }
+            }
+            if (node.steps != null) {
+                for (int i = 0; i < node.steps.size(); i++) {
+                    if (node.steps.get(i).matches(segment)) {
+                        next.addWithClosure(node.stepChildren.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The set of nodes reached by a path. Usually small, so kept in an array.
+     */
+    private static class NodeSet {
+        private Node[] nodes = new Node[8];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void addWithClosure(Node node) {
+            for (Node current = node; current != null && !contains(current); current = current.anyDepthChild) {
+                if (size == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, size * 2);
+                }
+                nodes[size++] = current;
+            }
+        }
+
+        private boolean contains(Node node) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == node) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean containsAnyDepth() {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i].anyDepth) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean containsTerminal() {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i].terminal) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class Node {
+        private final boolean anyDepth;
+        private boolean terminal;
+        private Map<String, Node> literals;
+        private List<String> stepSources;
+        private List<PatternStep> steps;
+        private List<Node> stepChildren;
+        private Node anyDepthChild;
+
+        private Node(boolean anyDepth) {
+            this.anyDepth = anyDepth;
+        }
+
+        boolean hasChildren() {
+            return literals != null || steps != null || anyDepthChild != null;
+        }
+
+        Node anyDepthChild() {
+            if (anyDepthChild == null) {
+                anyDepthChild = new Node(true);
+            }
+            return anyDepthChild;
+        }
+
+        Node child(String part, boolean caseSensitive) {
+            PatternStep step = PatternStepFactory.getStep(part, caseSensitive);
+            if (step instanceof FixedPatternStep && caseSensitive) {
+                if (literals == null) {
+                    literals = new HashMap<String, Node>();
+                }
+                Node child = literals.get(part);
+                if (child == null) {
+                    child = new Node(false);
+                    literals.put(part, child);
+                }
+                return child;
+            }
+            if (steps == null) {
+                stepSources = new ArrayList<String>();
+                steps = new ArrayList<PatternStep>();
+                stepChildren = new ArrayList<Node>();
+            }
+            int index = stepSources.indexOf(part);
+            if (index >= 0) {
+                return stepChildren.get(index);
+            }
+            Node child = new Node(false);
+            stepSources.add(part);
+            steps.add(step);
+            stepChildren.add(child);
+            return child;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks;
+
+/**
+ * The machine resources that a task uses while it executes, including the resources used by any worker processes that it starts.
+ * The execution plan only starts a task when the resources it requires are available.
+ */
+public class TaskResourceRequirements {
+    /**
+     * The requirements of a task that does not declare any: a single worker and no additional memory.
+     */
+    public static final TaskResourceRequirements DEFAULT = new TaskResourceRequirements(1, 0);
+
+    private final int cpuUnits;
+    private final long memoryMegabytes;
+
+    public TaskResourceRequirements(int cpuUnits, long memoryMegabytes) {
+        if (cpuUnits < 1) {
+            throw new IllegalArgumentException("A task requires at least one CPU unit.");
+        }
+        if (memoryMegabytes < 0) {
+            throw new IllegalArgumentException("The memory required by a task cannot be negative.");
+        }
+        this.cpuUnits = cpuUnits;
+        this.memoryMegabytes = memoryMegabytes;
+    }
+
+    /**
+     * The number of worker leases that the task uses, one for each thread or worker process that does work in parallel.
+     */
+    public int getCpuUnits() {
+        return cpuUnits;
+    }
+
+    /**
+     * The memory in megabytes that the task uses outside the build process, for instance the heap of its worker processes.
+     */
+    public long getMemoryMegabytes() {
+        return memoryMegabytes;
+    }
+
+    /**
+     * Returns these requirements limited to the given budget. A task cannot use more worker leases than there are workers, so a task that
+     * declares more, for instance a test task with more parallel forks than max workers, requires the whole budget rather than more than it.
+     */
+    public TaskResourceRequirements limitTo(int maxCpuUnits, long maxMemoryMegabytes) {
+        if (cpuUnits <= maxCpuUnits && memoryMegabytes <= maxMemoryMegabytes) {
+            return this;
+        }
+        return new TaskResourceRequirements(Math.max(1, Math.min(cpuUnits, maxCpuUnits)), Math.max(0, Math.min(memoryMegabytes, maxMemoryMegabytes)));
+    }
+
+    @Override
+    public String toString() {
+        return cpuUnits + " CPU unit(s), " + memoryMegabytes + "MB";
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.state.FileSystemMirror;
+import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.TaskExecutionContext;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+
+/**
+ * A {@link TaskExecuter} which discards anything the {@link FileSystemMirror} knows about the outputs of the task, once the task has generated them.
+ */
+public class InvalidateFileSystemMirrorTaskExecuter implements TaskExecuter {
+    private final FileSystemMirror fileSystemMirror;
+    private final TaskExecuter executer;
+
+    public InvalidateFileSystemMirrorTaskExecuter(FileSystemMirror fileSystemMirror, TaskExecuter executer) {
+        this.fileSystemMirror = fileSystemMirror;
+        this.executer = executer;
+    }
+
+    public void execute(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
+        try {
+            executer.execute(task, state, context);
+        } finally {
+            fileSystemMirror.invalidate(task.getOutputs().getFiles());
+        }
+    }
+}
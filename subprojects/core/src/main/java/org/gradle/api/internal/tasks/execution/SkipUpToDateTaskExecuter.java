@@ -22,6 +22,7 @@ import org.gradle.api.internal.changedetection.TaskArtifactStateRepository;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.TaskExecutionContext;
 import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.profile.TraceListener;
 import org.gradle.util.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,10 +38,16 @@ public class SkipUpToDateTaskExecuter implements TaskExecuter {
     private static final Logger LOGGER = LoggerFactory.getLogger(SkipUpToDateTaskExecuter.class);
     private final TaskExecuter executer;
     private final TaskArtifactStateRepository repository;
+    private final TraceListener traceListener;
 
     public SkipUpToDateTaskExecuter(TaskArtifactStateRepository repository, TaskExecuter executer) {
+        this(repository, TraceListener.NOOP, executer);
+    }
+
+    public SkipUpToDateTaskExecuter(TaskArtifactStateRepository repository, TraceListener traceListener, TaskExecuter executer) {
         this.executer = executer;
         this.repository = repository;
+        this.traceListener = traceListener;
     }
 
     public void execute(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
@@ -49,7 +56,10 @@ public class SkipUpToDateTaskExecuter implements TaskExecuter {
         TaskArtifactState taskArtifactState = repository.getStateFor(task);
         try {
             List<String> messages = LOGGER.isInfoEnabled() ? new ArrayList<String>() : null;
-            if (taskArtifactState.isUpToDate(messages)) {
+            long snapshotStart = System.nanoTime();
+            boolean upToDate = taskArtifactState.isUpToDate(messages);
+            traceListener.traced("snapshot", "Snapshot " + task.getPath() + " before execution", snapshotStart, System.nanoTime());
+            if (upToDate) {
                 LOGGER.info("Skipping {} as it is up-to-date (took {}).", task, clock.getTime());
                 state.upToDate();
                 return;
@@ -63,7 +73,9 @@ public class SkipUpToDateTaskExecuter implements TaskExecuter {
             try {
                 executer.execute(task, state, context);
                 if (state.getFailure() == null) {
+                    snapshotStart = System.nanoTime();
                     taskArtifactState.afterTask();
+                    traceListener.traced("snapshot", "Snapshot " + task.getPath() + " after execution", snapshotStart, System.nanoTime());
                 }
             } finally {
                 task.getOutputs().setHistory(null);
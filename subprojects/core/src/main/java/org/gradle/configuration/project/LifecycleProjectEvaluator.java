@@ -19,9 +19,13 @@ import org.gradle.api.ProjectConfigurationException;
 import org.gradle.api.ProjectEvaluationListener;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ProjectStateInternal;
+import org.gradle.internal.UncheckedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Manages lifecycle concerns while delegating actual evaluation to another evaluator
  *
@@ -31,13 +35,82 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
     private static final Logger LOGGER = LoggerFactory.getLogger(LifecycleProjectEvaluator.class);
 
     private final ProjectEvaluator delegate;
+    private final Object lock = new Object();
+    private final Map<ProjectStateInternal, Thread> evaluatingThreads = new HashMap<ProjectStateInternal, Thread>();
+    private final Map<Thread, ProjectStateInternal> awaitedProjects = new HashMap<Thread, ProjectStateInternal>();
 
     public LifecycleProjectEvaluator(ProjectEvaluator delegate) {
         this.delegate = delegate;
     }
 
     public void evaluate(ProjectInternal project, ProjectStateInternal state) {
-        //TODO this is one of the places to look into thread safety when we implement parallel configuration
+        if (!startEvaluation(state)) {
+            return;
+        }
+        try {
+            doEvaluate(project, state);
+        } finally {
+            finishEvaluation(state);
+        }
+    }
+
+    /**
+     * Projects can be evaluated in parallel. A thread that asks for a project which another thread is evaluating waits for it to finish.
+     * When that would close a cycle of waiting threads, for example when two projects call {@code evaluationDependsOn()} on each other, the
+     * project is skipped instead, in the same way as a project that is reached again while it is evaluated on the same thread.
+     *
+     * @return true when the calling thread should evaluate the project.
+     */
+    private boolean startEvaluation(ProjectStateInternal state) {
+        Thread current = Thread.currentThread();
+        synchronized (lock) {
+            while (true) {
+                Thread owner = evaluatingThreads.get(state);
+                if (owner == null) {
+                    evaluatingThreads.put(state, current);
+                    return true;
+                }
+                if (owner == current || waitsFor(owner, current)) {
+                    return false;
+                }
+                awaitedProjects.put(current, state);
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                } finally {
+                    awaitedProjects.remove(current);
+                }
+            }
+        }
+    }
+
+    private boolean waitsFor(Thread waiting, Thread owner) {
+        Thread thread = waiting;
+        for (int i = 0; i <= awaitedProjects.size(); i++) {
+            ProjectStateInternal awaited = awaitedProjects.get(thread);
+            if (awaited == null) {
+                return false;
+            }
+            thread = evaluatingThreads.get(awaited);
+            if (thread == null) {
+                return false;
+            }
+            if (thread == owner) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void finishEvaluation(ProjectStateInternal state) {
+        synchronized (lock) {
+            evaluatingThreads.remove(state);
+            lock.notifyAll();
+        }
+    }
+
+    private void doEvaluate(ProjectInternal project, ProjectStateInternal state) {
         if (state.getExecuted() || state.getExecuting()) {
             return;
         }
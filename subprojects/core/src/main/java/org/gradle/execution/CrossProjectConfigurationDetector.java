@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.Project;
+import org.gradle.api.initialization.Settings;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.internal.resource.TextResource;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a project can be proven not to touch the state of other projects while it is evaluated, and not to be touched by them.
+ *
+ * <p>A project is only considered decoupled when neither its own build script nor the build script of any of its ancestors does any of the
+ * following:</p>
+ * <ul>
+ *     <li>make its evaluation depend on other projects, with {@code evaluationDependsOn()} or {@code evaluationDependsOnChildren()}.</li>
+ *     <li>configure other projects, with {@code allprojects {}}, {@code subprojects {}}, {@code configure()} or {@code project(':a') {}}.</li>
+ *     <li>register hooks on ancestors or on the build, with {@code rootProject.afterEvaluate {}}, {@code parent.beforeEvaluate {}} or
+ *     {@code gradle.}.</li>
+ *     <li>apply other scripts, since these can do all of the above.</li>
+ * </ul>
+ *
+ * <p>Applying plugins only touches the project itself, and a project dependency like {@code compile project(':a')} only references the
+ * other project, so neither counts.</p>
+ *
+ * <p>In addition, a build is only considered for parallel configuration at all when it has no init scripts and its settings script can be
+ * found and does not register hooks through {@code gradle.}. Declaring the project hierarchy, including {@code rootProject.name}, does not
+ * count.</p>
+ *
+ * <p>The scans do not understand Groovy. They ignore comments and the content of strings, and anything that cannot be proven decoupled is
+ * evaluated serially.</p>
+ */
+class CrossProjectConfigurationDetector {
+    private static final Pattern CROSS_PROJECT_ACCESS = Pattern.compile(
+        "\\b(evaluationDependsOn|evaluationDependsOnChildren|allprojects|getAllprojects|subprojects|getSubprojects|childProjects|getChildProjects"
+            + "|findProject|gradle|getGradle)\\b"
+            + "|\\bconfigure\\s*\\("
+            + "|\\bproject\\s*\\("
+            + "|\\b(rootProject|parent|getRootProject\\s*\\(\\s*\\)|getParent\\s*\\(\\s*\\))\\s*(\\{|\\.\\s*(afterEvaluate|beforeEvaluate)\\b)"
+            + "|\\bapply\\s*\\(?\\s*from\\b");
+    private static final Pattern BUILD_HOOKS = Pattern.compile("\\b(gradle|getGradle)\\b");
+    private static final Pattern PROJECT_DEPENDENCY = Pattern.compile(
+        "\\bproject\\s*\\(\\s*(path\\s*:\\s*)?''\\s*(,\\s*configuration\\s*:\\s*''\\s*)?\\)(?!\\s*[.{\\[])");
+
+    private final List<File> initScripts;
+    private final File settingsFile;
+
+    /**
+     * @param initScripts the init scripts of the build.
+     * @param settingsFile the settings file of the build, or null when it cannot be determined.
+     */
+    CrossProjectConfigurationDetector(List<File> initScripts, File settingsFile) {
+        this.initScripts = initScripts;
+        this.settingsFile = settingsFile;
+    }
+
+    /**
+     * Returns true when the init and settings scripts of the build cannot affect the evaluation of projects.
+     */
+    public boolean isBuildDecoupled(ProjectInternal rootProject) {
+        if (!initScripts.isEmpty()) {
+            return false;
+        }
+        File settings = settingsFile != null ? settingsFile : new File(rootProject.getProjectDir(), Settings.DEFAULT_SETTINGS_FILE);
+        if (!settings.isFile()) {
+            // Cannot tell which settings script was used, so do not assume anything about it
+            return false;
+        }
+        return !BUILD_HOOKS.matcher(withoutCommentsAndStrings(GFileUtils.readFile(settings))).find();
+    }
+
+    /**
+     * Returns true when the given project, which has not been evaluated yet, can be proven not to interact with the evaluation of other projects.
+     *
+     * <p>Plugins can only have been applied to the project before its evaluation by an ancestor, a settings script or an init script, all of which
+     * are checked.</p>
+     */
+    public boolean isDecoupled(ProjectInternal project) {
+        for (Project current = project; current != null; current = current.getParent()) {
+            if (touchesOtherProjects((ProjectInternal) current)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean touchesOtherProjects(ProjectInternal project) {
+        TextResource buildScript = project.getBuildScriptSource().getResource();
+        if (!buildScript.getExists()) {
+            return false;
+        }
+        return touchesOtherProjects(buildScript.getText());
+    }
+
+    static boolean touchesOtherProjects(String script) {
+        String withoutProjectDependencies = PROJECT_DEPENDENCY.matcher(withoutCommentsAndStrings(script)).replaceAll("");
+        return CROSS_PROJECT_ACCESS.matcher(withoutProjectDependencies).find();
+    }
+
+    /**
+     * Removes comments from the given script and replaces every string literal with an empty {@code ''} literal, so that names mentioned in
+     * them are not matched. Expressions inside GStrings are removed as well.
+     */
+    static String withoutCommentsAndStrings(String script) {
+        StringBuilder result = new StringBuilder(script.length());
+        int length = script.length();
+        int i = 0;
+        while (i < length) {
+            char c = script.charAt(i);
+            if (script.startsWith("//", i)) {
+                while (i < length && script.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (script.startsWith("/*", i)) {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                result.append(' ');
+            } else if (c == '\'' || c == '"') {
+                String tripleQuote = new String(new char[]{c, c, c});
+                String delimiter = script.startsWith(tripleQuote, i) ? tripleQuote : String.valueOf(c);
+                i += delimiter.length();
+                while (i < length && !script.startsWith(delimiter, i)) {
+                    i += script.charAt(i) == '\\' ? 2 : 1;
+                }
+                i += delimiter.length();
+                result.append("''");
+            } else {
+                result.append(c);
+                i++;
+            }
+        }
+        return result.toString();
+    }
+}
@@ -13,19 +13,46 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.gradle.execution;
 
 import org.gradle.api.BuildCancelledException;
 import org.gradle.api.Project;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class TaskPathProjectEvaluator implements ProjectConfigurer {
+    /**
+     * Evaluates the subprojects of a hierarchy concurrently, when they can be proven not to touch the state of other projects.
+     * A project is always evaluated after its parent has finished.
+     */
+    public static final String PARALLEL_CONFIGURATION_PROPERTY = "org.gradle.internal.parallelConfiguration";
+
     private final BuildCancellationToken cancellationToken;
+    private final ExecutorFactory executorFactory;
+    private final int maxParallelConfigurations;
+    private final CrossProjectConfigurationDetector crossProjectConfigurationDetector;
 
     public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken) {
+        this(cancellationToken, null, 1, Collections.<File>emptyList(), null);
+    }
+
+    public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken, ExecutorFactory executorFactory, int maxParallelConfigurations, List<File> initScripts, File settingsFile) {
         this.cancellationToken = cancellationToken;
+        this.executorFactory = executorFactory;
+        this.maxParallelConfigurations = maxParallelConfigurations;
+        this.crossProjectConfigurationDetector = new CrossProjectConfigurationDetector(initScripts, settingsFile);
     }
 
     public void configure(ProjectInternal project) {
@@ -40,6 +67,10 @@ public class TaskPathProjectEvaluator implements ProjectConfigurer {
             throw new BuildCancelledException();
         }
         project.evaluate();
+        if (maxParallelConfigurations > 1 && project.getSubprojects().size() > 1 && crossProjectConfigurationDetector.isBuildDecoupled(project)) {
+            configureInParallel(project.getSubprojects());
+            return;
+        }
         for (Project sub : project.getSubprojects()) {
             if (cancellationToken.isCancellationRequested()) {
                 throw new BuildCancelledException();
@@ -47,4 +78,58 @@ public class TaskPathProjectEvaluator implements ProjectConfigurer {
             ((ProjectInternal) sub).evaluate();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Evaluates the given projects in order, but starts a project before the previous ones have finished when it can be proven decoupled from
+     * other projects. A project is only started once its parent has finished, so its class loader scope derives from a locked parent scope.
+     * A project that cannot be proven decoupled waits for all previous projects and is evaluated on its own, as in a serial build.
+     */
+    private void configureInParallel(Iterable<Project> projects) {
+        StoppableExecutor executor = executorFactory.create("Project configuration", maxParallelConfigurations);
+        Map<Project, Future<?>> running = new LinkedHashMap<Project, Future<?>>();
+        try {
+            for (Project sub : projects) {
+                if (cancellationToken.isCancellationRequested()) {
+                    throw new BuildCancelledException();
+                }
+                final ProjectInternal project = (ProjectInternal) sub;
+                Future<?> parent = running.get(project.getParent());
+                if (parent != null) {
+                    waitFor(Collections.<Future<?>>singleton(parent));
+                }
+                if (!crossProjectConfigurationDetector.isDecoupled(project)) {
+                    waitFor(running.values());
+                    running.clear();
+                    project.evaluate();
+                } else {
+                    running.put(project, executor.submit(new Runnable() {
+                        public void run() {
+                            if (cancellationToken.isCancellationRequested()) {
+                                throw new BuildCancelledException();
+                            }
+                            project.evaluate();
+                        }
+                    }));
+                }
+            }
+            waitFor(running.values());
+        } finally {
+            for (Future<?> future : running.values()) {
+                future.cancel(false);
+            }
+            executor.stop();
+        }
+    }
+
+    private static void waitFor(Collection<Future<?>> running) {
+        try {
+            for (Future<?> future : running) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
@@ -22,16 +22,18 @@ import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.operations.BuildOperationWorkerRegistry;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.gradle.util.Clock.prettyTime;
 
 abstract class AbstractTaskPlanExecutor implements TaskPlanExecutor {
     private static final Logger LOGGER = Logging.getLogger(AbstractTaskPlanExecutor.class);
 
-    protected Runnable taskWorker(TaskExecutionPlan taskExecutionPlan, Action<? super TaskInternal> taskWorker, BuildOperationWorkerRegistry buildOperationWorkerRegistry) {
+    protected Action<TaskWorkerStatistics> taskWorker(TaskExecutionPlan taskExecutionPlan, Action<? super TaskInternal> taskWorker, BuildOperationWorkerRegistry buildOperationWorkerRegistry) {
         return new TaskExecutorWorker(taskExecutionPlan, taskWorker, buildOperationWorkerRegistry);
     }
 
-    private static class TaskExecutorWorker implements Runnable {
+    private static class TaskExecutorWorker implements Action<TaskWorkerStatistics> {
         private final TaskExecutionPlan taskExecutionPlan;
         private final Action<? super TaskInternal> taskWorker;
         private final BuildOperationWorkerRegistry buildOperationWorkerRegistry;
@@ -42,30 +44,39 @@ abstract class AbstractTaskPlanExecutor implements TaskPlanExecutor {
             this.buildOperationWorkerRegistry = buildOperationWorkerRegistry;
         }
 
-        public void run() {
+        public void execute(TaskWorkerStatistics statistics) {
             long busy = 0;
-            long start = System.currentTimeMillis();
-            TaskInfo task;
-            while ((task = taskExecutionPlan.getTaskToExecute()) != null) {
-                BuildOperationWorkerRegistry.Completion completion = buildOperationWorkerRegistry.operationStart();
+            long blocked = 0;
+            long start = System.nanoTime();
+            while (true) {
+                long startWaiting = System.nanoTime();
+                TaskInfo task = taskExecutionPlan.getTaskToExecute();
+                long waited = System.nanoTime() - startWaiting;
+                blocked += waited;
+                statistics.blocked(waited);
+                if (task == null) {
+                    break;
+                }
+                BuildOperationWorkerRegistry.Completion completion = buildOperationWorkerRegistry.operationStart(task.getTask().getResourceRequirements().getCpuUnits());
                 try {
                     final String taskPath = task.getTask().getPath();
                     LOGGER.info("{} ({}) started.", taskPath, Thread.currentThread());
-                    long startTask = System.currentTimeMillis();
+                    long startTask = System.nanoTime();
                     processTask(task);
-                    long taskDuration = System.currentTimeMillis() - startTask;
+                    long taskDuration = System.nanoTime() - startTask;
                     busy += taskDuration;
+                    statistics.taskExecuted(taskDuration);
                     if (LOGGER.isInfoEnabled()) {
-                        LOGGER.info("{} ({}) completed. Took {}.", taskPath, Thread.currentThread(), prettyTime(taskDuration));
+                        LOGGER.info("{} ({}) completed. Took {}.", taskPath, Thread.currentThread(), prettyTime(TimeUnit.NANOSECONDS.toMillis(taskDuration)));
                     }
                 } finally {
                     completion.operationFinish();
                 }
             }
-            long total = System.currentTimeMillis() - start;
-            //TODO SF it would be nice to print one-line statement that concludes the utilisation of the worker threads
+            long total = System.nanoTime() - start;
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Task worker [{}] finished, busy: {}, idle: {}", Thread.currentThread(), prettyTime(busy), prettyTime(total - busy));
+                LOGGER.debug("Task worker [{}] finished, busy: {}, blocked: {}, other: {}", Thread.currentThread(), prettyTime(TimeUnit.NANOSECONDS.toMillis(busy)),
+                    prettyTime(TimeUnit.NANOSECONDS.toMillis(blocked)), prettyTime(TimeUnit.NANOSECONDS.toMillis(total - busy - blocked)));
             }
         }
 
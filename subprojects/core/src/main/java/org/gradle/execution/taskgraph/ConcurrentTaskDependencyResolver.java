@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Task;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.tasks.CachingTaskDependencyResolveContext;
+import org.gradle.api.internal.tasks.TaskContainerInternal;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.Pair;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Resolves the relationships of the tasks reachable from a set of entry tasks ahead of graph population, resolving the tasks discovered at the same
+ * depth concurrently.
+ *
+ * <p>A {@link CachingTaskDependencyResolveContext} is not thread-safe, so each resolution checks one out of a pool and has exclusive use of it until it
+ * is done. Tasks are prepared for execution on the calling thread, as the model rules that realize them must not run concurrently.</p>
+ */
+class ConcurrentTaskDependencyResolver {
+    private final ExecutorFactory executorFactory;
+    private final int maxWorkers;
+
+    ConcurrentTaskDependencyResolver(ExecutorFactory executorFactory, int maxWorkers) {
+        this.executorFactory = executorFactory;
+        this.maxWorkers = maxWorkers;
+    }
+
+    /**
+     * Resolves the relationships of the given tasks and of the dependencies and finalizers that are reachable from them. Only tasks that satisfy the
+     * given spec are resolved or traversed. A task whose resolution fails is included in the result, and the failure is rethrown when its relationships
+     * are queried.
+     */
+    Map<Task, ResolvedTaskDependencies> resolve(Collection<? extends Task> entryTasks, Spec<? super Task> spec) {
+        Map<Task, ResolvedTaskDependencies> resolved = new HashMap<Task, ResolvedTaskDependencies>();
+        Set<Task> seen = new HashSet<Task>();
+        List<Task> wave = new ArrayList<Task>();
+        for (Task task : entryTasks) {
+            if (seen.add(task) && spec.isSatisfiedBy(task)) {
+                wave.add(task);
+            }
+        }
+
+        final ConcurrentLinkedQueue<CachingTaskDependencyResolveContext> contexts = new ConcurrentLinkedQueue<CachingTaskDependencyResolveContext>();
+        StoppableExecutor executor = executorFactory.create("Task dependency resolution", maxWorkers);
+        List<Pair<Task, Future<ResolvedTaskDependencies>>> running = new ArrayList<Pair<Task, Future<ResolvedTaskDependencies>>>();
+        try {
+            while (!wave.isEmpty()) {
+                for (Task task : wave) {
+                    final TaskInternal taskInternal = (TaskInternal) task;
+                    try {
+                        ((TaskContainerInternal) task.getProject().getTasks()).prepareForExecution(task);
+                    } catch (RuntimeException e) {
+                        // Leave the task to the serial pass, which reports the failure in the usual place
+                        continue;
+                    }
+                    running.add(Pair.of(task, executor.submit(new Callable<ResolvedTaskDependencies>() {
+                        public ResolvedTaskDependencies call() {
+                            CachingTaskDependencyResolveContext context = contexts.poll();
+                            if (context == null) {
+                                context = new CachingTaskDependencyResolveContext();
+                            }
+                            try {
+                                return ResolvedTaskDependencies.resolve(taskInternal, context);
+                            } catch (Throwable t) {
+                                return ResolvedTaskDependencies.failed(t);
+                            } finally {
+                                contexts.add(context);
+                            }
+                        }
+                    })));
+                }
+
+                List<Task> nextWave = new ArrayList<Task>();
+                for (Pair<Task, Future<ResolvedTaskDependencies>> entry : running) {
+                    ResolvedTaskDependencies dependencies = get(entry.right);
+                    resolved.put(entry.left, dependencies);
+                    if (dependencies.isFailed()) {
+                        continue;
+                    }
+                    for (Task target : dependencies.getDependsOn()) {
+                        if (seen.add(target) && spec.isSatisfiedBy(target)) {
+                            nextWave.add(target);
+                        }
+                    }
+                    for (Task target : dependencies.getFinalizedBy()) {
+                        if (seen.add(target) && spec.isSatisfiedBy(target)) {
+                            nextWave.add(target);
+                        }
+                    }
+                }
+                running.clear();
+                wave = nextWave;
+            }
+        } finally {
+            for (Pair<Task, Future<ResolvedTaskDependencies>> entry : running) {
+                entry.right.cancel(false);
+            }
+            executor.stop();
+        }
+        return resolved;
+    }
+
+    private static ResolvedTaskDependencies get(Future<ResolvedTaskDependencies> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
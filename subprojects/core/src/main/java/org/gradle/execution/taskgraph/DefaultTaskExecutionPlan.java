@@ -18,12 +18,12 @@ package org.gradle.execution.taskgraph;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.common.base.StandardSystemProperty;
 import com.google.common.collect.*;
 import org.gradle.api.*;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.tasks.CachingTaskDependencyResolveContext;
 import org.gradle.api.internal.tasks.TaskContainerInternal;
+import org.gradle.api.internal.tasks.TaskResourceRequirements;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.specs.Spec;
@@ -34,13 +34,13 @@ import org.gradle.execution.TaskFailureHandler;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.Pair;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.graph.CachingDirectedGraphWalker;
 import org.gradle.internal.graph.DirectedGraph;
 import org.gradle.internal.graph.DirectedGraphRenderer;
 import org.gradle.internal.graph.GraphNodeRenderer;
 import org.gradle.internal.logging.text.StyledTextOutput;
 import org.gradle.util.CollectionUtils;
-import org.gradle.util.TextUtil;
 
 import java.io.File;
 import java.io.IOException;
@@ -61,21 +61,33 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final static Logger LOGGER = Logging.getLogger(DefaultTaskExecutionPlan.class);
 
     private final Lock lock = new ReentrantLock();
-    private final Condition condition = lock.newCondition();
+    private final Condition taskAvailable = lock.newCondition();
+    private final Condition completion = lock.newCondition();
     private final Set<TaskInfo> tasksInUnknownState = new LinkedHashSet<TaskInfo>();
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
     private final TaskDependencyGraph graph = new TaskDependencyGraph();
     private final LinkedHashMap<Task, TaskInfo> executionPlan = new LinkedHashMap<Task, TaskInfo>();
-    private final List<TaskInfo> executionQueue = new LinkedList<TaskInfo>();
+    private final List<TaskInfo> executionQueue = new ArrayList<TaskInfo>();
+    private TaskReadyQueue readyQueue;
+    private int waitingWorkers;
     private final List<Throwable> failures = new ArrayList<Throwable>();
     private Spec<? super Task> filter = Specs.satisfyAll();
+    private ConcurrentTaskDependencyResolver dependencyResolver;
 
     private TaskFailureHandler failureHandler = new RethrowingFailureHandler();
+    private TaskExecutionTimeHistory executionTimeHistory = TaskExecutionTimeHistory.NO_HISTORY;
     private final BuildCancellationToken cancellationToken;
     private final Multiset<String> projectsWithRunningTasks = HashMultiset.create();
     private final Multiset<String> projectsWithRunningNonParallelizableTasks = HashMultiset.create();
     private final Set<TaskInternal> runningTasks = Sets.newIdentityHashSet();
     private final Map<Task, Set<String>> canonicalizedOutputCache = Maps.newIdentityHashMap();
+    private final OutputPathIndex<TaskInternal> runningTaskOutputs = new OutputPathIndex<TaskInternal>();
+    private final Set<TaskInternal> runningTasksToIndex = Sets.newIdentityHashSet();
+    private final Map<TaskInternal, TaskResourceRequirements> runningTaskResources = Maps.newIdentityHashMap();
+    private int cpuBudget = Integer.MAX_VALUE;
+    private long memoryBudget = Long.MAX_VALUE;
+    private int cpuUnitsInUse;
+    private long memoryInUse;
     private final Map<Task, Boolean> isParallelSafeCache = Maps.newIdentityHashMap();
     private boolean tasksCancelled;
 
@@ -95,7 +107,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     }
 
     public void addToTaskGraph(Collection<? extends Task> tasks) {
-        List<TaskInfo> queue = new ArrayList<TaskInfo>();
+        Deque<TaskInfo> queue = new ArrayDeque<TaskInfo>();
 
         List<Task> sortedTasks = new ArrayList<Task>(tasks);
         Collections.sort(sortedTasks);
@@ -110,14 +122,15 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             queue.add(node);
         }
 
+        Map<Task, ResolvedTaskDependencies> prefetched = prefetchDependencies(sortedTasks);
         Set<TaskInfo> visiting = new HashSet<TaskInfo>();
         CachingTaskDependencyResolveContext context = new CachingTaskDependencyResolveContext();
 
         while (!queue.isEmpty()) {
-            TaskInfo node = queue.get(0);
+            TaskInfo node = queue.getFirst();
             if (node.getDependenciesProcessed()) {
                 // Have already visited this task - skip it
-                queue.remove(0);
+                queue.removeFirst();
                 continue;
             }
 
@@ -125,7 +138,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             boolean filtered = !filter.isSatisfiedBy(task);
             if (filtered) {
                 // Task is not required - skip it
-                queue.remove(0);
+                queue.removeFirst();
                 node.dependenciesProcessed();
                 node.doNotRequire();
                 continue;
@@ -136,26 +149,30 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 // task in the queue
                 // Make sure it has been configured
                 ((TaskContainerInternal) task.getProject().getTasks()).prepareForExecution(task);
-                Set<? extends Task> dependsOnTasks = context.getDependencies(task);
-                for (Task dependsOnTask : dependsOnTasks) {
+                ResolvedTaskDependencies dependencies = prefetched.get(task);
+                if (dependencies == null) {
+                    dependencies = ResolvedTaskDependencies.resolve(task, context);
+                }
+                dependencies.rethrowFailure();
+                for (Task dependsOnTask : dependencies.getDependsOn()) {
                     TaskInfo targetNode = graph.addNode(dependsOnTask);
                     node.addDependencySuccessor(targetNode);
                     if (!visiting.contains(targetNode)) {
-                        queue.add(0, targetNode);
+                        queue.addFirst(targetNode);
                     }
                 }
-                for (Task finalizerTask : task.getFinalizedBy().getDependencies(task)) {
+                for (Task finalizerTask : dependencies.getFinalizedBy()) {
                     TaskInfo targetNode = graph.addNode(finalizerTask);
                     addFinalizerNode(node, targetNode);
                     if (!visiting.contains(targetNode)) {
-                        queue.add(0, targetNode);
+                        queue.addFirst(targetNode);
                     }
                 }
-                for (Task mustRunAfter : task.getMustRunAfter().getDependencies(task)) {
+                for (Task mustRunAfter : dependencies.getMustRunAfter()) {
                     TaskInfo targetNode = graph.addNode(mustRunAfter);
                     node.addMustSuccessor(targetNode);
                 }
-                for (Task shouldRunAfter : task.getShouldRunAfter().getDependencies(task)) {
+                for (Task shouldRunAfter : dependencies.getShouldRunAfter()) {
                     TaskInfo targetNode = graph.addNode(shouldRunAfter);
                     node.addShouldSuccessor(targetNode);
                 }
@@ -170,7 +187,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 }
             } else {
                 // Have visited this task's dependencies - add it to the graph
-                queue.remove(0);
+                queue.removeFirst();
                 visiting.remove(node);
                 node.dependenciesProcessed();
             }
@@ -178,25 +195,37 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         resolveTasksInUnknownState();
     }
 
+    private Map<Task, ResolvedTaskDependencies> prefetchDependencies(Collection<? extends Task> tasks) {
+        if (dependencyResolver == null) {
+            return Collections.emptyMap();
+        }
+        return dependencyResolver.resolve(tasks, new Spec<Task>() {
+            public boolean isSatisfiedBy(Task task) {
+                TaskInfo node = graph.getNode(task);
+                return (node == null || !node.getDependenciesProcessed()) && filter.isSatisfiedBy(task);
+            }
+        });
+    }
+
     private void resolveTasksInUnknownState() {
-        List<TaskInfo> queue = new ArrayList<TaskInfo>(tasksInUnknownState);
+        Deque<TaskInfo> queue = new ArrayDeque<TaskInfo>(tasksInUnknownState);
         Set<TaskInfo> visiting = new HashSet<TaskInfo>();
 
         while (!queue.isEmpty()) {
-            TaskInfo task = queue.get(0);
+            TaskInfo task = queue.getFirst();
             if (task.isInKnownState()) {
-                queue.remove(0);
+                queue.removeFirst();
                 continue;
             }
 
             if (visiting.add(task)) {
                 for (TaskInfo hardPredecessor : task.getDependencyPredecessors()) {
                     if (!visiting.contains(hardPredecessor)) {
-                        queue.add(0, hardPredecessor);
+                        queue.addFirst(hardPredecessor);
                     }
                 }
             } else {
-                queue.remove(0);
+                queue.removeFirst();
                 visiting.remove(task);
                 task.mustNotRun();
                 for (TaskInfo predecessor : task.getDependencyPredecessors()) {
@@ -236,14 +265,8 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     }
 
     public void determineExecutionPlan() {
-        List<TaskInfoInVisitingSegment> nodeQueue = Lists.newArrayList(Iterables.transform(entryTasks, new Function<TaskInfo, TaskInfoInVisitingSegment>() {
-            int index;
-
-            public TaskInfoInVisitingSegment apply(TaskInfo taskInfo) {
-                return new TaskInfoInVisitingSegment(taskInfo, index++);
-            }
-        }));
-        int visitingSegmentCounter = nodeQueue.size();
+        NodeQueue nodeQueue = new NodeQueue(entryTasks);
+        int visitingSegmentCounter = entryTasks.size();
 
         HashMultimap<TaskInfo, Integer> visitingNodes = HashMultimap.create();
         Stack<GraphEdge> walkedShouldRunAfterEdges = new Stack<GraphEdge>();
@@ -251,12 +274,12 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         HashMap<TaskInfo, Integer> planBeforeVisiting = new HashMap<TaskInfo, Integer>();
 
         while (!nodeQueue.isEmpty()) {
-            TaskInfoInVisitingSegment taskInfoInVisitingSegment = nodeQueue.get(0);
+            TaskInfoInVisitingSegment taskInfoInVisitingSegment = nodeQueue.peek();
             int currentSegment = taskInfoInVisitingSegment.visitingSegment;
             TaskInfo taskNode = taskInfoInVisitingSegment.taskInfo;
 
             if (taskNode.isIncludeInGraph() || executionPlan.containsKey(taskNode.getTask())) {
-                nodeQueue.remove(0);
+                nodeQueue.removeFirst();
                 maybeRemoveProcessedShouldRunAfterEdge(walkedShouldRunAfterEdges, taskNode);
                 continue;
             }
@@ -286,12 +309,12 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                             onOrderingCycle();
                         }
                     }
-                    nodeQueue.add(0, new TaskInfoInVisitingSegment(successor, currentSegment));
+                    nodeQueue.addFirst(new TaskInfoInVisitingSegment(successor, currentSegment));
                 }
                 path.push(taskNode);
             } else {
                 // Have visited this task's dependencies - add it to the end of the plan
-                nodeQueue.remove(0);
+                nodeQueue.removeFirst();
                 maybeRemoveProcessedShouldRunAfterEdge(walkedShouldRunAfterEdges, taskNode);
                 visitingNodes.remove(taskNode, currentSegment);
                 path.pop();
@@ -301,13 +324,14 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 addAllReversed(finalizerTasks, taskNode.getFinalizers());
                 for (TaskInfo finalizer : finalizerTasks) {
                     if (!visitingNodes.containsKey(finalizer)) {
-                        nodeQueue.add(finalizerTaskPosition(finalizer, nodeQueue), new TaskInfoInVisitingSegment(finalizer, visitingSegmentCounter++));
+                        nodeQueue.addAfterSuccessors(new TaskInfoInVisitingSegment(finalizer, visitingSegmentCounter++));
                     }
                 }
             }
         }
         executionQueue.clear();
         executionQueue.addAll(executionPlan.values());
+        readyQueue = null;
     }
 
     private void maybeRemoveProcessedShouldRunAfterEdge(Stack<GraphEdge> walkedShouldRunAfterEdges, TaskInfo taskNode) {
@@ -327,13 +351,13 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
-    private void restoreQueue(List<TaskInfoInVisitingSegment> nodeQueue, HashMultimap<TaskInfo, Integer> visitingNodes, GraphEdge toBeRemoved) {
+    private void restoreQueue(NodeQueue nodeQueue, HashMultimap<TaskInfo, Integer> visitingNodes, GraphEdge toBeRemoved) {
         TaskInfoInVisitingSegment nextInQueue = null;
         while (nextInQueue == null || !toBeRemoved.from.equals(nextInQueue.taskInfo)) {
-            nextInQueue = nodeQueue.get(0);
+            nextInQueue = nodeQueue.peek();
             visitingNodes.remove(nextInQueue.taskInfo, nextInQueue.visitingSegment);
             if (!toBeRemoved.from.equals(nextInQueue.taskInfo)) {
-                nodeQueue.remove(0);
+                nodeQueue.removeFirst();
             }
         }
     }
@@ -372,27 +396,6 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
-    private int finalizerTaskPosition(TaskInfo finalizer, final List<TaskInfoInVisitingSegment> nodeQueue) {
-        if (nodeQueue.size() == 0) {
-            return 0;
-        }
-
-        ArrayList<TaskInfo> dependsOnTasks = new ArrayList<TaskInfo>();
-        dependsOnTasks.addAll(finalizer.getDependencySuccessors());
-        dependsOnTasks.addAll(finalizer.getMustSuccessors());
-        dependsOnTasks.addAll(finalizer.getShouldSuccessors());
-        List<Integer> dependsOnTaskIndexes = CollectionUtils.collect(dependsOnTasks, new Transformer<Integer, TaskInfo>() {
-            public Integer transform(final TaskInfo dependsOnTask) {
-                return Iterables.indexOf(nodeQueue, new Predicate<TaskInfoInVisitingSegment>() {
-                    public boolean apply(TaskInfoInVisitingSegment taskInfoInVisitingSegment) {
-                        return taskInfoInVisitingSegment.taskInfo.equals(dependsOnTask);
-                    }
-                });
-            }
-        });
-        return Collections.max(dependsOnTaskIndexes) + 1;
-    }
-
     private void onOrderingCycle() {
         CachingDirectedGraphWalker<TaskInfo, Void> graphWalker = new CachingDirectedGraphWalker<TaskInfo, Void>(new DirectedGraph<TaskInfo, Void>() {
             public void getNodeValues(TaskInfo node, Collection<? super Void> values, Collection<? super TaskInfo> connectedNodes) {
@@ -429,12 +432,18 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             entryTasks.clear();
             executionPlan.clear();
             executionQueue.clear();
+            readyQueue = null;
             failures.clear();
             projectsWithRunningTasks.clear();
             projectsWithRunningNonParallelizableTasks.clear();
             canonicalizedOutputCache.clear();
             isParallelSafeCache.clear();
             runningTasks.clear();
+            runningTasksToIndex.clear();
+            runningTaskOutputs.clear();
+            runningTaskResources.clear();
+            cpuUnitsInUse = 0;
+            memoryInUse = 0;
         } finally {
             lock.unlock();
         }
@@ -452,35 +461,78 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         this.failureHandler = handler;
     }
 
+    public void useResourceBudget(int cpuUnits, long memoryMegabytes) {
+        lock.lock();
+        try {
+            this.cpuBudget = cpuUnits;
+            this.memoryBudget = memoryMegabytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Resolves the dependencies of the tasks added to the graph using up to the given number of threads. Each task's dependencies are resolved
+     * on its own, so task dependencies that are resolved from build logic must not rely on the order in which other tasks' dependencies are resolved.
+     */
+    public void useConcurrentDependencyResolution(ExecutorFactory executorFactory, int maxWorkers) {
+        this.dependencyResolver = maxWorkers > 1 ? new ConcurrentTaskDependencyResolver(executorFactory, maxWorkers) : null;
+    }
+
+    /**
+     * Uses the given history to start the tasks with the longest remaining path through the task graph first, among those that are ready to execute.
+     */
+    public void useExecutionTimeHistory(TaskExecutionTimeHistory executionTimeHistory) {
+        this.executionTimeHistory = executionTimeHistory;
+    }
+
+    /**
+     * Returns the predicted execution time in milliseconds of the tasks of this plan, or null when there is nothing to base the prediction on.
+     * The prediction is the execution time of the longest path through the task graph, using the execution times of the tasks in previous builds.
+     */
+    @Nullable
+    public Long getPredictedExecutionTime() {
+        lock.lock();
+        try {
+            if (readyQueue == null || readyQueue.getLongestPathExecutionTime() == 0) {
+                return null;
+            }
+            return readyQueue.getLongestPathExecutionTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public TaskInfo getTaskToExecute() {
         lock.lock();
         try {
+            if (readyQueue == null) {
+                readyQueue = new TaskReadyQueue(executionQueue, executionTimeHistory.getPreviousExecutionTimes(executionPlan.keySet()));
+            }
             while (true) {
                 if (cancellationToken.isCancellationRequested()) {
                     if (abortExecution()) {
                         tasksCancelled = true;
+                        signalWaiters();
                     }
                 }
-                TaskInfo nextMatching = null;
-                boolean allTasksComplete = true;
-                Iterator<TaskInfo> iterator = executionQueue.iterator();
-                while (iterator.hasNext()) {
-                    TaskInfo taskInfo = iterator.next();
-                    allTasksComplete = allTasksComplete && taskInfo.isComplete();
-                    if (taskInfo.isReady() && taskInfo.allDependenciesComplete() && canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
-                        nextMatching = taskInfo;
-                        iterator.remove();
-                        break;
+                TaskInfo nextMatching = readyQueue.takeFirstMatching(new Spec<TaskInfo>() {
+                    @Override
+                    public boolean isSatisfiedBy(TaskInfo taskInfo) {
+                        return canRunWithWithCurrentlyExecutedTasks(taskInfo);
                     }
-                }
-                if (allTasksComplete) {
-                    return null;
-                }
+                });
                 if (nextMatching == null) {
+                    if (readyQueue.isEmpty()) {
+                        return null;
+                    }
+                    waitingWorkers++;
                     try {
-                        condition.await();
+                        taskAvailable.await();
                     } catch (InterruptedException e) {
                         throw new RuntimeException(e);
+                    } finally {
+                        waitingWorkers--;
                     }
                 } else {
                     if (nextMatching.allDependenciesSuccessful()) {
@@ -489,7 +541,8 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                         return nextMatching;
                     } else {
                         nextMatching.skipExecution();
-                        condition.signalAll();
+                        readyQueue.stateChanged(nextMatching, false);
+                        signalWaiters();
                     }
                 }
             }
@@ -498,6 +551,23 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
+    /**
+     * Wakes up as many waiting workers as there are tasks that may have become available, and any thread waiting for the plan to complete once all tasks are complete.
+     */
+    private void signalWaiters() {
+        if (readyQueue.isEmpty()) {
+            taskAvailable.signalAll();
+            if (runningTasks.isEmpty()) {
+                completion.signalAll();
+            }
+            return;
+        }
+        int workersToWake = Math.min(readyQueue.readyCount(), waitingWorkers);
+        for (int i = 0; i < workersToWake; i++) {
+            taskAvailable.signal();
+        }
+    }
+
     private boolean canRunWithWithCurrentlyExecutedTasks(TaskInfo taskInfo) {
         TaskInternal task = taskInfo.getTask();
         String projectPath = task.getProject().getPath();
@@ -512,6 +582,10 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             }
         }
 
+        if (!resourcesAvailableFor(task)) {
+            return false;
+        }
+
         Pair<TaskInternal, String> overlap = firstTaskWithOverlappingOutput(task);
         if (overlap == null) {
             return true;
@@ -522,6 +596,17 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         return false;
     }
 
+    private boolean resourcesAvailableFor(TaskInternal task) {
+        TaskResourceRequirements requirements = resourceRequirementsOf(task);
+        return requirements.getCpuUnits() <= cpuBudget - cpuUnitsInUse
+            && requirements.getMemoryMegabytes() <= memoryBudget - memoryInUse;
+    }
+
+    // A task that requires more than the budget runs alone, and uses the whole budget
+    private TaskResourceRequirements resourceRequirementsOf(TaskInternal task) {
+        return task.getResourceRequirements().limitTo(cpuBudget, memoryBudget);
+    }
+
     private Set<String> canonicalizedOutputPaths(TaskInternal task) {
         Set<String> paths = canonicalizedOutputCache.get(task);
         if (paths == null) {
@@ -549,35 +634,22 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             return null;
         }
 
-        for (String candidateTaskOutputPath : canonicalizedOutputPaths(candidateTask)) {
-            for (TaskInternal runningTask : runningTasks) {
-                for (String runningTaskOutputPath : canonicalizedOutputPaths(runningTask)) {
-                    if (pathsOverlap(candidateTaskOutputPath, runningTaskOutputPath)) {
-                        return Pair.of(runningTask, TextUtil.shorterOf(candidateTaskOutputPath, runningTaskOutputPath));
-                    }
-                }
+        // Outputs of running tasks are only resolved once there is some other task that might overlap them
+        for (TaskInternal runningTask : runningTasksToIndex) {
+            for (String path : canonicalizedOutputPaths(runningTask)) {
+                runningTaskOutputs.add(runningTask, path);
             }
         }
+        runningTasksToIndex.clear();
 
-        return null;
-    }
-
-
-    private boolean pathsOverlap(String firstPath, String secondPath) {
-        if (firstPath.equals(secondPath)) {
-            return true;
+        for (String candidateTaskOutputPath : canonicalizedOutputPaths(candidateTask)) {
+            Pair<TaskInternal, String> overlap = runningTaskOutputs.firstOverlap(candidateTaskOutputPath);
+            if (overlap != null) {
+                return overlap;
+            }
         }
 
-        String shorter;
-        String longer;
-        if (firstPath.length() > secondPath.length()) {
-            shorter = secondPath;
-            longer = firstPath;
-        } else {
-            shorter = firstPath;
-            longer = secondPath;
-        }
-        return longer.startsWith(shorter + StandardSystemProperty.FILE_SEPARATOR.value());
+        return null;
     }
 
     boolean isParallelizable(TaskInternal task) {
@@ -614,6 +686,11 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
         projectsWithRunningTasks.add(projectPath);
         runningTasks.add(task);
+        runningTasksToIndex.add(task);
+        TaskResourceRequirements requirements = resourceRequirementsOf(task);
+        runningTaskResources.put(task, requirements);
+        cpuUnitsInUse += requirements.getCpuUnits();
+        memoryInUse += requirements.getMemoryMegabytes();
     }
 
     private void recordTaskCompleted(TaskInfo taskInfo) {
@@ -623,6 +700,14 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             projectsWithRunningNonParallelizableTasks.remove(projectPath);
         }
         projectsWithRunningTasks.remove(projectPath);
+        TaskResourceRequirements requirements = runningTaskResources.remove(task);
+        cpuUnitsInUse -= requirements.getCpuUnits();
+        memoryInUse -= requirements.getMemoryMegabytes();
+        if (!runningTasksToIndex.remove(task)) {
+            for (String path : canonicalizedOutputPaths(task)) {
+                runningTaskOutputs.remove(task, path);
+            }
+        }
         canonicalizedOutputCache.remove(task);
         isParallelSafeCache.remove(task);
         runningTasks.remove(task);
@@ -638,7 +723,8 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
             taskInfo.finishExecution();
             recordTaskCompleted(taskInfo);
-            condition.signalAll();
+            readyQueue.stateChanged(taskInfo, false);
+            signalWaiters();
         } finally {
             lock.unlock();
         }
@@ -663,7 +749,9 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             enforceWithDependencies(dependencyNode, enforcedTasks);
         }
         if (node.isMustNotRun() || node.isRequired()) {
+            boolean wasComplete = node.isComplete();
             node.enforceRun();
+            readyQueue.stateChanged(node, wasComplete);
         }
     }
 
@@ -693,6 +781,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         for (TaskInfo taskInfo : executionPlan.values()) {
             if (taskInfo.isRequired()) {
                 taskInfo.skipExecution();
+                readyQueue.stateChanged(taskInfo, false);
                 aborted = true;
             }
         }
@@ -704,7 +793,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         try {
             while (!allTasksComplete()) {
                 try {
-                    condition.await();
+                    completion.await();
                 } catch (InterruptedException e) {
                     throw new RuntimeException(e);
                 }
@@ -749,6 +838,76 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
+    /**
+     * The nodes that are still to be visited by {@link #determineExecutionPlan()}. Nodes are mostly added and removed at the head of the queue,
+     * so the queue is kept in reverse order in an array list, with the head at the end, to make both constant time operations.
+     */
+    private static class NodeQueue {
+        private final List<TaskInfoInVisitingSegment> reversedQueue = new ArrayList<TaskInfoInVisitingSegment>();
+        private final Map<TaskInfo, Integer> queuedCounts = new HashMap<TaskInfo, Integer>();
+
+        NodeQueue(Collection<TaskInfo> entryTasks) {
+            List<TaskInfo> tasks = new ArrayList<TaskInfo>(entryTasks);
+            for (int index = tasks.size() - 1; index >= 0; index--) {
+                addFirst(new TaskInfoInVisitingSegment(tasks.get(index), index));
+            }
+        }
+
+        boolean isEmpty() {
+            return reversedQueue.isEmpty();
+        }
+
+        TaskInfoInVisitingSegment peek() {
+            return reversedQueue.get(reversedQueue.size() - 1);
+        }
+
+        void removeFirst() {
+            TaskInfoInVisitingSegment removed = reversedQueue.remove(reversedQueue.size() - 1);
+            int count = queuedCounts.get(removed.taskInfo);
+            if (count == 1) {
+                queuedCounts.remove(removed.taskInfo);
+            } else {
+                queuedCounts.put(removed.taskInfo, count - 1);
+            }
+        }
+
+        void addFirst(TaskInfoInVisitingSegment node) {
+            reversedQueue.add(node);
+            countQueued(node.taskInfo);
+        }
+
+        /**
+         * Inserts a finalizer right behind the successor of the finalizer that is furthest from the head of the queue. Only the occurrence of
+         * each successor that is nearest to the head counts. The queue is searched from the head, and only for the successors that are queued.
+         */
+        void addAfterSuccessors(TaskInfoInVisitingSegment finalizer) {
+            Set<TaskInfo> queuedSuccessors = new HashSet<TaskInfo>();
+            addQueued(finalizer.taskInfo.getDependencySuccessors(), queuedSuccessors);
+            addQueued(finalizer.taskInfo.getMustSuccessors(), queuedSuccessors);
+            addQueued(finalizer.taskInfo.getShouldSuccessors(), queuedSuccessors);
+            int index = reversedQueue.size();
+            while (!queuedSuccessors.isEmpty()) {
+                index--;
+                queuedSuccessors.remove(reversedQueue.get(index).taskInfo);
+            }
+            reversedQueue.add(index, finalizer);
+            countQueued(finalizer.taskInfo);
+        }
+
+        private void countQueued(TaskInfo taskInfo) {
+            Integer count = queuedCounts.get(taskInfo);
+            queuedCounts.put(taskInfo, count == null ? 1 : count + 1);
+        }
+
+        private void addQueued(Collection<TaskInfo> successors, Set<TaskInfo> queuedSuccessors) {
+            for (TaskInfo successor : successors) {
+                if (queuedCounts.containsKey(successor)) {
+                    queuedSuccessors.add(successor);
+                }
+            }
+        }
+    }
+
     private static class TaskInfoInVisitingSegment {
         private final TaskInfo taskInfo;
         private final int visitingSegment;
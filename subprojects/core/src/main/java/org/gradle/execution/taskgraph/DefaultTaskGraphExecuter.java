@@ -33,6 +33,7 @@ import org.gradle.execution.TaskGraphExecuter;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.Factory;
 import org.gradle.internal.TimeProvider;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.progress.BuildOperationExecutor;
@@ -51,6 +52,11 @@ import java.util.Set;
 public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultTaskGraphExecuter.class);
 
+    /**
+     * Resolves the dependencies of the tasks discovered while populating the graph concurrently.
+     */
+    public static final String PARALLEL_DEPENDENCY_RESOLUTION_PROPERTY = "org.gradle.internal.parallelTaskDependencyResolution";
+
     private enum TaskGraphState {
         EMPTY, DIRTY, POPULATED
     }
@@ -58,6 +64,7 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
     private final TaskPlanExecutor taskPlanExecutor;
     // This currently needs to be lazy, as it uses state that is not available when the graph is created
     private final Factory<? extends TaskExecuter> taskExecuter;
+    private final Factory<? extends TaskExecutionTimeHistory> executionTimeHistory;
     private final TimeProvider timeProvider;
     private final ListenerBroadcast<TaskExecutionGraphListener> graphListeners;
     private final ListenerBroadcast<TaskExecutionListener> taskListeners;
@@ -66,9 +73,11 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
     private final BuildOperationExecutor buildOperationExecutor;
     private TaskGraphState taskGraphState = TaskGraphState.EMPTY;
 
-    public DefaultTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor, Factory<? extends TaskExecuter> taskExecuter, BuildCancellationToken cancellationToken, TimeProvider timeProvider, BuildOperationExecutor buildOperationExecutor) {
+    public DefaultTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor, Factory<? extends TaskExecuter> taskExecuter, Factory<? extends TaskExecutionTimeHistory> executionTimeHistory,
+                                    BuildCancellationToken cancellationToken, TimeProvider timeProvider, BuildOperationExecutor buildOperationExecutor) {
         this.taskPlanExecutor = taskPlanExecutor;
         this.taskExecuter = taskExecuter;
+        this.executionTimeHistory = executionTimeHistory;
         this.timeProvider = timeProvider;
         this.buildOperationExecutor = buildOperationExecutor;
         graphListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionGraphListener.class);
@@ -81,6 +90,10 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         taskExecutionPlan.useFailureHandler(handler);
     }
 
+    public void useConcurrentDependencyResolution(ExecutorFactory executorFactory, int maxWorkers) {
+        taskExecutionPlan.useConcurrentDependencyResolution(executorFactory, maxWorkers);
+    }
+
     public void useFilter(Spec<? super Task> filter) {
         taskExecutionPlan.useFilter(filter);
         taskGraphState = TaskGraphState.DIRTY;
@@ -107,8 +120,14 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
 
         graphListeners.getSource().graphPopulated(this);
         try {
-            taskPlanExecutor.process(taskExecutionPlan, new EventFiringTaskWorker(taskExecuter.create(), buildOperationExecutor.getCurrentOperationId()));
+            TaskExecutionTimeHistory executionTimeHistory = this.executionTimeHistory.create();
+            taskExecutionPlan.useExecutionTimeHistory(executionTimeHistory);
+            taskPlanExecutor.process(taskExecutionPlan, new EventFiringTaskWorker(taskExecuter.create(), executionTimeHistory, buildOperationExecutor.getCurrentOperationId()));
             LOGGER.debug("Timing: Executing the DAG took " + clock.getTime());
+            Long predictedExecutionTime = taskExecutionPlan.getPredictedExecutionTime();
+            if (predictedExecutionTime != null) {
+                LOGGER.info("Predicted execution time of the task graph was {}, actual execution time was {}.", Clock.prettyTime(predictedExecutionTime), clock.getTime());
+            }
         } finally {
             taskExecutionPlan.clear();
         }
@@ -184,10 +203,12 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
      */
     private class EventFiringTaskWorker implements Action<TaskInternal> {
         private final TaskExecuter taskExecuter;
+        private final TaskExecutionTimeHistory executionTimeHistory;
         private final Object parentOperationId;
 
-        public EventFiringTaskWorker(TaskExecuter taskExecuter, Object parentOperationId) {
+        public EventFiringTaskWorker(TaskExecuter taskExecuter, TaskExecutionTimeHistory executionTimeHistory, Object parentOperationId) {
             this.taskExecuter = taskExecuter;
+            this.executionTimeHistory = executionTimeHistory;
             this.parentOperationId = parentOperationId;
         }
 
@@ -205,6 +226,10 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
             } finally {
                 long endTime = timeProvider.getCurrentTime();
                 internalTaskListeners.getSource().afterExecute(taskOperation, new OperationResult(startTime, endTime, task.getState().getFailure()));
+                // Only the time of a task whose actions did run predicts its next execution, not that of an up-to-date, cached or skipped task
+                if (state.getFailure() == null && !state.getSkipped() && state.getDidWork()) {
+                    executionTimeHistory.recordExecutionTime(task, endTime - startTime);
+                }
             }
         }
     }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import com.google.common.collect.Maps;
+import org.gradle.api.Nullable;
+import org.gradle.internal.Pair;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the output paths of a changing set of owners, for instance the running tasks of an execution plan.
+ * <p>
+ * The paths are kept in a trie keyed by path segment, so finding an owner of a path that overlaps a given path takes time proportional to the depth of the path,
+ * rather than to the number of paths in the index. Two paths overlap when they are equal or when one of them is an ancestor of the other.
+ * <p>
+ * The paths are expected to be canonical. This class is not thread-safe.
+ */
+class OutputPathIndex<T> {
+    private final Node<T> root = new Node<T>(null);
+
+    /**
+     * Adds the given path, owned by the given owner.
+     */
+    void add(T owner, String path) {
+        Node<T> node = root;
+        node.ownedInSubtree++;
+        for (String segment : segments(path)) {
+            Node<T> child = node.children.get(segment);
+            if (child == null) {
+                child = new Node<T>(node);
+                node.children.put(segment, child);
+            }
+            node = child;
+            node.ownedInSubtree++;
+        }
+        node.owners.add(owner);
+        node.path = path;
+    }
+
+    /**
+     * Removes the given path of the given owner, which must have been added before.
+     */
+    void remove(T owner, String path) {
+        List<String> segments = segments(path);
+        Node<T> node = root;
+        for (String segment : segments) {
+            node = node.children.get(segment);
+            if (node == null) {
+                throw new IllegalArgumentException(String.format("Path '%s' is not in the index.", path));
+            }
+        }
+        if (!node.owners.remove(owner)) {
+            throw new IllegalArgumentException(String.format("Path '%s' is not in the index.", path));
+        }
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Node<T> parent = node.parent;
+            if (--node.ownedInSubtree == 0) {
+                parent.children.remove(segments.get(i));
+            }
+            node = parent;
+        }
+        root.ownedInSubtree--;
+    }
+
+    void clear() {
+        root.children.clear();
+        root.owners.clear();
+        root.ownedInSubtree = 0;
+    }
+
+    /**
+     * Returns an owner of a path that overlaps the given path, together with the shorter of the two overlapping paths. Returns null when no path overlaps.
+     */
+    @Nullable
+    Pair<T, String> firstOverlap(String path) {
+        Node<T> node = root;
+        if (!node.owners.isEmpty()) {
+            return Pair.of(node.owners.get(0), node.path);
+        }
+        for (String segment : segments(path)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return null;
+            }
+            if (!node.owners.isEmpty()) {
+                // Either the same path, or an ancestor of the path
+                return Pair.of(node.owners.get(0), node.path);
+            }
+        }
+        if (node.ownedInSubtree == 0) {
+            return null;
+        }
+        // Some descendant of the path is owned
+        while (node.owners.isEmpty()) {
+            node = node.children.values().iterator().next();
+        }
+        return Pair.of(node.owners.get(0), path);
+    }
+
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<String>();
+        int start = 0;
+        int length = path.length();
+        while (start < length) {
+            int end = path.indexOf(File.separatorChar, start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private static class Node<T> {
+        final Node<T> parent;
+        final Map<String, Node<T>> children = Maps.newHashMap();
+        final List<T> owners = new ArrayList<T>(1);
+        String path;
+        int ownedInSubtree;
+
+        Node(Node<T> parent) {
+            this.parent = parent;
+        }
+    }
+}
@@ -20,46 +20,58 @@ import org.gradle.api.Action;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
-import org.gradle.internal.concurrent.ExecutorFactory;
-import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.operations.BuildOperationWorkerRegistry;
 
-import java.util.concurrent.Executor;
+import java.util.ArrayList;
+import java.util.List;
 
 class ParallelTaskPlanExecutor extends AbstractTaskPlanExecutor {
+    /**
+     * The memory in megabytes available to the tasks that execute at the same time. Not limited by default.
+     */
+    public static final String MEMORY_BUDGET_PROPERTY = "org.gradle.internal.tasks.memoryBudget";
+
     private static final Logger LOGGER = Logging.getLogger(ParallelTaskPlanExecutor.class);
     private final int executorCount;
-    private final ExecutorFactory executorFactory;
+    private final long memoryBudget;
+    private final TaskWorkerPool workerPool;
     private final BuildOperationWorkerRegistry buildOperationWorkerRegistry;
 
-    public ParallelTaskPlanExecutor(int numberOfParallelExecutors, ExecutorFactory executorFactory, BuildOperationWorkerRegistry buildOperationWorkerRegistry) {
-        this.executorFactory = executorFactory;
+    public ParallelTaskPlanExecutor(int numberOfParallelExecutors, TaskWorkerPool workerPool, BuildOperationWorkerRegistry buildOperationWorkerRegistry) {
+        this.workerPool = workerPool;
         this.buildOperationWorkerRegistry = buildOperationWorkerRegistry;
         if (numberOfParallelExecutors < 2) {
             throw new IllegalArgumentException("Not a valid number of parallel executors: " + numberOfParallelExecutors);
         }
 
         this.executorCount = numberOfParallelExecutors;
+        this.memoryBudget = Long.getLong(MEMORY_BUDGET_PROPERTY, Long.MAX_VALUE);
     }
 
     @Override
     public void process(TaskExecutionPlan taskExecutionPlan, Action<? super TaskInternal> taskWorker) {
-        StoppableExecutor executor = executorFactory.create("Task worker");
+        taskExecutionPlan.useResourceBudget(executorCount, memoryBudget);
+        TaskWorkerPool.Completion completion = startAdditionalWorkers(taskExecutionPlan, taskWorker);
         try {
-            startAdditionalWorkers(taskExecutionPlan, taskWorker, executor);
-            taskWorker(taskExecutionPlan, taskWorker, buildOperationWorkerRegistry).run();
+            taskWorker(taskExecutionPlan, taskWorker, buildOperationWorkerRegistry).execute(new TaskWorkerStatistics(Thread.currentThread().getName()));
             taskExecutionPlan.awaitCompletion();
         } finally {
-            executor.stop();
+            completion.await();
+        }
+        if (LOGGER.isDebugEnabled()) {
+            for (TaskWorkerStatistics statistics : workerPool.getWorkerStatistics()) {
+                LOGGER.debug("Task worker utilisation since the pool was started, {}", statistics);
+            }
         }
     }
 
-    private void startAdditionalWorkers(TaskExecutionPlan taskExecutionPlan, Action<? super TaskInternal> taskWorker, Executor executor) {
+    private TaskWorkerPool.Completion startAdditionalWorkers(TaskExecutionPlan taskExecutionPlan, Action<? super TaskInternal> taskWorker) {
         LOGGER.info("Using {} parallel executor threads", executorCount);
 
+        List<Action<TaskWorkerStatistics>> workers = new ArrayList<Action<TaskWorkerStatistics>>(executorCount - 1);
         for (int i = 1; i < executorCount; i++) {
-            Runnable worker = taskWorker(taskExecutionPlan, taskWorker, buildOperationWorkerRegistry);
-            executor.execute(worker);
+            workers.add(taskWorker(taskExecutionPlan, taskWorker, buildOperationWorkerRegistry));
         }
+        return workerPool.start(workers);
     }
 }
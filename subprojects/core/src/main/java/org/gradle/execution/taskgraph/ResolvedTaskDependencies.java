@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Task;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.tasks.CachingTaskDependencyResolveContext;
+import org.gradle.internal.UncheckedException;
+
+import java.util.Set;
+
+/**
+ * The tasks that a task depends on, is finalized by and must or should run after, or the failure to resolve them.
+ */
+class ResolvedTaskDependencies {
+    private final Set<? extends Task> dependsOn;
+    private final Set<? extends Task> finalizedBy;
+    private final Set<? extends Task> mustRunAfter;
+    private final Set<? extends Task> shouldRunAfter;
+    private final Throwable failure;
+
+    private ResolvedTaskDependencies(Set<? extends Task> dependsOn, Set<? extends Task> finalizedBy, Set<? extends Task> mustRunAfter, Set<? extends Task> shouldRunAfter, Throwable failure) {
+        this.dependsOn = dependsOn;
+        this.finalizedBy = finalizedBy;
+        this.mustRunAfter = mustRunAfter;
+        this.shouldRunAfter = shouldRunAfter;
+        this.failure = failure;
+    }
+
+    static ResolvedTaskDependencies resolve(TaskInternal task, CachingTaskDependencyResolveContext context) {
+        Set<? extends Task> dependsOn = context.getDependencies(task);
+        Set<? extends Task> finalizedBy = task.getFinalizedBy().getDependencies(task);
+        Set<? extends Task> mustRunAfter = task.getMustRunAfter().getDependencies(task);
+        Set<? extends Task> shouldRunAfter = task.getShouldRunAfter().getDependencies(task);
+        return new ResolvedTaskDependencies(dependsOn, finalizedBy, mustRunAfter, shouldRunAfter, null);
+    }
+
+    static ResolvedTaskDependencies failed(Throwable failure) {
+        return new ResolvedTaskDependencies(null, null, null, null, failure);
+    }
+
+    boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Rethrows the failure to resolve the relationships, if any.
+     */
+    ResolvedTaskDependencies rethrowFailure() {
+        if (failure != null) {
+            throw UncheckedException.throwAsUncheckedException(failure);
+        }
+        return this;
+    }
+
+    Set<? extends Task> getDependsOn() {
+        return dependsOn;
+    }
+
+    Set<? extends Task> getFinalizedBy() {
+        return finalizedBy;
+    }
+
+    Set<? extends Task> getMustRunAfter() {
+        return mustRunAfter;
+    }
+
+    Set<? extends Task> getShouldRunAfter() {
+        return shouldRunAfter;
+    }
+}
@@ -47,4 +47,12 @@ public interface TaskExecutionPlan {
      * @return The task, or null if no matching tasks remain.
      */
     TaskInfo getTaskToExecute();
+
+    /**
+     * Limits the resources that the tasks executing at the same time may require in total. A task that requires more than the budget is only executed when no other task is executing.
+     *
+     * @param cpuUnits the number of CPU units available, usually the maximum number of workers.
+     * @param memoryMegabytes the memory available in megabytes.
+     */
+    void useResourceBudget(int cpuUnits, long memoryMegabytes);
 }
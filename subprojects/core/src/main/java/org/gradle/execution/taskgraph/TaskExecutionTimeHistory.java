@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Task;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Remembers how long tasks took to execute in previous builds, so that the execution plan can start the tasks on the longest path through the task graph first.
+ */
+public interface TaskExecutionTimeHistory {
+    TaskExecutionTimeHistory NO_HISTORY = new TaskExecutionTimeHistory() {
+        @Override
+        public Map<Task, Long> getPreviousExecutionTimes(Collection<? extends Task> tasks) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void recordExecutionTime(Task task, long executionTime) {
+        }
+    };
+
+    /**
+     * Returns the execution time in milliseconds of the most recent execution of those of the given tasks that have been executed before.
+     */
+    Map<Task, Long> getPreviousExecutionTimes(Collection<? extends Task> tasks);
+
+    /**
+     * Records the execution time in milliseconds of the given task, whose actions have been executed. Tasks that were up-to-date, loaded from the cache or skipped are not recorded.
+     */
+    void recordExecutionTime(Task task, long executionTime);
+}
@@ -17,17 +17,16 @@
 package org.gradle.execution.taskgraph;
 
 import org.gradle.internal.Factory;
-import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.operations.BuildOperationWorkerRegistry;
 
 public class TaskPlanExecutorFactory implements Factory<TaskPlanExecutor> {
     private final int parallelThreads;
-    private final ExecutorFactory executorFactory;
+    private final TaskWorkerPool workerPool;
     private final BuildOperationWorkerRegistry buildOperationWorkerRegistry;
 
-    public TaskPlanExecutorFactory(int parallelThreads, ExecutorFactory executorFactory, BuildOperationWorkerRegistry buildOperationWorkerRegistry) {
+    public TaskPlanExecutorFactory(int parallelThreads, TaskWorkerPool workerPool, BuildOperationWorkerRegistry buildOperationWorkerRegistry) {
         this.parallelThreads = parallelThreads;
-        this.executorFactory = executorFactory;
+        this.workerPool = workerPool;
         this.buildOperationWorkerRegistry = buildOperationWorkerRegistry;
     }
 
@@ -36,7 +35,7 @@ public class TaskPlanExecutorFactory implements Factory<TaskPlanExecutor> {
             throw new IllegalStateException(String.format("Cannot create executor for requested number of worker threads: %s.", parallelThreads));
         }
         if (parallelThreads > 1) {
-            return new ParallelTaskPlanExecutor(parallelThreads, executorFactory, buildOperationWorkerRegistry);
+            return new ParallelTaskPlanExecutor(parallelThreads, workerPool, buildOperationWorkerRegistry);
         }
         return new DefaultTaskPlanExecutor(buildOperationWorkerRegistry);
     }
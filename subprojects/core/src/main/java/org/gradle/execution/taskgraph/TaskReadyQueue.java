@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.gradle.api.Task;
+import org.gradle.api.specs.Spec;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The tasks of an execution plan that have not been handed out for execution yet.
+ * <p>
+ * For each task, the queue keeps count of the dependencies and must-run-after tasks that are not complete yet.
+ * Tasks whose count drops to zero are kept in order, so that finding the next task to execute does not need to look at the other tasks.
+ * Ready tasks are ordered by the execution time of the longest path from the task to the end of the task graph, when execution times of previous builds are known,
+ * and then by their position in the plan.
+ * The queue must be told about every change to the completeness of a task through {@link #stateChanged(TaskInfo, boolean)}.
+ * <p>
+ * This class is not thread-safe.
+ */
+class TaskReadyQueue {
+    private final Map<TaskInfo, Integer> positions = Maps.newHashMap();
+    private final Map<TaskInfo, Integer> incompleteDependencies = Maps.newHashMap();
+    private final ListMultimap<TaskInfo, TaskInfo> dependents = ArrayListMultimap.create();
+    private final Set<TaskInfo> queued = Sets.newHashSet();
+    private final Map<TaskInfo, Long> remainingExecutionTimes = Maps.newHashMap();
+    private final TreeSet<TaskInfo> ready = new TreeSet<TaskInfo>(new Comparator<TaskInfo>() {
+        @Override
+        public int compare(TaskInfo o1, TaskInfo o2) {
+            long remaining1 = getRemainingExecutionTime(o1);
+            long remaining2 = getRemainingExecutionTime(o2);
+            if (remaining1 != remaining2) {
+                return remaining1 > remaining2 ? -1 : 1;
+            }
+            return positions.get(o1).compareTo(positions.get(o2));
+        }
+    });
+    private int incompleteQueued;
+    private long longestPathExecutionTime;
+
+    /**
+     * @param executionTimes the known execution times of tasks of the plan, in milliseconds.
+     */
+    TaskReadyQueue(List<TaskInfo> plan, Map<? extends Task, Long> executionTimes) {
+        int position = 0;
+        for (TaskInfo taskInfo : plan) {
+            positions.put(taskInfo, position++);
+            queued.add(taskInfo);
+            if (!taskInfo.isComplete()) {
+                incompleteQueued++;
+            }
+        }
+        for (TaskInfo taskInfo : plan) {
+            int count = 0;
+            for (TaskInfo dependency : Sets.union(taskInfo.getMustSuccessors(), taskInfo.getDependencySuccessors())) {
+                dependents.put(dependency, taskInfo);
+                if (!dependency.isComplete()) {
+                    count++;
+                }
+            }
+            incompleteDependencies.put(taskInfo, count);
+        }
+        if (!executionTimes.isEmpty()) {
+            // Tasks that depend on a task always come after it in the plan
+            for (int i = plan.size() - 1; i >= 0; i--) {
+                TaskInfo taskInfo = plan.get(i);
+                long remaining = 0;
+                for (TaskInfo dependent : dependents.get(taskInfo)) {
+                    remaining = Math.max(remaining, getRemainingExecutionTime(dependent));
+                }
+                Long executionTime = executionTimes.get(taskInfo.getTask());
+                if (executionTime != null && taskInfo.isRequired()) {
+                    remaining += executionTime;
+                }
+                remainingExecutionTimes.put(taskInfo, remaining);
+                longestPathExecutionTime = Math.max(longestPathExecutionTime, remaining);
+            }
+        }
+        for (TaskInfo taskInfo : plan) {
+            if (incompleteDependencies.get(taskInfo) == 0 && taskInfo.isReady()) {
+                ready.add(taskInfo);
+            }
+        }
+    }
+
+    /**
+     * The execution time in milliseconds of the longest path through the tasks of the plan, based on the known execution times.
+     */
+    long getLongestPathExecutionTime() {
+        return longestPathExecutionTime;
+    }
+
+    private long getRemainingExecutionTime(TaskInfo taskInfo) {
+        Long remaining = remainingExecutionTimes.get(taskInfo);
+        return remaining == null ? 0 : remaining;
+    }
+
+    /**
+     * Returns true when every task that has not been handed out yet is complete.
+     */
+    boolean isEmpty() {
+        return incompleteQueued == 0;
+    }
+
+    /**
+     * The number of tasks that could be handed out, if they are allowed to run.
+     */
+    int readyCount() {
+        return ready.size();
+    }
+
+    /**
+     * Removes and returns the first task in order that is ready to execute and that satisfies the given spec.
+     */
+    TaskInfo takeFirstMatching(Spec<? super TaskInfo> canRun) {
+        Iterator<TaskInfo> iterator = ready.iterator();
+        while (iterator.hasNext()) {
+            TaskInfo taskInfo = iterator.next();
+            if (canRun.isSatisfiedBy(taskInfo)) {
+                iterator.remove();
+                queued.remove(taskInfo);
+                incompleteQueued--;
+                return taskInfo;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Updates the queue after the state of the given task has changed.
+     */
+    void stateChanged(TaskInfo taskInfo, boolean wasComplete) {
+        boolean isQueued = queued.contains(taskInfo);
+        if (isQueued) {
+            updateReady(taskInfo);
+        }
+        boolean isComplete = taskInfo.isComplete();
+        if (wasComplete == isComplete) {
+            return;
+        }
+        if (isQueued) {
+            incompleteQueued += isComplete ? -1 : 1;
+        }
+        int delta = isComplete ? -1 : 1;
+        for (TaskInfo dependent : dependents.get(taskInfo)) {
+            Integer count = incompleteDependencies.get(dependent);
+            incompleteDependencies.put(dependent, count + delta);
+            if (queued.contains(dependent)) {
+                updateReady(dependent);
+            }
+        }
+    }
+
+    private void updateReady(TaskInfo taskInfo) {
+        if (taskInfo.isReady() && incompleteDependencies.get(taskInfo) == 0) {
+            ready.add(taskInfo);
+        } else {
+            ready.remove(taskInfo);
+        }
+    }
+}
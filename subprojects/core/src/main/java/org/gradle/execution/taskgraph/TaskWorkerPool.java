@@ -0,0 +1,275 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.Action;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pool of task worker threads that lives as long as the build process, so that a parallel build reuses the threads started by previous builds
+ * instead of starting its own. A thread that is not running a worker waits for the next one, and the pool only starts a thread when all of its
+ * threads are busy.
+ *
+ * <p>The pool shrinks when it is not used: a thread that has been waiting for longer than the keep alive time leaves the pool, and a thread that
+ * finishes a worker while the maximum number of threads are already waiting leaves the pool at once. The context class loader of a thread
+ * and its interrupted status are reset after each worker, so that a worker does not see the state left by a previous build. Other thread
+ * local state is released when the thread leaves the pool.</p>
+ *
+ * <p>Workers are given the statistics of the thread they run on, which accumulate over all the builds the thread has worked for.</p>
+ */
+@ThreadSafe
+public class TaskWorkerPool implements Stoppable {
+    /**
+     * The number of seconds after which a thread that is waiting for a worker leaves the pool.
+     */
+    public static final String KEEP_ALIVE_TIME_PROPERTY = "org.gradle.internal.taskWorkerPool.keepAliveTime";
+
+    /**
+     * The maximum number of threads that wait for a worker.
+     */
+    public static final String MAX_IDLE_THREADS_PROPERTY = "org.gradle.internal.taskWorkerPool.maxIdleThreads";
+
+    private static final int DEFAULT_KEEP_ALIVE_TIME = 60;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Deque<PendingWorker> pending = new ArrayDeque<PendingWorker>();
+    private final List<TaskWorkerStatistics> statistics = new ArrayList<TaskWorkerStatistics>();
+    private final ExecutorFactory executorFactory;
+    private final long keepAliveNanos;
+    private final int maxIdleThreads;
+    private StoppableExecutor executor;
+    private int idleThreads;
+    private boolean stopped;
+
+    public TaskWorkerPool(ExecutorFactory executorFactory) {
+        this(executorFactory,
+            Integer.getInteger(KEEP_ALIVE_TIME_PROPERTY, DEFAULT_KEEP_ALIVE_TIME),
+            Integer.getInteger(MAX_IDLE_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public TaskWorkerPool(ExecutorFactory executorFactory, long keepAliveTimeSeconds, int maxIdleThreads) {
+        this(executorFactory, TimeUnit.SECONDS.toNanos(Math.max(0, keepAliveTimeSeconds)), TimeUnit.NANOSECONDS, maxIdleThreads);
+    }
+
+    TaskWorkerPool(ExecutorFactory executorFactory, long keepAliveTime, TimeUnit unit, int maxIdleThreads) {
+        this.executorFactory = executorFactory;
+        this.keepAliveNanos = unit.toNanos(keepAliveTime);
+        this.maxIdleThreads = Math.max(0, maxIdleThreads);
+    }
+
+    /**
+     * Runs the given workers on pooled threads, one thread each. Does not wait for the workers to complete.
+     */
+    public Completion start(List<? extends Action<? super TaskWorkerStatistics>> workers) {
+        Completion completion = new Completion(workers.size());
+        lock.lock();
+        try {
+            if (stopped) {
+                throw new IllegalStateException("Cannot start workers as the task worker pool has been stopped.");
+            }
+            for (Action<? super TaskWorkerStatistics> worker : workers) {
+                pending.add(new PendingWorker(worker, completion));
+            }
+            if (executor == null) {
+                executor = executorFactory.create("Task worker");
+            }
+            while (idleThreads < pending.size()) {
+                executor.execute(new PooledThread());
+                idleThreads++;
+            }
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return completion;
+    }
+
+    /**
+     * Returns the statistics of each thread currently in the pool.
+     */
+    public List<TaskWorkerStatistics> getWorkerStatistics() {
+        lock.lock();
+        try {
+            return new ArrayList<TaskWorkerStatistics>(statistics);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void stop() {
+        StoppableExecutor executor;
+        lock.lock();
+        try {
+            stopped = true;
+            workAvailable.signalAll();
+            executor = this.executor;
+        } finally {
+            lock.unlock();
+        }
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+
+    private class PooledThread implements Runnable {
+        public void run() {
+            Thread thread = Thread.currentThread();
+            ClassLoader contextClassLoader = thread.getContextClassLoader();
+            TaskWorkerStatistics threadStatistics = new TaskWorkerStatistics(thread.getName());
+            lock.lock();
+            try {
+                statistics.add(threadStatistics);
+            } finally {
+                lock.unlock();
+            }
+            PendingWorker worker;
+            while ((worker = takeWorker(threadStatistics)) != null) {
+                Throwable failure = worker.run(threadStatistics);
+                thread.setContextClassLoader(contextClassLoader);
+                Thread.interrupted();
+                // Return to the pool before reporting completion, so that the thread is available to the workers the caller starts next
+                boolean keep = returnToPool(threadStatistics);
+                worker.finished(failure);
+                if (!keep) {
+                    return;
+                }
+            }
+        }
+
+        private PendingWorker takeWorker(TaskWorkerStatistics threadStatistics) {
+            long start = System.nanoTime();
+            long remaining = keepAliveNanos;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && !stopped) {
+                    if (remaining <= 0 || idleThreads > maxIdleThreads) {
+                        leavePool(threadStatistics);
+                        return null;
+                    }
+                    try {
+                        remaining = workAvailable.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        // Keep waiting, the pool decides when the thread stops
+                        remaining = keepAliveNanos - (System.nanoTime() - start);
+                    }
+                }
+                threadStatistics.idle(System.nanoTime() - start);
+                idleThreads--;
+                return pending.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean returnToPool(TaskWorkerStatistics threadStatistics) {
+            lock.lock();
+            try {
+                if (pending.isEmpty() && idleThreads >= maxIdleThreads) {
+                    statistics.remove(threadStatistics);
+                    return false;
+                }
+                idleThreads++;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void leavePool(TaskWorkerStatistics threadStatistics) {
+            idleThreads--;
+            statistics.remove(threadStatistics);
+        }
+    }
+
+    private class PendingWorker {
+        private final Action<? super TaskWorkerStatistics> worker;
+        private final Completion completion;
+
+        PendingWorker(Action<? super TaskWorkerStatistics> worker, Completion completion) {
+            this.worker = worker;
+            this.completion = completion;
+        }
+
+        Throwable run(TaskWorkerStatistics threadStatistics) {
+            try {
+                worker.execute(threadStatistics);
+                return null;
+            } catch (Throwable t) {
+                return t;
+            }
+        }
+
+        void finished(Throwable failure) {
+            completion.workerFinished(failure);
+        }
+    }
+
+    /**
+     * Allows the caller to wait for the workers it started.
+     */
+    public static class Completion {
+        private final Object lock = new Object();
+        private int running;
+        private Throwable failure;
+
+        private Completion(int running) {
+            this.running = running;
+        }
+
+        private void workerFinished(Throwable failure) {
+            synchronized (lock) {
+                running--;
+                if (this.failure == null) {
+                    this.failure = failure;
+                }
+                lock.notifyAll();
+            }
+        }
+
+        /**
+         * Blocks until all the workers have completed, and rethrows the first failure of a worker, if any.
+         */
+        public void await() {
+            synchronized (lock) {
+                while (running > 0) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+                if (failure != null) {
+                    throw UncheckedException.throwAsUncheckedException(failure);
+                }
+            }
+        }
+    }
+}
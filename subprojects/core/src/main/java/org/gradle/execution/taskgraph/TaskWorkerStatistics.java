@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulates the time a task worker thread spends executing tasks, waiting for a task to become ready and waiting for a build to need it.
+ */
+public class TaskWorkerStatistics {
+    private final String workerName;
+    private long busyNanos;
+    private long blockedNanos;
+    private long idleNanos;
+    private int tasksExecuted;
+
+    public TaskWorkerStatistics(String workerName) {
+        this.workerName = workerName;
+    }
+
+    public String getWorkerName() {
+        return workerName;
+    }
+
+    /**
+     * The time spent executing tasks, in milliseconds.
+     */
+    public synchronized long getBusyTime() {
+        return TimeUnit.NANOSECONDS.toMillis(busyNanos);
+    }
+
+    /**
+     * The time spent waiting for the execution plan to hand out a task, in milliseconds.
+     */
+    public synchronized long getBlockedTime() {
+        return TimeUnit.NANOSECONDS.toMillis(blockedNanos);
+    }
+
+    /**
+     * The time spent waiting for a build to start a worker on this thread, in milliseconds.
+     */
+    public synchronized long getIdleTime() {
+        return TimeUnit.NANOSECONDS.toMillis(idleNanos);
+    }
+
+    public synchronized int getTasksExecuted() {
+        return tasksExecuted;
+    }
+
+    synchronized void taskExecuted(long nanos) {
+        busyNanos += nanos;
+        tasksExecuted++;
+    }
+
+    synchronized void blocked(long nanos) {
+        blockedNanos += nanos;
+    }
+
+    synchronized void idle(long nanos) {
+        idleNanos += nanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %d tasks, busy: %dms, blocked: %dms, idle: %dms", workerName, tasksExecuted, getBusyTime(), getBlockedTime(), getIdleTime());
+    }
+}
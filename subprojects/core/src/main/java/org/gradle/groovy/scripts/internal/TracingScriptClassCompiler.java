@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal;
+
+import groovy.lang.Script;
+import org.codehaus.groovy.ast.ClassNode;
+import org.gradle.api.Action;
+import org.gradle.api.internal.initialization.loadercache.ClassLoaderId;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.profile.TraceListener;
+
+/**
+ * Reports the time taken by the delegate to load a compiled script from the persistent cache, or to compile it when it is not in the cache.
+ */
+public class TracingScriptClassCompiler implements ScriptClassCompiler {
+    private final ScriptClassCompiler delegate;
+    private final TraceListener traceListener;
+
+    public TracingScriptClassCompiler(ScriptClassCompiler delegate, TraceListener traceListener) {
+        this.delegate = delegate;
+        this.traceListener = traceListener;
+    }
+
+    @Override
+    public <T extends Script, M> CompiledScript<T, M> compile(ScriptSource source, ClassLoader classLoader, ClassLoaderId classLoaderId, CompileOperation<M> operation, Class<T> scriptBaseClass, Action<? super ClassNode> verifier) {
+        long start = System.nanoTime();
+        try {
+            return delegate.compile(source, classLoader, classLoaderId, operation, scriptBaseClass, verifier);
+        } finally {
+            traceListener.traced("script", "Load or compile " + source.getDisplayName(), start, System.nanoTime());
+        }
+    }
+}
@@ -43,6 +43,7 @@ import org.gradle.internal.service.scopes.BuildScopeServices;
 import org.gradle.internal.service.scopes.BuildSessionScopeServices;
 import org.gradle.internal.service.scopes.ServiceRegistryFactory;
 import org.gradle.invocation.DefaultGradle;
+import org.gradle.profile.ChromeTraceExporter;
 import org.gradle.profile.ProfileEventAdapter;
 import org.gradle.profile.ReportGeneratingProfileListener;
 import org.gradle.util.DeprecationLogger;
@@ -144,6 +145,10 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
         if (startParameter.isProfile()) {
             listenerManager.addListener(new ReportGeneratingProfileListener());
         }
+        String traceFile = System.getProperty(ChromeTraceExporter.TRACE_FILE_PROPERTY);
+        if (!nestedInstance && traceFile != null) {
+            listenerManager.addListener(new ChromeTraceExporter(ChromeTraceExporter.resolveTraceFile(startParameter.getCurrentDir(), traceFile)));
+        }
         ScriptUsageLocationReporter usageLocationReporter = new ScriptUsageLocationReporter();
         listenerManager.addListener(usageLocationReporter);
         DeprecationLogger.useLocationReporter(usageLocationReporter);
@@ -21,6 +21,8 @@ import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.filewatch.jdk7.Jdk7FileWatcherFactory;
+import org.gradle.internal.filewatch.jdk7.LinuxFileWatcherFactory;
+import org.gradle.internal.os.OperatingSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +41,9 @@ public class DefaultFileWatcherFactory implements FileWatcherFactory, Stoppable
     }
 
     protected FileWatcherFactory createFileWatcherFactory() {
+        if (OperatingSystem.current().isLinux()) {
+            return new LinuxFileWatcherFactory(executor);
+        }
         return new Jdk7FileWatcherFactory(executor);
     }
 
@@ -41,7 +41,7 @@ public class FileWatcherEvent {
         return type;
     }
 
-    @Nullable // null if type == UNDEFINED
+    @Nullable // null if type == UNDEFINED and the affected location is not known
     public File getFile() {
         return file;
     }
@@ -67,4 +67,11 @@ public class FileWatcherEvent {
         return new FileWatcherEvent(Type.UNDEFINED, null);
     }
 
+    /**
+     * Something happened somewhere under the given directory, but we don't know what (e.g. events were dropped).
+     */
+    public static FileWatcherEvent undefined(File directory) {
+        return new FileWatcherEvent(Type.UNDEFINED, directory);
+    }
+
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.filewatch.jdk7;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.gradle.api.Action;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.filewatch.FileWatcher;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.FileWatcherListener;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.WatchService;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * File watching on Linux, backed by the inotify-based JDK watch service.
+ * Registers watches in bulk and delivers events in batches.
+ *
+ * @see LinuxWatchServiceRegistrar
+ * @see LinuxWatchServicePoller
+ */
+public class LinuxFileWatcherFactory implements FileWatcherFactory {
+    private static final int REGISTRATION_THREADS = 4;
+
+    private final ListeningExecutorService executor;
+
+    public LinuxFileWatcherFactory(ExecutorService executor) {
+        this.executor = MoreExecutors.listeningDecorator(executor);
+    }
+
+    @Override
+    public FileWatcher watch(Action<? super Throwable> onError, FileWatcherListener listener) {
+        try {
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            WatchServiceRegistrar registrar = new LinuxWatchServiceRegistrar(watchService, listener, executor, REGISTRATION_THREADS);
+            WatchServiceFileWatcherBacking backing = new WatchServiceFileWatcherBacking(onError, watchService, registrar, new LinuxWatchServicePoller(watchService));
+            return backing.start(executor);
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.filewatch.jdk7;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.FileUtils;
+import org.gradle.internal.filewatch.FileWatcherEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batches the events of all watch keys that are ready, instead of handing out one watch key at a time.
+ * <p>
+ * inotify reports a queue overflow to every watch key at once. Overflowed directories are collapsed to their roots,
+ * so that only the affected subtrees get rescanned. Only the last event of each file within a batch is kept, in the order in which the
+ * last events arrived, so that the batch ends with the latest state of each file. A modification that follows the creation of a file
+ * is still reported as a creation, so that a new directory is watched.
+ */
+class LinuxWatchServicePoller extends WatchServicePoller {
+    private static final int MAX_KEYS_PER_BATCH = 1024;
+
+    LinuxWatchServicePoller(WatchService watchService) throws IOException {
+        super(watchService);
+    }
+
+    @Nullable
+    @Override
+    public List<FileWatcherEvent> takeEvents() throws InterruptedException {
+        List<FileWatcherEvent> events = super.takeEvents();
+        if (events == null) {
+            return null;
+        }
+        EventBatch batch = new EventBatch();
+        batch.addAll(events);
+        WatchKey watchKey;
+        for (int keys = 1; keys < MAX_KEYS_PER_BATCH && (watchKey = watchService.poll()) != null; keys++) {
+            batch.addAll(handleWatchKey(watchKey));
+        }
+        return batch.getEvents();
+    }
+
+    private static class EventBatch {
+        private final Map<File, FileWatcherEvent> latestEvents = new LinkedHashMap<File, FileWatcherEvent>();
+        private final Set<File> overflowedDirectories = new LinkedHashSet<File>();
+        private boolean undefined;
+
+        void addAll(List<FileWatcherEvent> newEvents) {
+            for (FileWatcherEvent event : newEvents) {
+                add(event);
+            }
+        }
+
+        void add(FileWatcherEvent event) {
+            File file = event.getFile();
+            if (event.getType() == FileWatcherEvent.Type.UNDEFINED) {
+                if (file == null) {
+                    undefined = true;
+                } else {
+                    overflowedDirectories.add(file);
+                }
+                return;
+            }
+            FileWatcherEvent previous = latestEvents.remove(file);
+            if (previous != null && previous.getType() == FileWatcherEvent.Type.CREATE && event.getType() == FileWatcherEvent.Type.MODIFY) {
+                event = previous;
+            }
+            latestEvents.put(file, event);
+        }
+
+        List<FileWatcherEvent> getEvents() {
+            List<FileWatcherEvent> events = new ArrayList<FileWatcherEvent>(latestEvents.values());
+            for (File directory : FileUtils.calculateRoots(overflowedDirectories)) {
+                events.add(FileWatcherEvent.undefined(directory));
+            }
+            if (undefined) {
+                events.add(FileWatcherEvent.undefined());
+            }
+            return events;
+        }
+    }
+}
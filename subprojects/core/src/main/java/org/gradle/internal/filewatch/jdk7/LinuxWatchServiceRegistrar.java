@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.filewatch.jdk7;
+
+import com.google.common.collect.Lists;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.filewatch.FileWatcherListener;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Registers watches in bulk on Linux.
+ * <p>
+ * The inotify-backed JDK watch service hands every registration to its single poller thread and waits for it to be processed.
+ * Registering one directory at a time therefore costs a poller wakeup per directory. This registrar first collects all directories
+ * of a starting point in a single walk, then submits the registrations from several threads, so that the poller processes them in batches.
+ */
+class LinuxWatchServiceRegistrar extends WatchServiceRegistrar {
+    private final static Logger LOG = Logging.getLogger(LinuxWatchServiceRegistrar.class);
+    private static final int MIN_REGISTRATION_BATCH_SIZE = 256;
+
+    private final ExecutorService executor;
+    private final int registrationThreads;
+
+    LinuxWatchServiceRegistrar(WatchService watchService, FileWatcherListener delegate, ExecutorService executor, int registrationThreads) {
+        super(watchService, delegate);
+        this.executor = executor;
+        this.registrationThreads = registrationThreads;
+    }
+
+    @Override
+    protected void watchStartingPoint(final Path dirPath, final WatchPointsRegistry.Delta delta) throws IOException {
+        final List<Path> directories = new ArrayList<Path>();
+        if (!isWatched(dirPath)) {
+            directories.add(dirPath);
+        }
+        Files.walkFileTree(dirPath, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) throws IOException {
+                if (path.equals(dirPath)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                if (!delta.shouldWatch(path.toFile())) {
+                    LOG.debug("Skipping watching for {}, filtered by WatchPointsRegistry", path);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (!isWatched(path)) {
+                    directories.add(path);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        registerAll(directories);
+    }
+
+    private void registerAll(List<Path> directories) throws IOException {
+        LOG.debug("Registering watches for {} directories", directories.size());
+        if (directories.size() <= MIN_REGISTRATION_BATCH_SIZE || registrationThreads <= 1) {
+            for (Path directory : directories) {
+                watchDir(directory);
+            }
+            return;
+        }
+
+        int batchSize = Math.max(MIN_REGISTRATION_BATCH_SIZE, (directories.size() + registrationThreads - 1) / registrationThreads);
+        List<List<Path>> batches = Lists.partition(directories, batchSize);
+        List<Future<List<WatchKey>>> results = new ArrayList<Future<List<WatchKey>>>(batches.size());
+        for (final List<Path> batch : batches) {
+            results.add(executor.submit(new Callable<List<WatchKey>>() {
+                @Override
+                public List<WatchKey> call() throws IOException {
+                    List<WatchKey> watchKeys = new ArrayList<WatchKey>(batch.size());
+                    for (Path directory : batch) {
+                        watchKeys.add(Thread.currentThread().isInterrupted() ? null : register(directory));
+                    }
+                    return watchKeys;
+                }
+            }));
+        }
+
+        // Record the keys on this thread, which holds the registrar lock
+        for (int i = 0; i < batches.size(); i++) {
+            List<Path> batch = batches.get(i);
+            List<WatchKey> watchKeys = await(results.get(i));
+            for (int j = 0; j < batch.size(); j++) {
+                WatchKey watchKey = watchKeys.get(j);
+                if (watchKey != null) {
+                    addWatchKey(batch.get(j), watchKey);
+                }
+            }
+        }
+    }
+
+    private static List<WatchKey> await(Future<List<WatchKey>> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+}
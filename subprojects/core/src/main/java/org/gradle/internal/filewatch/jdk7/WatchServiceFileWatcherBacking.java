@@ -73,10 +73,14 @@ public class WatchServiceFileWatcherBacking {
     }
 
     WatchServiceFileWatcherBacking(Action<? super Throwable> onError, FileWatcherListener listener, WatchService watchService, WatchServiceRegistrar watchServiceRegistrar) throws IOException {
+        this(onError, watchService, watchServiceRegistrar, new WatchServicePoller(watchService));
+    }
+
+    WatchServiceFileWatcherBacking(Action<? super Throwable> onError, WatchService watchService, WatchServiceRegistrar watchServiceRegistrar, WatchServicePoller poller) {
         this.onError = onError;
         this.watchServiceRegistrar = watchServiceRegistrar;
         this.watchService = watchService;
-        this.poller = new WatchServicePoller(watchService);
+        this.poller = poller;
     }
 
     public FileWatcher start(ListeningExecutorService executorService) {
@@ -31,7 +31,7 @@ import java.util.concurrent.TimeUnit;
 
 class WatchServicePoller {
     private static final int POLL_TIMEOUT_SECONDS = 5;
-    private final WatchService watchService;
+    protected final WatchService watchService;
 
     WatchServicePoller(WatchService watchService) throws IOException {
         this.watchService = watchService;
@@ -46,7 +46,7 @@ class WatchServicePoller {
         return null;
     }
 
-    private List<FileWatcherEvent> handleWatchKey(WatchKey watchKey) {
+    protected List<FileWatcherEvent> handleWatchKey(WatchKey watchKey) {
         final Path watchedPath = (Path) watchKey.watchable();
         Transformer<FileWatcherEvent, WatchEvent<?>> watchEventTransformer = new Transformer<FileWatcherEvent, WatchEvent<?>>() {
             @Override
@@ -57,7 +57,7 @@ class WatchServicePoller {
                     WatchEvent<Path> ev = Cast.uncheckedCast(event);
                     file = watchedPath.resolve(ev.context()).toFile();
                 }
-                return toEvent(kind, file);
+                return toEvent(kind, file, watchedPath);
             }
         };
 
@@ -70,7 +70,7 @@ class WatchServicePoller {
         }
     }
 
-    private FileWatcherEvent toEvent(WatchEvent.Kind kind, File file) {
+    private FileWatcherEvent toEvent(WatchEvent.Kind kind, File file, Path watchedPath) {
         if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
             return FileWatcherEvent.create(file);
         } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
@@ -78,7 +78,8 @@ class WatchServicePoller {
         } else if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
             return FileWatcherEvent.modify(file);
         } else if (kind == StandardWatchEventKinds.OVERFLOW) {
-            return FileWatcherEvent.undefined();
+            // events for the watched directory have been lost, so the listener needs to rescan it
+            return FileWatcherEvent.undefined(watchedPath.toFile());
         } else {
             throw new IllegalStateException("Unknown watch kind " + kind);
         }
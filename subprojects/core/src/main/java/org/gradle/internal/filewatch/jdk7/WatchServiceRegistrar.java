@@ -18,6 +18,7 @@ package org.gradle.internal.filewatch.jdk7;
 
 import com.google.common.base.Throwables;
 import org.gradle.api.JavaVersion;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.file.FileSystemSubset;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -96,26 +97,7 @@ class WatchServiceRegistrar implements FileWatcherListener {
 
             for (File dir : startingWatchPoints) {
                 LOG.debug("Begin - handling starting point {}", dir);
-                final Path dirPath = dir.toPath();
-                watchDir(dirPath);
-                if (!FILE_TREE_WATCHING_SUPPORTED) {
-                    Files.walkFileTree(dirPath, new SimpleFileVisitor<Path>() {
-                        @Override
-                        public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) throws IOException {
-                            if (!path.equals(dirPath)) {
-                                if (delta.shouldWatch(path.toFile())) {
-                                    watchDir(path);
-                                    return FileVisitResult.CONTINUE;
-                                } else {
-                                    LOG.debug("Skipping watching for {}, filtered by WatchPointsRegistry", path);
-                                    return FileVisitResult.SKIP_SUBTREE;
-                                }
-                            } else {
-                                return FileVisitResult.CONTINUE;
-                            }
-                        }
-                    });
-                }
+                watchStartingPoint(dir.toPath(), delta);
                 LOG.debug("End - handling starting point {}", dir);
             }
             LOG.debug("End - adding watches for {}", fileSystemSubset);
@@ -124,6 +106,32 @@ class WatchServiceRegistrar implements FileWatcherListener {
         }
     }
 
+    /**
+     * Watches the given starting point and, unless the platform watches file trees natively, every directory below it accepted by the delta.
+     * Called while holding the registrar lock.
+     */
+    protected void watchStartingPoint(final Path dirPath, final WatchPointsRegistry.Delta delta) throws IOException {
+        watchDir(dirPath);
+        if (!FILE_TREE_WATCHING_SUPPORTED) {
+            Files.walkFileTree(dirPath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) throws IOException {
+                    if (!path.equals(dirPath)) {
+                        if (delta.shouldWatch(path.toFile())) {
+                            watchDir(path);
+                            return FileVisitResult.CONTINUE;
+                        } else {
+                            LOG.debug("Skipping watching for {}, filtered by WatchPointsRegistry", path);
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                    } else {
+                        return FileVisitResult.CONTINUE;
+                    }
+                }
+            });
+        }
+    }
+
     private Iterable<File> getCurrentWatchPoints() {
         List<File> currentWatchPoints = new LinkedList<File>();
         for (Map.Entry<Path, WatchKey> entry : watchKeys.entrySet()) {
@@ -140,30 +148,57 @@ class WatchServiceRegistrar implements FileWatcherListener {
             LOG.debug("Skipping adding watch since current thread is interrupted.");
         }
 
-        // check if directory is already watched
-        // on Windows, check if any parent is already watched
+        if (isWatched(dir)) {
+            return;
+        }
+
+        WatchKey watchKey = register(dir);
+        if (watchKey != null) {
+            watchKeys.put(dir, watchKey);
+        }
+    }
+
+    /**
+     * Checks if the directory is already watched. On Windows, checks if any parent is already watched.
+     */
+    protected boolean isWatched(Path dir) {
         for (Path path = dir; path != null; path = FILE_TREE_WATCHING_SUPPORTED ? path.getParent() : null) {
             WatchKey previousWatchKey = watchKeys.get(path);
             if (previousWatchKey != null && previousWatchKey.isValid()) {
                 LOG.debug("Directory {} is already watched and the watch is valid, not adding another one.", path);
-                return;
+                return true;
             }
         }
+        return false;
+    }
+
+    /**
+     * Records watch keys registered outside of {@link #watchDir(Path)}. Called while holding the registrar lock.
+     */
+    protected void addWatchKey(Path dir, WatchKey watchKey) {
+        watchKeys.put(dir, watchKey);
+    }
 
+    /**
+     * Registers the directory with the watch service, without recording the key.
+     * Does not touch any registrar state, so it can be called concurrently.
+     *
+     * @return the watch key, or null when the directory does not exist (anymore).
+     */
+    @Nullable
+    protected WatchKey register(Path dir) throws IOException {
         int retryCount = 0;
         IOException lastException = null;
         while (retryCount++ < 2) {
             try {
-                WatchKey watchKey = dir.register(watchService, WATCH_KINDS, WATCH_MODIFIERS);
-                watchKeys.put(dir, watchKey);
-                return;
+                return dir.register(watchService, WATCH_KINDS, WATCH_MODIFIERS);
             } catch (IOException e) {
                 LOG.debug("Exception in registering for watching of " + dir, e);
                 lastException = e;
 
                 if (e instanceof NoSuchFileException) {
                     LOG.debug("Return silently since directory doesn't exist.");
-                    return;
+                    return null;
                 }
 
                 if (e instanceof FileSystemException && e.getMessage() != null && e.getMessage().contains("Bad file descriptor")) {
@@ -178,7 +213,7 @@ class WatchServiceRegistrar implements FileWatcherListener {
                 if (!Files.exists(dir)) {
                     // return silently when directory doesn't exist
                     LOG.debug("Return silently since directory doesn't exist.");
-                    return;
+                    return null;
                 } else {
                     // no retry
                     throw e;
@@ -195,6 +230,13 @@ class WatchServiceRegistrar implements FileWatcherListener {
         lock.lock();
         try {
             if (event.getType().equals(FileWatcherEvent.Type.UNDEFINED) || event.getFile() == null) {
+                if (event.getFile() != null) {
+                    try {
+                        rescanSubtree(watcher, event.getFile());
+                    } catch (IOException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
                 LOG.debug("Calling onChange with event {}", event);
                 deliverEventToDelegate(watcher, event);
                 return;
@@ -271,6 +313,34 @@ class WatchServiceRegistrar implements FileWatcherListener {
         LOG.debug("End - maybeWatchNewDirectory {}", dir);
     }
 
+    /**
+     * Events have been lost for the given directory, so any directory created below it in the meantime might not be watched.
+     * Re-establishes watches for the affected subtree only, instead of the whole set of watch points.
+     */
+    private void rescanSubtree(final FileWatcher watcher, File dir) throws IOException {
+        LOG.debug("Begin - rescanSubtree {}", dir);
+        try {
+            if (FILE_TREE_WATCHING_SUPPORTED || !dir.isDirectory() || !watchPointsRegistry.shouldWatch(dir)) {
+                return;
+            }
+            Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) throws IOException {
+                    if (isStopRequested(watcher)) {
+                        return FileVisitResult.TERMINATE;
+                    }
+                    if (!watchPointsRegistry.shouldWatch(path.toFile())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    watchDir(path);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } finally {
+            LOG.debug("End - rescanSubtree {}", dir);
+        }
+    }
+
     private boolean isStopRequested(FileWatcher watcher) {
         return Thread.currentThread().isInterrupted() || !watcher.isRunning();
     }
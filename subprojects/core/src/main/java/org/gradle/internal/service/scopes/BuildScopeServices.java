@@ -88,6 +88,7 @@ import org.gradle.groovy.scripts.internal.CrossBuildInMemoryCachingScriptClassCa
 import org.gradle.groovy.scripts.internal.DefaultScriptCompilationHandler;
 import org.gradle.groovy.scripts.internal.DefaultScriptRunnerFactory;
 import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler;
+import org.gradle.groovy.scripts.internal.TracingScriptClassCompiler;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.initialization.BuildLoader;
 import org.gradle.initialization.BuildRequestMetaData;
@@ -143,12 +144,15 @@ import org.gradle.internal.service.CachingServiceLocator;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.util.SystemPropertiesUtil;
 import org.gradle.model.internal.inspect.ModelRuleSourceDetector;
 import org.gradle.plugin.repository.internal.PluginRepositoryFactory;
 import org.gradle.plugin.repository.internal.PluginRepositoryRegistry;
 import org.gradle.plugin.use.internal.PluginRequestApplicator;
+import org.gradle.profile.BuildProfileContributor;
 import org.gradle.profile.ProfileEventAdapter;
 import org.gradle.profile.ProfileListener;
+import org.gradle.profile.TraceListener;
 
 /**
  * Contains the singleton services for a single build invocation.
@@ -260,7 +264,7 @@ public class BuildScopeServices extends DefaultServiceRegistry {
                                                                CrossBuildInMemoryCachingScriptClassCache cache) {
         ScriptExecutionListener scriptExecutionListener = listenerManager.getBroadcaster(ScriptExecutionListener.class);
         return new DefaultScriptCompilerFactory(
-            new BuildScopeInMemoryCachingScriptClassCompiler(cache, scriptCompiler),
+            new BuildScopeInMemoryCachingScriptClassCompiler(cache, new TracingScriptClassCompiler(scriptCompiler, listenerManager.getBroadcaster(TraceListener.class))),
             new DefaultScriptRunnerFactory(
                 scriptExecutionListener,
                 DirectInstantiator.INSTANCE
@@ -368,7 +372,10 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         );
     }
 
-    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken) {
+    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken, StartParameter startParameter) {
+        if (SystemPropertiesUtil.isEnabled(TaskPathProjectEvaluator.PARALLEL_CONFIGURATION_PROPERTY)) {
+            return new TaskPathProjectEvaluator(cancellationToken, get(ExecutorFactory.class), startParameter.getMaxWorkerCount(), startParameter.getAllInitScripts(), startParameter.getSettingsFile());
+        }
         return new TaskPathProjectEvaluator(cancellationToken);
     }
 
@@ -381,7 +388,9 @@ public class BuildScopeServices extends DefaultServiceRegistry {
     }
 
     protected ProfileEventAdapter createProfileEventAdapter() {
-        return new ProfileEventAdapter(get(BuildRequestMetaData.class), get(TimeProvider.class), get(ListenerManager.class).getBroadcaster(ProfileListener.class));
+        ListenerManager listenerManager = get(ListenerManager.class);
+        return new ProfileEventAdapter(get(BuildRequestMetaData.class), get(TimeProvider.class), listenerManager.getBroadcaster(ProfileListener.class),
+            listenerManager.getBroadcaster(BuildProfileContributor.class));
     }
 
     protected PluginRegistry createPluginRegistry(ClassLoaderScopeRegistry scopeRegistry, PluginInspector pluginInspector) {
@@ -30,7 +30,10 @@ import org.gradle.api.internal.DynamicModulesClassPathProvider;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.CacheAccessingFileSnapshotter;
 import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
+import org.gradle.api.internal.changedetection.state.FileSystemMirror;
 import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
+import org.gradle.api.internal.changedetection.state.NoOpFileSystemMirror;
+import org.gradle.api.internal.changedetection.state.WatchingFileSystemMirror;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -63,6 +66,7 @@ import org.gradle.cache.internal.locklistener.FileLockContentionHandler;
 import org.gradle.cli.CommandLineConverter;
 import org.gradle.configuration.DefaultImportsReader;
 import org.gradle.configuration.ImportsReader;
+import org.gradle.execution.taskgraph.TaskWorkerPool;
 import org.gradle.groovy.scripts.internal.CrossBuildInMemoryCachingScriptClassCache;
 import org.gradle.groovy.scripts.internal.RegistryAwareClassLoaderHierarchyHasher;
 import org.gradle.initialization.ClassLoaderRegistry;
@@ -96,6 +100,7 @@ import org.gradle.internal.jvm.inspection.DefaultJvmVersionDetector;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.nativeintegration.ProcessEnvironment;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.reflect.DirectInstantiator;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.remote.MessagingServer;
@@ -105,6 +110,7 @@ import org.gradle.internal.service.CachingServiceLocator;
 import org.gradle.internal.service.DefaultServiceLocator;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.util.SystemPropertiesUtil;
 import org.gradle.model.internal.inspect.MethodModelRuleExtractor;
 import org.gradle.model.internal.inspect.MethodModelRuleExtractors;
 import org.gradle.model.internal.inspect.ModelRuleExtractor;
@@ -128,6 +134,8 @@ import java.util.List;
  * Defines the global services shared by all services in a given process. This includes the Gradle CLI, daemon and tooling API provider.
  */
 public class GlobalScopeServices {
+    private static final String FILE_SYSTEM_MIRROR_PROPERTY = "org.gradle.internal.fileSystemMirror";
+
     private final ClassPath additionalModuleClassPath;
 
     private GradleBuildEnvironment environment;
@@ -254,6 +262,10 @@ public class GlobalScopeServices {
         return new DefaultExecutorFactory();
     }
 
+    TaskWorkerPool createTaskWorkerPool(ExecutorFactory executorFactory) {
+        return new TaskWorkerPool(executorFactory);
+    }
+
     FileLockManager createFileLockManager(ProcessEnvironment processEnvironment, FileLockContentionHandler fileLockContentionHandler) {
         return new DefaultFileLockManager(
             new DefaultProcessMetaDataProvider(
@@ -346,6 +358,15 @@ public class GlobalScopeServices {
         return new DefaultFileWatcherFactory(executorFactory);
     }
 
+    FileSystemMirror createFileSystemMirror(GradleBuildEnvironment environment, FileWatcherFactory fileWatcherFactory) {
+        // Only worth it when the mirror outlives a build, and only safe where the watcher reports changes without noticeable delay
+        OperatingSystem operatingSystem = OperatingSystem.current();
+        if (environment.isLongLivingProcess() && SystemPropertiesUtil.isEnabled(FILE_SYSTEM_MIRROR_PROPERTY) && (operatingSystem.isLinux() || operatingSystem.isWindows())) {
+            return new WatchingFileSystemMirror(fileWatcherFactory);
+        }
+        return new NoOpFileSystemMirror();
+    }
+
     StringInterner createStringInterner() {
         return new StringInterner();
     }
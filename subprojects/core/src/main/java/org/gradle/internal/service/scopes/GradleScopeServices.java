@@ -44,11 +44,13 @@ import org.gradle.execution.TaskSelector;
 import org.gradle.execution.commandline.CommandLineTaskConfigurer;
 import org.gradle.execution.commandline.CommandLineTaskParser;
 import org.gradle.execution.taskgraph.DefaultTaskGraphExecuter;
+import org.gradle.execution.taskgraph.TaskExecutionTimeHistory;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.Factory;
 import org.gradle.internal.TimeProvider;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.progress.BuildOperationExecutor;
@@ -56,6 +58,7 @@ import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.util.SystemPropertiesUtil;
 
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -121,14 +124,25 @@ public class GradleScopeServices extends DefaultServiceRegistry {
         };
     }
 
-    TaskGraphExecuter createTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor, BuildCancellationToken cancellationToken, TimeProvider timeProvider, BuildOperationExecutor buildOperationExecutor) {
+    TaskGraphExecuter createTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor, BuildCancellationToken cancellationToken, TimeProvider timeProvider, BuildOperationExecutor buildOperationExecutor,
+                                              GradleInternal gradle, ExecutorFactory executorFactory) {
         Factory<TaskExecuter> taskExecuterFactory = new Factory<TaskExecuter>() {
             @Override
             public TaskExecuter create() {
                 return get(TaskExecuter.class);
             }
         };
-        return new DefaultTaskGraphExecuter(listenerManager, taskPlanExecutor, taskExecuterFactory, cancellationToken, timeProvider, buildOperationExecutor);
+        Factory<TaskExecutionTimeHistory> executionTimeHistoryFactory = new Factory<TaskExecutionTimeHistory>() {
+            @Override
+            public TaskExecutionTimeHistory create() {
+                return get(TaskExecutionTimeHistory.class);
+            }
+        };
+        DefaultTaskGraphExecuter taskGraphExecuter = new DefaultTaskGraphExecuter(listenerManager, taskPlanExecutor, taskExecuterFactory, executionTimeHistoryFactory, cancellationToken, timeProvider, buildOperationExecutor);
+        if (SystemPropertiesUtil.isEnabled(DefaultTaskGraphExecuter.PARALLEL_DEPENDENCY_RESOLUTION_PROPERTY)) {
+            taskGraphExecuter.useConcurrentDependencyResolution(executorFactory, gradle.getStartParameter().getMaxWorkerCount());
+        }
+        return taskGraphExecuter;
     }
 
     ServiceRegistryFactory createServiceRegistryFactory(final ServiceRegistry services) {
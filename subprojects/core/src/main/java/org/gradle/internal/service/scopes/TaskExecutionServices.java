@@ -24,6 +24,7 @@ import org.gradle.api.internal.changedetection.TaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.changes.DefaultTaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.changes.ShortCircuitTaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.state.CacheBackedFileSnapshotRepository;
+import org.gradle.api.internal.changedetection.state.CacheBackedTaskExecutionTimeHistory;
 import org.gradle.api.internal.changedetection.state.CacheBackedTaskHistoryRepository;
 import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
 import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter;
@@ -31,6 +32,7 @@ import org.gradle.api.internal.changedetection.state.DefaultTaskArtifactStateCac
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter;
 import org.gradle.api.internal.changedetection.state.FileSnapshotter;
+import org.gradle.api.internal.changedetection.state.FileSystemMirror;
 import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
 import org.gradle.api.internal.changedetection.state.MinimalFileSetSnapshotter;
 import org.gradle.api.internal.changedetection.state.NoOpDecorator;
@@ -46,6 +48,7 @@ import org.gradle.api.internal.tasks.cache.ZipTaskOutputPacker;
 import org.gradle.api.internal.tasks.cache.config.TaskCachingInternal;
 import org.gradle.api.internal.tasks.execution.ExecuteActionsTaskExecuter;
 import org.gradle.api.internal.tasks.execution.ExecuteAtMostOnceTaskExecuter;
+import org.gradle.api.internal.tasks.execution.InvalidateFileSystemMirrorTaskExecuter;
 import org.gradle.api.internal.tasks.execution.PostExecutionAnalysisTaskExecuter;
 import org.gradle.api.internal.tasks.execution.SkipCachedTaskExecuter;
 import org.gradle.api.internal.tasks.execution.SkipEmptySourceFilesTaskExecuter;
@@ -56,8 +59,10 @@ import org.gradle.api.internal.tasks.execution.ValidatingTaskExecuter;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.CacheDecorator;
+import org.gradle.execution.taskgraph.TaskExecutionTimeHistory;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
 import org.gradle.execution.taskgraph.TaskPlanExecutorFactory;
+import org.gradle.execution.taskgraph.TaskWorkerPool;
 import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.environment.GradleBuildEnvironment;
@@ -73,10 +78,11 @@ import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.serialize.DefaultSerializerRegistry;
 import org.gradle.internal.serialize.SerializerRegistry;
 import org.gradle.internal.util.SystemPropertiesUtil;
+import org.gradle.profile.TraceListener;
 
 public class TaskExecutionServices {
 
-    TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, TaskOutputPacker packer, StartParameter startParameter, ListenerManager listenerManager, GradleInternal gradle) {
+    TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, TaskOutputPacker packer, StartParameter startParameter, ListenerManager listenerManager, GradleInternal gradle, FileSystemMirror fileSystemMirror) {
         // TODO - need a more comprehensible way to only collect inputs for the outer build
         //      - we are trying to ignore buildSrc here, but also avoid weirdness with use of GradleBuild tasks
         boolean isOuterBuild = gradle.getParent() == null;
@@ -92,13 +98,17 @@ public class TaskExecutionServices {
                         new ValidatingTaskExecuter(
                             new SkipUpToDateTaskExecuter(
                                 repository,
-                                createSkipCachedExecuterIfNecessary(
-                                    startParameter,
-                                    gradle.getTaskCaching(),
-                                    packer,
-                                    new PostExecutionAnalysisTaskExecuter(
-                                        new ExecuteActionsTaskExecuter(
-                                            listenerManager.getBroadcaster(TaskActionListener.class)
+                                listenerManager.getBroadcaster(TraceListener.class),
+                                new InvalidateFileSystemMirrorTaskExecuter(
+                                    fileSystemMirror,
+                                    createSkipCachedExecuterIfNecessary(
+                                        startParameter,
+                                        gradle.getTaskCaching(),
+                                        packer,
+                                        new PostExecutionAnalysisTaskExecuter(
+                                            new ExecuteActionsTaskExecuter(
+                                                listenerManager.getBroadcaster(TaskActionListener.class)
+                                            )
                                         )
                                     )
                                 )
@@ -118,14 +128,15 @@ public class TaskExecutionServices {
         }
     }
 
-    TaskArtifactStateCacheAccess createCacheAccess(Gradle gradle, CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, GradleBuildEnvironment environment) {
+    TaskArtifactStateCacheAccess createCacheAccess(Gradle gradle, CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, GradleBuildEnvironment environment,
+                                                   ListenerManager listenerManager) {
         CacheDecorator decorator;
         if (environment.isLongLivingProcess()) {
             decorator = inMemoryTaskArtifactCache;
         } else {
             decorator = new NoOpDecorator();
         }
-        return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator);
+        return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator, listenerManager.getBroadcaster(TraceListener.class));
     }
 
     CachingFileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
@@ -134,8 +145,8 @@ public class TaskExecutionServices {
 
     TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileSnapshotter fileSnapshotter,
                                                                   StringInterner stringInterner, FileResolver fileResolver, FileSystem fileSystem, FileCollectionFactory fileCollectionFactory,
-                                                                  ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
-        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver);
+                                                                  ClassLoaderHierarchyHasher classLoaderHierarchyHasher, FileSystemMirror fileSystemMirror) {
+        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver, fileSystemMirror);
         FileCollectionSnapshotter discoveredFileCollectionSnapshotter = new MinimalFileSetSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver, fileSystem);
 
         OutputFilesCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(fileCollectionSnapshotter, stringInterner);
@@ -166,9 +177,17 @@ public class TaskExecutionServices {
         );
     }
 
-    TaskPlanExecutor createTaskExecutorFactory(StartParameter startParameter, ExecutorFactory executorFactory, BuildOperationWorkerRegistry buildOperationWorkerRegistry) {
+    TaskExecutionTimeHistory createTaskExecutionTimeHistory(StartParameter startParameter, TaskArtifactStateCacheAccess cacheAccess) {
+        // Execution times are only used to choose between tasks that are ready at the same time
+        if (startParameter.isParallelProjectExecutionEnabled() && startParameter.getMaxWorkerCount() > 1) {
+            return new CacheBackedTaskExecutionTimeHistory(cacheAccess);
+        }
+        return TaskExecutionTimeHistory.NO_HISTORY;
+    }
+
+    TaskPlanExecutor createTaskExecutorFactory(StartParameter startParameter, TaskWorkerPool taskWorkerPool, BuildOperationWorkerRegistry buildOperationWorkerRegistry) {
         int parallelThreads = startParameter.isParallelProjectExecutionEnabled() ? startParameter.getMaxWorkerCount() : 1;
-        return new TaskPlanExecutorFactory(parallelThreads, executorFactory, buildOperationWorkerRegistry).create();
+        return new TaskPlanExecutorFactory(parallelThreads, taskWorkerPool, buildOperationWorkerRegistry).create();
     }
 
     BuildOperationProcessor createBuildOperationProcessor(StartParameter startParameter, ExecutorFactory executorFactory) {
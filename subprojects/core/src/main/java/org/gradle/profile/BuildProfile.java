@@ -21,9 +21,12 @@ import org.gradle.util.CollectionUtils;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Root container for profile information about a build.  This includes summary
@@ -46,6 +49,7 @@ public class BuildProfile {
 
     private final Map<String, ProjectProfile> projects = new LinkedHashMap<String, ProjectProfile>();
     private final Map<String, ContinuousOperation> dependencySets = new LinkedHashMap<String, ContinuousOperation>();
+    private final Map<String, Long> heapSaved = new LinkedHashMap<String, Long>();
     private long profilingStarted;
     private long buildStarted;
     private long settingsEvaluated;
@@ -96,7 +100,7 @@ public class BuildProfile {
      * Get the profiling container for the specified project
      * @param projectPath to look up
      */
-    public ProjectProfile getProjectProfile(String projectPath) {
+    public synchronized ProjectProfile getProjectProfile(String projectPath) {
         ProjectProfile result = projects.get(projectPath);
         if (result == null) {
             result = new ProjectProfile(projectPath);
@@ -109,11 +113,11 @@ public class BuildProfile {
      * Get a list of the profiling containers for all projects
      * @return list
      */
-    public List<ProjectProfile> getProjects() {
+    public synchronized List<ProjectProfile> getProjects() {
         return CollectionUtils.sort(projects.values(), Operation.slowestFirst());
     }
 
-    public CompositeOperation<Operation> getProjectConfiguration() {
+    public synchronized CompositeOperation<Operation> getProjectConfiguration() {
         List<Operation> operations = new ArrayList<Operation>();
         for (ProjectProfile projectProfile : projects.values()) {
             operations.add(projectProfile.getConfigurationOperation());
@@ -122,7 +126,39 @@ public class BuildProfile {
         return new CompositeOperation<Operation>(operations);
     }
 
-    public ContinuousOperation getDependencySetProfile(String dependencySetDescription) {
+    /**
+     * Get the profiling containers of all configured projects, in the order in which their configuration started.
+     */
+    public synchronized List<ProjectProfile> getProjectConfigurationTimeline() {
+        List<ProjectProfile> timeline = new ArrayList<ProjectProfile>();
+        for (ProjectProfile projectProfile : projects.values()) {
+            if (projectProfile.getConfigurationThreadName() != null) {
+                timeline.add(projectProfile);
+            }
+        }
+        return CollectionUtils.sort(timeline, new Comparator<ProjectProfile>() {
+            public int compare(ProjectProfile o1, ProjectProfile o2) {
+                long start1 = o1.getConfigurationOperation().getStartTime();
+                long start2 = o2.getConfigurationOperation().getStartTime();
+                return start1 < start2 ? -1 : start1 == start2 ? 0 : 1;
+            }
+        });
+    }
+
+    /**
+     * Returns true when projects were configured on more than one thread.
+     */
+    public synchronized boolean isProjectConfigurationParallel() {
+        Set<String> threadNames = new HashSet<String>();
+        for (ProjectProfile projectProfile : projects.values()) {
+            if (projectProfile.getConfigurationThreadName() != null) {
+                threadNames.add(projectProfile.getConfigurationThreadName());
+            }
+        }
+        return threadNames.size() > 1;
+    }
+
+    public synchronized ContinuousOperation getDependencySetProfile(String dependencySetDescription) {
         ContinuousOperation profile = dependencySets.get(dependencySetDescription);
         if (profile == null) {
             profile = new ContinuousOperation(dependencySetDescription);
@@ -131,11 +167,26 @@ public class BuildProfile {
         return profile;
     }
 
-    public CompositeOperation<ContinuousOperation> getDependencySets() {
+    public synchronized CompositeOperation<ContinuousOperation> getDependencySets() {
         final List<ContinuousOperation> profiles = CollectionUtils.sort(dependencySets.values(), Operation.slowestFirst());
         return new CompositeOperation<ContinuousOperation>(profiles);
     }
 
+    /**
+     * Records an estimate of the heap that the given build service saved, in bytes.
+     */
+    public synchronized void addHeapSaved(String description, long bytes) {
+        Long previous = heapSaved.get(description);
+        heapSaved.put(description, previous == null ? bytes : previous + bytes);
+    }
+
+    /**
+     * Get the estimates of the heap saved by build services, in bytes, in the order in which they were recorded.
+     */
+    public synchronized Map<String, Long> getHeapSaved() {
+        return new LinkedHashMap<String, Long>(heapSaved);
+    }
+
     /**
      * Should be set with a time as soon as possible after startup.
      * @param profilingStarted
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.profile;
+
+import org.gradle.internal.Factory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the time spent waiting for a cache lock, from the moment an action asks to use a cache until the action starts running.
+ * Waits shorter than a millisecond, which is the common case of a lock that is already held, are not reported.
+ */
+public class CacheLockWaitTracer {
+    private static final long MIN_REPORTED_WAIT = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String cacheDisplayName;
+    private final TraceListener listener;
+
+    public CacheLockWaitTracer(String cacheDisplayName, TraceListener listener) {
+        this.cacheDisplayName = cacheDisplayName;
+        this.listener = listener;
+    }
+
+    public <T> Factory<T> trace(final Factory<? extends T> action) {
+        final long requested = System.nanoTime();
+        return new Factory<T>() {
+            public T create() {
+                acquired(requested);
+                return action.create();
+            }
+        };
+    }
+
+    public Runnable trace(final Runnable action) {
+        final long requested = System.nanoTime();
+        return new Runnable() {
+            public void run() {
+                acquired(requested);
+                action.run();
+            }
+        };
+    }
+
+    private void acquired(long requested) {
+        long now = System.nanoTime();
+        if (now - requested >= MIN_REPORTED_WAIT) {
+            listener.traced("cache-lock", "Wait for " + cacheDisplayName, requested, now);
+        }
+    }
+}
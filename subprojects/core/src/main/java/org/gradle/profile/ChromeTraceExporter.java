@@ -0,0 +1,240 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.profile;
+
+import com.google.common.base.Charsets;
+import org.gradle.api.Project;
+import org.gradle.api.ProjectEvaluationListener;
+import org.gradle.api.ProjectState;
+import org.gradle.api.artifacts.DependencyResolutionListener;
+import org.gradle.api.artifacts.ResolvableDependencies;
+import org.gradle.api.execution.internal.InternalTaskExecutionListener;
+import org.gradle.api.execution.internal.TaskOperationInternal;
+import org.gradle.initialization.BuildCompletionListener;
+import org.gradle.internal.FileUtils;
+import org.gradle.internal.Pair;
+import org.gradle.internal.progress.BuildOperationInternal;
+import org.gradle.internal.progress.InternalBuildListener;
+import org.gradle.internal.progress.OperationResult;
+import org.gradle.internal.progress.OperationStartEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records build operations, project configuration, dependency resolution, task execution, script compilation, file snapshotting and waits for cache locks on a timeline,
+ * in a file in the Chrome trace event format. Each thread gets its own lane, so idle workers show up as gaps.
+ *
+ * <p>Each event is written to the file as soon as it finishes, so that the memory used does not grow with the length of the build. Only the operations that are
+ * still running are kept in memory. The file is complete once the build completes, and can then be opened with {@code chrome://tracing}.</p>
+ */
+public class ChromeTraceExporter implements InternalBuildListener, InternalTaskExecutionListener, ProjectEvaluationListener, DependencyResolutionListener, TraceListener, BuildCompletionListener {
+    /**
+     * The file to write the trace of each build to.
+     */
+    public static final String TRACE_FILE_PROPERTY = "org.gradle.internal.chromeTraceFile";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChromeTraceExporter.class);
+
+    private final File traceFile;
+    private final long origin = System.nanoTime();
+    private final ConcurrentMap<Pair<String, Object>, Long> started = new ConcurrentHashMap<Pair<String, Object>, Long>();
+    private final Object lock = new Object();
+    private final Set<Long> namedThreads = new HashSet<Long>();
+    private Writer writer;
+    private boolean first = true;
+    private boolean closed;
+    private IOException failure;
+
+    public ChromeTraceExporter(File traceFile) {
+        this.traceFile = traceFile;
+    }
+
+    /**
+     * Returns the trace file for the given value of {@link #TRACE_FILE_PROPERTY}. A relative path is resolved against the given directory.
+     */
+    public static File resolveTraceFile(File currentDir, String path) {
+        File file = new File(path);
+        if (!file.isAbsolute()) {
+            file = new File(currentDir, path);
+        }
+        return FileUtils.canonicalize(file);
+    }
+
+    // InternalBuildListener
+    public void started(BuildOperationInternal buildOperation, OperationStartEvent startEvent) {
+        start("operation", buildOperation.getId());
+    }
+
+    public void finished(BuildOperationInternal buildOperation, OperationResult finishEvent) {
+        finish("operation", buildOperation.getId(), buildOperation.getDisplayName());
+    }
+
+    // InternalTaskExecutionListener
+    public void beforeExecute(TaskOperationInternal taskOperation, OperationStartEvent startEvent) {
+        start("task", taskOperation.getId());
+    }
+
+    public void afterExecute(TaskOperationInternal taskOperation, OperationResult result) {
+        finish("task", taskOperation.getId(), taskOperation.getTask().getPath());
+    }
+
+    // ProjectEvaluationListener
+    public void beforeEvaluate(Project project) {
+        start("configuration", project);
+    }
+
+    public void afterEvaluate(Project project, ProjectState state) {
+        finish("configuration", project, "Configure " + project.getPath());
+    }
+
+    // DependencyResolutionListener
+    public void beforeResolve(ResolvableDependencies dependencies) {
+        start("dependencies", dependencies);
+    }
+
+    public void afterResolve(ResolvableDependencies dependencies) {
+        finish("dependencies", dependencies, "Resolve " + dependencies.getPath());
+    }
+
+    // TraceListener
+    public void traced(String category, String name, long startNanos, long endNanos) {
+        write(name, category, startNanos, endNanos);
+    }
+
+    // BuildCompletionListener
+    public void completed() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (failure == null) {
+                    open().write("],\"displayTimeUnit\":\"ms\"}");
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                close();
+            }
+            if (failure != null) {
+                // The trace is a diagnostic, so failing to write it does not fail the build
+                LOGGER.warn("Could not write the build trace to '{}'.", traceFile, failure);
+            }
+        }
+    }
+
+    private void start(String category, Object key) {
+        started.put(Pair.<String, Object>of(category, key), System.nanoTime());
+    }
+
+    private void finish(String category, Object key, String name) {
+        long now = System.nanoTime();
+        Long start = started.remove(Pair.<String, Object>of(category, key));
+        if (start == null) {
+            return;
+        }
+        write(name, category, start, now);
+    }
+
+    private void write(String name, String category, long startNanos, long endNanos) {
+        Thread thread = Thread.currentThread();
+        synchronized (lock) {
+            if (closed || failure != null) {
+                return;
+            }
+            try {
+                Writer writer = open();
+                if (namedThreads.add(thread.getId())) {
+                    separate(writer);
+                    writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + thread.getId() + ",\"args\":{\"name\":");
+                    writeString(writer, thread.getName());
+                    writer.write("}}");
+                }
+                separate(writer);
+                writer.write("{\"name\":");
+                writeString(writer, name);
+                writer.write(",\"cat\":\"" + category + "\",\"ph\":\"X\",\"pid\":1,\"tid\":" + thread.getId()
+                    + ",\"ts\":" + (startNanos - origin) / 1000 + ",\"dur\":" + (endNanos - startNanos) / 1000 + "}");
+            } catch (IOException e) {
+                // Reported when the build completes, rather than failing the operation that was traced
+                failure = e;
+                close();
+            }
+        }
+    }
+
+    private Writer open() throws IOException {
+        if (writer == null) {
+            File parentDir = traceFile.getAbsoluteFile().getParentFile();
+            if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+                throw new IOException(String.format("Could not create directory '%s'.", parentDir));
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(traceFile), Charsets.UTF_8));
+            writer.write("{\"traceEvents\":[");
+        }
+        return writer;
+    }
+
+    private void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        writer = null;
+    }
+
+    private void separate(Writer writer) throws IOException {
+        if (!first) {
+            writer.write(",\n");
+        }
+        first = false;
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
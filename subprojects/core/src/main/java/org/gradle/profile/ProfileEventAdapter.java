@@ -38,12 +38,14 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
     private final BuildRequestMetaData buildMetaData;
     private final TimeProvider timeProvider;
     private final ProfileListener listener;
+    private final BuildProfileContributor contributor;
     private BuildProfile buildProfile;
 
-    public ProfileEventAdapter(BuildRequestMetaData buildMetaData, TimeProvider timeProvider, ProfileListener listener) {
+    public ProfileEventAdapter(BuildRequestMetaData buildMetaData, TimeProvider timeProvider, ProfileListener listener, BuildProfileContributor contributor) {
         this.buildMetaData = buildMetaData;
         this.timeProvider = timeProvider;
         this.listener = listener;
+        this.contributor = contributor;
     }
 
     // BuildListener
@@ -74,6 +76,7 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
         if(buildProfile != null) {
             buildProfile.setBuildFinished(timeProvider.getCurrentTime());
             try {
+                contributor.contributeTo(buildProfile);
                 listener.buildFinished(buildProfile);
             } finally {
                 buildProfile = null;
@@ -84,7 +87,9 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
     // ProjectEvaluationListener
     public void beforeEvaluate(Project project) {
         long now = timeProvider.getCurrentTime();
-        buildProfile.getProjectProfile(project.getPath()).getConfigurationOperation().setStart(now);
+        ProjectProfile projectProfile = buildProfile.getProjectProfile(project.getPath());
+        projectProfile.getConfigurationOperation().setStart(now);
+        projectProfile.setConfigurationThreadName(Thread.currentThread().getName());
     }
 
     public void afterEvaluate(Project project, ProjectState state) {
@@ -16,6 +16,7 @@
 package org.gradle.profile;
 
 import org.gradle.internal.html.SimpleHtmlWriter;
+import org.gradle.internal.util.NumberUtil;
 import org.gradle.reporting.DurationFormatter;
 import org.gradle.reporting.HtmlReportRenderer;
 import org.gradle.reporting.ReportRenderer;
@@ -24,6 +25,8 @@ import org.gradle.reporting.TabbedPageRenderer;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.List;
+import java.util.Map;
 
 public class ProfileReportRenderer {
     private static final DurationFormatter DURATION_FORMAT = new DurationFormatter();
@@ -107,6 +110,9 @@ public class ProfileReportRenderer {
                                     htmlWriter.startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(model.getElapsedTotalExecutionTime())).endElement();
                                 htmlWriter.endElement();
                             htmlWriter.endElement();
+                            if (!model.getHeapSaved().isEmpty()) {
+                                renderHeapSaved(model, htmlWriter);
+                            }
                         htmlWriter.endElement();
                         htmlWriter.startElement("div").attribute("class", "tab").attribute("id", "tab1");
                             htmlWriter.startElement("h2").characters("Configuration").endElement();
@@ -127,8 +133,11 @@ public class ProfileReportRenderer {
                                         htmlWriter.startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(operation.getElapsedTime())).endElement();
                                     htmlWriter.endElement();
                                 }
-                            htmlWriter.endElement()
-                        .endElement();
+                            htmlWriter.endElement();
+                            if (model.isProjectConfigurationParallel()) {
+                                renderConfigurationTimeline(model, htmlWriter);
+                            }
+                        htmlWriter.endElement();
                         htmlWriter.startElement("div").attribute("class", "tab").attribute("id", "tab2");
                             htmlWriter.startElement("h2").characters("Dependency Resolution").endElement()
                                 .startElement("table")
@@ -181,5 +190,48 @@ public class ProfileReportRenderer {
                 }
             };
         }
+
+        private void renderHeapSaved(BuildProfile model, SimpleHtmlWriter htmlWriter) throws IOException {
+            htmlWriter.startElement("h3").characters("Memory").endElement();
+            htmlWriter.startElement("table");
+                htmlWriter.startElement("thead");
+                    htmlWriter.startElement("tr");
+                        htmlWriter.startElement("th").characters("Description").endElement();
+                        htmlWriter.startElement("th").attribute("class", "numeric").characters("Estimated Heap Saved").endElement();
+                    htmlWriter.endElement();
+                htmlWriter.endElement();
+                for (Map.Entry<String, Long> entry : model.getHeapSaved().entrySet()) {
+                    htmlWriter.startElement("tr");
+                        htmlWriter.startElement("td").characters(entry.getKey()).endElement();
+                        htmlWriter.startElement("td").attribute("class", "numeric").characters(NumberUtil.formatBytes(entry.getValue())).endElement();
+                    htmlWriter.endElement();
+                }
+            htmlWriter.endElement();
+        }
+
+        private void renderConfigurationTimeline(BuildProfile model, SimpleHtmlWriter htmlWriter) throws IOException {
+            List<ProjectProfile> timeline = model.getProjectConfigurationTimeline();
+            long configurationStarted = timeline.get(0).getConfigurationOperation().getStartTime();
+            htmlWriter.startElement("h3").characters("Timeline").endElement();
+            htmlWriter.startElement("table");
+                htmlWriter.startElement("thead");
+                    htmlWriter.startElement("tr");
+                        htmlWriter.startElement("th").characters("Project").endElement();
+                        htmlWriter.startElement("th").attribute("class", "numeric").characters("Started").endElement();
+                        htmlWriter.startElement("th").attribute("class", "numeric").characters("Duration").endElement();
+                        htmlWriter.startElement("th").characters("Thread").endElement();
+                    htmlWriter.endElement();
+                htmlWriter.endElement();
+                for (ProjectProfile project : timeline) {
+                    ContinuousOperation operation = project.getConfigurationOperation();
+                    htmlWriter.startElement("tr");
+                        htmlWriter.startElement("td").characters(project.getPath()).endElement();
+                        htmlWriter.startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(operation.getStartTime() - configurationStarted)).endElement();
+                        htmlWriter.startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(operation.getElapsedTime())).endElement();
+                        htmlWriter.startElement("td").characters(project.getConfigurationThreadName()).endElement();
+                    htmlWriter.endElement();
+                }
+            htmlWriter.endElement();
+        }
     }
 }
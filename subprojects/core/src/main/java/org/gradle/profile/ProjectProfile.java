@@ -24,6 +24,7 @@ public class ProjectProfile extends Operation {
     private HashMap<String, TaskExecution> tasks = new HashMap<String, TaskExecution>();
     private final ContinuousOperation configurationOperation;
     private String projectPath;
+    private String configurationThreadName;
 
     public ProjectProfile(String projectPath) {
         this.projectPath = projectPath;
@@ -64,6 +65,17 @@ public class ProjectProfile extends Operation {
         return configurationOperation;
     }
 
+    /**
+     * Returns the name of the thread that configured this project, or null if the project was not configured.
+     */
+    public String getConfigurationThreadName() {
+        return configurationThreadName;
+    }
+
+    public void setConfigurationThreadName(String configurationThreadName) {
+        this.configurationThreadName = configurationThreadName;
+    }
+
     public String toString() {
         return projectPath;
     }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.profile;
+
+/**
+ * Receives the timing of work that is not a build operation, such as compiling a script, snapshotting the files of a task or waiting for a cache lock.
+ */
+public interface TraceListener {
+
+    TraceListener NOOP = new TraceListener() {
+        @Override
+        public void traced(String category, String name, long startNanos, long endNanos) {
+        }
+    };
+
+    /**
+     * Called on the thread that did the work, once the work has finished.
+     *
+     * @param category the kind of work, such as {@code "script"}
+     * @param name the display name of the work
+     * @param startNanos the value of {@link System#nanoTime()} when the work started
+     * @param endNanos the value of {@link System#nanoTime()} when the work finished
+     */
+    void traced(String category, String name, long startNanos, long endNanos);
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.internal.filewatch.FileWatcher
+import org.gradle.internal.filewatch.FileWatcherEvent
+import org.gradle.internal.filewatch.FileWatcherFactory
+import org.gradle.internal.filewatch.FileWatcherListener
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class WatchingFileSystemMirrorTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def watcher = Mock(FileWatcher)
+    def fileWatcherFactory = Mock(FileWatcherFactory)
+    FileWatcherListener listener
+    def mirror = new WatchingFileSystemMirror(fileWatcherFactory)
+
+    def setup() {
+        watcher.isRunning() >> true
+        fileWatcherFactory.watch(_, _) >> { onError, FileWatcherListener listener ->
+            this.listener = listener
+            watcher
+        }
+    }
+
+    def "visits unchanged tree from the mirror"() {
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("a.txt")
+        dir.createFile("sub/b.txt")
+        def tree = new DirectoryFileTree(dir)
+
+        expect:
+        visit(tree) == ["a.txt", "sub", "sub/b.txt"] as Set
+
+        when:
+        dir.createFile("c.txt")
+
+        then:
+        visit(tree) == ["a.txt", "sub", "sub/b.txt"] as Set
+    }
+
+    def "watches tree before visiting it"() {
+        def dir = tmpDir.createDir("dir")
+
+        when:
+        visit(new DirectoryFileTree(dir))
+
+        then:
+        1 * watcher.watch({ it.contains(dir) })
+    }
+
+    def "discards tree when a file in it changes"() {
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("a.txt")
+        def tree = new DirectoryFileTree(dir)
+        visit(tree)
+
+        when:
+        def created = dir.createFile("sub/c.txt")
+        listener.onChange(watcher, FileWatcherEvent.create(created))
+
+        then:
+        visit(tree) == ["a.txt", "sub", "sub/c.txt"] as Set
+    }
+
+    def "discards tree when watching loses track of changes"() {
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("a.txt")
+        def tree = new DirectoryFileTree(dir)
+        visit(tree)
+
+        when:
+        dir.createFile("b.txt")
+        listener.onChange(watcher, FileWatcherEvent.undefined())
+
+        then:
+        visit(tree) == ["a.txt", "b.txt"] as Set
+    }
+
+    def "discards trees below and above an invalidated file"() {
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("sub/a.txt")
+        def outer = new DirectoryFileTree(dir)
+        def inner = new DirectoryFileTree(dir.file("sub"))
+        visit(outer)
+        visit(inner)
+
+        when:
+        dir.createFile("sub/b.txt")
+        mirror.invalidate([dir.file("sub")])
+
+        then:
+        visit(outer) == ["sub", "sub/a.txt", "sub/b.txt"] as Set
+        visit(inner) == ["a.txt", "b.txt"] as Set
+    }
+
+    def "does not mirror trees filtered by specs"() {
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("a.txt")
+        def tree = new DirectoryFileTree(dir)
+        tree.patterns.include { true }
+        visit(tree)
+
+        when:
+        dir.createFile("b.txt")
+
+        then:
+        visit(tree) == ["a.txt", "b.txt"] as Set
+    }
+
+    def "distinguishes trees by patterns"() {
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("a.txt")
+        dir.createFile("b.java")
+        def all = new DirectoryFileTree(dir)
+        def javaOnly = new DirectoryFileTree(dir)
+        javaOnly.patterns.include("**/*.java")
+
+        expect:
+        visit(all) == ["a.txt", "b.java"] as Set
+        visit(javaOnly) == ["b.java"] as Set
+    }
+
+    def visit(DirectoryFileTree tree) {
+        def paths = [] as Set
+        mirror.visit(tree, new FileVisitor() {
+            @Override
+            void visitDir(FileVisitDetails dirDetails) {
+                paths << dirDetails.relativePath.pathString
+            }
+
+            @Override
+            void visitFile(FileVisitDetails fileDetails) {
+                paths << fileDetails.relativePath.pathString
+            }
+        })
+        paths
+    }
+}
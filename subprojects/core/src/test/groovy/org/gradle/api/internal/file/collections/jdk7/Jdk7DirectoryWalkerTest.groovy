@@ -19,10 +19,14 @@ package org.gradle.api.internal.file.collections.jdk7
 import com.google.common.base.Charsets
 import org.gradle.api.GradleException
 import org.gradle.api.JavaVersion
+import org.gradle.api.file.FileTreeElement
 import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.FileVisitor
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.internal.file.collections.DefaultDirectoryWalker
 import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.specs.Spec
 import org.gradle.api.tasks.util.PatternSet
 import org.gradle.internal.Factory
 import org.gradle.test.fixtures.file.TestFile
@@ -37,6 +41,7 @@ import spock.lang.Specification
 import spock.lang.Unroll
 
 import java.nio.charset.Charset
+import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicInteger
 
 @UsesNativeServices
@@ -105,7 +110,7 @@ class Jdk7DirectoryWalkerTest extends Specification {
         !visited.contains(doesNotExist.absolutePath)
 
         where:
-        walkerInstance << [new DefaultDirectoryWalker(), new Jdk7DirectoryWalker()]
+        walkerInstance << [new DefaultDirectoryWalker(), new Jdk7DirectoryWalker(), new ParallelDirectoryWalker(TestFiles.fileSystem())]
     }
 
     def "both DirectoryWalker implementations return same set of files and attributes"() {
@@ -116,11 +121,61 @@ class Jdk7DirectoryWalkerTest extends Specification {
         when:
         def visitedWithJdk7Walker = walkFiles(rootDir, new Jdk7DirectoryWalker())
         def visitedWithDefaultWalker = walkFiles(rootDir, new DefaultDirectoryWalker())
+        def visitedWithParallelWalker = walkFiles(rootDir, new ParallelDirectoryWalker(TestFiles.fileSystem()))
 
         then:
         visitedWithDefaultWalker.size() == 340
         visitedWithDefaultWalker.size() == visitedWithJdk7Walker.size()
+        visitedWithDefaultWalker.size() == visitedWithParallelWalker.size()
         checkFileVisitDetailsEqual(visitedWithDefaultWalker, visitedWithJdk7Walker)
+        checkFileVisitDetailsEqual(visitedWithDefaultWalker, visitedWithParallelWalker)
+    }
+
+    def "parallel walker visits files before subdirectories and entries in name order"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        generateFilesAndSubDirectories(rootDir, 10, 5, 3, 1, new AtomicInteger(0))
+        def walker = new ParallelDirectoryWalker(TestFiles.fileSystem())
+
+        when:
+        def visited = walkFiles(rootDir, walker).collect { it.path }
+        def visitedAgain = walkFiles(rootDir, walker).collect { it.path }
+
+        then:
+        visited == visitedAgain
+        visited == expectedOrder(rootDir, "")
+    }
+
+    private List<String> expectedOrder(File dir, String prefix) {
+        def children = dir.listFiles().sort { it.name }
+        def files = children.findAll { it.file }.collect { prefix + it.name }
+        def dirs = children.findAll { it.directory }.collectMany { [prefix + it.name] + expectedOrder(it, prefix + it.name + "/") }
+        return files + dirs
+    }
+
+    @Unroll
+    def "walker stops when visitor stops visiting - walker: #walkerInstance.class.simpleName"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        generateFilesAndSubDirectories(rootDir, 10, 5, 3, 1, new AtomicInteger(0))
+        def fileTree = new DirectoryFileTree(rootDir, new PatternSet(), { walkerInstance } as Factory)
+        def visited = []
+        def visitClosure = { FileVisitDetails details ->
+            visited << details
+            if (visited.size() == 25) {
+                details.stopVisiting()
+            }
+        }
+        def fileVisitor = [visitFile: visitClosure, visitDir: visitClosure] as FileVisitor
+
+        when:
+        fileTree.visit(fileVisitor)
+
+        then:
+        visited.size() == 25
+
+        where:
+        walkerInstance << [new DefaultDirectoryWalker(), new Jdk7DirectoryWalker(), new ParallelDirectoryWalker(TestFiles.fileSystem())]
     }
 
     private void checkFileVisitDetailsEqual(List<FileVisitDetails> visitedWithDefaultWalker, List<FileVisitDetails> visitedWithJdk7Walker) {
@@ -187,7 +242,7 @@ class Jdk7DirectoryWalkerTest extends Specification {
         link.delete()
 
         where:
-        walkerInstance << [new DefaultDirectoryWalker(), new Jdk7DirectoryWalker()]
+        walkerInstance << [new DefaultDirectoryWalker(), new Jdk7DirectoryWalker(), new ParallelDirectoryWalker(TestFiles.fileSystem())]
     }
 
     @Requires(TestPrecondition.SYMLINKS)
@@ -218,7 +273,7 @@ class Jdk7DirectoryWalkerTest extends Specification {
         link.delete()
 
         where:
-        walkerInstance << [new DefaultDirectoryWalker(), new Jdk7DirectoryWalker()]
+        walkerInstance << [new DefaultDirectoryWalker(), new Jdk7DirectoryWalker(), new ParallelDirectoryWalker(TestFiles.fileSystem())]
     }
 
     @Requires(TestPrecondition.SYMLINKS)
@@ -247,7 +302,7 @@ class Jdk7DirectoryWalkerTest extends Specification {
         link.delete()
 
         where:
-        walkerInstance << [new DefaultDirectoryWalker(), new Jdk7DirectoryWalker()]
+        walkerInstance << [new DefaultDirectoryWalker(), new Jdk7DirectoryWalker(), new ParallelDirectoryWalker(TestFiles.fileSystem())]
     }
 
     @Issue("GRADLE-3400")
@@ -280,6 +335,47 @@ class Jdk7DirectoryWalkerTest extends Specification {
         cleanup:
         link.delete()
 
+        where:
+        walkerInstance << [new DefaultDirectoryWalker(), new Jdk7DirectoryWalker(), new ParallelDirectoryWalker(TestFiles.fileSystem())]
+    }
+
+    @Unroll
+    def "spec sees the details of each entry and visited details remain valid after walking - walker: #walkerInstance.class.simpleName"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a/1.txt") << '1'
+        rootDir.createFile("a/22.txt") << '22'
+        rootDir.createFile("a/b/333.txt") << '333'
+        rootDir.createFile("c/4444.txt") << '4444'
+        def seenBySpec = [:]
+        def spec = { FileTreeElement element ->
+            seenBySpec[element.path] = [element.directory, element.directory ? -1 : element.size, element.file]
+            element.name != "c"
+        } as Spec<FileTreeElement>
+        def visited = []
+        def visitClosure = { visited << it }
+        def fileVisitor = [visitFile: visitClosure, visitDir: visitClosure] as FileVisitor
+
+        when:
+        walkerInstance.walkDir(rootDir, new RelativePath(false), fileVisitor, spec, new AtomicBoolean(), false)
+
+        then:
+        seenBySpec == [
+            "a": [true, -1, rootDir.file("a")],
+            "a/1.txt": [false, 1, rootDir.file("a/1.txt")],
+            "a/22.txt": [false, 2, rootDir.file("a/22.txt")],
+            "a/b": [true, -1, rootDir.file("a/b")],
+            "a/b/333.txt": [false, 3, rootDir.file("a/b/333.txt")],
+            "c": [true, -1, rootDir.file("c")]
+        ]
+        visited.collect { [it.path, it.directory, it.directory ? -1 : it.size, it.file] }.sort { it[0] } == [
+            ["a", true, -1, rootDir.file("a")],
+            ["a/1.txt", false, 1, rootDir.file("a/1.txt")],
+            ["a/22.txt", false, 2, rootDir.file("a/22.txt")],
+            ["a/b", true, -1, rootDir.file("a/b")],
+            ["a/b/333.txt", false, 3, rootDir.file("a/b/333.txt")]
+        ]
+
         where:
         walkerInstance << [new DefaultDirectoryWalker(), new Jdk7DirectoryWalker()]
     }
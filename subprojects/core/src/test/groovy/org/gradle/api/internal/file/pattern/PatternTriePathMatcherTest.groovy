@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern
+
+import org.gradle.api.file.RelativePath
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class PatternTriePathMatcherTest extends Specification {
+    @Unroll
+    def "matches path #path against any of #patterns the same way as individual patterns"() {
+        def trie = new PatternTriePathMatcher(true, patterns)
+        def segments = path.split("/").findAll { it } as String[]
+
+        expect:
+        trie.matches(segments, 0) == patterns.any { PatternMatcherFactory.compile(true, it).matches(segments, 0) }
+        trie.isPrefix(segments, 0) == patterns.any { PatternMatcherFactory.compile(true, it).isPrefix(segments, 0) }
+
+        where:
+        patterns                                  | path
+        ["a/b", "a/c"]                            | "a/b"
+        ["a/b", "a/c"]                            | "a/c"
+        ["a/b", "a/c"]                            | "a/d"
+        ["a/b", "a/c"]                            | "a"
+        ["a/b", "a/c"]                            | ""
+        ["**/*.java", "**/build/**"]              | "src/main/A.java"
+        ["**/*.java", "**/build/**"]              | "src/build"
+        ["**/*.java", "**/build/**"]              | "src/build/classes/A.class"
+        ["**/*.java", "**/build/**"]              | "src/main/A.class"
+        ["a/**/b", "a/*/c"]                       | "a/x/y/b"
+        ["a/**/b", "a/*/c"]                       | "a/x/c"
+        ["a/**/b", "a/*/c"]                       | "b/x/c"
+        ["a/**/**/b", "a/?/c"]                    | "a/b"
+        ["a/**/**/b", "a/?/c"]                    | "a/x/c"
+        ["a/**/**/b", "a/?/c"]                    | "a/xy/c"
+        ["a/", "b"]                               | "a/x/y"
+        ["a/", "b"]                               | "a"
+        ["a/", "b"]                               | "b/c"
+        ["", "a"]                                 | ""
+        ["", "a"]                                 | "b"
+    }
+
+    def "matches literal segments case insensitively"() {
+        def trie = new PatternTriePathMatcher(false, ["src/Main/**", "**/*.JAVA"])
+
+        expect:
+        trie.matches(["SRC", "main", "x"] as String[], 0)
+        trie.matches(["a", "b.java"] as String[], 0)
+        !trie.matches(["src", "test", "x"] as String[], 0)
+        trie.isPrefix(["Src"] as String[], 0)
+    }
+
+    def "matches from start index"() {
+        def trie = new PatternTriePathMatcher(true, ["a/b", "c"])
+
+        expect:
+        trie.matches(["x", "a", "b"] as String[], 1)
+        trie.matches(["x", "y", "c"] as String[], 2)
+        !trie.matches(["x", "a", "b"] as String[], 0)
+        trie.isPrefix(["x", "a"] as String[], 1)
+    }
+
+    def "spec created for several patterns behaves like union of specs for individual patterns"() {
+        def patterns = ["**/*.java", "a/b/", "c/*/d"]
+        def union = PatternMatcherFactory.getPatternsMatcher(partialMatchDirs, true, patterns)
+
+        expect:
+        [
+            [true, "a"], [true, "a/b"], [false, "a/b/c.txt"], [false, "c/x/d"], [true, "c/x"], [false, "x/Y.java"], [true, "x/y"]
+        ].every { entry ->
+            def relativePath = RelativePath.parse(!entry[0], entry[1])
+            union.isSatisfiedBy(relativePath) == patterns.any { PatternMatcherFactory.getPatternMatcher(partialMatchDirs, true, it).isSatisfiedBy(relativePath) }
+        }
+
+        where:
+        partialMatchDirs << [true, false]
+    }
+}
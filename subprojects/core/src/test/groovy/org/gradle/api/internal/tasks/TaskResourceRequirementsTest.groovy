@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class TaskResourceRequirementsTest extends Specification {
+    @Unroll
+    def "limits #cpuUnits CPU units and #memory MB to budget of #maxCpuUnits CPU units and #maxMemory MB"() {
+        when:
+        def limited = new TaskResourceRequirements(cpuUnits, memory).limitTo(maxCpuUnits, maxMemory)
+
+        then:
+        limited.cpuUnits == expectedCpuUnits
+        limited.memoryMegabytes == expectedMemory
+
+        where:
+        cpuUnits | memory | maxCpuUnits | maxMemory      | expectedCpuUnits | expectedMemory
+        2        | 512    | 4           | 1024           | 2                | 512
+        8        | 512    | 4           | 1024           | 4                | 512
+        2        | 2048   | 4           | 1024           | 2                | 1024
+        8        | 2048   | 4           | 1024           | 4                | 1024
+        8        | 0      | 0           | Long.MAX_VALUE | 1                | 0
+    }
+
+    def "returns same requirements when within budget"() {
+        def requirements = new TaskResourceRequirements(2, 512)
+
+        expect:
+        requirements.limitTo(2, 512).is(requirements)
+    }
+}
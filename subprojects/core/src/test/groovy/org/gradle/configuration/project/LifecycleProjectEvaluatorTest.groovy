@@ -22,6 +22,8 @@ import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.project.ProjectStateInternal
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+
 public class LifecycleProjectEvaluatorTest extends Specification {
     private project = Mock(ProjectInternal)
     private listener = Mock(ProjectEvaluationListener)
@@ -156,4 +158,25 @@ public class LifecycleProjectEvaluatorTest extends Specification {
         0 * state.executed(_)
     }
 
+    void "does not deadlock when projects evaluated on different threads depend on each other"() {
+        def project2 = Mock(ProjectInternal)
+        def state1 = new ProjectStateInternal()
+        def state2 = new ProjectStateInternal()
+        def bothStarted = new CountDownLatch(2)
+        project2.getProjectEvaluationBroadcaster() >> listener
+        delegate.evaluate(project, state1) >> { bothStarted.countDown(); bothStarted.await(); evaluator.evaluate(project2, state2) }
+        delegate.evaluate(project2, state2) >> { bothStarted.countDown(); bothStarted.await(); evaluator.evaluate(project, state1) }
+
+        when:
+        def thread1 = Thread.start { evaluator.evaluate(project, state1) }
+        def thread2 = Thread.start { evaluator.evaluate(project2, state2) }
+        thread1.join(10000)
+        thread2.join(10000)
+
+        then:
+        !thread1.alive
+        !thread2.alive
+        state1.executed
+        state2.executed
+    }
 }
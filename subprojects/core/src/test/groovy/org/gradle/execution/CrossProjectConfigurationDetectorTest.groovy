@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CrossProjectConfigurationDetectorTest extends Specification {
+    @Unroll
+    def "script '#script' touches other projects"() {
+        expect:
+        CrossProjectConfigurationDetector.touchesOtherProjects(script)
+
+        where:
+        script << [
+            "evaluationDependsOn(':a')",
+            "evaluationDependsOnChildren()",
+            "allprojects { }",
+            "subprojects { apply plugin: 'java' }",
+            "configure(subprojects.findAll { it.name != 'a' }) { }",
+            "project(':a') { }",
+            "project(':a').version = '1.0'",
+            "rootProject.afterEvaluate { }",
+            "parent.beforeEvaluate { }",
+            "gradle.projectsEvaluated { }",
+            "apply from: 'other.gradle'",
+            "def url = 'http://example.com' // comment\nallprojects { }"
+        ]
+    }
+
+    @Unroll
+    def "script '#script' does not touch other projects"() {
+        expect:
+        !CrossProjectConfigurationDetector.touchesOtherProjects(script)
+
+        where:
+        script << [
+            "apply plugin: 'java'",
+            "plugins { id 'java' }",
+            "dependencies { compile project(':a') }",
+            "dependencies { compile project(path: ':a', configuration: 'archives') }",
+            "version = rootProject.version",
+            "afterEvaluate { }",
+            "// allprojects { }",
+            "/* evaluationDependsOn(':a') */",
+            "description = 'shared by all subprojects'",
+            'description = """configured from gradle.properties"""'
+        ]
+    }
+}
@@ -18,14 +18,29 @@ package org.gradle.execution
 
 import org.gradle.api.BuildCancelledException
 import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.groovy.scripts.ScriptSource
 import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.resource.TextResource
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
 class TaskPathProjectEvaluatorTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
     private cancellationToken = Mock(BuildCancellationToken)
     private project = Mock(ProjectInternal)
     private evaluator = new TaskPathProjectEvaluator(cancellationToken)
 
+    def setup() {
+        buildScript(project, null)
+    }
+
     def "project configuration fails when cancelled"() {
         given:
         cancellationToken.cancellationRequested >> true
@@ -60,4 +75,153 @@ class TaskPathProjectEvaluatorTest extends Specification {
         1 * child1.evaluate()
         0 * child2._
     }
+
+    def "evaluates subprojects that do not touch other projects concurrently"() {
+        def bothStarted = new CountDownLatch(2)
+        def evaluated = new CopyOnWriteArrayList()
+        def child1 = subproject(project, "dependencies { compile project(':child2') }")
+        def child2 = subproject(project, null)
+        def child3 = subproject(project, "evaluationDependsOn(':child1')")
+
+        given:
+        project.subprojects >> ([child1, child2, child3] as LinkedHashSet)
+
+        when:
+        parallelEvaluator().configureHierarchy(project)
+
+        then:
+        1 * project.evaluate()
+        1 * child1.evaluate() >> { bothStarted.countDown(); assert bothStarted.await(10, TimeUnit.SECONDS); evaluated << "child1" }
+        1 * child2.evaluate() >> { bothStarted.countDown(); assert bothStarted.await(10, TimeUnit.SECONDS); evaluated << "child2" }
+        1 * child3.evaluate() >> { evaluated << "child3" }
+
+        and:
+        evaluated.size() == 3
+        evaluated[2] == "child3"
+    }
+
+    def "evaluates a subproject only after its parent has finished"() {
+        def evaluated = new CopyOnWriteArrayList()
+        def child = subproject(project, null)
+        def grandChild = subproject(child, null)
+
+        given:
+        project.subprojects >> ([child, grandChild] as LinkedHashSet)
+
+        when:
+        parallelEvaluator().configureHierarchy(project)
+
+        then:
+        1 * child.evaluate() >> { Thread.sleep(100); evaluated << "child" }
+        1 * grandChild.evaluate() >> { evaluated << "grandChild" }
+
+        and:
+        evaluated == ["child", "grandChild"]
+    }
+
+    def "evaluates subprojects serially when an ancestor configures its subprojects"() {
+        def evaluated = new CopyOnWriteArrayList()
+        def threads = new CopyOnWriteArrayList()
+        def root = Mock(ProjectInternal)
+        def child1 = subproject(root, null)
+        def child2 = subproject(root, null)
+
+        given:
+        buildScript(root, "subprojects { afterEvaluate { } }")
+        root.subprojects >> ([child1, child2] as LinkedHashSet)
+
+        when:
+        parallelEvaluator().configureHierarchy(root)
+
+        then:
+        1 * child1.evaluate() >> { threads << Thread.currentThread(); Thread.sleep(100); evaluated << "child1" }
+        1 * child2.evaluate() >> { threads << Thread.currentThread(); evaluated << "child2" }
+
+        and:
+        evaluated == ["child1", "child2"]
+        threads == [Thread.currentThread(), Thread.currentThread()]
+    }
+
+    def "evaluates subprojects that apply plugins concurrently"() {
+        def bothStarted = new CountDownLatch(2)
+        def child1 = subproject(project, "apply plugin: 'java'\ndependencies { compile project(':child2') }")
+        def child2 = subproject(project, "plugins { id 'java' }")
+
+        given:
+        project.subprojects >> ([child1, child2] as LinkedHashSet)
+
+        when:
+        parallelEvaluator("rootProject.name = 'root'\ninclude 'child1', 'child2'").configureHierarchy(project)
+
+        then:
+        1 * child1.evaluate() >> { bothStarted.countDown(); assert bothStarted.await(10, TimeUnit.SECONDS) }
+        1 * child2.evaluate() >> { bothStarted.countDown(); assert bothStarted.await(10, TimeUnit.SECONDS) }
+    }
+
+    def "evaluates subprojects serially when the build has init scripts or a settings script that registers hooks"() {
+        def threads = new CopyOnWriteArrayList()
+        def child1 = subproject(project, null)
+        def child2 = subproject(project, null)
+
+        given:
+        project.subprojects >> ([child1, child2] as LinkedHashSet)
+
+        when:
+        def settingsFile = tmpDir.file("settings.gradle")
+        settingsFile.text = settings
+        new TaskPathProjectEvaluator(cancellationToken, new DefaultExecutorFactory(), 4, initScripts, settingsFile).configureHierarchy(project)
+
+        then:
+        1 * child1.evaluate() >> { threads << Thread.currentThread() }
+        1 * child2.evaluate() >> { threads << Thread.currentThread() }
+
+        and:
+        threads == [Thread.currentThread(), Thread.currentThread()]
+
+        where:
+        initScripts               | settings
+        [new File("init.gradle")] | "include 'child1', 'child2'"
+        []                        | "include 'child1', 'child2'\ngradle.beforeProject { }"
+    }
+
+    def "rethrows failure of a subproject evaluated concurrently"() {
+        def failure = new RuntimeException("broken")
+        def child1 = subproject(project, null)
+        def child2 = subproject(project, null)
+
+        given:
+        project.subprojects >> ([child1, child2] as LinkedHashSet)
+        child2.evaluate() >> { throw failure }
+
+        when:
+        parallelEvaluator().configureHierarchy(project)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+    }
+
+    private TaskPathProjectEvaluator parallelEvaluator(String settings = "include 'child1', 'child2', 'child3'") {
+        def settingsFile = tmpDir.file("settings.gradle")
+        settingsFile.text = settings
+        return new TaskPathProjectEvaluator(cancellationToken, new DefaultExecutorFactory(), 4, [], settingsFile)
+    }
+
+    private ProjectInternal subproject(ProjectInternal parent, String script) {
+        def project = Mock(ProjectInternal)
+        project.parent >> parent
+        buildScript(project, script)
+        return project
+    }
+
+    private void buildScript(ProjectInternal project, String script) {
+        def resource = Stub(TextResource) {
+            getExists() >> (script != null)
+            getText() >> script
+        }
+        def source = Stub(ScriptSource) {
+            getResource() >> resource
+        }
+        project.buildScriptSource >> source
+    }
 }
@@ -20,6 +20,7 @@ import org.gradle.api.DefaultTask
 import org.gradle.api.Project
 import org.gradle.api.Task
 import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.tasks.TaskResourceRequirements
 import org.gradle.api.tasks.Delete
 import org.gradle.api.tasks.OutputDirectory
 import org.gradle.api.tasks.OutputFile
@@ -113,6 +114,71 @@ class DefaultTaskExecutionPlanParallelTaskHandlingTest extends AbstractProjectBu
         noMoreTasksCurrentlyAvailableForExecution()
     }
 
+    def "tasks are not executed in parallel when they require more CPU units than available"() {
+        given:
+        executionPlan.useResourceBudget(3, Long.MAX_VALUE)
+        Task a = root.task("a", type: Parallel)
+        Task b = root.task("b", type: Parallel)
+        a.resourceRequirements = new TaskResourceRequirements(2, 0)
+        b.resourceRequirements = new TaskResourceRequirements(2, 0)
+
+        when:
+        addToGraphAndPopulate(a, b)
+        startTasks(1)
+
+        then:
+        noMoreTasksCurrentlyAvailableForExecution()
+
+        when:
+        completeAllStartedTasks()
+
+        then:
+        requestedTasksBecomeAvailableForExecution()
+    }
+
+    def "task that requires more CPU units than workers uses all workers"() {
+        given:
+        executionPlan.useResourceBudget(4, Long.MAX_VALUE)
+        Task a = root.task("a", type: Parallel)
+        Task b = root.task("b", type: Parallel)
+        a.resourceRequirements = new TaskResourceRequirements(8, 0)
+
+        when:
+        addToGraphAndPopulate(a, b)
+        startTasks(1)
+
+        then:
+        noMoreTasksCurrentlyAvailableForExecution()
+
+        when:
+        completeAllStartedTasks()
+
+        then:
+        requestedTasksBecomeAvailableForExecution()
+    }
+
+    def "task that requires more memory than available is executed when no other task is executing"() {
+        given:
+        executionPlan.useResourceBudget(4, 1024)
+        Task a = root.task("a", type: Parallel)
+        Task b = root.task("b", type: Parallel)
+        a.resourceRequirements = new TaskResourceRequirements(1, 512)
+        b.resourceRequirements = new TaskResourceRequirements(1, 2048)
+
+        when:
+        addToGraphAndPopulate(a, b)
+        startTasks(1)
+
+        then:
+        noMoreTasksCurrentlyAvailableForExecution()
+
+        when:
+        completeAllStartedTasks()
+
+        then:
+        requestedTasksBecomeAvailableForExecution()
+    }
+
     def "two dependent parallelizable tasks are not executed in parallel"() {
         given:
         Task a = root.task("a", type: Parallel)
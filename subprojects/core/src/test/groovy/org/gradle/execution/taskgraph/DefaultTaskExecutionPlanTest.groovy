@@ -18,15 +18,18 @@ package org.gradle.execution.taskgraph
 
 import org.gradle.api.BuildCancelledException
 import org.gradle.api.CircularReferenceException
+import org.gradle.api.GradleException
 import org.gradle.api.Task
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
 import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.tasks.TaskResourceRequirements
 import org.gradle.api.internal.tasks.TaskStateInternal
 import org.gradle.api.specs.Spec
 import org.gradle.api.tasks.TaskDependency
 import org.gradle.execution.TaskFailureHandler
 import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.test.fixtures.AbstractProjectBuilderSpec
 import org.gradle.util.TextUtil
 import spock.lang.Issue
@@ -748,6 +751,36 @@ public class DefaultTaskExecutionPlanTest extends AbstractProjectBuilderSpec {
         e == failure
     }
 
+    def "starts tasks with the longest remaining path first when execution times are known"() {
+        given:
+        Task a = task("a");
+        Task b = task("b");
+        Task c = task("c");
+        Task d = task("d", dependsOn: [c]);
+        executionPlan.useExecutionTimeHistory(Stub(TaskExecutionTimeHistory) {
+            getPreviousExecutionTimes(_) >> [(a): 10L, (b): 10L, (c): 5L, (d): 100L]
+        })
+
+        when:
+        addToGraphAndPopulate([a, b, d])
+
+        then:
+        executedTasks == [c, d, a, b]
+        executionPlan.predictedExecutionTime == 105
+    }
+
+    def "has no predicted execution time when execution times are not known"() {
+        given:
+        Task a = task("a");
+
+        when:
+        addToGraphAndPopulate([a])
+
+        then:
+        executedTasks == [a]
+        executionPlan.predictedExecutionTime == null
+    }
+
     def "clear removes all tasks"() {
         given:
         Task a = task("a");
@@ -854,6 +887,61 @@ public class DefaultTaskExecutionPlanTest extends AbstractProjectBuilderSpec {
         executes(c)
     }
 
+    def "schedules tasks in the same order when dependencies are resolved concurrently"() {
+        given:
+        Task a = task("a")
+        Task b = task("b", dependsOn: [a])
+        Task finalizer = task("finalizer", dependsOn: [a])
+        Task c = task("c", dependsOn: [a], finalizedBy: [finalizer])
+        Task d = task("d", dependsOn: [c, b], mustRunAfter: [b])
+        Task e = task("e", dependsOn: [d], shouldRunAfter: [c])
+
+        when:
+        executionPlan.useConcurrentDependencyResolution(new DefaultExecutorFactory(), 4)
+        addToGraphAndPopulate([e])
+
+        then:
+        executes(a, c, finalizer, b, d, e)
+    }
+
+    def "does not resolve dependencies of filtered tasks when dependencies are resolved concurrently"() {
+        given:
+        Task a = filteredTask("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [a, b])
+        Spec<Task> filter = Mock()
+
+        and:
+        filter.isSatisfiedBy(_) >> { Task t -> t != a }
+
+        when:
+        executionPlan.useFilter(filter)
+        executionPlan.useConcurrentDependencyResolution(new DefaultExecutorFactory(), 4)
+        addToGraphAndPopulate([c])
+
+        then:
+        executes(b, c)
+    }
+
+    def "reports failure to resolve dependencies when dependencies are resolved concurrently"() {
+        given:
+        def failure = new RuntimeException("broken")
+        TaskInternal a = createTask("a")
+        Task b = task("b", dependsOn: [a])
+        a.getTaskDependencies() >> Mock(TaskDependency) {
+            getDependencies(a) >> { throw failure }
+        }
+
+        when:
+        executionPlan.useConcurrentDependencyResolution(new DefaultExecutorFactory(), 4)
+        executionPlan.addToTaskGraph([b])
+
+        then:
+        def e = thrown GradleException
+        e.message == "Could not determine the dependencies of task a."
+        e.cause == failure
+    }
+
     def "one non parallelizable parallel task per project is allowed"() {
         given:
         //2 projects, 2 non parallelizable tasks each
@@ -982,6 +1070,7 @@ public class DefaultTaskExecutionPlanTest extends AbstractProjectBuilderSpec {
             return name.compareTo(taskInternal.getName());
         }
         task.getOutputs() >> emptyTaskOutputs()
+        task.getResourceRequirements() >> TaskResourceRequirements.DEFAULT
         return task;
     }
 }
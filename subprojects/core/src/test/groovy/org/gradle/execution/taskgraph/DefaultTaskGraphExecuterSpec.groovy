@@ -24,6 +24,7 @@ import org.gradle.api.execution.internal.TaskOperationInternal
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
 import org.gradle.api.internal.tasks.TaskExecuter
+import org.gradle.api.internal.tasks.TaskResourceRequirements
 import org.gradle.api.internal.tasks.TaskStateInternal
 import org.gradle.api.tasks.TaskDependency
 import org.gradle.initialization.BuildCancellationToken
@@ -42,7 +43,7 @@ class DefaultTaskGraphExecuterSpec extends Specification {
     def project = ProjectBuilder.builder().build()
     def listenerManager = new DefaultListenerManager()
     def executer = Mock(TaskExecuter)
-    def taskExecuter = new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(new DefaultBuildOperationWorkerRegistry(1)), Factories.constant(executer), cancellationToken, Stub(TimeProvider), Stub(BuildOperationExecutor))
+    def taskExecuter = new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(new DefaultBuildOperationWorkerRegistry(1)), Factories.constant(executer), Factories.constant(TaskExecutionTimeHistory.NO_HISTORY), cancellationToken, Stub(TimeProvider), Stub(BuildOperationExecutor))
 
     def "notifies task listener as tasks are executed"() {
         def listener = Mock(TaskExecutionListener)
@@ -264,18 +265,43 @@ class DefaultTaskGraphExecuterSpec extends Specification {
         noExceptionThrown()
     }
 
-    def task(String name) {
+    def "records execution time only of tasks whose actions were executed"() {
+        def history = Mock(TaskExecutionTimeHistory)
+        def timeProvider = Stub(TimeProvider) {
+            getCurrentTime() >>> [100, 150, 200, 210, 300, 320, 400, 405]
+        }
+        def executer = new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(new DefaultBuildOperationWorkerRegistry(1)), Factories.constant(this.executer), Factories.constant(history), cancellationToken, timeProvider, Stub(BuildOperationExecutor))
+        def a = task("a", false, true)
+        def b = task("b", true, false)
+        def c = task("c", false, false)
+        def d = task("d", true, true)
+
+        given:
+        executer.addTasks([a, b, c, d])
+
+        when:
+        executer.execute()
+
+        then:
+        1 * history.recordExecutionTime(a, 50)
+        0 * history.recordExecutionTime(_, _)
+    }
+
+    def task(String name, boolean skipped = false, boolean didWork = true) {
         def mock = Mock(TaskInternal)
         _ * mock.name >> name
         _ * mock.project >> project
         _ * mock.state >> Stub(TaskStateInternal) {
             getFailure() >> null
+            getSkipped() >> skipped
+            getDidWork() >> didWork
         }
         _ * mock.taskDependencies >> Stub(TaskDependency)
         _ * mock.finalizedBy >> Stub(TaskDependency)
         _ * mock.mustRunAfter >> Stub(TaskDependency)
         _ * mock.shouldRunAfter >> Stub(TaskDependency)
         _ * mock.compareTo(_) >> { Task t -> name.compareTo(t.name) }
+        _ * mock.resourceRequirements >> TaskResourceRequirements.DEFAULT
         _ * mock.outputs >> Stub(TaskOutputsInternal) {
             getFiles() >> project.files()
         }
@@ -294,6 +320,7 @@ class DefaultTaskGraphExecuterSpec extends Specification {
         _ * mock.mustRunAfter >> Stub(TaskDependency)
         _ * mock.shouldRunAfter >> Stub(TaskDependency)
         _ * mock.compareTo(_) >> { Task t -> name.compareTo(t.name) }
+        _ * mock.resourceRequirements >> TaskResourceRequirements.DEFAULT
         _ * mock.outputs >> Stub(TaskOutputsInternal) {
             getFiles() >> project.files()
         }
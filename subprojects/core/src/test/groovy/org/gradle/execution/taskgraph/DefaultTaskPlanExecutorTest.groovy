@@ -19,6 +19,7 @@ package org.gradle.execution.taskgraph
 import org.gradle.api.Action
 import org.gradle.api.Project
 import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.tasks.TaskResourceRequirements
 import org.gradle.api.internal.tasks.TaskStateInternal
 import org.gradle.api.invocation.Gradle
 import org.gradle.internal.operations.BuildOperationWorkerRegistry
@@ -37,6 +38,7 @@ class DefaultTaskPlanExecutorTest extends Specification {
         project.gradle >> gradle
         task.project >> project
         task.state >> state
+        task.resourceRequirements >> TaskResourceRequirements.DEFAULT
         def taskInfo = new TaskInfo(task)
 
         when:
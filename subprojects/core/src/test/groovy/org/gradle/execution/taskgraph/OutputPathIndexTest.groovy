@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import spock.lang.Specification
+
+class OutputPathIndexTest extends Specification {
+    def index = new OutputPathIndex<String>()
+
+    def "finds no overlap in empty index"() {
+        expect:
+        index.firstOverlap(path("/a/b")) == null
+    }
+
+    def "finds overlap with same path, ancestor and descendant"() {
+        given:
+        index.add("task", path("/a/b"))
+
+        expect:
+        overlap("/a/b") == ["task", path("/a/b")]
+        overlap("/a/b/c/d") == ["task", path("/a/b")]
+        overlap("/a") == ["task", path("/a")]
+        overlap("/") == ["task", path("/")]
+    }
+
+    def "does not find overlap with siblings or paths sharing a name prefix"() {
+        given:
+        index.add("task", path("/a/b"))
+
+        expect:
+        index.firstOverlap(path("/a/c")) == null
+        index.firstOverlap(path("/a/bc")) == null
+        index.firstOverlap(path("/a/bc/d")) == null
+        index.firstOverlap(path("/b")) == null
+    }
+
+    def "removed paths no longer overlap"() {
+        given:
+        index.add("task1", path("/a/b"))
+        index.add("task1", path("/a/b/c"))
+        index.add("task2", path("/a/d"))
+
+        when:
+        index.remove("task1", path("/a/b"))
+
+        then:
+        overlap("/a/b/c/e") == ["task1", path("/a/b/c")]
+        index.firstOverlap(path("/a/b/x")) == null
+
+        when:
+        index.remove("task1", path("/a/b/c"))
+
+        then:
+        index.firstOverlap(path("/a/b")) == null
+        overlap("/a") == ["task2", path("/a")]
+
+        when:
+        index.remove("task2", path("/a/d"))
+
+        then:
+        index.firstOverlap(path("/")) == null
+    }
+
+    def "can clear index"() {
+        given:
+        index.add("task", path("/a/b"))
+
+        when:
+        index.clear()
+
+        then:
+        index.firstOverlap(path("/a/b")) == null
+    }
+
+    def "agrees with comparing paths for random paths"() {
+        def random = new Random(42)
+        def names = ["a", "b", "ab", "b.txt"]
+        def randomPath = {
+            def segments = (0..random.nextInt(4)).collect { names[random.nextInt(names.size())] }
+            path("/" + segments.join("/"))
+        }
+        def added = []
+
+        expect:
+        1000.times {
+            if (added.size() > 5) {
+                index.remove(added.first(), added.remove(0))
+            }
+            def candidate = randomPath()
+            def expected = added.find { overlaps(it, candidate) }
+            def overlap = index.firstOverlap(candidate)
+            assert (overlap != null) == (expected != null)
+            if (overlap != null) {
+                assert overlaps(overlap.left, candidate)
+                assert overlap.right == [overlap.left, candidate].min { it.length() }
+            } else if (!added.contains(candidate)) {
+                index.add(candidate, candidate)
+                added << candidate
+            }
+        }
+    }
+
+    private static boolean overlaps(String first, String second) {
+        return first == second || first.startsWith(second + File.separator) || second.startsWith(first + File.separator)
+    }
+
+    private List<String> overlap(String candidate) {
+        def overlap = index.firstOverlap(path(candidate))
+        return [overlap.left, overlap.right]
+    }
+
+    private static String path(String path) {
+        return path.replace('/', File.separator)
+    }
+}
@@ -17,18 +17,17 @@
 package org.gradle.execution.taskgraph
 
 import org.gradle.api.internal.changedetection.state.TaskArtifactStateCacheAccess
-import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.operations.BuildOperationWorkerRegistry
 import spock.lang.Specification
 
 public class TaskPlanExecutorFactoryTest extends Specification {
     final TaskArtifactStateCacheAccess cache = Mock()
-    final ExecutorFactory executorFactory = Mock()
+    final TaskWorkerPool workerPool = Mock()
     final BuildOperationWorkerRegistry buildOperationWorkerRegistry = Mock()
 
     def "creates a default executor"() {
         when:
-        def factory = new TaskPlanExecutorFactory(1, executorFactory, buildOperationWorkerRegistry)
+        def factory = new TaskPlanExecutorFactory(1, workerPool, buildOperationWorkerRegistry)
 
         then:
         factory.create().class == DefaultTaskPlanExecutor
@@ -36,7 +35,7 @@ public class TaskPlanExecutorFactoryTest extends Specification {
 
     def "creates a parallel executor"() {
         when:
-        def factory = new TaskPlanExecutorFactory(3, executorFactory, buildOperationWorkerRegistry)
+        def factory = new TaskPlanExecutorFactory(3, workerPool, buildOperationWorkerRegistry)
 
         then:
         factory.create().class == ParallelTaskPlanExecutor
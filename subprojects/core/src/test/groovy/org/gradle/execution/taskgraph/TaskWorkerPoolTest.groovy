@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.api.Action
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArraySet
+import java.util.concurrent.TimeUnit
+
+class TaskWorkerPoolTest extends Specification {
+    def pool = new TaskWorkerPool(new DefaultExecutorFactory(), 60, 4)
+
+    def cleanup() {
+        pool.stop()
+    }
+
+    def "runs workers on pooled threads"() {
+        def threads = new CopyOnWriteArraySet<Thread>()
+        def worker = { TaskWorkerStatistics statistics -> threads << Thread.currentThread() } as Action
+
+        when:
+        pool.start([worker, worker, worker]).await()
+
+        then:
+        threads.size() == 3
+        !threads.contains(Thread.currentThread())
+        pool.workerStatistics.size() == 3
+    }
+
+    def "reuses threads for later workers"() {
+        def threads = new CopyOnWriteArraySet<Thread>()
+        def worker = { TaskWorkerStatistics statistics -> threads << Thread.currentThread() } as Action
+
+        when:
+        pool.start([worker, worker]).await()
+        pool.start([worker, worker]).await()
+
+        then:
+        threads.size() == 2
+        pool.workerStatistics.size() == 2
+    }
+
+    def "gives each worker the statistics of its thread"() {
+        def worker = { TaskWorkerStatistics statistics -> statistics.taskExecuted(1000000) } as Action
+
+        when:
+        pool.start([worker]).await()
+        pool.start([worker]).await()
+
+        then:
+        pool.workerStatistics.size() == 1
+        pool.workerStatistics[0].tasksExecuted == 2
+        pool.workerStatistics[0].busyTime == 2
+    }
+
+    def "rethrows failure of a worker"() {
+        def failure = new RuntimeException()
+        def broken = { TaskWorkerStatistics statistics -> throw failure } as Action
+        def worker = { TaskWorkerStatistics statistics -> } as Action
+
+        when:
+        pool.start([worker, broken]).await()
+
+        then:
+        def e = thrown RuntimeException
+        e == failure
+    }
+
+    def "resets the context class loader of a thread after each worker"() {
+        def loaders = []
+        def changing = { TaskWorkerStatistics statistics -> Thread.currentThread().contextClassLoader = new URLClassLoader(new URL[0]) } as Action
+        def recording = { TaskWorkerStatistics statistics -> loaders << Thread.currentThread().contextClassLoader } as Action
+
+        when:
+        pool.start([recording]).await()
+        pool.start([changing]).await()
+        pool.start([recording]).await()
+
+        then:
+        pool.workerStatistics.size() == 1
+        loaders.size() == 2
+        loaders[0].is(loaders[1])
+    }
+
+    def "does not keep more idle threads than the maximum"() {
+        pool = new TaskWorkerPool(new DefaultExecutorFactory(), 60, 1)
+        def worker = { TaskWorkerStatistics statistics -> } as Action
+
+        when:
+        pool.start([worker, worker, worker]).await()
+
+        then:
+        waitForThreads(1)
+    }
+
+    def "threads leave the pool once idle for the keep alive time"() {
+        pool = new TaskWorkerPool(new DefaultExecutorFactory(), 100, TimeUnit.MILLISECONDS, 4)
+        def worker = { TaskWorkerStatistics statistics -> } as Action
+
+        when:
+        pool.start([worker, worker]).await()
+
+        then:
+        waitForThreads(0)
+
+        when:
+        pool.start([worker]).await()
+
+        then:
+        pool.workerStatistics.size() == 1
+    }
+
+    def "cannot start workers once stopped"() {
+        given:
+        pool.stop()
+
+        when:
+        pool.start([{} as Action])
+
+        then:
+        thrown IllegalStateException
+    }
+
+    private boolean waitForThreads(int count) {
+        def deadline = System.currentTimeMillis() + 5000
+        while (pool.workerStatistics.size() != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20)
+        }
+        return pool.workerStatistics.size() == count
+    }
+}
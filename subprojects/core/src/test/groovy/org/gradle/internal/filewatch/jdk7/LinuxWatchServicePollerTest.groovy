@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.filewatch.jdk7
+
+import org.gradle.internal.filewatch.FileWatcherEvent
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.nio.file.StandardWatchEventKinds
+import java.nio.file.WatchEvent
+import java.nio.file.WatchKey
+import java.nio.file.WatchService
+import java.util.concurrent.TimeUnit
+
+class LinuxWatchServicePollerTest extends Specification {
+    WatchService watchService = Mock()
+    def poller = new LinuxWatchServicePoller(watchService)
+    def root = Paths.get("root").toAbsolutePath()
+
+    def "returns null when no watch key is ready"() {
+        when:
+        def events = poller.takeEvents()
+
+        then:
+        1 * watchService.poll(_, TimeUnit.SECONDS) >> null
+        events == null
+    }
+
+    def "batches events of all ready watch keys and keeps the last event of each file"() {
+        def a = root.resolve("a")
+        def b = root.resolve("b")
+
+        when:
+        def events = poller.takeEvents()
+
+        then:
+        1 * watchService.poll(_, TimeUnit.SECONDS) >> watchKey(a, event(StandardWatchEventKinds.ENTRY_MODIFY, "f"), event(StandardWatchEventKinds.ENTRY_MODIFY, "f"))
+        3 * watchService.poll() >>> [watchKey(b, event(StandardWatchEventKinds.ENTRY_CREATE, "g")), watchKey(a, event(StandardWatchEventKinds.ENTRY_MODIFY, "f")), null]
+        events*.type == [FileWatcherEvent.Type.CREATE, FileWatcherEvent.Type.MODIFY]
+        events*.file == [b.resolve("g").toFile(), a.resolve("f").toFile()]
+    }
+
+    def "keeps a creation that follows a deletion of the same file"() {
+        def a = root.resolve("a")
+        def b = root.resolve("b")
+
+        when:
+        def events = poller.takeEvents()
+
+        then:
+        1 * watchService.poll(_, TimeUnit.SECONDS) >> watchKey(a, event(StandardWatchEventKinds.ENTRY_DELETE, "f"))
+        3 * watchService.poll() >>> [watchKey(b, event(StandardWatchEventKinds.ENTRY_DELETE, "g")), watchKey(a, event(StandardWatchEventKinds.ENTRY_CREATE, "f")), null]
+        events*.type == [FileWatcherEvent.Type.DELETE, FileWatcherEvent.Type.CREATE]
+        events*.file == [b.resolve("g").toFile(), a.resolve("f").toFile()]
+    }
+
+    def "reports a file that was created and then modified as created"() {
+        def a = root.resolve("a")
+
+        when:
+        def events = poller.takeEvents()
+
+        then:
+        1 * watchService.poll(_, TimeUnit.SECONDS) >> watchKey(a, event(StandardWatchEventKinds.ENTRY_CREATE, "f"), event(StandardWatchEventKinds.ENTRY_MODIFY, "f"))
+        1 * watchService.poll() >> null
+        events*.type == [FileWatcherEvent.Type.CREATE]
+        events*.file == [a.resolve("f").toFile()]
+    }
+
+    def "collapses overflowed directories to their roots"() {
+        def a = root.resolve("a")
+        def nested = a.resolve("nested")
+        def b = root.resolve("b")
+
+        when:
+        def events = poller.takeEvents()
+
+        then:
+        1 * watchService.poll(_, TimeUnit.SECONDS) >> watchKey(nested, event(StandardWatchEventKinds.OVERFLOW, null))
+        3 * watchService.poll() >>> [watchKey(a, event(StandardWatchEventKinds.OVERFLOW, null)), watchKey(b, event(StandardWatchEventKinds.OVERFLOW, null)), null]
+        events*.type == [FileWatcherEvent.Type.UNDEFINED, FileWatcherEvent.Type.UNDEFINED]
+        events*.file as Set == [a.toFile(), b.toFile()] as Set
+    }
+
+    private WatchKey watchKey(Path path, WatchEvent<?>... events) {
+        WatchKey watchKey = Mock()
+        watchKey.watchable() >> path
+        watchKey.pollEvents() >> (events as List)
+        watchKey
+    }
+
+    private WatchEvent<?> event(WatchEvent.Kind<?> kind, String name) {
+        WatchEvent<?> event = Mock()
+        event.kind() >> kind
+        event.context() >> (name == null ? null : Paths.get(name))
+        event
+    }
+}
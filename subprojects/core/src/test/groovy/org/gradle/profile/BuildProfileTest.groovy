@@ -51,6 +51,33 @@ class BuildProfileTest extends Specification {
         profile.projectConfiguration.operations == [b, c, a, d]
     }
 
+    def "provides configuration timeline"() {
+        given:
+        def a = profile.getProjectProfile("a")
+        a.configurationOperation.setStart(300).setFinish(400)
+        a.configurationThreadName = "worker 1"
+        def b = profile.getProjectProfile("b")
+        b.configurationOperation.setStart(100).setFinish(500)
+        b.configurationThreadName = "worker 2"
+        def c = profile.getProjectProfile("c")
+        c.configurationOperation.setStart(200).setFinish(250)
+        c.configurationThreadName = "worker 1"
+        profile.getProjectProfile("d")
+
+        expect:
+        profile.projectConfigurationTimeline == [b, c, a]
+        profile.projectConfigurationParallel
+    }
+
+    def "configuration is not parallel when all projects are configured on the same thread"() {
+        given:
+        profile.getProjectProfile("a").configurationThreadName = "main"
+        profile.getProjectProfile("b").configurationThreadName = "main"
+
+        expect:
+        !profile.projectConfigurationParallel
+    }
+
     def "provides sorted project profiles"() {
         given:
         profile.getProjectProfile("a").getTaskProfile("a:x").completed(Stub(TaskState)).setStart(100).setFinish(300)
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.profile
+
+import org.gradle.internal.Factory
+import spock.lang.Specification
+
+class CacheLockWaitTracerTest extends Specification {
+    def listener = Mock(TraceListener)
+    def tracer = new CacheLockWaitTracer("test cache", listener)
+
+    def "reports the time until the action starts"() {
+        def action = Mock(Runnable)
+
+        when:
+        def traced = tracer.trace(action)
+        Thread.sleep(20)
+        traced.run()
+
+        then:
+        1 * listener.traced("cache-lock", "Wait for test cache", _, _) >> { String category, String name, long start, long end ->
+            assert end - start >= 20000000
+        }
+
+        then:
+        1 * action.run()
+    }
+
+    def "does not report a wait shorter than a millisecond"() {
+        def action = Mock(Factory)
+
+        when:
+        def result = tracer.trace(action).create()
+
+        then:
+        result == "result"
+        1 * action.create() >> "result"
+        0 * listener._
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.profile
+
+import groovy.json.JsonSlurper
+import org.gradle.api.Project
+import org.gradle.api.ProjectState
+import org.gradle.api.artifacts.ResolvableDependencies
+import org.gradle.api.execution.internal.TaskOperationInternal
+import org.gradle.api.internal.TaskInternal
+import org.gradle.internal.progress.BuildOperationInternal
+import org.gradle.internal.progress.OperationResult
+import org.gradle.internal.progress.OperationStartEvent
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ChromeTraceExporterTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+    def traceFile = temp.file("reports/trace.json")
+    def exporter = new ChromeTraceExporter(traceFile)
+
+    def "writes one complete event per finished operation"() {
+        def operation = new BuildOperationInternal(1, null, "Run \"build\"")
+        def project = Stub(Project) {
+            getPath() >> ":a"
+        }
+        def dependencies = Stub(ResolvableDependencies) {
+            getPath() >> ":a:compile"
+        }
+
+        when:
+        exporter.started(operation, new OperationStartEvent(0))
+        exporter.beforeEvaluate(project)
+        exporter.beforeResolve(dependencies)
+        exporter.afterResolve(dependencies)
+        exporter.afterEvaluate(project, Stub(ProjectState))
+        exporter.finished(operation, new OperationResult(0, 0, null))
+        exporter.completed()
+
+        then:
+        def trace = new JsonSlurper().parse(traceFile)
+        def events = trace.traceEvents.findAll { it.ph == "X" }
+        events*.name == ["Resolve :a:compile", "Configure :a", "Run \"build\""]
+        events*.cat == ["dependencies", "configuration", "operation"]
+        events.every { it.tid == Thread.currentThread().id && it.dur >= 0 }
+    }
+
+    def "uses one lane per thread"() {
+        def task1 = taskOperation(1, ":a")
+        def task2 = taskOperation(2, ":b")
+
+        when:
+        [task1, task2].collect { task ->
+            Thread.start {
+                exporter.beforeExecute(task, new OperationStartEvent(0))
+                exporter.afterExecute(task, new OperationResult(0, 0, null))
+            }
+        }*.join()
+        exporter.completed()
+
+        then:
+        def trace = new JsonSlurper().parse(traceFile)
+        def tasks = trace.traceEvents.findAll { it.ph == "X" }
+        tasks*.name as Set == [":a", ":b"] as Set
+        def lanes = trace.traceEvents.findAll { it.ph == "M" && it.name == "thread_name" }
+        lanes*.tid as Set == tasks*.tid as Set
+        lanes.size() == 2
+    }
+
+    def "includes traced work"() {
+        when:
+        exporter.traced("script", "Load or compile build file 'build.gradle'", 1000000, 3000000)
+        exporter.completed()
+
+        then:
+        def events = new JsonSlurper().parse(traceFile).traceEvents.findAll { it.ph == "X" }
+        events.size() == 1
+        events[0].name == "Load or compile build file 'build.gradle'"
+        events[0].cat == "script"
+        events[0].dur == 2000
+    }
+
+    def "writes events to the file before the build completes"() {
+        when:
+        10000.times { id ->
+            def task = taskOperation(id, ":task$id")
+            exporter.beforeExecute(task, new OperationStartEvent(0))
+            exporter.afterExecute(task, new OperationResult(0, 0, null))
+        }
+
+        then:
+        traceFile.length() > 0
+
+        when:
+        exporter.completed()
+
+        then:
+        new JsonSlurper().parse(traceFile).traceEvents.findAll { it.ph == "X" }.size() == 10000
+    }
+
+    def "ignores events after the build completes"() {
+        when:
+        exporter.completed()
+        exporter.traced("script", "late", 0, 1)
+        exporter.completed()
+
+        then:
+        new JsonSlurper().parse(traceFile).traceEvents.empty
+    }
+
+    def "does not fail the build when the trace cannot be written"() {
+        def dir = temp.createDir("dir")
+        def exporter = new ChromeTraceExporter(dir)
+
+        when:
+        exporter.traced("script", "name", 0, 1)
+        exporter.completed()
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "resolves a relative trace file against the current directory"() {
+        def currentDir = temp.createDir("project")
+
+        expect:
+        ChromeTraceExporter.resolveTraceFile(currentDir, "build/trace.json") == currentDir.file("build/trace.json").canonicalFile
+    }
+
+    def "uses an absolute trace file as it is"() {
+        def currentDir = temp.createDir("project")
+        def traceFile = temp.file("elsewhere/trace.json")
+
+        expect:
+        ChromeTraceExporter.resolveTraceFile(currentDir, traceFile.absolutePath) == traceFile.canonicalFile
+    }
+
+    def "ignores operations that did not start"() {
+        when:
+        exporter.finished(new BuildOperationInternal(1, null, "unknown"), new OperationResult(0, 0, null))
+        exporter.completed()
+
+        then:
+        new JsonSlurper().parse(traceFile).traceEvents.empty
+    }
+
+    private TaskOperationInternal taskOperation(Object id, String path) {
+        def task = Stub(TaskInternal) {
+            getPath() >> path
+        }
+        return new TaskOperationInternal(id, null, task)
+    }
+}
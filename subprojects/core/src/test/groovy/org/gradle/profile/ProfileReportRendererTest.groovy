@@ -28,6 +28,30 @@ class ProfileReportRendererTest extends Specification {
 
     @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
 
+    def "renders heap saved by build services"() {
+        def model = new BuildProfile(new StartParameter())
+        def file = temp.file("report.html")
+        model.addHeapSaved("Shared identifiers", 2500)
+
+        when:
+        new ProfileReportRenderer().writeTo(model, file)
+
+        then:
+        file.text.contains(toPlatformLineSeparators("""<h3>Memory</h3>
+<table>
+<thead>
+<tr>
+<th>Description</th>
+<th class="numeric">Estimated Heap Saved</th>
+</tr>
+</thead>
+<tr>
+<td>Shared identifiers</td>
+<td class="numeric">2.5 kB</td>
+</tr>
+</table>"""))
+    }
+
     def "renders report"() {
         def model = new BuildProfile(new StartParameter())
         def file = temp.file("report.html")
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.gradle.internal.resource.local.DefaultLocallyAvailableExternalResource;
+import org.gradle.internal.resource.local.DefaultLocallyAvailableResource;
+import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Document;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading the dependencies of a POM with {@link PomReader} against building a DOM of the same POM, which is how POMs used to be read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PomParsingBenchmark {
+
+    @Param({"library", "parent", "bom"})
+    String pom;
+
+    private File pomFile;
+    private LocallyAvailableExternalResource resource;
+    private DocumentBuilder documentBuilder;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        pomFile = File.createTempFile("pom-parsing-benchmark", ".pom");
+        InputStream content = getClass().getResourceAsStream(pom + ".pom");
+        try {
+            FileUtils.writeByteArrayToFile(pomFile, IOUtils.toByteArray(content));
+        } finally {
+            content.close();
+        }
+        resource = new DefaultLocallyAvailableExternalResource(pomFile.toURI(), new DefaultLocallyAvailableResource(pomFile));
+
+        final byte[] entities = IOUtils.toByteArray(org.apache.ivy.plugins.parser.m2.PomReader.class.getResourceAsStream("m2-entities.ent"));
+        documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        documentBuilder.setEntityResolver(new EntityResolver() {
+            public InputSource resolveEntity(String publicId, String systemId) {
+                if (systemId != null && systemId.endsWith("m2-entities.ent")) {
+                    return new InputSource(new ByteArrayInputStream(entities));
+                }
+                return null;
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void deletePom() {
+        pomFile.delete();
+    }
+
+    @Benchmark
+    public Document dom() throws Exception {
+        InputStream inputStream = new PomDomParser.AddDTDFilterInputStream(new FileInputStream(pomFile));
+        try {
+            return documentBuilder.parse(inputStream, pomFile.toURI().toASCIIString());
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    @Benchmark
+    public Map<?, ?> streaming() throws Exception {
+        return new PomReader(resource).getDependencies();
+    }
+}
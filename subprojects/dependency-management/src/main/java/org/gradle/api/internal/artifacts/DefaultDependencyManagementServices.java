@@ -35,6 +35,7 @@ import org.gradle.api.internal.artifacts.dsl.PublishArtifactNotationParserFactor
 import org.gradle.api.internal.artifacts.dsl.dependencies.DefaultDependencyHandler;
 import org.gradle.api.internal.artifacts.dsl.dependencies.DependencyFactory;
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
+import org.gradle.api.internal.artifacts.ivyservice.ArtifactPrefetcher;
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
 import org.gradle.api.internal.artifacts.ivyservice.DefaultConfigurationResolver;
 import org.gradle.api.internal.artifacts.ivyservice.ErrorHandlingConfigurationResolver;
@@ -63,13 +64,16 @@ import org.gradle.api.internal.filestore.ivy.ArtifactIdentifierFileStore;
 import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.authentication.AuthenticationSchemeRegistry;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.resource.local.LocallyAvailableResourceFinder;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.typeconversion.NotationParser;
+import org.gradle.internal.util.SystemPropertiesUtil;
 
 public class DefaultDependencyManagementServices implements DependencyManagementServices {
 
@@ -169,7 +173,14 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                                                        ComponentIdentifierFactory componentIdentifierFactory,
                                                        CacheLockingManager cacheLockingManager,
                                                        ResolutionResultsStoreFactory resolutionResultsStoreFactory,
-                                                       StartParameter startParameter) {
+                                                       StartParameter startParameter,
+                                                       ExecutorFactory executorFactory,
+                                                       ProgressLoggerFactory progressLoggerFactory,
+                                                       ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+            ArtifactPrefetcher artifactPrefetcher = null;
+            if (SystemPropertiesUtil.isEnabled(ArtifactPrefetcher.PARALLEL_ARTIFACT_DOWNLOADS_PROPERTY)) {
+                artifactPrefetcher = new ArtifactPrefetcher(cacheLockingManager, executorFactory, progressLoggerFactory, startParameter.getMaxWorkerCount());
+            }
             return new ErrorHandlingConfigurationResolver(
                     new ShortCircuitEmptyConfigurationResolver(
                             new SelfResolvingDependencyConfigurationResolver(
@@ -179,7 +190,9 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                                             metadataHandler,
                                             cacheLockingManager,
                                             resolutionResultsStoreFactory,
-                                            startParameter.isBuildProjectDependencies())),
+                                            startParameter.isBuildProjectDependencies(),
+                                            artifactPrefetcher,
+                                            moduleIdentifierFactory)),
                             componentIdentifierFactory)
             );
         }
@@ -33,7 +33,7 @@ public class DefaultModuleVersionIdentifier implements ModuleVersionIdentifier {
     }
 
     public DefaultModuleVersionIdentifier(ModuleIdentifier id, String version) {
-        this.id = new DefaultModuleIdentifier(id.getGroup(), id.getName());
+        this.id = id instanceof DefaultModuleIdentifier ? (DefaultModuleIdentifier) id : new DefaultModuleIdentifier(id.getGroup(), id.getName());
         this.version = version;
     }
 
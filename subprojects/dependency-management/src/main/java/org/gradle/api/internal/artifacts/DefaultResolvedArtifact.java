@@ -85,6 +85,13 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
         return artifact.getClassifier();
     }
 
+    /**
+     * Returns true when the file of this artifact has been resolved.
+     */
+    public boolean isResolved() {
+        return file != null;
+    }
+
     public File getFile() {
         if (file == null) {
             file = artifactSource.create();
@@ -39,6 +39,7 @@ import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleArt
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleMetaDataCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleArtifactsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetadataPack;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.ConfigurationComponentMetaDataBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.DependencyDescriptorFactory;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.AggregatingProjectArtifactBuilder;
@@ -53,6 +54,9 @@ import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectDepende
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectLocalComponentProvider;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectPublicationRegistry;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultArtifactDependencyResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentMetaDataPrefetcher;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ModuleVersionListRefresher;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graphcache.CachingArtifactDependencyResolver;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.mvnsettings.DefaultLocalMavenRepositoryLocator;
 import org.gradle.api.internal.artifacts.mvnsettings.DefaultMavenFileLocations;
@@ -74,6 +78,8 @@ import org.gradle.api.internal.runtimeshaded.RuntimeShadedJarFactory;
 import org.gradle.cache.CacheRepository;
 import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.installation.CurrentGradleInstallation;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 import org.gradle.internal.reflect.Instantiator;
@@ -84,6 +90,8 @@ import org.gradle.internal.resource.local.LocallyAvailableResourceFinder;
 import org.gradle.internal.resource.local.UniquePathKeyFileStore;
 import org.gradle.internal.resource.local.ivy.LocallyAvailableResourceFinderFactory;
 import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.util.SystemPropertiesUtil;
+import org.gradle.profile.TraceListener;
 import org.gradle.util.BuildCommencedTimeProvider;
 
 import java.util.List;
@@ -124,8 +132,8 @@ class DependencyManagementBuildScopeServices {
         return new RuntimeShadedJarFactory(jarCache, progressLoggerFactory);
     }
 
-    CacheLockingManager createCacheLockingManager(CacheRepository cacheRepository) {
-        return new DefaultCacheLockingManager(cacheRepository);
+    CacheLockingManager createCacheLockingManager(CacheRepository cacheRepository, ListenerManager listenerManager) {
+        return new DefaultCacheLockingManager(cacheRepository, listenerManager.getBroadcaster(TraceListener.class));
     }
 
     BuildCommencedTimeProvider createBuildTimeProvider() {
@@ -149,7 +157,8 @@ class DependencyManagementBuildScopeServices {
     ModuleMetaDataCache createModuleDescriptorCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
         return new DefaultModuleMetaDataCache(
             timeProvider,
-            cacheLockingManager
+            cacheLockingManager,
+            SystemPropertiesUtil.isEnabled(ModuleMetadataPack.METADATA_PACK_PROPERTY)
         );
     }
 
@@ -193,6 +202,12 @@ class DependencyManagementBuildScopeServices {
         return new DefaultVersionSelectorScheme(versionComparator);
     }
 
+    ImmutableModuleIdentifierFactory createModuleIdentifierFactory(ListenerManager listenerManager) {
+        DefaultImmutableModuleIdentifierFactory moduleIdentifierFactory = new DefaultImmutableModuleIdentifierFactory();
+        listenerManager.addListener(moduleIdentifierFactory);
+        return moduleIdentifierFactory;
+    }
+
     VersionComparator createVersionComparator() {
         return new DefaultVersionComparator();
     }
@@ -235,14 +250,32 @@ class DependencyManagementBuildScopeServices {
                                                                 DependencyDescriptorFactory dependencyDescriptorFactory,
                                                                 CacheLockingManager cacheLockingManager,
                                                                 VersionComparator versionComparator,
-                                                                ServiceRegistry serviceRegistry) {
+                                                                ServiceRegistry serviceRegistry,
+                                                                StartParameter startParameter,
+                                                                ExecutorFactory executorFactory,
+                                                                VersionSelectorScheme versionSelectorScheme,
+                                                                ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+        ComponentMetaDataPrefetcher metaDataPrefetcher = null;
+        if (SystemPropertiesUtil.isEnabled(DefaultArtifactDependencyResolver.CONCURRENT_META_DATA_FETCHING_PROPERTY)) {
+            metaDataPrefetcher = new ComponentMetaDataPrefetcher(cacheLockingManager, executorFactory, startParameter.getMaxWorkerCount());
+        }
+        ModuleVersionListRefresher versionListRefresher = null;
+        if (SystemPropertiesUtil.isEnabled(ModuleVersionListRefresher.BULK_VERSION_LIST_REFRESH_PROPERTY)) {
+            versionListRefresher = new ModuleVersionListRefresher(cacheLockingManager, executorFactory, versionSelectorScheme, startParameter.getMaxWorkerCount());
+        }
         ArtifactDependencyResolver resolver = new DefaultArtifactDependencyResolver(
             serviceRegistry,
             resolveIvyFactory,
             dependencyDescriptorFactory,
             cacheLockingManager,
-            versionComparator
+            versionComparator,
+            metaDataPrefetcher,
+            versionListRefresher,
+            moduleIdentifierFactory
         );
+        if (SystemPropertiesUtil.isEnabled(CachingArtifactDependencyResolver.DEPENDENCY_GRAPH_CACHE_PROPERTY)) {
+            resolver = new CachingArtifactDependencyResolver(resolver, cacheLockingManager, resolveIvyFactory, versionSelectorScheme, startParameter.isRefreshDependencies());
+        }
         return new CacheLockingArtifactDependencyResolver(cacheLockingManager, resolver);
     }
 
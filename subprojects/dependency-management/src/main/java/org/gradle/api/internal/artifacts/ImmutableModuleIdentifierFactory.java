@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+
+/**
+ * Creates module identifiers. The same instance is returned for equal identifiers, so that identifiers that are held by the results of many resolutions
+ * are not duplicated.
+ */
+public interface ImmutableModuleIdentifierFactory {
+    ModuleIdentifier module(String group, String name);
+
+    ModuleVersionIdentifier moduleWithVersion(String group, String name, String version);
+
+    ModuleVersionIdentifier moduleWithVersion(ModuleIdentifier module, String version);
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
@@ -24,6 +25,19 @@ import org.gradle.internal.serialize.Serializer;
 import java.io.IOException;
 
 public class ModuleVersionIdentifierSerializer implements Serializer<ModuleVersionIdentifier> {
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+
+    public ModuleVersionIdentifierSerializer() {
+        this(null);
+    }
+
+    /**
+     * Creates a serializer that reads identifiers using the given factory, or creates a new identifier for each read when no factory is given.
+     */
+    public ModuleVersionIdentifierSerializer(@Nullable ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+        this.moduleIdentifierFactory = moduleIdentifierFactory;
+    }
+
     public void write(Encoder encoder, ModuleVersionIdentifier value) throws IOException {
         encoder.writeString(value.getGroup());
         encoder.writeString(value.getName());
@@ -34,6 +48,9 @@ public class ModuleVersionIdentifierSerializer implements Serializer<ModuleVersi
         String group = decoder.readString();
         String module = decoder.readString();
         String version = decoder.readString();
-        return DefaultModuleVersionIdentifier.newId(group, module, version);
+        if (moduleIdentifierFactory == null) {
+            return DefaultModuleVersionIdentifier.newId(group, module, version);
+        }
+        return moduleIdentifierFactory.moduleWithVersion(group, module, version);
     }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
@@ -24,7 +25,15 @@ import org.gradle.internal.serialize.Serializer;
 import java.io.IOException;
 
 public class ResolvedConfigurationIdentifierSerializer implements Serializer<ResolvedConfigurationIdentifier> {
-    private final ModuleVersionIdentifierSerializer idSerializer = new ModuleVersionIdentifierSerializer();
+    private final ModuleVersionIdentifierSerializer idSerializer;
+
+    public ResolvedConfigurationIdentifierSerializer() {
+        this(null);
+    }
+
+    public ResolvedConfigurationIdentifierSerializer(@Nullable ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+        idSerializer = new ModuleVersionIdentifierSerializer(moduleIdentifierFactory);
+    }
 
     public ResolvedConfigurationIdentifier read(Decoder decoder) throws IOException {
         ModuleVersionIdentifier id = idSerializer.read(decoder);
@@ -50,6 +50,12 @@ public interface ResolutionStrategyInternal extends ResolutionStrategy {
      */
     Action<DependencySubstitution> getDependencySubstitutionRule();
 
+    /**
+     * Returns true when any dependency substitution or {@code eachDependency} rule applies to the configuration, including the global ones.
+     * Forced modules are not rules and do not count.
+     */
+    boolean hasDependencySubstitutionRules();
+
     /**
      * Used by tests to validate behaviour of the 'task graph modified' state
      */
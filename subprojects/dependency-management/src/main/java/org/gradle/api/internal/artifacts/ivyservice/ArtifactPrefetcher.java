@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.logging.progress.ProgressLogger;
+import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads the files of a set of resolved artifacts concurrently, so that they are available by the time the artifacts are iterated.
+ *
+ * <p>Only the artifacts of external components whose file has not been resolved yet are downloaded. A download that fails is left for the caller to
+ * repeat, so that the failure is reported in the same way as without prefetching.</p>
+ */
+public class ArtifactPrefetcher {
+    /**
+     * Downloads the missing artifacts of a configuration concurrently when its files are first requested.
+     */
+    public static final String PARALLEL_ARTIFACT_DOWNLOADS_PROPERTY = "org.gradle.internal.resolution.parallelArtifactDownloads";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactPrefetcher.class);
+
+    private final CacheLockingManager cacheLockingManager;
+    private final ExecutorFactory executorFactory;
+    private final ProgressLoggerFactory progressLoggerFactory;
+    private final int maxConcurrentDownloads;
+
+    public ArtifactPrefetcher(CacheLockingManager cacheLockingManager, ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory, int maxConcurrentDownloads) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.executorFactory = executorFactory;
+        this.progressLoggerFactory = progressLoggerFactory;
+        this.maxConcurrentDownloads = maxConcurrentDownloads;
+    }
+
+    public void prefetch(final String displayName, Collection<? extends ResolvedArtifact> artifacts) {
+        final List<DefaultResolvedArtifact> missing = new ArrayList<DefaultResolvedArtifact>();
+        for (ResolvedArtifact artifact : artifacts) {
+            if (artifact instanceof DefaultResolvedArtifact && artifact.getId() instanceof ModuleComponentArtifactIdentifier && !((DefaultResolvedArtifact) artifact).isResolved()) {
+                missing.add((DefaultResolvedArtifact) artifact);
+            }
+        }
+        if (missing.size() < 2 || maxConcurrentDownloads < 2) {
+            return;
+        }
+        cacheLockingManager.longRunningOperation("Download artifacts for " + displayName, new Runnable() {
+            public void run() {
+                download(displayName, missing);
+            }
+        });
+    }
+
+    private void download(String displayName, List<DefaultResolvedArtifact> artifacts) {
+        ProgressLogger progressLogger = progressLoggerFactory.newOperation(ArtifactPrefetcher.class);
+        progressLogger.setDescription("Download artifacts for " + displayName);
+        progressLogger.started();
+        StoppableExecutor executor = executorFactory.create("Artifact download", Math.min(maxConcurrentDownloads, artifacts.size()));
+        try {
+            List<Future<?>> downloads = new ArrayList<Future<?>>(artifacts.size());
+            for (final DefaultResolvedArtifact artifact : artifacts) {
+                downloads.add(executor.submit(new Callable<Object>() {
+                    public Object call() {
+                        try {
+                            cacheLockingManager.useCache("Download " + artifact, new Factory<Object>() {
+                                public Object create() {
+                                    return artifact.getFile();
+                                }
+                            });
+                        } catch (RuntimeException e) {
+                            LOGGER.debug("Could not download {} ahead of time.", artifact, e);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            int completed = 0;
+            for (Future<?> download : downloads) {
+                download.get();
+                completed++;
+                progressLogger.progress(completed + "/" + artifacts.size() + " artifacts");
+            }
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            executor.stop();
+            progressLogger.completed();
+        }
+    }
+}
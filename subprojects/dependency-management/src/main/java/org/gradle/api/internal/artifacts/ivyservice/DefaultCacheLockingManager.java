@@ -22,6 +22,8 @@ import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.internal.FileLockManager;
 import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.Serializer;
+import org.gradle.profile.CacheLockWaitTracer;
+import org.gradle.profile.TraceListener;
 import org.gradle.util.VersionNumber;
 
 import java.io.Closeable;
@@ -34,14 +36,20 @@ public class DefaultCacheLockingManager implements CacheLockingManager, Closeabl
     public static final VersionNumber CACHE_LAYOUT_VERSION = CacheLayout.META_DATA.getVersion();
 
     private final PersistentCache cache;
+    private final CacheLockWaitTracer lockWaitTracer;
 
     public DefaultCacheLockingManager(CacheRepository cacheRepository) {
+        this(cacheRepository, TraceListener.NOOP);
+    }
+
+    public DefaultCacheLockingManager(CacheRepository cacheRepository, TraceListener traceListener) {
         cache = cacheRepository
                 .store(CacheLayout.ROOT.getKey())
                 .withCrossVersionCache()
                 .withDisplayName("artifact cache")
                 .withLockOptions(mode(FileLockManager.LockMode.None)) // Don't need to lock anything until we use the caches
                 .open();
+        lockWaitTracer = new CacheLockWaitTracer("artifact cache", traceListener);
     }
 
     public void close() {
@@ -57,11 +65,11 @@ public class DefaultCacheLockingManager implements CacheLockingManager, Closeabl
     }
 
     public <T> T useCache(String operationDisplayName, Factory<? extends T> action) {
-        return cache.useCache(operationDisplayName, action);
+        return cache.useCache(operationDisplayName, lockWaitTracer.trace(action));
     }
 
     public void useCache(String operationDisplayName, Runnable action) {
-        cache.useCache(operationDisplayName, action);
+        cache.useCache(operationDisplayName, lockWaitTracer.trace(action));
     }
 
     public <T> T longRunningOperation(String operationDisplayName, Factory<? extends T> action) {
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.artifacts.LenientConfiguration;
@@ -49,14 +50,17 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
     private final Set<UnresolvedDependency> unresolvedDependencies;
     private final ResolvedArtifacts artifactResults;
     private final Factory<TransientConfigurationResults> transientConfigurationResultsFactory;
+    private final ArtifactPrefetcher artifactPrefetcher;
 
     public DefaultLenientConfiguration(Configuration configuration, CacheLockingManager cacheLockingManager, Set<UnresolvedDependency> unresolvedDependencies,
-                                       ResolvedArtifacts artifactResults, Factory<TransientConfigurationResults> transientConfigurationResultsLoader) {
+                                       ResolvedArtifacts artifactResults, Factory<TransientConfigurationResults> transientConfigurationResultsLoader,
+                                       @Nullable ArtifactPrefetcher artifactPrefetcher) {
         this.configuration = configuration;
         this.cacheLockingManager = cacheLockingManager;
         this.unresolvedDependencies = unresolvedDependencies;
         this.artifactResults = artifactResults;
         this.transientConfigurationResultsFactory = transientConfigurationResultsLoader;
+        this.artifactPrefetcher = artifactPrefetcher;
     }
 
     public boolean hasError() {
@@ -128,6 +132,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
      */
     public Set<ResolvedArtifact> getArtifacts(Spec<? super Dependency> dependencySpec) {
         final Set<ResolvedArtifact> allArtifacts = getAllArtifacts(dependencySpec);
+        prefetch(allArtifacts);
         return cacheLockingManager.useCache("retrieve artifacts from " + configuration, new Factory<Set<ResolvedArtifact>>() {
             public Set<ResolvedArtifact> create() {
                 return CollectionUtils.filter(allArtifacts, new Spec<ResolvedArtifact>() {
@@ -145,6 +150,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
     }
 
     private Set<File> getFiles(final Set<ResolvedArtifact> artifacts) {
+        prefetch(artifacts);
         final Set<File> files = new LinkedHashSet<File>();
         cacheLockingManager.useCache("resolve files from " + configuration, new Runnable() {
             public void run() {
@@ -159,6 +165,12 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         return files;
     }
 
+    private void prefetch(Set<ResolvedArtifact> artifacts) {
+        if (artifactPrefetcher != null) {
+            artifactPrefetcher.prefetch(configuration.toString(), artifacts);
+        }
+    }
+
     /**
      * Recursive, includes unsuccessfully resolved artifacts
      *
@@ -24,6 +24,11 @@ import org.gradle.api.internal.artifacts.configurations.MutationValidator;
 public interface DependencySubstitutionsInternal extends DependencySubstitutions, DependencySubstitutionRules {
     DependencySubstitutions allWithDependencyResolveDetails(Action<? super DependencyResolveDetails> rule);
 
+    /**
+     * Returns true when any rule has been added. Unlike {@link #hasRules()}, this includes the rules that can only change the requested version of a module.
+     */
+    boolean hasAnyRules();
+
     void setMutationValidator(MutationValidator validator);
 
     DependencySubstitutionsInternal copy();
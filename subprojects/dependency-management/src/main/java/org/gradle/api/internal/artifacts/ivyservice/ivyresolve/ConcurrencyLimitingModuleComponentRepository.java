@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.component.ArtifactType;
+import org.gradle.internal.component.model.ComponentArtifactMetadata;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.resolve.result.BuildableArtifactResolveResult;
+import org.gradle.internal.resolve.result.BuildableArtifactSetResolveResult;
+import org.gradle.internal.resolve.result.BuildableComponentArtifactsResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * A wrapper around a {@link ModuleComponentRepository} that limits the number of remote calls made to the repository at the same time.
+ */
+public class ConcurrencyLimitingModuleComponentRepository extends BaseModuleComponentRepository {
+    /**
+     * The maximum number of concurrent remote calls to a single repository.
+     */
+    public static final String MAX_CONCURRENT_REQUESTS_PROPERTY = "org.gradle.internal.resolution.maxConcurrentRequestsPerRepository";
+
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+    private final ModuleComponentRepositoryAccess remoteAccess;
+
+    public ConcurrencyLimitingModuleComponentRepository(ModuleComponentRepository repository) {
+        this(repository, Math.max(1, Integer.getInteger(MAX_CONCURRENT_REQUESTS_PROPERTY, DEFAULT_MAX_CONCURRENT_REQUESTS)));
+    }
+
+    public ConcurrencyLimitingModuleComponentRepository(ModuleComponentRepository repository, int maxConcurrentRequests) {
+        super(repository);
+        this.remoteAccess = new ConcurrencyLimitingRepositoryAccess(repository.getRemoteAccess(), new Semaphore(maxConcurrentRequests, true));
+    }
+
+    @Override
+    public ModuleComponentRepositoryAccess getRemoteAccess() {
+        return remoteAccess;
+    }
+
+    private static class ConcurrencyLimitingRepositoryAccess implements ModuleComponentRepositoryAccess {
+        private final ModuleComponentRepositoryAccess delegate;
+        private final Semaphore permits;
+
+        private ConcurrencyLimitingRepositoryAccess(ModuleComponentRepositoryAccess delegate, Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public String toString() {
+            return "limited > " + delegate.toString();
+        }
+
+        @Override
+        public void listModuleVersions(DependencyMetadata dependency, BuildableModuleVersionListingResolveResult result) {
+            permits.acquireUninterruptibly();
+            try {
+                delegate.listModuleVersions(dependency, result);
+            } finally {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void resolveComponentMetaData(ModuleComponentIdentifier moduleComponentIdentifier, ComponentOverrideMetadata requestMetaData, BuildableModuleComponentMetaDataResolveResult result) {
+            permits.acquireUninterruptibly();
+            try {
+                delegate.resolveComponentMetaData(moduleComponentIdentifier, requestMetaData, result);
+            } finally {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void resolveArtifactsWithType(ComponentResolveMetadata component, ArtifactType artifactType, BuildableArtifactSetResolveResult result) {
+            permits.acquireUninterruptibly();
+            try {
+                delegate.resolveArtifactsWithType(component, artifactType, result);
+            } finally {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void resolveArtifacts(ComponentResolveMetadata component, BuildableComponentArtifactsResolveResult result) {
+            permits.acquireUninterruptibly();
+            try {
+                delegate.resolveArtifacts(component, result);
+            } finally {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void resolveArtifact(ComponentArtifactMetadata artifact, ModuleSource moduleSource, BuildableArtifactResolveResult result) {
+            permits.acquireUninterruptibly();
+            try {
+                delegate.resolveArtifact(artifact, moduleSource, result);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
@@ -16,39 +16,86 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
 
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.*;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Reads a POM into a tree of {@link PomElement}s. The POM is parsed as a stream and only the elements selected by an {@link ElementFilter} are kept,
+ * so the parts of a POM that Gradle never looks at, such as the build, reporting and developer sections, are skipped without being allocated.
+ */
 public final class PomDomParser {
     private PomDomParser() {}
 
-    public static String getTextContent(Element element) {
-        StringBuilder result = new StringBuilder();
-
-        NodeList childNodes = element.getChildNodes();
-        for (int i = 0; i < childNodes.getLength(); i++) {
-            Node child = childNodes.item(i);
-
-            switch (child.getNodeType()) {
-                case Node.CDATA_SECTION_NODE:
-                case Node.TEXT_NODE:
-                    result.append(child.getNodeValue());
+    /**
+     * Reads the document from the given reader, keeping the root element and the descendants of the root that are selected by the given filter.
+     */
+    public static PomElement parse(XMLStreamReader reader, ElementFilter rootFilter) throws XMLStreamException {
+        List<PomElement> elements = new ArrayList<PomElement>();
+        List<ElementFilter> filters = new ArrayList<ElementFilter>();
+        PomElement root = null;
+        int skippedDepth = 0;
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (skippedDepth > 0) {
+                        skippedDepth++;
+                        break;
+                    }
+                    String name = reader.getLocalName();
+                    ElementFilter filter;
+                    if (root == null) {
+                        filter = rootFilter;
+                    } else {
+                        filter = filters.get(filters.size() - 1).getChild(name);
+                        if (filter == null) {
+                            skippedDepth = 1;
+                            break;
+                        }
+                    }
+                    PomElement element = new PomElement(name);
+                    if (root == null) {
+                        root = element;
+                    } else {
+                        elements.get(elements.size() - 1).addChild(element);
+                    }
+                    elements.add(element);
+                    filters.add(filter);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (skippedDepth > 0) {
+                        skippedDepth--;
+                    } else {
+                        elements.remove(elements.size() - 1);
+                        filters.remove(filters.size() - 1);
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (skippedDepth == 0 && !elements.isEmpty() && filters.get(filters.size() - 1).isLeaf()) {
+                        elements.get(elements.size() - 1).appendText(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
                     break;
                 default:
                     break;
             }
         }
+        return root;
+    }
 
-        return result.toString();
+    public static String getTextContent(PomElement element) {
+        return element.getText();
     }
 
-    public static String getFirstChildText(Element parentElem, String name) {
-        Element node = getFirstChildElement(parentElem, name);
+    public static String getFirstChildText(PomElement parentElem, String name) {
+        PomElement node = getFirstChildElement(parentElem, name);
         if (node != null) {
             return getTextContent(node);
         } else {
@@ -56,32 +103,120 @@ public final class PomDomParser {
         }
     }
 
-    public static Element getFirstChildElement(Element parentElem, String name) {
+    public static PomElement getFirstChildElement(PomElement parentElem, String name) {
         if (parentElem == null) {
             return null;
         }
-        NodeList childs = parentElem.getChildNodes();
-        for (int i = 0; i < childs.getLength(); i++) {
-            Node node = childs.item(i);
-            if (node instanceof Element && name.equals(node.getNodeName())) {
-                return (Element) node;
+        for (PomElement child : parentElem.getChildren()) {
+            if (name.equals(child.getNodeName())) {
+                return child;
             }
         }
         return null;
     }
 
-    public static List<Element> getAllChilds(Element parent) {
-        List<Element> r = new LinkedList<Element>();
-        if (parent != null) {
-            NodeList childs = parent.getChildNodes();
-            for (int i = 0; i < childs.getLength(); i++) {
-                Node node = childs.item(i);
-                if (node instanceof Element) {
-                    r.add((Element) node);
+    public static List<PomElement> getAllChilds(PomElement parent) {
+        if (parent == null) {
+            return Collections.emptyList();
+        }
+        return parent.getChildren();
+    }
+
+    /**
+     * An element of a POM. Only the text of elements that are selected as leaves by the {@link ElementFilter} is retained.
+     */
+    public static final class PomElement {
+        private final String name;
+        private List<PomElement> children = Collections.emptyList();
+        private String text;
+        private StringBuilder textBuilder;
+
+        PomElement(String name) {
+            this.name = name;
+        }
+
+        public String getNodeName() {
+            return name;
+        }
+
+        public List<PomElement> getChildren() {
+            return children;
+        }
+
+        public String getText() {
+            if (textBuilder != null) {
+                text = textBuilder.toString();
+                textBuilder = null;
+            }
+            return text == null ? "" : text;
+        }
+
+        private void addChild(PomElement child) {
+            if (children.isEmpty()) {
+                children = new ArrayList<PomElement>(4);
+            }
+            children.add(child);
+        }
+
+        private void appendText(char[] chars, int start, int length) {
+            if (text == null && textBuilder == null) {
+                text = new String(chars, start, length);
+            } else {
+                if (textBuilder == null) {
+                    textBuilder = new StringBuilder(text);
+                    text = null;
                 }
+                textBuilder.append(chars, start, length);
+            }
+        }
+    }
+
+    /**
+     * Selects the child elements to keep when reading a POM. An element that has no selected children is a leaf, whose text is kept.
+     */
+    public static final class ElementFilter {
+        private static final ElementFilter LEAF = new ElementFilter(false);
+
+        private final Map<String, ElementFilter> children = new HashMap<String, ElementFilter>();
+        private final boolean anyChild;
+
+        private ElementFilter(boolean anyChild) {
+            this.anyChild = anyChild;
+        }
+
+        /**
+         * Creates a filter that keeps the given children of an element, as leaves.
+         */
+        public static ElementFilter children(String... names) {
+            ElementFilter filter = new ElementFilter(false);
+            for (String name : names) {
+                filter.children.put(name, LEAF);
             }
+            return filter;
+        }
+
+        /**
+         * Creates a filter that keeps every child of an element, as leaves.
+         */
+        public static ElementFilter anyChildren() {
+            return new ElementFilter(true);
+        }
+
+        /**
+         * Also keeps the given child, using the given filter for its own children.
+         */
+        public ElementFilter child(String name, ElementFilter filter) {
+            children.put(name, filter);
+            return this;
+        }
+
+        ElementFilter getChild(String name) {
+            return anyChild ? LEAF : children.get(name);
+        }
+
+        boolean isLeaf() {
+            return !anyChild && children.isEmpty();
         }
-        return r;
     }
 
     public static final class AddDTDFilterInputStream extends FilterInputStream {
@@ -23,23 +23,20 @@ import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
 import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomDomParser.ElementFilter;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomDomParser.PomElement;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.data.MavenDependencyKey;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.data.PomDependencyMgt;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.data.PomProfile;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.EntityResolver;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -83,8 +80,14 @@ public class PomReader implements PomParent {
     private static final String PROFILE_ACTIVATION = "activation";
     private static final String PROFILE_ACTIVATION_ACTIVE_BY_DEFAULT = "activeByDefault";
     private static final String PROFILE_ACTIVATION_PROPERTY = "property";
+    private static final String PROFILE_ACTIVATION_PROPERTY_NAME = "name";
     private static final byte[] M2_ENTITIES_RESOURCE;
-    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY;
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+
+    /**
+     * The elements of a POM that are read, all others are skipped while parsing.
+     */
+    private static final ElementFilter POM_ELEMENTS;
 
     static {
         byte[] bytes;
@@ -100,22 +103,42 @@ public class PomReader implements PomParent {
         ClassLoader original = Thread.currentThread().getContextClassLoader();
         Thread.currentThread().setContextClassLoader(ClassLoader.getSystemClassLoader().getParent());
         try {
-            DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
-            DOCUMENT_BUILDER_FACTORY.setValidating(false);
+            XML_INPUT_FACTORY = XMLInputFactory.newInstance();
         } finally {
             Thread.currentThread().setContextClassLoader(original);
         }
-    }
-
-    private static final EntityResolver M2_ENTITY_RESOLVER = new EntityResolver() {
-        public InputSource resolveEntity(String publicId, String systemId)
-            throws SAXException, IOException {
-            if ((systemId != null) && systemId.endsWith("m2-entities.ent")) {
-                return new InputSource(new ByteArrayInputStream(M2_ENTITIES_RESOURCE));
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_VALIDATING, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, true);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+        XML_INPUT_FACTORY.setXMLResolver(new XMLResolver() {
+            public Object resolveEntity(String publicId, String systemId, String baseUri, String namespace) {
+                if ((systemId != null) && systemId.endsWith("m2-entities.ent")) {
+                    return new ByteArrayInputStream(M2_ENTITIES_RESOURCE);
+                }
+                return null;
             }
-            return null;
-        }
-    };
+        });
+
+        ElementFilter dependencies = ElementFilter.children().child(DEPENDENCY,
+            ElementFilter.children(GROUP_ID, ARTIFACT_ID, VERSION, SCOPE, TYPE, CLASSIFIER, OPTIONAL)
+                .child(EXCLUSIONS, ElementFilter.children().child(EXCLUSION, ElementFilter.children(GROUP_ID, ARTIFACT_ID))));
+        ElementFilter profile = ElementFilter.children(PROFILE_ID)
+            .child(PROFILE_ACTIVATION, ElementFilter.children(PROFILE_ACTIVATION_ACTIVE_BY_DEFAULT)
+                .child(PROFILE_ACTIVATION_PROPERTY, ElementFilter.children(PROFILE_ACTIVATION_PROPERTY_NAME)))
+            .child(PROPERTIES, ElementFilter.anyChildren())
+            .child(DEPENDENCIES, dependencies)
+            .child(DEPENDENCY_MGT, ElementFilter.children().child(DEPENDENCIES, dependencies));
+        POM_ELEMENTS = ElementFilter.children(GROUP_ID, ARTIFACT_ID, VERSION, PACKAGING, DESCRIPTION)
+            .child(PARENT, ElementFilter.children(GROUP_ID, ARTIFACT_ID, VERSION))
+            .child(DISTRIBUTION_MGT, ElementFilter.children().child(RELOCATION, ElementFilter.children(GROUP_ID, ARTIFACT_ID, VERSION)))
+            .child(PROPERTIES, ElementFilter.anyChildren())
+            .child(DEPENDENCIES, dependencies)
+            .child(DEPENDENCY_MGT, ElementFilter.children().child(DEPENDENCIES, dependencies))
+            .child(PROFILES, ElementFilter.children().child(PROFILE, profile));
+    }
 
     private PomParent pomParent = new RootPomParent();
     private final Map<String, String> properties = new HashMap<String, String>();
@@ -125,21 +148,21 @@ public class PomReader implements PomParent {
     private final Map<MavenDependencyKey, PomDependencyMgt> importedDependencyMgts = new LinkedHashMap<MavenDependencyKey, PomDependencyMgt>();
     private Map<MavenDependencyKey, PomDependencyData> resolvedDependencies;
 
-    private final Element projectElement;
-    private final Element parentElement;
+    private final String systemId;
+    private final PomElement projectElement;
+    private final PomElement parentElement;
 
     public PomReader(final LocallyAvailableExternalResource resource) throws SAXException {
-        final String systemId = resource.getLocalResource().getFile().toURI().toASCIIString();
-        Document pomDomDoc = resource.withContent(new Transformer<Document, InputStream>() {
-            public Document transform(InputStream inputStream) {
+        systemId = resource.getLocalResource().getFile().toURI().toASCIIString();
+        projectElement = resource.withContent(new Transformer<PomElement, InputStream>() {
+            public PomElement transform(InputStream inputStream) {
                 try {
-                    return parseToDom(inputStream, systemId);
+                    return parsePom(inputStream, systemId);
                 } catch (Exception e) {
                     throw new MetaDataParseException("POM", resource, e);
                 }
             }
         });
-        projectElement = pomDomDoc.getDocumentElement();
         if (!PROJECT.equals(projectElement.getNodeName()) && !MODEL.equals(projectElement.getNodeName())) {
             throw new SAXParseException("project must be the root tag", systemId, systemId, 0, 0);
         }
@@ -223,31 +246,15 @@ public class PomReader implements PomParent {
 
     @Override
     public String toString() {
-        return projectElement.getOwnerDocument().getDocumentURI();
+        return systemId;
     }
 
-    private static DocumentBuilder getDocBuilder(EntityResolver entityResolver) {
+    private static PomElement parsePom(InputStream stream, String systemId) throws IOException, XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(systemId, new AddDTDFilterInputStream(stream));
         try {
-            DocumentBuilder docBuilder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
-            if (entityResolver != null) {
-                docBuilder.setEntityResolver(entityResolver);
-            }
-            return docBuilder;
-        } catch (ParserConfigurationException e) {
-            throw UncheckedException.throwAsUncheckedException(e);
-        }
-    }
-
-    private static Document parseToDom(InputStream stream, String systemId) throws IOException, SAXException {
-        // Set the context classloader the bootstrap classloader, to work around the way that JAXP locates implementation classes
-        // This should ensure that the JAXP classes provided by the JVM are used, rather than some other implementation
-        ClassLoader original = Thread.currentThread().getContextClassLoader();
-        Thread.currentThread().setContextClassLoader(ClassLoader.getSystemClassLoader().getParent());
-        try {
-            InputStream dtdStream = new AddDTDFilterInputStream(stream);
-            return getDocBuilder(M2_ENTITY_RESOLVER).parse(dtdStream, systemId);
+            return PomDomParser.parse(reader, POM_ELEMENTS);
         } finally {
-            Thread.currentThread().setContextClassLoader(original);
+            reader.close();
         }
     }
 
@@ -346,8 +353,8 @@ public class PomReader implements PomParent {
     }
 
     public ModuleVersionIdentifier getRelocation() {
-        Element distrMgt = getFirstChildElement(projectElement, DISTRIBUTION_MGT);
-        Element relocation = getFirstChildElement(distrMgt , RELOCATION);
+        PomElement distrMgt = getFirstChildElement(projectElement, DISTRIBUTION_MGT);
+        PomElement relocation = getFirstChildElement(distrMgt , RELOCATION);
         if (relocation == null) {
             return null;
         } else {
@@ -394,15 +401,13 @@ public class PomReader implements PomParent {
         return dependencies;
     }
 
-    private List<PomDependencyData> getDependencyData(Element parentElement) {
+    private List<PomDependencyData> getDependencyData(PomElement parentElement) {
         List<PomDependencyData> depElements = new ArrayList<PomDependencyData>();
-        Element dependenciesElement = getFirstChildElement(parentElement, DEPENDENCIES);
+        PomElement dependenciesElement = getFirstChildElement(parentElement, DEPENDENCIES);
         if (dependenciesElement != null) {
-            NodeList childs = dependenciesElement.getChildNodes();
-            for (int i = 0; i < childs.getLength(); i++) {
-                Node node = childs.item(i);
-                if (node instanceof Element && DEPENDENCY.equals(node.getNodeName())) {
-                    depElements.add(new PomDependencyData((Element) node));
+            for (PomElement element : getAllChilds(dependenciesElement)) {
+                if (DEPENDENCY.equals(element.getNodeName())) {
+                    depElements.add(new PomDependencyData(element));
                 }
             }
         }
@@ -451,17 +456,15 @@ public class PomReader implements PomParent {
         return declaredDependencyMgts;
     }
 
-    private List<PomDependencyMgt> getDependencyMgt(Element parentElement) {
+    private List<PomDependencyMgt> getDependencyMgt(PomElement parentElement) {
         List<PomDependencyMgt> depMgmtElements = new ArrayList<PomDependencyMgt>();
-        Element dependenciesElement = getFirstChildElement(parentElement, DEPENDENCY_MGT);
+        PomElement dependenciesElement = getFirstChildElement(parentElement, DEPENDENCY_MGT);
         dependenciesElement = getFirstChildElement(dependenciesElement, DEPENDENCIES);
 
         if (dependenciesElement != null) {
-            NodeList childs = dependenciesElement.getChildNodes();
-            for (int i = 0; i < childs.getLength(); i++) {
-                Node node = childs.item(i);
-                if (node instanceof Element && DEPENDENCY.equals(node.getNodeName())) {
-                    depMgmtElements.add(new PomDependencyMgtElement((Element) node));
+            for (PomElement element : getAllChilds(dependenciesElement)) {
+                if (DEPENDENCY.equals(element.getNodeName())) {
+                    depMgmtElements.add(new PomDependencyMgtElement(element));
                 }
             }
         }
@@ -486,9 +489,9 @@ public class PomReader implements PomParent {
     }
 
     public class PomDependencyMgtElement implements PomDependencyMgt {
-        private final Element depElement;
+        private final PomElement depElement;
 
-        PomDependencyMgtElement(Element depElement) {
+        PomDependencyMgtElement(PomElement depElement) {
             this.depElement = depElement;
         }
 
@@ -544,15 +547,13 @@ public class PomReader implements PomParent {
         }
 
         public List<ModuleIdentifier> getExcludedModules() {
-            Element exclusionsElement = getFirstChildElement(depElement, EXCLUSIONS);
+            PomElement exclusionsElement = getFirstChildElement(depElement, EXCLUSIONS);
             if (exclusionsElement != null) {
-                NodeList childs = exclusionsElement.getChildNodes();
                 List<ModuleIdentifier> exclusions = Lists.newArrayList();
-                for (int i = 0; i < childs.getLength(); i++) {
-                    Node node = childs.item(i);
-                    if (node instanceof Element && EXCLUSION.equals(node.getNodeName())) {
-                        String groupId = getFirstChildText((Element) node, GROUP_ID);
-                        String artifactId = getFirstChildText((Element) node, ARTIFACT_ID);
+                for (PomElement exclusionElement : getAllChilds(exclusionsElement)) {
+                    if (EXCLUSION.equals(exclusionElement.getNodeName())) {
+                        String groupId = getFirstChildText(exclusionElement, GROUP_ID);
+                        String artifactId = getFirstChildText(exclusionElement, ARTIFACT_ID);
                         if ((groupId != null) && (artifactId != null)) {
                             exclusions.add(DefaultModuleIdentifier.newId(groupId, artifactId));
                         }
@@ -565,24 +566,24 @@ public class PomReader implements PomParent {
     }
 
     public class PomDependencyData extends PomDependencyMgtElement {
-        private final Element depElement;
-        PomDependencyData(Element depElement) {
+        private final PomElement depElement;
+        PomDependencyData(PomElement depElement) {
             super(depElement);
             this.depElement = depElement;
         }
 
         public boolean isOptional() {
-            Element e = getFirstChildElement(depElement, OPTIONAL);
+            PomElement e = getFirstChildElement(depElement, OPTIONAL);
             return (e != null) && "true".equalsIgnoreCase(getTextContent(e));
         }
     }
 
     public class PomProfileElement implements PomProfile {
-        private final Element element;
+        private final PomElement element;
         private List<PomDependencyMgt> declaredDependencyMgts;
         private List<PomDependencyData> declaredDependencies;
 
-        PomProfileElement(Element element) {
+        PomProfileElement(PomElement element) {
             this.element = element;
         }
 
@@ -620,12 +621,12 @@ public class PomReader implements PomParent {
         if(declaredActivePomProfiles == null) {
             List<PomProfile> activeByDefaultPomProfiles = new ArrayList<PomProfile>();
             List<PomProfile> activeByAbsenceOfPropertyPomProfiles = new ArrayList<PomProfile>();
-            Element profilesElement = getFirstChildElement(projectElement, PROFILES);
+            PomElement profilesElement = getFirstChildElement(projectElement, PROFILES);
 
             if(profilesElement != null) {
-                for(Element profileElement : getAllChilds(profilesElement)) {
+                for(PomElement profileElement : getAllChilds(profilesElement)) {
                     if(PROFILE.equals(profileElement.getNodeName())) {
-                        Element activationElement = getFirstChildElement(profileElement, PROFILE_ACTIVATION);
+                        PomElement activationElement = getFirstChildElement(profileElement, PROFILE_ACTIVATION);
 
                         if(activationElement != null) {
                             String activeByDefault = getFirstChildText(activationElement, PROFILE_ACTIVATION_ACTIVE_BY_DEFAULT);
@@ -633,7 +634,7 @@ public class PomReader implements PomParent {
                             if(activeByDefault != null && "true".equals(activeByDefault)) {
                                 activeByDefaultPomProfiles.add(new PomProfileElement(profileElement));
                             } else {
-                                Element propertyElement = getFirstChildElement(activationElement, PROFILE_ACTIVATION_PROPERTY);
+                                PomElement propertyElement = getFirstChildElement(activationElement, PROFILE_ACTIVATION_PROPERTY);
 
                                 if(propertyElement != null) {
                                     if(isActivationPropertyActivated(propertyElement)) {
@@ -671,8 +672,8 @@ public class PomReader implements PomParent {
      * @return Activation indicator
      * @see <a href="http://books.sonatype.com/mvnref-book/reference/profiles-sect-activation.html#profiles-sect-activation-config">Maven documentation</a>
      */
-    private boolean isActivationPropertyActivated(Element propertyElement) {
-        String propertyName = getFirstChildText(propertyElement, "name");
+    private boolean isActivationPropertyActivated(PomElement propertyElement) {
+        String propertyName = getFirstChildText(propertyElement, PROFILE_ACTIVATION_PROPERTY_NAME);
         return propertyName.startsWith("!");
     }
 
@@ -683,13 +684,10 @@ public class PomReader implements PomParent {
         return getPomProperties(projectElement);
     }
 
-    private Map<String, String> getPomProperties(Element parentElement) {
+    private Map<String, String> getPomProperties(PomElement parentElement) {
         Map<String, String> pomProperties = new HashMap<String, String>();
-        Element propsEl = getFirstChildElement(parentElement, PROPERTIES);
-        if (propsEl != null) {
-            propsEl.normalize();
-        }
-        for (Element prop : getAllChilds(propsEl)) {
+        PomElement propsEl = getFirstChildElement(parentElement, PROPERTIES);
+        for (PomElement prop : getAllChilds(propsEl)) {
             pomProperties.put(prop.getNodeName(), getTextContent(prop));
         }
         return pomProperties;
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
@@ -32,20 +33,31 @@ import org.gradle.util.BuildCommencedTimeProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
+import java.io.Closeable;
+import java.io.File;
+
+public class DefaultModuleMetaDataCache implements ModuleMetaDataCache, Closeable {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultModuleMetaDataCache.class);
 
     private final BuildCommencedTimeProvider timeProvider;
     private final CacheLockingManager cacheLockingManager;
 
     private final ModuleMetadataStore moduleMetadataStore;
+    @Nullable
+    private final ModuleMetadataPack moduleMetadataPack;
     private PersistentIndexedCache<RevisionKey, ModuleMetadataCacheEntry> cache;
 
     public DefaultModuleMetaDataCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
+        this(timeProvider, cacheLockingManager, false);
+    }
+
+    public DefaultModuleMetaDataCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, boolean useMetadataPack) {
         this.timeProvider = timeProvider;
         this.cacheLockingManager = cacheLockingManager;
 
-        moduleMetadataStore = new ModuleMetadataStore(new PathKeyFileStore(cacheLockingManager.createMetaDataStore()), new ModuleMetadataSerializer());
+        File metaDataStore = cacheLockingManager.createMetaDataStore();
+        moduleMetadataStore = new ModuleMetadataStore(new PathKeyFileStore(metaDataStore), new ModuleMetadataSerializer());
+        moduleMetadataPack = useMetadataPack ? new ModuleMetadataPack(new File(metaDataStore.getParentFile(), "descriptors.pack"), new ModuleMetadataSerializer()) : null;
     }
 
     private PersistentIndexedCache<RevisionKey, ModuleMetadataCacheEntry> getCache() {
@@ -67,9 +79,11 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
         if (entry.isMissing()) {
             return new DefaultCachedMetaData(entry, null, timeProvider);
         }
-        MutableModuleComponentResolveMetadata metadata = moduleMetadataStore.getModuleDescriptor(repository, componentId);
+        MutableModuleComponentResolveMetadata metadata = moduleMetadataPack != null
+            ? moduleMetadataPack.getModuleDescriptor(repository, componentId, entry.moduleDescriptorHash)
+            : moduleMetadataStore.getModuleDescriptor(repository, componentId);
         if (metadata == null) {
-            // Descriptor file has been deleted - ignore the entry
+            // Descriptor file has been deleted, or the pack holds a different descriptor - ignore the entry
             return null;
         }
         return new DefaultCachedMetaData(entry, entry.configure(metadata), timeProvider);
@@ -84,12 +98,25 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
 
     public CachedMetaData cacheMetaData(ModuleComponentRepository repository, ModuleComponentResolveMetadata metadata) {
         LOGGER.debug("Recording module descriptor in cache: {} [changing = {}]", metadata.getComponentId(), metadata.isChanging());
-        LocallyAvailableResource resource = moduleMetadataStore.putModuleDescriptor(repository, metadata);
-        ModuleMetadataCacheEntry entry = createEntry(metadata, resource.getSha1());
+        HashValue moduleDescriptorHash;
+        if (moduleMetadataPack != null) {
+            moduleDescriptorHash = moduleMetadataPack.putModuleDescriptor(repository, metadata);
+        } else {
+            LocallyAvailableResource resource = moduleMetadataStore.putModuleDescriptor(repository, metadata);
+            moduleDescriptorHash = resource.getSha1();
+        }
+        ModuleMetadataCacheEntry entry = createEntry(metadata, moduleDescriptorHash);
         getCache().put(createKey(repository, metadata.getComponentId()), entry);
         return new DefaultCachedMetaData(entry, null, timeProvider);
     }
 
+    @Override
+    public void close() {
+        if (moduleMetadataPack != null) {
+            moduleMetadataPack.close();
+        }
+    }
+
     private RevisionKey createKey(ModuleComponentRepository repository, ModuleComponentIdentifier id) {
         return new RevisionKey(repository.getId(), id);
     }
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the module descriptors of all repositories in a single append-only pack file, as an alternative to {@link ModuleMetadataStore}, which uses one file per descriptor.
+ *
+ * <p>Each entry of the pack holds the key of a descriptor, the serialized descriptor and a checksum of it, and the last entry is followed by an end marker.
+ * The pack is memory-mapped in windows, so that it can grow past 2 GB, and is indexed by key by reading the entry headers only. A descriptor is decoded
+ * from the mapped pack when it is requested. Entries written later for the same key replace earlier ones.</p>
+ *
+ * <p>The pack is only appended to while the artifact cache lock is held. Entries appended by other processes are indexed whenever the pack has grown since
+ * it was last read, so a descriptor that another process has refreshed replaces the one that was read before. A partially written entry at the end of the
+ * pack, left behind by a process that was killed, is overwritten by the next entry rather than truncated, as a mapped file cannot be truncated on Windows.</p>
+ *
+ * <p>When more than half of a pack is taken by entries that have been replaced, the live entries are copied to a pack of the next generation, and the old
+ * pack is marked as superseded so that other processes move on to the new one. A superseded pack is deleted once no process uses it any more.</p>
+ */
+public class ModuleMetadataPack implements Closeable {
+    /**
+     * Stores module descriptors in a single memory-mapped pack file instead of one file per descriptor.
+     */
+    public static final String METADATA_PACK_PROPERTY = "org.gradle.internal.resolution.metadataPack";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModuleMetadataPack.class);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MAGIC = 0x474d5044;
+    private static final int FORMAT_VERSION = 2;
+    private static final int SUPERSEDED = -1;
+    private static final int END_MARKER = -1;
+    private static final int HEADER_LENGTH = 8;
+    private static final int WINDOW_SIZE = 1 << 29;
+    private static final long MIN_COMPACTION_LENGTH = 1 << 20;
+
+    private final File packFile;
+    private final ModuleMetadataSerializer moduleMetadataSerializer;
+    private final Map<String, Entry> index = new LinkedHashMap<String, Entry>();
+    private final Map<Long, MappedByteBuffer> windows = new HashMap<Long, MappedByteBuffer>();
+    private RandomAccessFile file;
+    private int generation;
+    private long indexedLength;
+    private long replacedLength;
+
+    public ModuleMetadataPack(File packFile, ModuleMetadataSerializer moduleMetadataSerializer) {
+        this.packFile = packFile;
+        this.moduleMetadataSerializer = moduleMetadataSerializer;
+    }
+
+    public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier) {
+        return getModuleDescriptor(repository, moduleComponentIdentifier, null);
+    }
+
+    /**
+     * Returns the descriptor of the given module, or null when it has not been stored or when its hash does not match the given hash.
+     */
+    public synchronized MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier,
+                                                                                 @Nullable BigInteger expectedHash) {
+        String key = getKey(repository, moduleComponentIdentifier);
+        try {
+            if (file == null && findCurrentGeneration() < 0) {
+                return null;
+            }
+            readNewEntries();
+            Entry entry = index.get(key);
+            if (entry == null) {
+                return null;
+            }
+            byte[] content = read(entry);
+            if (content == null) {
+                LOGGER.debug("Ignoring corrupt module descriptor for {} in {}", key, file());
+                index.remove(key);
+                return null;
+            }
+            if (expectedHash != null && !HashUtil.sha1(content).asBigInteger().equals(expectedHash)) {
+                LOGGER.debug("Ignoring module descriptor for {} in {}, as it does not match the cache entry", key, file());
+                return null;
+            }
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(content));
+            try {
+                return moduleMetadataSerializer.read(decoder);
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Could not load module metadata for " + key + " from " + packFile, e);
+        }
+    }
+
+    /**
+     * Appends the descriptor of the given module to the pack, and returns the hash of the serialized descriptor.
+     */
+    public synchronized HashValue putModuleDescriptor(ModuleComponentRepository repository, ModuleComponentResolveMetadata metadata) {
+        String key = getKey(repository, metadata.getComponentId());
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+            moduleMetadataSerializer.write(encoder, metadata);
+            encoder.flush();
+            byte[] content = outputStream.toByteArray();
+
+            if (file == null) {
+                findCurrentGeneration();
+            }
+            readNewEntries();
+            CRC32 checksum = new CRC32();
+            checksum.update(content);
+            append(file.getChannel(), key, content, checksum.getValue());
+            if (replacedLength > indexedLength / 2 && indexedLength > MIN_COMPACTION_LENGTH) {
+                compact();
+            }
+            return HashUtil.sha1(content);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * Releases the pack file. The pack is opened again when it is next used.
+     */
+    @Override
+    public synchronized void close() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            file = null;
+            reset();
+        }
+    }
+
+    private void reset() {
+        windows.clear();
+        index.clear();
+        indexedLength = 0;
+        replacedLength = 0;
+    }
+
+    private String getKey(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier) {
+        return moduleComponentIdentifier.getGroup() + "/" + moduleComponentIdentifier.getModule() + "/" + moduleComponentIdentifier.getVersion() + "/" + repository.getId();
+    }
+
+    private File file() {
+        return generationFile(generation);
+    }
+
+    private File generationFile(int generation) {
+        return generation == 0 ? packFile : new File(packFile.getParentFile(), packFile.getName() + "." + generation);
+    }
+
+    /**
+     * Selects the newest generation of the pack, and deletes the older generations that are no longer used. Returns the generation, or -1 when there is no pack.
+     */
+    private int findCurrentGeneration() {
+        int current = -1;
+        String[] names = packFile.getParentFile() == null ? null : packFile.getParentFile().list();
+        if (names != null) {
+            String prefix = packFile.getName() + ".";
+            for (String name : names) {
+                if (name.equals(packFile.getName())) {
+                    current = Math.max(current, 0);
+                } else if (name.startsWith(prefix) && name.length() > prefix.length() && name.substring(prefix.length()).matches("\\d{1,9}")) {
+                    current = Math.max(current, Integer.parseInt(name.substring(prefix.length())));
+                }
+            }
+        }
+        generation = Math.max(0, current);
+        for (int older = 0; older < current; older++) {
+            // Fails on Windows while another process still has the pack mapped. It is deleted by a later build.
+            generationFile(older).delete();
+        }
+        return current;
+    }
+
+    private byte[] read(Entry entry) throws IOException {
+        byte[] content = new byte[entry.length];
+        region(entry.offset, entry.length).get(content);
+        CRC32 checksum = new CRC32();
+        checksum.update(content);
+        return checksum.getValue() == entry.checksum ? content : null;
+    }
+
+    /**
+     * Indexes the entries that have been appended to the pack since it was last read, up to the last complete entry.
+     * Moves on to the next generation of the pack when the current one has been superseded.
+     */
+    private void readNewEntries() throws IOException {
+        if (file != null && indexedLength > 0 && region(4, 4).getInt() == SUPERSEDED) {
+            close();
+            findCurrentGeneration();
+        }
+        if (file == null) {
+            File current = file();
+            current.getParentFile().mkdirs();
+            file = new RandomAccessFile(current, "rw");
+        }
+        long length = file.length();
+        if (indexedLength == 0) {
+            if (length < HEADER_LENGTH || !hasValidHeader()) {
+                writeHeader();
+                return;
+            }
+            indexedLength = HEADER_LENGTH;
+        }
+        if (length <= indexedLength) {
+            return;
+        }
+        long position = indexedLength;
+        while (position + 4 <= length) {
+            int keyLength = region(position, 4).getInt();
+            if (keyLength < 0 || position + 4 + keyLength + 4 > length) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            region(position + 4, keyLength).get(keyBytes);
+            int contentLength = region(position + 4 + keyLength, 4).getInt();
+            long contentOffset = position + 4 + keyLength + 4;
+            if (contentLength < 0 || contentOffset + contentLength + 8 > length) {
+                break;
+            }
+            long checksum = region(contentOffset + contentLength, 8).getLong();
+            long end = contentOffset + contentLength + 8;
+            addToIndex(new String(keyBytes, UTF_8), new Entry(contentOffset, contentLength, checksum, end - position));
+            position = end;
+        }
+        indexedLength = position;
+    }
+
+    private void addToIndex(String key, Entry entry) {
+        Entry replaced = index.put(key, entry);
+        if (replaced != null) {
+            replacedLength += replaced.size;
+        }
+    }
+
+    /**
+     * Writes an entry followed by an end marker at the end of the indexed part of the pack. The marker stops readers from taking the rest of a partially
+     * written entry that may follow for a new entry.
+     */
+    private void append(FileChannel channel, String key, byte[] content, long checksum) throws IOException {
+        byte[] keyBytes = key.getBytes(UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + keyBytes.length + 4 + content.length + 8 + 4);
+        buffer.putInt(keyBytes.length).put(keyBytes);
+        buffer.putInt(content.length).put(content);
+        buffer.putLong(checksum);
+        buffer.putInt(END_MARKER);
+        buffer.flip();
+        long start = indexedLength;
+        long position = start;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        long end = position - 4;
+        addToIndex(key, new Entry(start + 4 + keyBytes.length + 4, content.length, checksum, end - start));
+        indexedLength = end;
+    }
+
+    /**
+     * Copies the live entries to the next generation of the pack, then marks the current generation as superseded.
+     */
+    private void compact() throws IOException {
+        int next = generation + 1;
+        File target = generationFile(next);
+        File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+        Map<String, Entry> live = new LinkedHashMap<String, Entry>(index);
+        RandomAccessFile compacted = new RandomAccessFile(temp, "rw");
+        try {
+            compacted.setLength(0);
+            compacted.writeInt(MAGIC);
+            compacted.writeInt(FORMAT_VERSION);
+            compacted.writeInt(END_MARKER);
+            long currentLength = indexedLength;
+            index.clear();
+            indexedLength = HEADER_LENGTH;
+            replacedLength = 0;
+            for (Map.Entry<String, Entry> entry : live.entrySet()) {
+                byte[] content = new byte[entry.getValue().length];
+                region(entry.getValue().offset, content.length, currentLength).get(content);
+                append(compacted.getChannel(), entry.getKey(), content, entry.getValue().checksum);
+            }
+            compacted.getChannel().force(false);
+        } finally {
+            compacted.close();
+        }
+        Map<String, Entry> compactedIndex = new LinkedHashMap<String, Entry>(index);
+        long compactedLength = indexedLength;
+        if (!temp.renameTo(target)) {
+            throw new IOException("Could not rename " + temp + " to " + target);
+        }
+        file.seek(4);
+        file.writeInt(SUPERSEDED);
+        File superseded = file();
+        close();
+        superseded.delete();
+        generation = next;
+        file = new RandomAccessFile(target, "rw");
+        index.putAll(compactedIndex);
+        indexedLength = compactedLength;
+        LOGGER.debug("Compacted {} into {}", superseded, target);
+    }
+
+    private ByteBuffer region(long offset, int length) throws IOException {
+        return region(offset, length, file.length());
+    }
+
+    /**
+     * Returns the given region of the pack. The pack is mapped in overlapping windows of twice the window size, starting at every multiple of the window
+     * size, so that every region of up to the window size falls within a single mapping. Larger regions are read without a mapping.
+     */
+    private ByteBuffer region(long offset, int length, long fileLength) throws IOException {
+        if (length > WINDOW_SIZE) {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (file.getChannel().read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + file());
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+        long window = offset / WINDOW_SIZE;
+        long start = window * WINDOW_SIZE;
+        MappedByteBuffer mapped = windows.get(window);
+        if (mapped == null || start + mapped.capacity() < offset + length) {
+            mapped = file.getChannel().map(FileChannel.MapMode.READ_ONLY, start, Math.min(2L * WINDOW_SIZE, fileLength - start));
+            windows.put(window, mapped);
+        }
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position((int) (offset - start));
+        buffer.limit((int) (offset - start + length));
+        return buffer.slice();
+    }
+
+    private boolean hasValidHeader() throws IOException {
+        file.seek(0);
+        return file.readInt() == MAGIC && file.readInt() == FORMAT_VERSION;
+    }
+
+    /**
+     * Starts an empty pack by overwriting the header. The rest of the file is not truncated, as that fails on Windows while the file is mapped.
+     */
+    private void writeHeader() throws IOException {
+        file.seek(0);
+        file.writeInt(MAGIC);
+        file.writeInt(FORMAT_VERSION);
+        file.writeInt(END_MARKER);
+        reset();
+        indexedLength = HEADER_LENGTH;
+    }
+
+    private static class Entry {
+        private final long offset;
+        private final int length;
+        private final long checksum;
+        private final long size;
+
+        private Entry(long offset, int length, long checksum, long size) {
+            this.offset = offset;
+            this.length = length;
+            this.checksum = checksum;
+            this.size = size;
+        }
+    }
+}
@@ -120,6 +120,11 @@ public class DefaultResolutionStrategy implements ResolutionStrategyInternal {
         return Actions.composite(allRules);
     }
 
+    @Override
+    public boolean hasDependencySubstitutionRules() {
+        return dependencySubstitutions.hasAnyRules() || globalDependencySubstitutionRules.hasRules();
+    }
+
     public void assumeFluidDependencies() {
         assumeFluidDependencies = true;
     }
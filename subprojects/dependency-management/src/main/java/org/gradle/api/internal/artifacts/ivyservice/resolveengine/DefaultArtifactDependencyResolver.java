@@ -16,8 +16,10 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
 
 import com.google.common.collect.Lists;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.artifacts.ArtifactDependencyResolver;
 import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
 import org.gradle.api.internal.artifacts.ResolveContext;
 import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingArtifactResolver;
@@ -33,6 +35,8 @@ import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.StrictConflictResolution;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentMetaDataPrefetcher;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ModuleVersionListRefresher;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
@@ -51,27 +55,41 @@ import org.slf4j.LoggerFactory;
 import java.util.List;
 
 public class DefaultArtifactDependencyResolver implements ArtifactDependencyResolver {
+    /**
+     * Fetches the meta-data of the components required by a configuration of the graph concurrently.
+     */
+    public static final String CONCURRENT_META_DATA_FETCHING_PROPERTY = "org.gradle.internal.resolution.concurrentMetaData";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultArtifactDependencyResolver.class);
     private final ServiceRegistry serviceRegistry;
     private final DependencyDescriptorFactory dependencyDescriptorFactory;
     private final ResolveIvyFactory ivyFactory;
     private final CacheLockingManager cacheLockingManager;
     private final VersionComparator versionComparator;
+    private final ComponentMetaDataPrefetcher metaDataPrefetcher;
+    private final ModuleVersionListRefresher versionListRefresher;
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
 
     public DefaultArtifactDependencyResolver(ServiceRegistry serviceRegistry, ResolveIvyFactory ivyFactory, DependencyDescriptorFactory dependencyDescriptorFactory,
-                                             CacheLockingManager cacheLockingManager, VersionComparator versionComparator) {
+                                             CacheLockingManager cacheLockingManager, VersionComparator versionComparator, @Nullable ComponentMetaDataPrefetcher metaDataPrefetcher,
+                                             @Nullable ModuleVersionListRefresher versionListRefresher, ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
         this.serviceRegistry = serviceRegistry;
         this.ivyFactory = ivyFactory;
         this.dependencyDescriptorFactory = dependencyDescriptorFactory;
         this.cacheLockingManager = cacheLockingManager;
         this.versionComparator = versionComparator;
+        this.metaDataPrefetcher = metaDataPrefetcher;
+        this.versionListRefresher = versionListRefresher;
+        this.moduleIdentifierFactory = moduleIdentifierFactory;
     }
 
     @Override
     public void resolve(final ResolveContext resolveContext, final List<? extends ResolutionAwareRepository> repositories, final GlobalDependencyResolutionRules metadataHandler, final DependencyGraphVisitor graphVisitor, final DependencyArtifactsVisitor artifactsVisitor) {
         LOGGER.debug("Resolving {}", resolveContext);
-        ComponentResolvers componentSource = createComponentSource(resolveContext, repositories, metadataHandler);
-        DependencyGraphBuilder builder = createDependencyGraphBuilder(componentSource, resolveContext.getResolutionStrategy(), metadataHandler);
+        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
+        ComponentResolvers repositorySource = ivyFactory.create(resolutionStrategy, repositories, metadataHandler.getComponentMetadataProcessor());
+        ComponentResolvers componentSource = createComponentSource(resolveContext, repositorySource);
+        DependencyGraphBuilder builder = createDependencyGraphBuilder(componentSource, repositorySource, resolutionStrategy, metadataHandler);
 
         ArtifactResolver artifactResolver = new ErrorHandlingArtifactResolver(new CacheLockingArtifactResolver(cacheLockingManager, componentSource.getArtifactResolver()));
         DependencyGraphVisitor artifactsGraphVisitor = new ResolvedArtifactsGraphVisitor(artifactsVisitor, artifactResolver);
@@ -80,7 +98,8 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
         builder.resolve(resolveContext, new CompositeDependencyGraphVisitor(graphVisitor, artifactsGraphVisitor));
     }
 
-    private DependencyGraphBuilder createDependencyGraphBuilder(ComponentResolvers componentSource, ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules globalRules) {
+    private DependencyGraphBuilder createDependencyGraphBuilder(ComponentResolvers componentSource, ComponentResolvers repositorySource, ResolutionStrategyInternal resolutionStrategy,
+                                                                GlobalDependencyResolutionRules globalRules) {
 
         DependencyToComponentIdResolver componentIdResolver = new DependencySubstitutionResolver(componentSource.getComponentIdResolver(), resolutionStrategy.getDependencySubstitutionRule());
         ComponentMetaDataResolver componentMetaDataResolver = new ClientModuleResolver(componentSource.getComponentResolver(), dependencyDescriptorFactory);
@@ -88,10 +107,26 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
         ResolveContextToComponentResolver requestResolver = createResolveContextConverter();
         ConflictHandler conflictHandler = createConflictHandler(resolutionStrategy, globalRules);
 
-        return new DependencyGraphBuilder(componentIdResolver, componentMetaDataResolver, requestResolver, conflictHandler);
+        if (versionListRefresher == null || hasRules(resolutionStrategy, globalRules)) {
+            return new DependencyGraphBuilder(componentIdResolver, componentMetaDataResolver, requestResolver, conflictHandler, metaDataPrefetcher, null, null, moduleIdentifierFactory);
+        }
+        return new DependencyGraphBuilder(componentIdResolver, componentMetaDataResolver, requestResolver, conflictHandler, metaDataPrefetcher,
+            versionListRefresher, repositorySource.getComponentIdResolver(), moduleIdentifierFactory);
+    }
+
+    /**
+     * Dynamic versions are resolved concurrently against the repositories only, and only when no rule can change the result. Rules are user code that is not safe
+     * to call from several threads, and forced modules and substitution rules change the selector that the repositories are asked for.
+     */
+    private boolean hasRules(ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules globalRules) {
+        return !resolutionStrategy.getForcedModules().isEmpty()
+            || resolutionStrategy.hasDependencySubstitutionRules()
+            || globalRules.getDependencySubstitutionRules().hasRules()
+            || !resolutionStrategy.getComponentSelection().getRules().isEmpty()
+            || globalRules.getComponentMetadataProcessor().hasRules();
     }
 
-    private ComponentResolversChain createComponentSource(ResolveContext resolveContext, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler) {
+    private ComponentResolversChain createComponentSource(ResolveContext resolveContext, ComponentResolvers repositorySource) {
         List<ResolverProviderFactory> resolverFactories = allServices(ResolverProviderFactory.class);
         List<ComponentResolvers> resolvers = Lists.newArrayList();
         for (ResolverProviderFactory factory : resolverFactories) {
@@ -99,8 +134,7 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
                 resolvers.add(factory.create(resolveContext));
             }
         }
-        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
-        resolvers.add(ivyFactory.create(resolutionStrategy, repositories, metadataHandler.getComponentMetadataProcessor()));
+        resolvers.add(repositorySource);
         return new ComponentResolversChain(resolvers);
     }
 
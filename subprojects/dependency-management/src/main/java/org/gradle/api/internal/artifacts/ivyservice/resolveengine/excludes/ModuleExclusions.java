@@ -25,7 +25,10 @@ import org.gradle.util.CollectionUtils;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.AbstractModuleExclusion.isWildcard;
 
@@ -40,6 +43,10 @@ import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.exclude
  * dependency graph of a particular version that has already been traversed when a new incoming edge is added (eg a newly discovered dependency) and when an incoming edge is removed (eg a conflict
  * evicts a version that depends on the given version). </p>
  *
+ * <p>An instance of this class combines specs for a single resolution. It keeps a single instance of each distinct spec, and remembers the result of each union and intersection,
+ * so that specs combined from the same edges are the same object and the checks made by {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder} when
+ * revisiting a node are identity checks. An instance is not thread-safe.</p>
+ *
  * <ul>
  *     <li>When a module dependency has multiple exclusions, then the resulting exclusion is the _intersection_ of those exclusions (module is excluded if excluded by _any_).</li>
  *     <li>When a module is depended on via a transitive path, then the resulting exclusion is the _intersection_ of the exclusions on each leg of the path (module is excluded if excluded by _any_).</li>
@@ -49,6 +56,10 @@ import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.exclude
 public class ModuleExclusions {
     static final ExcludeNone EXCLUDE_NONE = new ExcludeNone();
 
+    private final Map<AbstractModuleExclusion, AbstractModuleExclusion> canonicalSpecs = new HashMap<AbstractModuleExclusion, AbstractModuleExclusion>();
+    private final Map<ModuleExclusion, Map<ModuleExclusion, ModuleExclusion>> intersections = new IdentityHashMap<ModuleExclusion, Map<ModuleExclusion, ModuleExclusion>>();
+    private final Map<ModuleExclusion, Map<ModuleExclusion, ModuleExclusion>> unions = new IdentityHashMap<ModuleExclusion, Map<ModuleExclusion, ModuleExclusion>>();
+
     /**
      * Returns a spec that excludes nothing.
      */
@@ -112,35 +123,87 @@ public class ModuleExclusions {
     /**
      * Returns a spec that excludes those modules and artifacts that are excluded by _either_ of the given exclude rules.
      */
-    public static ModuleExclusion intersect(ModuleExclusion one, ModuleExclusion two) {
+    public ModuleExclusion intersect(ModuleExclusion one, ModuleExclusion two) {
         if (one == two) {
             return one;
         }
         if (one == EXCLUDE_NONE) {
-            return two;
+            return canonicalize(two);
         }
         if (two == EXCLUDE_NONE) {
+            return canonicalize(one);
+        }
+        one = canonicalize(one);
+        two = canonicalize(two);
+        if (one == two) {
             return one;
         }
 
-        List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
-        ((AbstractModuleExclusion) one).unpackIntersection(specs);
-        ((AbstractModuleExclusion) two).unpackIntersection(specs);
-
-        return new IntersectionExclusion(specs);
+        Map<ModuleExclusion, ModuleExclusion> results = resultsFor(intersections, one);
+        ModuleExclusion result = results.get(two);
+        if (result == null) {
+            result = canonicalize(createIntersection(one, two));
+            results.put(two, result);
+        }
+        return result;
     }
 
     /**
      * Returns a spec that excludes only those modules and artifacts that are excluded by both of the supplied exclude rules.
      */
-    public static ModuleExclusion union(ModuleExclusion one, ModuleExclusion two) {
+    public ModuleExclusion union(ModuleExclusion one, ModuleExclusion two) {
         if (one == two) {
             return one;
         }
         if (one == EXCLUDE_NONE || two == EXCLUDE_NONE) {
             return EXCLUDE_NONE;
         }
+        one = canonicalize(one);
+        two = canonicalize(two);
+        if (one == two) {
+            return one;
+        }
+
+        Map<ModuleExclusion, ModuleExclusion> results = resultsFor(unions, one);
+        ModuleExclusion result = results.get(two);
+        if (result == null) {
+            result = canonicalize(createUnion(one, two));
+            results.put(two, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the instance of the given spec that is used by this object, so that equal specs are represented by the same instance.
+     */
+    private ModuleExclusion canonicalize(ModuleExclusion spec) {
+        AbstractModuleExclusion exclusion = (AbstractModuleExclusion) spec;
+        AbstractModuleExclusion canonical = canonicalSpecs.get(exclusion);
+        if (canonical == null) {
+            canonicalSpecs.put(exclusion, exclusion);
+            return exclusion;
+        }
+        return canonical;
+    }
+
+    private static Map<ModuleExclusion, ModuleExclusion> resultsFor(Map<ModuleExclusion, Map<ModuleExclusion, ModuleExclusion>> cache, ModuleExclusion spec) {
+        Map<ModuleExclusion, ModuleExclusion> results = cache.get(spec);
+        if (results == null) {
+            results = new IdentityHashMap<ModuleExclusion, ModuleExclusion>();
+            cache.put(spec, results);
+        }
+        return results;
+    }
+
+    private static ModuleExclusion createIntersection(ModuleExclusion one, ModuleExclusion two) {
+        List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
+        ((AbstractModuleExclusion) one).unpackIntersection(specs);
+        ((AbstractModuleExclusion) two).unpackIntersection(specs);
+
+        return new IntersectionExclusion(specs);
+    }
 
+    private static ModuleExclusion createUnion(ModuleExclusion one, ModuleExclusion two) {
         List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
         ((AbstractModuleExclusion) one).unpackUnion(specs);
         ((AbstractModuleExclusion) two).unpackUnion(specs);
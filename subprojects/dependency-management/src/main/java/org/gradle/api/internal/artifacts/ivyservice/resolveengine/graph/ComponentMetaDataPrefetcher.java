@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
+
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Resolves the meta-data of a batch of components concurrently, ahead of the graph traversal that needs it.
+ *
+ * <p>The calling thread must be using the artifact cache. It gives up the cache for the duration of the batch, and each fetch uses the cache in turn, so
+ * that only the remote requests, which release the cache, run at the same time.</p>
+ */
+public class ComponentMetaDataPrefetcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ComponentMetaDataPrefetcher.class);
+
+    private final CacheLockingManager cacheLockingManager;
+    private final ExecutorFactory executorFactory;
+    private final int maxConcurrentFetches;
+
+    public ComponentMetaDataPrefetcher(CacheLockingManager cacheLockingManager, ExecutorFactory executorFactory, int maxConcurrentFetches) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.executorFactory = executorFactory;
+        this.maxConcurrentFetches = maxConcurrentFetches;
+    }
+
+    /**
+     * Resolves the meta-data of the given components. The result does not include a component whose resolution threw an exception, so that the failure
+     * is reported when the graph traversal resolves the component itself.
+     */
+    public Map<ComponentIdentifier, BuildableComponentResolveResult> prefetch(final ComponentMetaDataResolver resolver, final Map<ComponentIdentifier, ComponentOverrideMetadata> components) {
+        if (components.size() < 2 || maxConcurrentFetches < 2) {
+            return new LinkedHashMap<ComponentIdentifier, BuildableComponentResolveResult>();
+        }
+        LOGGER.debug("Fetching meta-data for {} components concurrently.", components.size());
+        return cacheLockingManager.longRunningOperation("Fetch meta-data for " + components.size() + " components", new Factory<Map<ComponentIdentifier, BuildableComponentResolveResult>>() {
+            public Map<ComponentIdentifier, BuildableComponentResolveResult> create() {
+                return fetchConcurrently(resolver, components);
+            }
+        });
+    }
+
+    private Map<ComponentIdentifier, BuildableComponentResolveResult> fetchConcurrently(final ComponentMetaDataResolver resolver, Map<ComponentIdentifier, ComponentOverrideMetadata> components) {
+        StoppableExecutor executor = executorFactory.create("Component meta-data fetcher", Math.min(maxConcurrentFetches, components.size()));
+        Map<ComponentIdentifier, Future<BuildableComponentResolveResult>> fetches = new LinkedHashMap<ComponentIdentifier, Future<BuildableComponentResolveResult>>();
+        try {
+            for (Map.Entry<ComponentIdentifier, ComponentOverrideMetadata> entry : components.entrySet()) {
+                final ComponentIdentifier identifier = entry.getKey();
+                final ComponentOverrideMetadata overrideMetadata = entry.getValue();
+                fetches.put(identifier, executor.submit(new Callable<BuildableComponentResolveResult>() {
+                    public BuildableComponentResolveResult call() {
+                        final BuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+                        try {
+                            cacheLockingManager.useCache("Resolve " + identifier, new Runnable() {
+                                public void run() {
+                                    resolver.resolve(identifier, overrideMetadata, result);
+                                }
+                            });
+                        } catch (RuntimeException e) {
+                            LOGGER.debug("Could not fetch meta-data for {} ahead of time.", identifier, e);
+                            return null;
+                        }
+                        return result.hasResult() ? result : null;
+                    }
+                }));
+            }
+
+            Map<ComponentIdentifier, BuildableComponentResolveResult> results = new LinkedHashMap<ComponentIdentifier, BuildableComponentResolveResult>();
+            for (Map.Entry<ComponentIdentifier, Future<BuildableComponentResolveResult>> entry : fetches.entrySet()) {
+                BuildableComponentResolveResult result = entry.getValue().get();
+                if (result != null) {
+                    results.put(entry.getKey(), result);
+                }
+            }
+            return results;
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            executor.stop();
+        }
+    }
+}
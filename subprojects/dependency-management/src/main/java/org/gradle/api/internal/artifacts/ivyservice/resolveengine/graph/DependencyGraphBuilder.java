@@ -16,14 +16,17 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
 
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleDependency;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.gradle.api.artifacts.ModuleVersionSelector;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.result.ComponentSelectionReason;
-import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
 import org.gradle.api.internal.artifacts.ResolveContext;
 import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ComponentResolutionState;
@@ -37,6 +40,7 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflict
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons;
 import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
 import org.gradle.internal.component.model.ComponentArtifactMetadata;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
 import org.gradle.internal.component.model.ComponentResolveMetadata;
 import org.gradle.internal.component.model.ConfigurationMetadata;
 import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
@@ -48,6 +52,7 @@ import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
 import org.gradle.internal.resolve.resolver.ResolveContextToComponentResolver;
 import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
 import org.gradle.internal.resolve.result.ComponentIdResolveResult;
 import org.gradle.internal.resolve.result.ComponentResolveResult;
 import org.gradle.internal.resolve.result.DefaultBuildableComponentIdResolveResult;
@@ -57,6 +62,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -71,14 +77,44 @@ public class DependencyGraphBuilder {
     private final ResolveContextToComponentResolver moduleResolver;
     private final DependencyToComponentIdResolver idResolver;
     private final ComponentMetaDataResolver metaDataResolver;
+    private final ComponentMetaDataPrefetcher metaDataPrefetcher;
+    private final ModuleVersionListRefresher versionListRefresher;
+    private final DependencyToComponentIdResolver repositoryIdResolver;
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
 
     public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
                                   ResolveContextToComponentResolver resolveContextToComponentResolver,
                                   ConflictHandler conflictHandler) {
+        this(componentIdResolver, componentMetaDataResolver, resolveContextToComponentResolver, conflictHandler, null, null, null, new DefaultImmutableModuleIdentifierFactory());
+    }
+
+    /**
+     * Creates a builder that fetches the meta-data of the components required by each configuration concurrently, using the given prefetcher.
+     */
+    public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
+                                  ResolveContextToComponentResolver resolveContextToComponentResolver,
+                                  ConflictHandler conflictHandler, ComponentMetaDataPrefetcher metaDataPrefetcher) {
+        this(componentIdResolver, componentMetaDataResolver, resolveContextToComponentResolver, conflictHandler, metaDataPrefetcher, null, null, new DefaultImmutableModuleIdentifierFactory());
+    }
+
+    /**
+     * Creates a builder that uses the given factory for the module identifiers of the graph, so that the identifiers are shared with other graphs, and that resolves
+     * the dynamic versions required by each level of the graph concurrently, using the given refresher and repository resolver. The repository resolver is called
+     * from several threads, and must give the same result as the component id resolver for a dynamic version of a module.
+     */
+    public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
+                                  ResolveContextToComponentResolver resolveContextToComponentResolver,
+                                  ConflictHandler conflictHandler, @Nullable ComponentMetaDataPrefetcher metaDataPrefetcher,
+                                  @Nullable ModuleVersionListRefresher versionListRefresher, @Nullable DependencyToComponentIdResolver repositoryIdResolver,
+                                  ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
         this.idResolver = componentIdResolver;
         this.metaDataResolver = componentMetaDataResolver;
         this.moduleResolver = resolveContextToComponentResolver;
         this.conflictHandler = conflictHandler;
+        this.metaDataPrefetcher = metaDataPrefetcher;
+        this.versionListRefresher = repositoryIdResolver == null ? null : versionListRefresher;
+        this.repositoryIdResolver = repositoryIdResolver;
+        this.moduleIdentifierFactory = moduleIdentifierFactory;
     }
 
     public void resolve(ResolveContext resolveContext, DependencyGraphVisitor modelVisitor) {
@@ -86,7 +122,7 @@ public class DependencyGraphBuilder {
         DefaultBuildableComponentResolveResult rootModule = new DefaultBuildableComponentResolveResult();
         moduleResolver.resolve(resolveContext, rootModule);
 
-        ResolveState resolveState = new ResolveState(idGenerator, rootModule, resolveContext.getName(), idResolver, metaDataResolver);
+        ResolveState resolveState = new ResolveState(idGenerator, rootModule, resolveContext.getName(), idResolver, metaDataResolver, moduleIdentifierFactory);
         conflictHandler.registerResolver(new DirectDependencyForcingResolver(resolveState.root.moduleRevision));
 
         traverseGraph(resolveState, conflictHandler);
@@ -102,8 +138,15 @@ public class DependencyGraphBuilder {
         resolveState.onMoreSelected(resolveState.root);
 
         List<DependencyEdge> dependencies = new ArrayList<DependencyEdge>();
+        int remainingInLevel = 0;
         while (resolveState.peek() != null || conflictHandler.hasConflicts()) {
             if (resolveState.peek() != null) {
+                if ((metaDataPrefetcher != null || versionListRefresher != null) && remainingInLevel == 0) {
+                    // Starting a new level of the breadth-first traversal: fetch what all configurations of the level will need at once
+                    remainingInLevel = resolveState.getQueued().size();
+                    prefetch(resolveState, resolveState.getQueued());
+                }
+                remainingInLevel = Math.max(0, remainingInLevel - 1);
                 ConfigurationNode node = resolveState.pop();
                 LOGGER.debug("Visiting configuration {}.", node);
 
@@ -172,6 +215,76 @@ public class DependencyGraphBuilder {
         }
     }
 
+    /**
+     * Resolves the dynamic versions and fetches the meta-data that the outgoing dependencies of the given configurations require, so that the traversal does not
+     * wait for each of them in turn. The configurations are those of one level of the breadth-first traversal, so that a batch is as large as possible.
+     * The selectors are resolved here rather than in the traversal, which is fine as their resolution does not depend on the state of the graph. The graph
+     * itself is not changed: a fetched result is only used when the traversal resolves the component for the same dependency it was fetched for.
+     */
+    private void prefetch(ResolveState resolveState, Collection<ConfigurationNode> configurations) {
+        Set<ModuleVersionSelectorResolveState> selectors = new LinkedHashSet<ModuleVersionSelectorResolveState>();
+        for (ConfigurationNode configuration : configurations) {
+            configuration.collectOutgoingSelectors(selectors);
+        }
+        if (versionListRefresher != null) {
+            resolveDynamicVersions(selectors);
+        }
+        if (metaDataPrefetcher != null) {
+            prefetchMetaData(resolveState, selectors);
+        }
+    }
+
+    private void resolveDynamicVersions(Collection<ModuleVersionSelectorResolveState> selectors) {
+        Map<DependencyMetadata, ModuleVersionSelectorResolveState> unresolved = new LinkedHashMap<DependencyMetadata, ModuleVersionSelectorResolveState>();
+        for (ModuleVersionSelectorResolveState selector : selectors) {
+            if (selector.idResolveResult == null) {
+                unresolved.put(selector.dependencyMetadata, selector);
+            }
+        }
+        Map<DependencyMetadata, BuildableComponentIdResolveResult> results = versionListRefresher.resolveDynamicVersions(repositoryIdResolver, unresolved.keySet());
+        for (Map.Entry<DependencyMetadata, BuildableComponentIdResolveResult> entry : results.entrySet()) {
+            unresolved.get(entry.getKey()).idResolveResult = entry.getValue();
+        }
+    }
+
+    private void prefetchMetaData(ResolveState resolveState, Collection<ModuleVersionSelectorResolveState> selectors) {
+        Map<ComponentIdentifier, ComponentOverrideMetadata> components = new LinkedHashMap<ComponentIdentifier, ComponentOverrideMetadata>();
+        Map<ComponentIdentifier, DependencyMetadata> requestedBy = new HashMap<ComponentIdentifier, DependencyMetadata>();
+        for (ModuleVersionSelectorResolveState selector : selectors) {
+            ComponentIdResolveResult idResolveResult = selector.resolveId();
+            if (idResolveResult.getFailure() != null || idResolveResult.getMetaData() != null || !(idResolveResult.getId() instanceof ModuleComponentIdentifier)) {
+                continue;
+            }
+            ComponentIdentifier componentId = idResolveResult.getId();
+            if (components.containsKey(componentId) || resolveState.isPrefetched(componentId)) {
+                continue;
+            }
+            // Leave a version that conflicts with the selected version of its module to conflict resolution, which may not need its meta-data
+            ModuleResolveState module = resolveState.findModule(idResolveResult.getModuleVersionId().getModule());
+            if (module != null && module.selected != null) {
+                continue;
+            }
+            // The traversal resolves the meta-data of a version for the first selector that referenced it
+            DependencyMetadata dependencyMetadata = selector.dependencyMetadata;
+            ModuleVersionResolveState existing = module == null ? null : module.versions.get(idResolveResult.getModuleVersionId());
+            if (existing != null) {
+                if (existing.metaData != null || existing.failure != null || existing.firstReference == null) {
+                    continue;
+                }
+                dependencyMetadata = existing.firstReference.dependencyMetadata;
+            }
+            components.put(componentId, DefaultComponentOverrideMetadata.forDependency(dependencyMetadata));
+            requestedBy.put(componentId, dependencyMetadata);
+        }
+        if (components.size() < 2) {
+            return;
+        }
+        Map<ComponentIdentifier, BuildableComponentResolveResult> results = metaDataPrefetcher.prefetch(metaDataResolver, components);
+        for (Map.Entry<ComponentIdentifier, BuildableComponentResolveResult> entry : results.entrySet()) {
+            resolveState.addPrefetched(entry.getKey(), requestedBy.get(entry.getKey()), entry.getValue());
+        }
+    }
+
     /**
      * Populates the result from the graph traversal state.
      */
@@ -287,7 +400,7 @@ public class DependencyGraphBuilder {
         @Override
         public ModuleExclusion getExclusions() {
             ModuleExclusion edgeExclusions = dependencyMetadata.getExclusions(from.metaData);
-            return ModuleExclusions.intersect(edgeExclusions, moduleExclusion);
+            return resolveState.moduleExclusions.intersect(edgeExclusions, moduleExclusion);
         }
 
         @Override
@@ -340,14 +453,18 @@ public class DependencyGraphBuilder {
         private final IdGenerator<Long> idGenerator;
         private final DependencyToComponentIdResolver idResolver;
         private final ComponentMetaDataResolver metaDataResolver;
+        private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+        private final ModuleExclusions moduleExclusions = new ModuleExclusions();
         private final Set<ConfigurationNode> queued = new HashSet<ConfigurationNode>();
         private final LinkedList<ConfigurationNode> queue = new LinkedList<ConfigurationNode>();
+        private final Map<ComponentIdentifier, PrefetchedMetaData> prefetched = new HashMap<ComponentIdentifier, PrefetchedMetaData>();
 
         public ResolveState(IdGenerator<Long> idGenerator, ComponentResolveResult rootResult, String rootConfigurationName, DependencyToComponentIdResolver idResolver,
-                            ComponentMetaDataResolver metaDataResolver) {
+                            ComponentMetaDataResolver metaDataResolver, ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
             this.idGenerator = idGenerator;
             this.idResolver = idResolver;
             this.metaDataResolver = metaDataResolver;
+            this.moduleIdentifierFactory = moduleIdentifierFactory;
             ModuleVersionResolveState rootVersion = getRevision(rootResult.getId());
             rootVersion.setMetaData(rootResult.getMetaData());
             root = new RootConfigurationNode(idGenerator.generateId(), rootVersion, new ResolvedConfigurationIdentifier(rootVersion.id, rootConfigurationName), this);
@@ -358,7 +475,7 @@ public class DependencyGraphBuilder {
         public ModuleResolveState getModule(ModuleIdentifier id) {
             ModuleResolveState module = modules.get(id);
             if (module == null) {
-                module = new ModuleResolveState(idGenerator, id, this, metaDataResolver);
+                module = new ModuleResolveState(idGenerator, moduleIdentifierFactory.module(id.getGroup(), id.getName()), this, metaDataResolver);
                 modules.put(id, module);
             }
             return module;
@@ -368,6 +485,28 @@ public class DependencyGraphBuilder {
             return getModule(id.getModule()).getVersion(id);
         }
 
+        @Nullable
+        public ModuleResolveState findModule(ModuleIdentifier id) {
+            return modules.get(id);
+        }
+
+        public boolean isPrefetched(ComponentIdentifier id) {
+            return prefetched.containsKey(id);
+        }
+
+        public void addPrefetched(ComponentIdentifier id, DependencyMetadata dependencyMetadata, BuildableComponentResolveResult result) {
+            prefetched.put(id, new PrefetchedMetaData(dependencyMetadata, result));
+        }
+
+        /**
+         * Returns the meta-data fetched ahead of time for the given component and dependency, if any.
+         */
+        @Nullable
+        public BuildableComponentResolveResult takePrefetched(ComponentIdentifier id, DependencyMetadata dependencyMetadata) {
+            PrefetchedMetaData metaData = prefetched.remove(id);
+            return metaData != null && metaData.dependencyMetadata == dependencyMetadata ? metaData.result : null;
+        }
+
         public Collection<ConfigurationNode> getConfigurationNodes() {
             return nodes.values();
         }
@@ -396,6 +535,10 @@ public class DependencyGraphBuilder {
             return queue.isEmpty() ? null : queue.getFirst();
         }
 
+        public Collection<ConfigurationNode> getQueued() {
+            return queue;
+        }
+
         public ConfigurationNode pop() {
             ConfigurationNode next = queue.removeFirst();
             queued.remove(next);
@@ -424,6 +567,16 @@ public class DependencyGraphBuilder {
         }
     }
 
+    private static class PrefetchedMetaData {
+        final DependencyMetadata dependencyMetadata;
+        final BuildableComponentResolveResult result;
+
+        PrefetchedMetaData(DependencyMetadata dependencyMetadata, BuildableComponentResolveResult result) {
+            this.dependencyMetadata = dependencyMetadata;
+            this.result = result;
+        }
+    }
+
     enum ModuleState {
         New,
         Selected,
@@ -509,7 +662,7 @@ public class DependencyGraphBuilder {
         public ModuleVersionResolveState getVersion(ModuleVersionIdentifier id) {
             ModuleVersionResolveState moduleRevision = versions.get(id);
             if (moduleRevision == null) {
-                moduleRevision = new ModuleVersionResolveState(idGenerator.generateId(), this, id, metaDataResolver);
+                moduleRevision = new ModuleVersionResolveState(idGenerator.generateId(), this, resolveState.moduleIdentifierFactory.moduleWithVersion(this.id, id.getVersion()), metaDataResolver);
                 versions.put(id, moduleRevision);
             }
 
@@ -604,8 +757,11 @@ public class DependencyGraphBuilder {
                 return;
             }
 
-            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
-            resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetadata), result);
+            BuildableComponentResolveResult result = module.resolveState.takePrefetched(idResolveResult.getId(), firstReference.dependencyMetadata);
+            if (result == null) {
+                result = new DefaultBuildableComponentResolveResult();
+                resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetadata), result);
+            }
             if (result.getFailure() != null) {
                 failure = result.getFailure();
                 return;
@@ -732,13 +888,7 @@ public class DependencyGraphBuilder {
                 return;
             }
 
-            List<DependencyEdge> transitiveIncoming = new ArrayList<DependencyEdge>();
-            for (DependencyEdge edge : incomingEdges) {
-                if (edge.isTransitive()) {
-                    transitiveIncoming.add(edge);
-                }
-            }
-
+            List<DependencyEdge> transitiveIncoming = getTransitiveIncomingEdges();
             if (transitiveIncoming.isEmpty() && this != resolveState.root) {
                 if (previousTraversalExclusions != null) {
                     removeOutgoingEdges();
@@ -763,7 +913,7 @@ public class DependencyGraphBuilder {
             }
 
             for (DependencyMetadata dependency : metaData.getDependencies()) {
-                ModuleIdentifier targetModuleId = DefaultModuleIdentifier.newId(dependency.getRequested().getGroup(), dependency.getRequested().getName());
+                ModuleIdentifier targetModuleId = resolveState.moduleIdentifierFactory.module(dependency.getRequested().getGroup(), dependency.getRequested().getName());
                 if (isExcluded(resolutionFilter, targetModuleId)) {
                     continue;
                 }
@@ -774,6 +924,39 @@ public class DependencyGraphBuilder {
             previousTraversalExclusions = resolutionFilter;
         }
 
+        /**
+         * Collects the selectors of the outgoing dependencies that visiting this configuration would add, without changing the graph.
+         */
+        public void collectOutgoingSelectors(Collection<ModuleVersionSelectorResolveState> target) {
+            if (moduleRevision.state != ModuleState.Selected) {
+                return;
+            }
+            List<DependencyEdge> transitiveIncoming = getTransitiveIncomingEdges();
+            if (transitiveIncoming.isEmpty() && this != resolveState.root) {
+                return;
+            }
+            ModuleExclusion resolutionFilter = getModuleResolutionFilter(transitiveIncoming);
+            if (previousTraversalExclusions != null && previousTraversalExclusions.excludesSameModulesAs(resolutionFilter)) {
+                return;
+            }
+            for (DependencyMetadata dependency : metaData.getDependencies()) {
+                ModuleIdentifier targetModuleId = resolveState.moduleIdentifierFactory.module(dependency.getRequested().getGroup(), dependency.getRequested().getName());
+                if (!resolutionFilter.excludeModule(targetModuleId)) {
+                    target.add(resolveState.getSelector(dependency));
+                }
+            }
+        }
+
+        private List<DependencyEdge> getTransitiveIncomingEdges() {
+            List<DependencyEdge> transitiveIncoming = new ArrayList<DependencyEdge>();
+            for (DependencyEdge edge : incomingEdges) {
+                if (edge.isTransitive()) {
+                    transitiveIncoming.add(edge);
+                }
+            }
+            return transitiveIncoming;
+        }
+
         private boolean isExcluded(ModuleExclusion selector, ModuleIdentifier targetModuleId) {
             if(selector.excludeModule(targetModuleId)) {
                 LOGGER.debug("{} is excluded from {}.", targetModuleId, this);
@@ -805,10 +988,10 @@ public class DependencyGraphBuilder {
                 resolutionFilter = transitiveEdges.get(0).getExclusions();
                 for (int i = 1; i < transitiveEdges.size(); i++) {
                     DependencyEdge dependencyEdge = transitiveEdges.get(i);
-                    resolutionFilter = ModuleExclusions.union(resolutionFilter, dependencyEdge.getExclusions());
+                    resolutionFilter = resolveState.moduleExclusions.union(resolutionFilter, dependencyEdge.getExclusions());
                 }
             }
-            resolutionFilter = ModuleExclusions.intersect(resolutionFilter, ModuleExclusions.excludeAny(metaData.getExcludes()));
+            resolutionFilter = resolveState.moduleExclusions.intersect(resolutionFilter, ModuleExclusions.excludeAny(metaData.getExcludes()));
             return resolutionFilter;
         }
 
@@ -870,7 +1053,7 @@ public class DependencyGraphBuilder {
             this.dependencyMetadata = dependencyMetadata;
             this.resolver = resolver;
             this.resolveState = resolveState;
-            targetModule = resolveState.getModule(new DefaultModuleIdentifier(dependencyMetadata.getRequested().getGroup(), dependencyMetadata.getRequested().getName()));
+            targetModule = resolveState.getModule(resolveState.moduleIdentifierFactory.module(dependencyMetadata.getRequested().getGroup(), dependencyMetadata.getRequested().getName()));
         }
 
         @Override
@@ -905,8 +1088,7 @@ public class DependencyGraphBuilder {
                 return null;
             }
 
-            idResolveResult = new DefaultBuildableComponentIdResolveResult();
-            resolver.resolve(dependencyMetadata, idResolveResult);
+            resolveId();
             if (idResolveResult.getFailure() != null) {
                 failure = idResolveResult.getFailure();
                 return null;
@@ -921,6 +1103,17 @@ public class DependencyGraphBuilder {
             return targetModuleRevision;
         }
 
+        /**
+         * Resolves the component id for this selector, without adding the component to the graph.
+         */
+        public ComponentIdResolveResult resolveId() {
+            if (idResolveResult == null) {
+                idResolveResult = new DefaultBuildableComponentIdResolveResult();
+                resolver.resolve(dependencyMetadata, idResolveResult);
+            }
+            return idResolveResult;
+        }
+
         public void restart(ModuleVersionResolveState moduleRevision) {
             this.targetModuleRevision = moduleRevision;
             this.targetModule = moduleRevision.module;
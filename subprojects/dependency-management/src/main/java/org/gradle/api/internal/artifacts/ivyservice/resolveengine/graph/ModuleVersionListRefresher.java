@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
+
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
+import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentIdResolveResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Resolves a batch of dynamic version selectors concurrently, so that resolving dynamic versions does not wait for the version list of each module in turn
+ * once the cached lists have expired.
+ *
+ * <p>The batch is made of the dependencies that the current resolution is about to traverse, with their own artifacts and attributes, so that a version list is
+ * only ever fetched for a module that is actually requested, exactly as the traversal would fetch it.</p>
+ *
+ * <p>The resolver is called from several threads, so it must not run rules or resolve project components. It is the resolver of the repositories,
+ * and the batch is only resolved when no rule can change the dynamic versions that are selected.</p>
+ *
+ * <p>The calling thread must be using the artifact cache. It gives up the cache for the duration of the batch, and each resolution uses the cache in turn, as for
+ * {@link ComponentMetaDataPrefetcher}.</p>
+ */
+public class ModuleVersionListRefresher {
+    /**
+     * Resolves the dynamic versions requested by each level of the dependency graph together.
+     */
+    public static final String BULK_VERSION_LIST_REFRESH_PROPERTY = "org.gradle.internal.resolution.bulkVersionListRefresh";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModuleVersionListRefresher.class);
+
+    private final CacheLockingManager cacheLockingManager;
+    private final ExecutorFactory executorFactory;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final int maxConcurrentRefreshes;
+
+    public ModuleVersionListRefresher(CacheLockingManager cacheLockingManager, ExecutorFactory executorFactory, VersionSelectorScheme versionSelectorScheme, int maxConcurrentRefreshes) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.executorFactory = executorFactory;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.maxConcurrentRefreshes = maxConcurrentRefreshes;
+    }
+
+    /**
+     * Resolves those of the given dependencies that request a dynamic version of a module. The result does not include a dependency whose resolution threw an exception,
+     * so that the failure is reported when the graph traversal resolves the dependency itself.
+     */
+    public Map<DependencyMetadata, BuildableComponentIdResolveResult> resolveDynamicVersions(final DependencyToComponentIdResolver resolver, Collection<? extends DependencyMetadata> dependencies) {
+        final List<DependencyMetadata> dynamic = new ArrayList<DependencyMetadata>();
+        for (DependencyMetadata dependency : dependencies) {
+            if (dependency.getSelector() instanceof ModuleComponentSelector
+                && versionSelectorScheme.parseSelector(((ModuleComponentSelector) dependency.getSelector()).getVersion()).isDynamic()) {
+                dynamic.add(dependency);
+            }
+        }
+        if (dynamic.size() < 2 || maxConcurrentRefreshes < 2) {
+            return new LinkedHashMap<DependencyMetadata, BuildableComponentIdResolveResult>();
+        }
+        LOGGER.debug("Resolving {} dynamic versions concurrently.", dynamic.size());
+        return cacheLockingManager.longRunningOperation("Resolve " + dynamic.size() + " dynamic versions", new Factory<Map<DependencyMetadata, BuildableComponentIdResolveResult>>() {
+            public Map<DependencyMetadata, BuildableComponentIdResolveResult> create() {
+                return resolveConcurrently(resolver, dynamic);
+            }
+        });
+    }
+
+    private Map<DependencyMetadata, BuildableComponentIdResolveResult> resolveConcurrently(final DependencyToComponentIdResolver resolver, List<DependencyMetadata> dependencies) {
+        StoppableExecutor executor = executorFactory.create("Dynamic version resolver", Math.min(maxConcurrentRefreshes, dependencies.size()));
+        Map<DependencyMetadata, Future<BuildableComponentIdResolveResult>> resolutions = new LinkedHashMap<DependencyMetadata, Future<BuildableComponentIdResolveResult>>();
+        try {
+            for (final DependencyMetadata dependency : dependencies) {
+                resolutions.put(dependency, executor.submit(new Callable<BuildableComponentIdResolveResult>() {
+                    public BuildableComponentIdResolveResult call() {
+                        final BuildableComponentIdResolveResult result = new DefaultBuildableComponentIdResolveResult();
+                        try {
+                            cacheLockingManager.useCache("Resolve " + dependency.getRequested(), new Runnable() {
+                                public void run() {
+                                    resolver.resolve(dependency, result);
+                                }
+                            });
+                        } catch (RuntimeException e) {
+                            LOGGER.debug("Could not resolve {} ahead of time.", dependency.getRequested(), e);
+                            return null;
+                        }
+                        return result.hasResult() ? result : null;
+                    }
+                }));
+            }
+
+            Map<DependencyMetadata, BuildableComponentIdResolveResult> results = new LinkedHashMap<DependencyMetadata, BuildableComponentIdResolveResult>();
+            for (Map.Entry<DependencyMetadata, Future<BuildableComponentIdResolveResult>> entry : resolutions.entrySet()) {
+                BuildableComponentIdResolveResult result = entry.getValue().get();
+                if (result != null) {
+                    results.put(entry.getKey(), result);
+                }
+            }
+            return results;
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            executor.stop();
+        }
+    }
+}
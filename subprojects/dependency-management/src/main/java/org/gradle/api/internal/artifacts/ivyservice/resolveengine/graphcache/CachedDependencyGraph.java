@@ -0,0 +1,446 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graphcache;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusion;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactMetadata;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
+import org.gradle.internal.component.model.ComponentArtifactMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.resolve.resolver.ArtifactResolver;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A snapshot of the events produced by resolving a dependency graph, which can be replayed to a {@link DependencyGraphVisitor} and {@link DependencyArtifactsVisitor}
+ * instead of resolving the graph again.
+ *
+ * <p>Only graphs made of external components with fixed versions are recorded, so the snapshot does not hold any failures or local component meta-data.
+ * The meta-data of the root component is provided when the snapshot is replayed.</p>
+ */
+public class CachedDependencyGraph {
+    private final long rootNodeId;
+    private final List<Component> components;
+    private final List<Node> nodes;
+    private final List<Edge> edges;
+    private final Map<Long, List<ModuleComponentArtifactIdentifier>> artifactSets;
+    private final List<ArtifactSetVisit> artifactSetVisits;
+
+    public CachedDependencyGraph(long rootNodeId, List<Component> components, List<Node> nodes, List<Edge> edges,
+                                 Map<Long, List<ModuleComponentArtifactIdentifier>> artifactSets, List<ArtifactSetVisit> artifactSetVisits) {
+        this.rootNodeId = rootNodeId;
+        this.components = components;
+        this.nodes = nodes;
+        this.edges = edges;
+        this.artifactSets = artifactSets;
+        this.artifactSetVisits = artifactSetVisits;
+    }
+
+    public long getRootNodeId() {
+        return rootNodeId;
+    }
+
+    public List<Component> getComponents() {
+        return components;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public List<Edge> getEdges() {
+        return edges;
+    }
+
+    public Map<Long, List<ModuleComponentArtifactIdentifier>> getArtifactSets() {
+        return artifactSets;
+    }
+
+    public List<ArtifactSetVisit> getArtifactSetVisits() {
+        return artifactSetVisits;
+    }
+
+    /**
+     * Replays the graph to the given visitors, in the same order as the graph was originally visited.
+     */
+    public void replay(ComponentResolveMetadata rootComponent, ConfigurationMetadata rootConfiguration, ArtifactResolver artifactResolver,
+                       DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor) {
+        Map<Long, ReplayedComponent> componentsById = Maps.newHashMap();
+        for (Component component : components) {
+            componentsById.put(component.result.getResultId(), new ReplayedComponent(component));
+        }
+        Map<Long, ReplayedNode> nodesById = Maps.newLinkedHashMap();
+        for (Node node : nodes) {
+            ReplayedComponent owner = componentsById.get(node.componentId);
+            ReplayedNode replayedNode = new ReplayedNode(node, owner, node.resultId == rootNodeId ? rootConfiguration : null);
+            nodesById.put(node.resultId, replayedNode);
+        }
+        ReplayedNode root = nodesById.get(rootNodeId);
+        root.owner.metadata = rootComponent;
+
+        List<DependencyMetadata> rootDependencies = rootConfiguration.getDependencies();
+        for (Edge edge : edges) {
+            ReplayedNode from = nodesById.get(edge.fromNodeId);
+            ModuleDependency moduleDependency = null;
+            if (edge.dependencyIndex >= 0) {
+                moduleDependency = ((DslOriginDependencyMetadata) rootDependencies.get(edge.dependencyIndex)).getSource();
+            }
+            ReplayedEdge replayedEdge = new ReplayedEdge(edge, from, moduleDependency);
+            from.outgoingEdges.add(replayedEdge);
+            for (Long targetNodeId : edge.targetNodeIds) {
+                ReplayedNode target = nodesById.get(targetNodeId);
+                target.incomingEdges.add(replayedEdge);
+                target.owner.dependents.add(from.owner);
+            }
+        }
+
+        Map<ComponentArtifactIdentifier, ResolvedArtifact> allResolvedArtifacts = Maps.newHashMap();
+        Map<Long, ArtifactSet> artifactSetsById = Maps.newHashMap();
+        ListMultimap<Long, ArtifactSetVisit> artifactSetVisitsByChild = ArrayListMultimap.create();
+        for (ArtifactSetVisit visit : artifactSetVisits) {
+            artifactSetVisitsByChild.put(visit.childNodeId, visit);
+        }
+
+        graphVisitor.start(root);
+        for (ReplayedNode node : nodesById.values()) {
+            graphVisitor.visitNode(node);
+        }
+        for (ReplayedNode node : nodesById.values()) {
+            graphVisitor.visitEdge(node);
+            for (ArtifactSetVisit visit : artifactSetVisitsByChild.get(node.getResultId())) {
+                ArtifactSet artifactSet = artifactSetsById.get(visit.artifactSetId);
+                if (artifactSet == null) {
+                    artifactSet = createArtifactSet(visit.artifactSetId, node.owner, artifactResolver, allResolvedArtifacts);
+                    artifactSetsById.put(visit.artifactSetId, artifactSet);
+                }
+                artifactsVisitor.visitArtifacts(nodesById.get(visit.parentNodeId), node, artifactSet);
+            }
+        }
+        graphVisitor.finish(root);
+        artifactsVisitor.finishArtifacts();
+    }
+
+    private ArtifactSet createArtifactSet(long id, ReplayedComponent owner, ArtifactResolver artifactResolver, Map<ComponentArtifactIdentifier, ResolvedArtifact> allResolvedArtifacts) {
+        Set<ComponentArtifactMetadata> artifacts = new LinkedHashSet<ComponentArtifactMetadata>();
+        for (ModuleComponentArtifactIdentifier artifactId : artifactSets.get(id)) {
+            artifacts.add(new DefaultModuleComponentArtifactMetadata(artifactId));
+        }
+        return new DefaultArtifactSet(owner.getModuleVersion(), owner.component.source, ModuleExclusions.excludeNone(), artifacts, artifactResolver, allResolvedArtifacts, id);
+    }
+
+    public static class Component {
+        private final ComponentResult result;
+        private final ModuleSource source;
+
+        public Component(ComponentResult result, @Nullable ModuleSource source) {
+            this.result = result;
+            this.source = source;
+        }
+
+        public ComponentResult getResult() {
+            return result;
+        }
+
+        @Nullable
+        public ModuleSource getSource() {
+            return source;
+        }
+    }
+
+    public static class Node {
+        private final long resultId;
+        private final long componentId;
+        private final String configuration;
+
+        public Node(long resultId, long componentId, String configuration) {
+            this.resultId = resultId;
+            this.componentId = componentId;
+            this.configuration = configuration;
+        }
+
+        public long getResultId() {
+            return resultId;
+        }
+
+        public long getComponentId() {
+            return componentId;
+        }
+
+        public String getConfiguration() {
+            return configuration;
+        }
+    }
+
+    public static class Edge {
+        private final long fromNodeId;
+        private final ComponentSelector requested;
+        private final long selectedComponentId;
+        private final int dependencyIndex;
+        private final List<Long> targetNodeIds;
+
+        /**
+         * @param dependencyIndex The index of the dependency of the root configuration that this edge was created for, or -1 when the edge does not start at the root.
+         */
+        public Edge(long fromNodeId, ComponentSelector requested, long selectedComponentId, int dependencyIndex, List<Long> targetNodeIds) {
+            this.fromNodeId = fromNodeId;
+            this.requested = requested;
+            this.selectedComponentId = selectedComponentId;
+            this.dependencyIndex = dependencyIndex;
+            this.targetNodeIds = targetNodeIds;
+        }
+
+        public long getFromNodeId() {
+            return fromNodeId;
+        }
+
+        public ComponentSelector getRequested() {
+            return requested;
+        }
+
+        public long getSelectedComponentId() {
+            return selectedComponentId;
+        }
+
+        public int getDependencyIndex() {
+            return dependencyIndex;
+        }
+
+        public List<Long> getTargetNodeIds() {
+            return targetNodeIds;
+        }
+    }
+
+    public static class ArtifactSetVisit {
+        private final long parentNodeId;
+        private final long childNodeId;
+        private final long artifactSetId;
+
+        public ArtifactSetVisit(long parentNodeId, long childNodeId, long artifactSetId) {
+            this.parentNodeId = parentNodeId;
+            this.childNodeId = childNodeId;
+            this.artifactSetId = artifactSetId;
+        }
+
+        public long getParentNodeId() {
+            return parentNodeId;
+        }
+
+        public long getChildNodeId() {
+            return childNodeId;
+        }
+
+        public long getArtifactSetId() {
+            return artifactSetId;
+        }
+    }
+
+    private static class ReplayedComponent implements DependencyGraphComponent {
+        private final Component component;
+        private final Set<ReplayedComponent> dependents = new LinkedHashSet<ReplayedComponent>();
+        private ComponentResolveMetadata metadata;
+
+        private ReplayedComponent(Component component) {
+            this.component = component;
+        }
+
+        @Override
+        public String toString() {
+            return component.result.getComponentId().getDisplayName();
+        }
+
+        @Override
+        public Long getResultId() {
+            return component.result.getResultId();
+        }
+
+        @Override
+        public ModuleVersionIdentifier getModuleVersion() {
+            return component.result.getModuleVersion();
+        }
+
+        @Override
+        public ComponentSelectionReason getSelectionReason() {
+            return component.result.getSelectionReason();
+        }
+
+        @Override
+        public ComponentIdentifier getComponentId() {
+            return component.result.getComponentId();
+        }
+
+        /**
+         * Returns the meta-data of the root component only. The meta-data of the other components is not loaded when a graph is replayed.
+         */
+        @Override
+        public ComponentResolveMetadata getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public Set<? extends DependencyGraphComponent> getDependents() {
+            return dependents;
+        }
+    }
+
+    private static class ReplayedNode implements DependencyGraphNode {
+        private final Node node;
+        private final ReplayedComponent owner;
+        private final ConfigurationMetadata metadata;
+        private final Set<ReplayedEdge> incomingEdges = new LinkedHashSet<ReplayedEdge>();
+        private final Set<ReplayedEdge> outgoingEdges = new LinkedHashSet<ReplayedEdge>();
+
+        private ReplayedNode(Node node, ReplayedComponent owner, @Nullable ConfigurationMetadata metadata) {
+            this.node = node;
+            this.owner = owner;
+            this.metadata = metadata;
+        }
+
+        @Override
+        public String toString() {
+            return owner + "(" + node.configuration + ")";
+        }
+
+        @Override
+        public Long getResultId() {
+            return node.resultId;
+        }
+
+        @Override
+        public ResolvedConfigurationIdentifier getNodeId() {
+            return new ResolvedConfigurationIdentifier(owner.getModuleVersion(), node.configuration);
+        }
+
+        @Override
+        public DependencyGraphComponent getOwner() {
+            return owner;
+        }
+
+        @Override
+        public Set<? extends DependencyGraphEdge> getIncomingEdges() {
+            return incomingEdges;
+        }
+
+        @Override
+        public Set<? extends DependencyGraphEdge> getOutgoingEdges() {
+            return outgoingEdges;
+        }
+
+        /**
+         * Returns the meta-data of the root configuration only. The meta-data of the other configurations is not loaded when a graph is replayed.
+         */
+        @Override
+        public ConfigurationMetadata getMetadata() {
+            return metadata;
+        }
+    }
+
+    private static class ReplayedEdge implements DependencyGraphEdge {
+        private final Edge edge;
+        private final ReplayedNode from;
+        private final ModuleDependency moduleDependency;
+
+        private ReplayedEdge(Edge edge, ReplayedNode from, @Nullable ModuleDependency moduleDependency) {
+            this.edge = edge;
+            this.from = from;
+            this.moduleDependency = moduleDependency;
+        }
+
+        @Override
+        public String toString() {
+            return from + " -> " + edge.requested.getDisplayName();
+        }
+
+        @Override
+        public DependencyGraphNode getFrom() {
+            return from;
+        }
+
+        @Override
+        public ModuleVersionSelector getRequestedModuleVersion() {
+            ModuleComponentSelector selector = (ModuleComponentSelector) edge.requested;
+            return DefaultModuleVersionSelector.newSelector(selector.getGroup(), selector.getModule(), selector.getVersion());
+        }
+
+        @Override
+        public ModuleExclusion getExclusions() {
+            return ModuleExclusions.excludeNone();
+        }
+
+        @Override
+        public Set<ComponentArtifactMetadata> getArtifacts(ConfigurationMetadata metaData) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public ModuleDependency getModuleDependency() {
+            return moduleDependency;
+        }
+
+        @Override
+        public ComponentSelector getRequested() {
+            return edge.requested;
+        }
+
+        @Override
+        public ModuleVersionResolveException getFailure() {
+            return null;
+        }
+
+        @Override
+        public Long getSelected() {
+            return edge.selectedComponentId;
+        }
+
+        @Override
+        public ComponentSelectionReason getReason() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graphcache;
+
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentResultSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectorSerializer;
+import org.gradle.api.internal.artifacts.metadata.ModuleVersionArtifactIdentifierSerializer;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CachedDependencyGraphSerializer implements Serializer<CachedDependencyGraph> {
+    private final ComponentResultSerializer componentResultSerializer = new ComponentResultSerializer();
+    private final ComponentSelectorSerializer componentSelectorSerializer = new ComponentSelectorSerializer();
+    private final ModuleVersionArtifactIdentifierSerializer artifactIdSerializer = new ModuleVersionArtifactIdentifierSerializer();
+    private final DefaultSerializer<ModuleSource> moduleSourceSerializer = new DefaultSerializer<ModuleSource>(ModuleSource.class.getClassLoader());
+
+    public void write(Encoder encoder, CachedDependencyGraph value) throws Exception {
+        encoder.writeSmallLong(value.getRootNodeId());
+
+        encoder.writeSmallInt(value.getComponents().size());
+        for (CachedDependencyGraph.Component component : value.getComponents()) {
+            componentResultSerializer.write(encoder, component.getResult());
+            if (component.getSource() == null) {
+                encoder.writeBoolean(false);
+            } else {
+                encoder.writeBoolean(true);
+                moduleSourceSerializer.write(encoder, component.getSource());
+            }
+        }
+
+        encoder.writeSmallInt(value.getNodes().size());
+        for (CachedDependencyGraph.Node node : value.getNodes()) {
+            encoder.writeSmallLong(node.getResultId());
+            encoder.writeSmallLong(node.getComponentId());
+            encoder.writeString(node.getConfiguration());
+        }
+
+        encoder.writeSmallInt(value.getEdges().size());
+        for (CachedDependencyGraph.Edge edge : value.getEdges()) {
+            encoder.writeSmallLong(edge.getFromNodeId());
+            componentSelectorSerializer.write(encoder, edge.getRequested());
+            encoder.writeSmallLong(edge.getSelectedComponentId());
+            encoder.writeInt(edge.getDependencyIndex());
+            encoder.writeSmallInt(edge.getTargetNodeIds().size());
+            for (Long targetNodeId : edge.getTargetNodeIds()) {
+                encoder.writeSmallLong(targetNodeId);
+            }
+        }
+
+        encoder.writeSmallInt(value.getArtifactSets().size());
+        for (Map.Entry<Long, List<ModuleComponentArtifactIdentifier>> entry : value.getArtifactSets().entrySet()) {
+            encoder.writeSmallLong(entry.getKey());
+            encoder.writeSmallInt(entry.getValue().size());
+            for (ModuleComponentArtifactIdentifier artifactId : entry.getValue()) {
+                artifactIdSerializer.write(encoder, artifactId);
+            }
+        }
+
+        encoder.writeSmallInt(value.getArtifactSetVisits().size());
+        for (CachedDependencyGraph.ArtifactSetVisit visit : value.getArtifactSetVisits()) {
+            encoder.writeSmallLong(visit.getParentNodeId());
+            encoder.writeSmallLong(visit.getChildNodeId());
+            encoder.writeSmallLong(visit.getArtifactSetId());
+        }
+    }
+
+    public CachedDependencyGraph read(Decoder decoder) throws Exception {
+        long rootNodeId = decoder.readSmallLong();
+
+        int count = decoder.readSmallInt();
+        List<CachedDependencyGraph.Component> components = new ArrayList<CachedDependencyGraph.Component>(count);
+        for (int i = 0; i < count; i++) {
+            components.add(new CachedDependencyGraph.Component(componentResultSerializer.read(decoder), decoder.readBoolean() ? moduleSourceSerializer.read(decoder) : null));
+        }
+
+        count = decoder.readSmallInt();
+        List<CachedDependencyGraph.Node> nodes = new ArrayList<CachedDependencyGraph.Node>(count);
+        for (int i = 0; i < count; i++) {
+            nodes.add(new CachedDependencyGraph.Node(decoder.readSmallLong(), decoder.readSmallLong(), decoder.readString()));
+        }
+
+        count = decoder.readSmallInt();
+        List<CachedDependencyGraph.Edge> edges = new ArrayList<CachedDependencyGraph.Edge>(count);
+        for (int i = 0; i < count; i++) {
+            long fromNodeId = decoder.readSmallLong();
+            CachedDependencyGraph.Edge edge = new CachedDependencyGraph.Edge(fromNodeId, componentSelectorSerializer.read(decoder), decoder.readSmallLong(), decoder.readInt(), new ArrayList<Long>());
+            int targets = decoder.readSmallInt();
+            for (int j = 0; j < targets; j++) {
+                edge.getTargetNodeIds().add(decoder.readSmallLong());
+            }
+            edges.add(edge);
+        }
+
+        count = decoder.readSmallInt();
+        Map<Long, List<ModuleComponentArtifactIdentifier>> artifactSets = new LinkedHashMap<Long, List<ModuleComponentArtifactIdentifier>>(count);
+        for (int i = 0; i < count; i++) {
+            long id = decoder.readSmallLong();
+            int artifacts = decoder.readSmallInt();
+            List<ModuleComponentArtifactIdentifier> artifactIds = new ArrayList<ModuleComponentArtifactIdentifier>(artifacts);
+            for (int j = 0; j < artifacts; j++) {
+                artifactIds.add(artifactIdSerializer.read(decoder));
+            }
+            artifactSets.put(id, artifactIds);
+        }
+
+        count = decoder.readSmallInt();
+        List<CachedDependencyGraph.ArtifactSetVisit> artifactSetVisits = new ArrayList<CachedDependencyGraph.ArtifactSetVisit>(count);
+        for (int i = 0; i < count; i++) {
+            artifactSetVisits.add(new CachedDependencyGraph.ArtifactSetVisit(decoder.readSmallLong(), decoder.readSmallLong(), decoder.readSmallLong()));
+        }
+
+        return new CachedDependencyGraph(rootNodeId, components, nodes, edges, artifactSets, artifactSetVisits);
+    }
+}
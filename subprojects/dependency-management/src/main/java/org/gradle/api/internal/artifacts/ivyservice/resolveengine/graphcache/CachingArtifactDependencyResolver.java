@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graphcache;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.internal.artifacts.ArtifactDependencyResolver;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.ResolveContext;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingArtifactResolver;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ErrorHandlingArtifactResolver;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.Exclude;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.component.model.LocalOriginDependencyMetadata;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.resolve.resolver.ArtifactResolver;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * An {@link ArtifactDependencyResolver} that keeps the result of resolving a dependency graph in a persistent cache and replays it instead of resolving
+ * the graph again, for as long as the declared inputs of the resolution have not changed.
+ *
+ * <p>The cache is keyed by a fingerprint of the dependencies and excludes declared by the configuration, the resolution strategy and the repositories. Graphs that
+ * depend on anything else, such as dynamic or changing versions, local components or rules, are not cached. See {@link DependencyGraphRecorder}.</p>
+ */
+public class CachingArtifactDependencyResolver implements ArtifactDependencyResolver {
+    /**
+     * Keeps resolved dependency graphs in a persistent cache and reuses them while the declared dependencies, resolution strategy and repositories do not change.
+     */
+    public static final String DEPENDENCY_GRAPH_CACHE_PROPERTY = "org.gradle.internal.resolution.graphCache";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingArtifactDependencyResolver.class);
+
+    private final ArtifactDependencyResolver delegate;
+    private final CacheLockingManager cacheLockingManager;
+    private final ResolveIvyFactory ivyFactory;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final boolean refreshDependencies;
+    private PersistentIndexedCache<String, CachedDependencyGraph> cache;
+
+    public CachingArtifactDependencyResolver(ArtifactDependencyResolver delegate, CacheLockingManager cacheLockingManager, ResolveIvyFactory ivyFactory,
+                                             VersionSelectorScheme versionSelectorScheme, boolean refreshDependencies) {
+        this.delegate = delegate;
+        this.cacheLockingManager = cacheLockingManager;
+        this.ivyFactory = ivyFactory;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.refreshDependencies = refreshDependencies;
+    }
+
+    private PersistentIndexedCache<String, CachedDependencyGraph> getCache() {
+        if (cache == null) {
+            cache = cacheLockingManager.createCache("resolved-dependency-graphs", BaseSerializerFactory.STRING_SERIALIZER, new CachedDependencyGraphSerializer());
+        }
+        return cache;
+    }
+
+    @Override
+    public void resolve(ResolveContext resolveContext, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler,
+                        DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor) {
+        ComponentResolveMetadata rootComponent = resolveContext.toRootComponentMetaData();
+        ConfigurationMetadata rootConfiguration = rootComponent.getConfiguration(resolveContext.getName());
+        String key = rootConfiguration == null || hasRules(resolveContext.getResolutionStrategy(), metadataHandler) ? null
+            : createKey(resolveContext, rootComponent, rootConfiguration, repositories);
+        if (key == null) {
+            delegate.resolve(resolveContext, repositories, metadataHandler, graphVisitor, artifactsVisitor);
+            return;
+        }
+
+        ModuleReplacementsData moduleReplacements = metadataHandler.getModuleMetadataProcessor().getModuleReplacements();
+        if (!refreshDependencies) {
+            CachedDependencyGraph graph = getCache().get(key);
+            if (graph != null && !hasReplacements(graph, moduleReplacements)) {
+                LOGGER.debug("Using cached dependency graph for {}", resolveContext);
+                ArtifactResolver artifactResolver = new ErrorHandlingArtifactResolver(new CacheLockingArtifactResolver(cacheLockingManager,
+                    ivyFactory.create(resolveContext.getResolutionStrategy(), repositories, metadataHandler.getComponentMetadataProcessor()).getArtifactResolver()));
+                graph.replay(rootComponent, rootConfiguration, artifactResolver, graphVisitor, artifactsVisitor);
+                return;
+            }
+        }
+
+        DependencyGraphRecorder recorder = new DependencyGraphRecorder(graphVisitor, artifactsVisitor, versionSelectorScheme, moduleReplacements);
+        delegate.resolve(resolveContext, repositories, metadataHandler, recorder, recorder);
+        CachedDependencyGraph graph = recorder.getGraph();
+        if (graph != null) {
+            getCache().put(key, graph);
+        }
+    }
+
+    /**
+     * Rules cannot be fingerprinted, so a graph that any rule may change is not cached. Module replacements are checked against the cached graph instead.
+     */
+    private boolean hasRules(ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules metadataHandler) {
+        return resolutionStrategy.resolveGraphToDetermineTaskDependencies()
+            || !resolutionStrategy.getComponentSelection().getRules().isEmpty()
+            || resolutionStrategy.hasDependencySubstitutionRules()
+            || metadataHandler.getDependencySubstitutionRules().hasRules()
+            || metadataHandler.getComponentMetadataProcessor().hasRules();
+    }
+
+    private boolean hasReplacements(CachedDependencyGraph graph, ModuleReplacementsData moduleReplacements) {
+        for (CachedDependencyGraph.Component component : graph.getComponents()) {
+            if (moduleReplacements.getReplacementFor(component.getResult().getModuleVersion().getModule()) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calculates the key for the graph of the given configuration, or returns null when the inputs of the resolution cannot be fingerprinted.
+     */
+    @Nullable
+    private String createKey(ResolveContext resolveContext, ComponentResolveMetadata rootComponent, ConfigurationMetadata rootConfiguration,
+                             List<? extends ResolutionAwareRepository> repositories) {
+        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(rootComponent.getComponentId().getDisplayName()).append('|').append(rootComponent.getId()).append('|').append(rootConfiguration.getName());
+        fingerprint.append('|').append(rootConfiguration.isTransitive()).append('\n');
+
+        fingerprint.append(resolutionStrategy.getConflictResolution().getClass().getName()).append('\n');
+        for (ModuleVersionSelector forcedModule : resolutionStrategy.getForcedModules()) {
+            fingerprint.append("force ").append(forcedModule.getGroup()).append(':').append(forcedModule.getName()).append(':').append(forcedModule.getVersion()).append('\n');
+        }
+
+        for (DependencyMetadata dependency : rootConfiguration.getDependencies()) {
+            if (!(dependency instanceof LocalOriginDependencyMetadata) || dependency.isChanging()) {
+                return null;
+            }
+            LocalOriginDependencyMetadata localDependency = (LocalOriginDependencyMetadata) dependency;
+            fingerprint.append("dependency ").append(dependency.getSelector().getDisplayName());
+            fingerprint.append('|').append(localDependency.getModuleConfiguration()).append('|').append(localDependency.getDependencyConfiguration());
+            fingerprint.append('|').append(dependency.isTransitive()).append('|').append(dependency.isForce());
+            for (IvyArtifactName artifact : dependency.getArtifacts()) {
+                fingerprint.append("|artifact ").append(artifact);
+            }
+            for (Exclude exclude : localDependency.getExcludes()) {
+                append(fingerprint.append('|'), exclude);
+            }
+            fingerprint.append('\n');
+        }
+        for (Exclude exclude : rootConfiguration.getExcludes()) {
+            append(fingerprint, exclude).append('\n');
+        }
+
+        for (ResolutionAwareRepository repository : repositories) {
+            fingerprint.append("repository ").append(repository.createResolver().getId()).append('\n');
+        }
+        return HashUtil.createHash(fingerprint.toString(), "SHA1").asHexString();
+    }
+
+    private StringBuilder append(StringBuilder fingerprint, Exclude exclude) {
+        return fingerprint.append("exclude ").append(exclude.getModuleId()).append('|').append(exclude.getArtifact())
+            .append('|').append(exclude.getConfigurations()).append('|').append(exclude.getMatcher());
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graphcache;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DefaultComponentResult;
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Forwards the events of a dependency graph resolution to a {@link DependencyGraphVisitor} and {@link DependencyArtifactsVisitor}, and records them as a {@link CachedDependencyGraph}.
+ *
+ * <p>A graph is only recorded when it can be replayed without resolving it again: every component other than the root must be an external component
+ * that was selected without any rules, no version may be dynamic or changing and no dependency may have failed.</p>
+ */
+public class DependencyGraphRecorder implements DependencyGraphVisitor, DependencyArtifactsVisitor {
+    private final DependencyGraphVisitor graphVisitor;
+    private final DependencyArtifactsVisitor artifactsVisitor;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ModuleReplacementsData moduleReplacements;
+    private final Map<Long, CachedDependencyGraph.Component> components = Maps.newLinkedHashMap();
+    private final List<CachedDependencyGraph.Node> nodes = Lists.newArrayList();
+    private final Map<DependencyGraphEdge, CachedDependencyGraph.Edge> edges = new IdentityHashMap<DependencyGraphEdge, CachedDependencyGraph.Edge>();
+    private final List<CachedDependencyGraph.Edge> edgesInOrder = Lists.newArrayList();
+    private final Map<Long, ArtifactSet> artifactSets = Maps.newLinkedHashMap();
+    private final List<CachedDependencyGraph.ArtifactSetVisit> artifactSetVisits = Lists.newArrayList();
+    private DependencyGraphNode root;
+    private List<ModuleDependency> rootDependencies;
+    private boolean cacheable = true;
+
+    public DependencyGraphRecorder(DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor, VersionSelectorScheme versionSelectorScheme, ModuleReplacementsData moduleReplacements) {
+        this.graphVisitor = graphVisitor;
+        this.artifactsVisitor = artifactsVisitor;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.moduleReplacements = moduleReplacements;
+    }
+
+    /**
+     * Returns the recorded graph, or null when the graph cannot be cached.
+     *
+     * <p>The artifacts of the visited artifact sets are only determined here, so that a resolution that does not end up in the cache does not
+     * resolve them any earlier than it would without the recorder.</p>
+     */
+    @Nullable
+    public CachedDependencyGraph getGraph() {
+        if (!cacheable || root == null) {
+            return null;
+        }
+        Map<Long, List<ModuleComponentArtifactIdentifier>> artifactIds = Maps.newLinkedHashMap();
+        for (ArtifactSet artifactSet : artifactSets.values()) {
+            List<ModuleComponentArtifactIdentifier> ids = getArtifactIds(artifactSet);
+            if (ids == null) {
+                return null;
+            }
+            artifactIds.put(artifactSet.getId(), ids);
+        }
+        return new CachedDependencyGraph(root.getResultId(), new ArrayList<CachedDependencyGraph.Component>(components.values()), nodes, edgesInOrder, artifactIds, artifactSetVisits);
+    }
+
+    @Override
+    public void start(DependencyGraphNode root) {
+        this.root = root;
+        rootDependencies = Lists.newArrayList();
+        for (DependencyMetadata dependency : root.getMetadata().getDependencies()) {
+            rootDependencies.add(dependency instanceof DslOriginDependencyMetadata ? ((DslOriginDependencyMetadata) dependency).getSource() : null);
+        }
+        graphVisitor.start(root);
+    }
+
+    @Override
+    public void visitNode(DependencyGraphNode node) {
+        if (cacheable) {
+            recordNode(node);
+        }
+        graphVisitor.visitNode(node);
+    }
+
+    @Override
+    public void visitEdge(DependencyGraphNode node) {
+        if (cacheable) {
+            for (DependencyGraphEdge dependency : node.getIncomingEdges()) {
+                CachedDependencyGraph.Edge edge = edges.get(dependency);
+                if (edge == null) {
+                    cacheable = false;
+                    break;
+                }
+                edge.getTargetNodeIds().add(node.getResultId());
+            }
+        }
+        graphVisitor.visitEdge(node);
+    }
+
+    @Override
+    public void finish(DependencyGraphNode root) {
+        graphVisitor.finish(root);
+    }
+
+    @Override
+    public void visitArtifacts(DependencyGraphNode parent, DependencyGraphNode child, ArtifactSet artifacts) {
+        if (cacheable) {
+            recordArtifacts(parent, child, artifacts);
+        }
+        artifactsVisitor.visitArtifacts(parent, child, artifacts);
+    }
+
+    @Override
+    public void finishArtifacts() {
+        artifactsVisitor.finishArtifacts();
+    }
+
+    private void recordNode(DependencyGraphNode node) {
+        DependencyGraphComponent owner = node.getOwner();
+        if (node != root && owner.getResultId().equals(root.getOwner().getResultId())) {
+            // Another configuration of the root component, whose meta-data is not available when the graph is replayed
+            cacheable = false;
+            return;
+        }
+        if (!components.containsKey(owner.getResultId())) {
+            boolean isRoot = node == root;
+            if (!isRoot && !isCacheable(owner)) {
+                cacheable = false;
+                return;
+            }
+            DefaultComponentResult result = new DefaultComponentResult(owner.getResultId(), owner.getModuleVersion(), owner.getSelectionReason(), owner.getComponentId());
+            components.put(owner.getResultId(), new CachedDependencyGraph.Component(result, isRoot ? null : owner.getMetadata().getSource()));
+        }
+        nodes.add(new CachedDependencyGraph.Node(node.getResultId(), owner.getResultId(), node.getNodeId().getConfiguration()));
+
+        for (DependencyGraphEdge dependency : node.getOutgoingEdges()) {
+            ComponentSelector requested = dependency.getRequested();
+            if (dependency.getFailure() != null || dependency.getSelected() == null || !(requested instanceof ModuleComponentSelector)
+                || versionSelectorScheme.parseSelector(((ModuleComponentSelector) requested).getVersion()).isDynamic()) {
+                cacheable = false;
+                return;
+            }
+            int dependencyIndex = -1;
+            if (node == root && dependency.getModuleDependency() != null) {
+                dependencyIndex = indexOf(dependency.getModuleDependency());
+                if (dependencyIndex < 0) {
+                    cacheable = false;
+                    return;
+                }
+            }
+            CachedDependencyGraph.Edge edge = new CachedDependencyGraph.Edge(node.getResultId(), requested, dependency.getSelected(), dependencyIndex, new ArrayList<Long>());
+            edges.put(dependency, edge);
+            edgesInOrder.add(edge);
+        }
+    }
+
+    private boolean isCacheable(DependencyGraphComponent component) {
+        ComponentIdentifier componentId = component.getComponentId();
+        if (!(componentId instanceof ModuleComponentIdentifier) || component.getSelectionReason().isSelectedByRule()) {
+            return false;
+        }
+        ComponentResolveMetadata metadata = component.getMetadata();
+        if (metadata == null || metadata.isChanging() || metadata.getSource() == null) {
+            return false;
+        }
+        return moduleReplacements.getReplacementFor(component.getModuleVersion().getModule()) == null;
+    }
+
+    private int indexOf(ModuleDependency moduleDependency) {
+        for (int i = 0; i < rootDependencies.size(); i++) {
+            if (rootDependencies.get(i) == moduleDependency) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void recordArtifacts(DependencyGraphNode parent, DependencyGraphNode child, ArtifactSet artifacts) {
+        if (!artifactSets.containsKey(artifacts.getId())) {
+            artifactSets.put(artifacts.getId(), artifacts);
+        }
+        artifactSetVisits.add(new CachedDependencyGraph.ArtifactSetVisit(parent.getResultId(), child.getResultId(), artifacts.getId()));
+    }
+
+    @Nullable
+    private static List<ModuleComponentArtifactIdentifier> getArtifactIds(ArtifactSet artifacts) {
+        List<ModuleComponentArtifactIdentifier> artifactIds = Lists.newArrayList();
+        for (ResolvedArtifact artifact : artifacts.getArtifacts()) {
+            if (!(artifact.getId() instanceof DefaultModuleComponentArtifactIdentifier)) {
+                return null;
+            }
+            artifactIds.add((ModuleComponentArtifactIdentifier) artifact.getId());
+        }
+        return artifactIds;
+    }
+}
@@ -16,9 +16,11 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
 import org.gradle.api.internal.artifacts.ModuleVersionIdentifierSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
 import org.gradle.internal.serialize.Decoder;
@@ -29,10 +31,18 @@ import java.io.IOException;
 
 public class ComponentResultSerializer implements Serializer<ComponentResult> {
 
-    private final ModuleVersionIdentifierSerializer idSerializer = new ModuleVersionIdentifierSerializer();
+    private final ModuleVersionIdentifierSerializer idSerializer;
     private final ComponentSelectionReasonSerializer reasonSerializer = new ComponentSelectionReasonSerializer();
     private final ComponentIdentifierSerializer componentIdSerializer = new ComponentIdentifierSerializer();
 
+    public ComponentResultSerializer() {
+        this(null);
+    }
+
+    public ComponentResultSerializer(@Nullable ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+        idSerializer = new ModuleVersionIdentifierSerializer(moduleIdentifierFactory);
+    }
+
     public ComponentResult read(Decoder decoder) throws IOException {
         long resultId = decoder.readSmallLong();
         ModuleVersionIdentifier id = idSerializer.read(decoder);
@@ -16,9 +16,11 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.component.ComponentSelector;
 import org.gradle.api.artifacts.result.ResolutionResult;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
@@ -57,15 +59,24 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
     private final Store<ResolvedComponentResult> cache;
     private final DependencyResultSerializer dependencyResultSerializer = new DependencyResultSerializer();
     private final Set<Long> visitedComponents = new HashSet<Long>();
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
 
     public StreamingResolutionResultBuilder(BinaryStore store, Store<ResolvedComponentResult> cache) {
+        this(store, cache, null);
+    }
+
+    /**
+     * Creates a builder that uses the given factory for the module identifiers of the results that are read back from the store.
+     */
+    public StreamingResolutionResultBuilder(BinaryStore store, Store<ResolvedComponentResult> cache, @Nullable ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
         this.store = store;
         this.cache = cache;
+        this.moduleIdentifierFactory = moduleIdentifierFactory;
     }
 
     public ResolutionResult complete() {
         BinaryStore.BinaryData data = store.done();
-        RootFactory rootSource = new RootFactory(data, failures, cache);
+        RootFactory rootSource = new RootFactory(data, failures, cache, moduleIdentifierFactory);
         return new DefaultResolutionResult(rootSource);
     }
 
@@ -122,7 +133,7 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
     private static class RootFactory implements Factory<ResolvedComponentResult> {
 
         private final static Logger LOG = Logging.getLogger(RootFactory.class);
-        private final ComponentResultSerializer componentResultSerializer = new ComponentResultSerializer();
+        private final ComponentResultSerializer componentResultSerializer;
 
         private final BinaryStore.BinaryData data;
         private final Map<ComponentSelector, ModuleVersionResolveException> failures;
@@ -131,10 +142,11 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
         private final DependencyResultSerializer dependencyResultSerializer = new DependencyResultSerializer();
 
         public RootFactory(BinaryStore.BinaryData data, Map<ComponentSelector, ModuleVersionResolveException> failures,
-                           Store<ResolvedComponentResult> cache) {
+                           Store<ResolvedComponentResult> cache, @Nullable ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
             this.data = data;
             this.failures = failures;
             this.cache = cache;
+            this.componentResultSerializer = new ComponentResultSerializer(moduleIdentifierFactory);
         }
 
         public ResolvedComponentResult create() {
@@ -81,6 +81,19 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
             return new DefaultLocallyAvailableExternalResource(location, new DefaultLocallyAvailableResource(cached.getCachedFile()), cached.getExternalResourceMetaData());
         }
 
+        // Without local candidates to compare against, ask for the resource only if it has changed
+        if (cached != null && cached.getExternalResourceMetaData() != null && (localCandidates == null || localCandidates.isNone())) {
+            ExternalResourceRevalidation<ExternalResource> revalidation = delegate.withProgressLogging().revalidateResource(location, cached.getExternalResourceMetaData());
+            if (revalidation == null) {
+                return null;
+            }
+            if (revalidation.isUnchanged()) {
+                LOGGER.info("Cached resource {} is up-to-date (lastModified: {}).", location, cached.getExternalLastModified());
+                return revalidated(location, cached, cached.getExternalResourceMetaData());
+            }
+            return copyToCache(location, fileStore, revalidation.getResource());
+        }
+
         // Get the metadata first to see if it's there
         final ExternalResourceMetaData remoteMetaData = delegate.getResourceMetaData(location);
         if (remoteMetaData == null) {
@@ -100,8 +113,7 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
 
             if (isUnchanged) {
                 LOGGER.info("Cached resource {} is up-to-date (lastModified: {}).", location, cached.getExternalLastModified());
-                // TODO - update the index with the new remote meta-data
-                return new DefaultLocallyAvailableExternalResource(location, new DefaultLocallyAvailableResource(cached.getCachedFile()), cached.getExternalResourceMetaData());
+                return revalidated(location, cached, remoteMetaData);
             }
         }
 
@@ -159,6 +171,18 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
         }
     }
 
+    /**
+     * Records that the cached resource is up-to-date, so that it is not checked again until it expires.
+     */
+    private LocallyAvailableExternalResource revalidated(final URI source, final CachedExternalResource cached, final ExternalResourceMetaData metaData) {
+        return cacheLockingManager.useCache("Revalidate " + source, new Factory<LocallyAvailableExternalResource>() {
+            public LocallyAvailableExternalResource create() {
+                cachedExternalResourceIndex.store(source.toString(), cached.getCachedFile(), metaData);
+                return new DefaultLocallyAvailableExternalResource(source, new DefaultLocallyAvailableResource(cached.getCachedFile()), metaData);
+            }
+        });
+    }
+
     private LocallyAvailableExternalResource copyCandidateToCache(URI source, ResourceFileStore fileStore, ExternalResourceMetaData remoteMetaData, HashValue remoteChecksum, LocallyAvailableResource local) throws IOException {
         final File destination = temporaryFileProvider.createTemporaryFile("gradle_download", "bin");
         try {
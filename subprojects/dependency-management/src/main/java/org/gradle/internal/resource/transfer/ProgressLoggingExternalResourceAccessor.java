@@ -46,6 +46,15 @@ public class ProgressLoggingExternalResourceAccessor extends AbstractProgressLog
         return delegate.getMetaData(location);
     }
 
+    @Nullable
+    public ExternalResourceRevalidation<ExternalResourceReadResponse> revalidateResource(URI location, ExternalResourceMetaData cachedMetaData) {
+        ExternalResourceRevalidation<ExternalResourceReadResponse> revalidation = delegate.revalidateResource(location, cachedMetaData);
+        if (revalidation == null || revalidation.isUnchanged()) {
+            return revalidation;
+        }
+        return ExternalResourceRevalidation.<ExternalResourceReadResponse>changed(new ProgressLoggingExternalResource(location, revalidation.getResource()));
+    }
+
     private class ProgressLoggingExternalResource implements ExternalResourceReadResponse {
         private final ExternalResourceReadResponse resource;
         private final ResourceOperation downloadOperation;
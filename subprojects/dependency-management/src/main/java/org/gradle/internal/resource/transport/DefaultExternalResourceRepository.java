@@ -64,6 +64,17 @@ public class DefaultExternalResourceRepository implements ExternalResourceReposi
         return response == null ? null : new DefaultExternalResource(source, response);
     }
 
+    public ExternalResourceRevalidation<ExternalResource> revalidateResource(URI source, ExternalResourceMetaData cachedMetaData) {
+        ExternalResourceRevalidation<ExternalResourceReadResponse> revalidation = accessor.revalidateResource(source, cachedMetaData);
+        if (revalidation == null) {
+            return null;
+        }
+        if (revalidation.isUnchanged()) {
+            return ExternalResourceRevalidation.unchanged();
+        }
+        return ExternalResourceRevalidation.<ExternalResource>changed(new DefaultExternalResource(source, revalidation.getResource()));
+    }
+
     public ExternalResourceMetaData getResourceMetaData(URI source) {
         return accessor.getMetaData(source);
     }
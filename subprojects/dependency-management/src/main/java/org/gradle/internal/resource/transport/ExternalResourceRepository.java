@@ -21,6 +21,7 @@ import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.resource.ExternalResource;
 import org.gradle.internal.resource.local.LocalResource;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.transfer.ExternalResourceRevalidation;
 
 import java.io.IOException;
 import java.net.URI;
@@ -41,6 +42,15 @@ public interface ExternalResourceRepository {
     @Nullable
     ExternalResource getResource(URI source) throws ResourceException;
 
+    /**
+     * Attempts to fetch the given resource, unless it has not changed since the given meta-data was fetched.
+     *
+     * @return null if the resource is not found.
+     * @throws ResourceException On failure to fetch resource.
+     */
+    @Nullable
+    ExternalResourceRevalidation<ExternalResource> revalidateResource(URI source, ExternalResourceMetaData cachedMetaData) throws ResourceException;
+
     /**
      * Transfer a resource to the repository
      *
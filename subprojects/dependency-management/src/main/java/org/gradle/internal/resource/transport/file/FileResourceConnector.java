@@ -22,6 +22,7 @@ import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
 import org.gradle.internal.resource.local.DefaultLocallyAvailableResource;
 import org.gradle.internal.resource.local.LocalResource;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.transfer.ExternalResourceRevalidation;
 import org.gradle.internal.resource.transport.ExternalResourceRepository;
 import org.gradle.util.GFileUtils;
 
@@ -79,6 +80,12 @@ public class FileResourceConnector implements ExternalResourceRepository {
         return new DefaultLocallyAvailableExternalResource(uri, new DefaultLocallyAvailableResource(localFile));
     }
 
+    @Override
+    public ExternalResourceRevalidation<ExternalResource> revalidateResource(URI uri, ExternalResourceMetaData cachedMetaData) {
+        ExternalResource resource = getResource(uri);
+        return resource == null ? null : ExternalResourceRevalidation.changed(resource);
+    }
+
     public ExternalResourceMetaData getResourceMetaData(URI location) {
         ExternalResource resource = getResource(location);
         return resource == null ? null : resource.getMetaData();
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.artifacts.ResolvedModuleVersion
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact
+import org.gradle.internal.Factory
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.model.IvyArtifactName
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.logging.progress.ProgressLogger
+import org.gradle.internal.logging.progress.ProgressLoggerFactory
+import org.gradle.internal.resolve.ArtifactResolveException
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArraySet
+
+class ArtifactPrefetcherTest extends Specification {
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        longRunningOperation(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+        useCache(_, _ as Factory) >> { String name, Factory action -> action.create() }
+    }
+    def progressLoggerFactory = Stub(ProgressLoggerFactory) {
+        newOperation(_ as Class) >> Stub(ProgressLogger)
+    }
+    def prefetcher = new ArtifactPrefetcher(cacheLockingManager, new DefaultExecutorFactory(), progressLoggerFactory, 4)
+    def threads = new CopyOnWriteArraySet<Thread>()
+
+    def "downloads the missing artifacts of external components on other threads"() {
+        def a = externalArtifact("a")
+        def b = externalArtifact("b")
+        def c = externalArtifact("c")
+
+        when:
+        prefetcher.prefetch("config", [a, b, c])
+
+        then:
+        a.resolved
+        b.resolved
+        c.resolved
+        !threads.contains(Thread.currentThread())
+    }
+
+    def "does not download artifacts of local components or artifacts that are already resolved"() {
+        def local = new DefaultResolvedArtifact(Stub(ResolvedModuleVersion), Stub(IvyArtifactName), Stub(ComponentArtifactIdentifier), source("local"))
+        def resolved = externalArtifact("resolved")
+        resolved.file
+        def a = externalArtifact("a")
+        def b = externalArtifact("b")
+
+        when:
+        prefetcher.prefetch("config", [local, resolved, a, b])
+
+        then:
+        !local.resolved
+        a.resolved
+        b.resolved
+    }
+
+    def "leaves a failed download for the caller to repeat"() {
+        def failure = new ArtifactResolveException("broken")
+        def broken = new DefaultResolvedArtifact(Stub(ResolvedModuleVersion), Stub(IvyArtifactName), artifactId("broken"), { throw failure } as Factory)
+        def a = externalArtifact("a")
+
+        when:
+        prefetcher.prefetch("config", [broken, a])
+
+        then:
+        !broken.resolved
+        a.resolved
+
+        when:
+        broken.file
+
+        then:
+        def e = thrown ArtifactResolveException
+        e == failure
+    }
+
+    def externalArtifact(String name) {
+        return new DefaultResolvedArtifact(Stub(ResolvedModuleVersion), Stub(IvyArtifactName), artifactId(name), source(name))
+    }
+
+    def artifactId(String name) {
+        return new DefaultModuleComponentArtifactIdentifier(DefaultModuleComponentIdentifier.newId("group", name, "1.0"), name, "jar", "jar")
+    }
+
+    def source(String name) {
+        return {
+            threads << Thread.currentThread()
+            new File(name)
+        } as Factory
+    }
+}
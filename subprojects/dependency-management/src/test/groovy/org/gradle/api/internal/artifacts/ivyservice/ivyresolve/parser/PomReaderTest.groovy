@@ -161,6 +161,50 @@ class PomReaderTest extends AbstractPomReaderTest {
         assertResolvedPomDependency(key, 'version-two')
     }
 
+    def "ignores elements with the same name outside of the elements that are read"() {
+        when:
+        pomFile << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+    <description>Caf&eacute; <![CDATA[&]]> co</description>
+    <build>
+        <groupId>build-group</groupId>
+        <plugins>
+            <plugin>
+                <groupId>plugin-group</groupId>
+                <dependencies>
+                    <dependency>
+                        <groupId>plugin-dependency-group</groupId>
+                        <artifactId>plugin-dependency</artifactId>
+                        <version>1.0</version>
+                    </dependency>
+                </dependencies>
+            </plugin>
+        </plugins>
+    </build>
+    <dependencies>
+        <dependency>
+            <groupId>group-two</groupId>
+            <artifactId>artifact-two</artifactId>
+            <version>version-two</version>
+            <configuration><version>other</version></configuration>
+        </dependency>
+    </dependencies>
+</project>
+"""
+        pomReader = new PomReader(locallyAvailableExternalResource)
+        MavenDependencyKey key = new MavenDependencyKey('group-two', 'artifact-two', 'jar', null)
+
+        then:
+        pomReader.groupId == 'group-one'
+        pomReader.description == 'Café & co'
+        pomReader.getDependencies().size() == 1
+        assertResolvedPomDependency(key, 'version-two')
+    }
+
     def "get dependencies with custom properties"() {
         when:
         pomFile << """
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository
+import org.gradle.internal.component.external.descriptor.MutableModuleDescriptorState
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultMutableMavenModuleResolveMetadata
+import org.gradle.internal.resource.local.PathKeyFileStore
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ModuleMetadataPackTest extends Specification {
+
+    @Rule TestNameTestDirectoryProvider temporaryFolder
+    ModuleComponentRepository repository = Stub() {
+        getId() >> "repositoryId"
+    }
+    def packFile = temporaryFolder.file("descriptors.pack")
+    def pack = new ModuleMetadataPack(packFile, new ModuleMetadataSerializer())
+
+    def cleanup() {
+        pack.close()
+    }
+
+    def "returns null for descriptors that have not been stored"() {
+        expect:
+        pack.getModuleDescriptor(repository, id("a")) == null
+        !packFile.exists()
+    }
+
+    def "reads descriptors that have been stored"() {
+        when:
+        pack.putModuleDescriptor(repository, metadata("a", "jar"))
+        pack.putModuleDescriptor(repository, metadata("b", "pom"))
+
+        then:
+        pack.getModuleDescriptor(repository, id("a")).packaging == "jar"
+        pack.getModuleDescriptor(repository, id("b")).packaging == "pom"
+        pack.getModuleDescriptor(repository, id("c")) == null
+    }
+
+    def "reads descriptors stored by another instance"() {
+        def other = new ModuleMetadataPack(packFile, new ModuleMetadataSerializer())
+
+        when:
+        other.putModuleDescriptor(repository, metadata("a", "jar"))
+        pack.getModuleDescriptor(repository, id("a"))
+        other.putModuleDescriptor(repository, metadata("b", "pom"))
+        other.close()
+
+        then:
+        pack.getModuleDescriptor(repository, id("b")).packaging == "pom"
+    }
+
+    def "later descriptor replaces earlier descriptor for the same module"() {
+        when:
+        pack.putModuleDescriptor(repository, metadata("a", "jar"))
+        pack.putModuleDescriptor(repository, metadata("a", "bundle"))
+        pack.close()
+
+        then:
+        pack.getModuleDescriptor(repository, id("a")).packaging == "bundle"
+    }
+
+    def "returns same hash as descriptor file"() {
+        def descriptor = metadata("a", "jar")
+        def store = new ModuleMetadataStore(new PathKeyFileStore(temporaryFolder.file("descriptors")), new ModuleMetadataSerializer())
+
+        expect:
+        pack.putModuleDescriptor(repository, descriptor) == store.putModuleDescriptor(repository, descriptor).sha1
+    }
+
+    def "discards partially written entry"() {
+        given:
+        pack.putModuleDescriptor(repository, metadata("a", "jar"))
+        pack.putModuleDescriptor(repository, metadata("b", "pom"))
+        pack.close()
+        def length = packFile.length()
+        // Cut off the end marker and part of the checksum of the last entry
+        new RandomAccessFile(packFile, "rw").withCloseable { it.setLength(length - 7) }
+
+        when:
+        def b = pack.getModuleDescriptor(repository, id("b"))
+        pack.putModuleDescriptor(repository, metadata("c", "war"))
+        pack.close()
+
+        then:
+        b == null
+        pack.getModuleDescriptor(repository, id("a")).packaging == "jar"
+        pack.getModuleDescriptor(repository, id("b")) == null
+        pack.getModuleDescriptor(repository, id("c")).packaging == "war"
+    }
+
+    def "ignores corrupt entry"() {
+        given:
+        pack.putModuleDescriptor(repository, metadata("a", "jar"))
+        pack.close()
+        new RandomAccessFile(packFile, "rw").withCloseable {
+            // The last byte of the descriptor, before its checksum and the end marker
+            it.seek(packFile.length() - 13)
+            def b = it.read()
+            it.seek(packFile.length() - 13)
+            it.write(b ^ 0xff)
+        }
+
+        expect:
+        pack.getModuleDescriptor(repository, id("a")) == null
+    }
+
+    def "reads a descriptor that another instance has replaced"() {
+        def other = new ModuleMetadataPack(packFile, new ModuleMetadataSerializer())
+
+        when:
+        pack.putModuleDescriptor(repository, metadata("a", "jar"))
+        def first = pack.getModuleDescriptor(repository, id("a"))
+        other.putModuleDescriptor(repository, metadata("a", "bundle"))
+        other.close()
+
+        then:
+        first.packaging == "jar"
+        pack.getModuleDescriptor(repository, id("a")).packaging == "bundle"
+    }
+
+    def "ignores descriptor that does not match the expected hash"() {
+        when:
+        def hash = pack.putModuleDescriptor(repository, metadata("a", "jar"))
+        pack.putModuleDescriptor(repository, metadata("b", "pom"))
+
+        then:
+        pack.getModuleDescriptor(repository, id("a"), hash.asBigInteger()).packaging == "jar"
+        pack.getModuleDescriptor(repository, id("a"), BigInteger.ONE) == null
+    }
+
+    def "overwrites an invalid pack without truncating it"() {
+        given:
+        packFile.bytes = new byte[100]
+
+        when:
+        pack.putModuleDescriptor(repository, metadata("a", "jar"))
+        pack.close()
+
+        then:
+        packFile.length() >= 100
+        pack.getModuleDescriptor(repository, id("a")).packaging == "jar"
+    }
+
+    def "compacts the pack when most of it holds replaced descriptors"() {
+        def other = new ModuleMetadataPack(packFile, new ModuleMetadataSerializer())
+        def large = (1..2000).collect { "dependency-$it" }.join(",")
+
+        when:
+        pack.putModuleDescriptor(repository, metadata("b", "pom"))
+        other.getModuleDescriptor(repository, id("b"))
+        200.times {
+            pack.putModuleDescriptor(repository, metadata("a", large + it))
+        }
+
+        then:
+        !packFile.exists()
+        temporaryFolder.testDirectory.listFiles()*.name.findAll { it.startsWith("descriptors.pack") }.size() == 1
+        pack.getModuleDescriptor(repository, id("a")).packaging == large + 199
+        pack.getModuleDescriptor(repository, id("b")).packaging == "pom"
+
+        and:
+        other.getModuleDescriptor(repository, id("a")).packaging == large + 199
+        other.getModuleDescriptor(repository, id("b")).packaging == "pom"
+
+        cleanup:
+        other.close()
+    }
+
+    def id(String module) {
+        return DefaultModuleComponentIdentifier.newId("org.test", module, "1.0")
+    }
+
+    def metadata(String module, String packaging) {
+        def id = id(module)
+        return new DefaultMutableMavenModuleResolveMetadata(id, new MutableModuleDescriptorState(id), packaging, false).asImmutable()
+    }
+}
@@ -22,16 +22,23 @@ import org.gradle.api.artifacts.ModuleVersionSelector
 import org.gradle.api.artifacts.ResolveException
 import org.gradle.api.artifacts.component.ComponentIdentifier
 import org.gradle.api.artifacts.component.ComponentSelector
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory
 import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
 import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
 import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentMetaDataPrefetcher
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphPathResolver
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ModuleVersionListRefresher
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.DefaultConflictHandler
 import org.gradle.api.internal.artifacts.publish.DefaultPublishArtifact
 import org.gradle.api.internal.tasks.DefaultTaskDependency
+import org.gradle.internal.Factory
 import org.gradle.internal.component.external.descriptor.DefaultExclude
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
@@ -43,6 +50,7 @@ import org.gradle.internal.component.model.ComponentResolveMetadata
 import org.gradle.internal.component.model.DependencyMetadata
 import org.gradle.internal.component.model.IvyArtifactName
 import org.gradle.internal.component.model.LocalComponentDependencyMetadata
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.resolve.ModuleVersionNotFoundException
 import org.gradle.internal.resolve.ModuleVersionResolveException
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver
@@ -913,6 +921,159 @@ class DependencyGraphBuilderTest extends Specification {
         result.components == ids(root, forced, b)
     }
 
+    def "fetches meta-data of the dependencies of a configuration concurrently"() {
+        given:
+        useMetaDataPrefetcher()
+        def a = revision('a')
+        def b = revision('b')
+        def c = revision('c')
+        def d = revision('d')
+        traverses root, a
+        traverses root, b
+        traverses root, c
+        traverses a, d
+        doesNotResolve b, d
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        result.components == ids(root, a, b, c, d)
+    }
+
+    def "prefetching meta-data does not change the result of conflict resolution"() {
+        given:
+        useMetaDataPrefetcher()
+        def selectedA = revision('a', '1.2')
+        def evictedA1 = revision('a', '1.1')
+        def evictedA2 = revision('a', '1.0')
+        def selectedB = revision('b', '2.2')
+        def evictedB = revision('b', '2.1')
+        def c = revision('c')
+        traverses root, evictedA1
+        traverses root, selectedA
+        traverses selectedA, c
+        traverses root, evictedB
+        traverses root, selectedB
+        doesNotTraverse selectedB, evictedA2
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * conflictResolver.select({ it*.version == ['1.1', '1.2'] }) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            return candidates.find { it.version == '1.2' }
+        }
+        1 * conflictResolver.select({ it*.version == ['2.1', '2.2'] }) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            return candidates.find { it.version == '2.2' }
+        }
+        1 * conflictResolver.select({ it*.version == ['1.1', '1.2', '1.0'] }) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            return candidates.find { it.version == '1.2' }
+        }
+        0 * conflictResolver._
+
+        and:
+        result.components == ids(root, selectedA, c, selectedB)
+    }
+
+    def "fetches meta-data of the dependencies of all configurations of a level in one batch"() {
+        given:
+        def prefetcher = useMetaDataPrefetcher()
+        def a = revision('a')
+        def b = revision('b')
+        def c = revision('c')
+        def d = revision('d')
+        traverses root, a
+        traverses root, b
+        traverses a, c
+        traverses b, d
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * prefetcher.prefetch(_, { it.keySet()*.module == ['a', 'b'] })
+        1 * prefetcher.prefetch(_, { it.keySet()*.module == ['c', 'd'] })
+
+        and:
+        result.components == ids(root, a, b, c, d)
+    }
+
+    def "resolves the dynamic versions requested by a level concurrently"() {
+        given:
+        def refresher = useVersionListRefresher()
+        def a = revision('a')
+        def b = revision('b')
+        def c = revision('c')
+        def d = revision('d')
+        def e = revision('e')
+        traverses root, a, revision: '1.+'
+        traverses root, b, revision: 'latest.integration'
+        traverses root, c
+        traverses a, d, revision: '[1.0,2.0)'
+        traverses b, e, revision: '1.+'
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * refresher.resolveDynamicVersions(_, { it*.requested*.name == ['a', 'b', 'c'] })
+        1 * refresher.resolveDynamicVersions(_, { it*.requested*.name == ['d', 'e'] })
+
+        and:
+        result.components == ids(root, a, b, c, d, e)
+    }
+
+    def "resolves dynamic versions concurrently with the repository resolver only"() {
+        given:
+        def repositoryIdResolver = Mock(DependencyToComponentIdResolver)
+        useVersionListRefresher(repositoryIdResolver)
+        def a = revision('a')
+        def b = revision('b')
+        traverses root, a, revision: '1.+'
+        traverses root, b, revision: '1.+'
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * repositoryIdResolver.resolve({ it.requested.name == 'a' }, _)
+        1 * repositoryIdResolver.resolve({ it.requested.name == 'b' }, _)
+
+        and:
+        // Dynamic versions that the repository resolver did not resolve are resolved by the traversal
+        result.components == ids(root, a, b)
+    }
+
+    def useVersionListRefresher(DependencyToComponentIdResolver repositoryIdResolver = idResolver) {
+        def refresher = Spy(ModuleVersionListRefresher, constructorArgs: [cacheLockingManager(), new DefaultExecutorFactory(), new DefaultVersionSelectorScheme(new DefaultVersionComparator()), 4])
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), null, refresher, repositoryIdResolver,
+            new DefaultImmutableModuleIdentifierFactory())
+        return refresher
+    }
+
+    def cacheLockingManager() {
+        return Stub(CacheLockingManager) {
+            longRunningOperation(_, _ as Factory) >> { String name, Factory action -> action.create() }
+            useCache(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+        }
+    }
+
+    def useMetaDataPrefetcher() {
+        def cacheLockingManager = cacheLockingManager()
+        def prefetcher = Spy(ComponentMetaDataPrefetcher, constructorArgs: [cacheLockingManager, new DefaultExecutorFactory(), 4])
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), prefetcher)
+        return prefetcher
+    }
+
     def revision(String name, String revision = '1.0') {
         // TODO Shouldn't really be using the local component implementation here
         def id = newId("group", name, revision)
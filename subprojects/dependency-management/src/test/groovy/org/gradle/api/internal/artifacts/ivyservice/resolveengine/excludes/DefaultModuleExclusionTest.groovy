@@ -689,12 +689,29 @@ class DefaultModuleExclusionTest extends Specification {
         union(intersection, simpleExclude)
     }
 
+    def "returns same instance for equal specs combined by the same object"() {
+        def exclusions = new ModuleExclusions()
+        def rule1 = excludeModuleRule("module1")
+        def rule2 = excludeModuleRule("module2")
+        def spec = excludeAny(rule1)
+        def otherSpec = excludeAny(rule2)
+
+        expect:
+        exclusions.intersect(spec, otherSpec).is(exclusions.intersect(spec, otherSpec))
+        exclusions.intersect(spec, otherSpec).is(exclusions.intersect(excludeAny(rule1), excludeAny(rule2)))
+        exclusions.intersect(spec, otherSpec).is(exclusions.intersect(excludeAny(rule1, rule2), ModuleExclusions.excludeNone()))
+        exclusions.union(excludeAny(rule1, rule2), spec).is(spec)
+        exclusions.union(excludeAny(rule1, rule2), excludeAny(rule1)).is(spec)
+        !exclusions.intersect(spec, otherSpec).is(new ModuleExclusions().intersect(spec, otherSpec))
+        exclusions.intersect(spec, otherSpec) == new ModuleExclusions().intersect(spec, otherSpec)
+    }
+
     static ModuleExclusion union(ModuleExclusion spec, ModuleExclusion otherRule) {
-        ModuleExclusions.union(spec, otherRule)
+        new ModuleExclusions().union(spec, otherRule)
     }
 
     static ModuleExclusion intersect(ModuleExclusion spec, ModuleExclusion otherRule) {
-        ModuleExclusions.intersect(spec, otherRule)
+        new ModuleExclusions().intersect(spec, otherRule)
     }
 
     static specForRule(def spec, Exclude rule) {
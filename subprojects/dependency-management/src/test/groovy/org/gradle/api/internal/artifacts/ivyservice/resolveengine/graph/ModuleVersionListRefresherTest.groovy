@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph
+
+import org.gradle.api.artifacts.component.ProjectComponentSelector
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.internal.Factory
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.model.DependencyMetadata
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver
+import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult
+import spock.lang.Specification
+
+class ModuleVersionListRefresherTest extends Specification {
+    def cacheLockingManager = Mock(CacheLockingManager) {
+        _ * useCache(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+    }
+    def resolver = Mock(DependencyToComponentIdResolver)
+    def refresher = new ModuleVersionListRefresher(cacheLockingManager, new DefaultExecutorFactory(), new DefaultVersionSelectorScheme(new DefaultVersionComparator()), 4)
+
+    def "resolves the dynamic versions of the given dependencies concurrently"() {
+        def dynamic1 = dependency("a", "1.+")
+        def dynamic2 = dependency("b", "latest.release")
+        def dynamic3 = dependency("c", "[1.0,2.0)")
+        def fixed = dependency("d", "1.0")
+
+        when:
+        def results = refresher.resolveDynamicVersions(resolver, [dynamic1, fixed, dynamic2, dynamic3])
+
+        then:
+        1 * cacheLockingManager.longRunningOperation(_, _ as Factory) >> { String name, Factory action -> action.create() }
+        1 * resolver.resolve(dynamic1, _) >> { DependencyMetadata dependency, BuildableComponentIdResolveResult result -> resolved(result, "a") }
+        1 * resolver.resolve(dynamic2, _) >> { DependencyMetadata dependency, BuildableComponentIdResolveResult result -> resolved(result, "b") }
+        1 * resolver.resolve(dynamic3, _) >> { DependencyMetadata dependency, BuildableComponentIdResolveResult result -> resolved(result, "c") }
+        0 * resolver._
+
+        and:
+        results.keySet() as List == [dynamic1, dynamic2, dynamic3]
+        results[dynamic1].moduleVersionId.name == "a"
+    }
+
+    def "does not resolve project dependencies or a single dynamic version"() {
+        def project = Stub(DependencyMetadata) {
+            getSelector() >> Stub(ProjectComponentSelector)
+        }
+
+        when:
+        def results = refresher.resolveDynamicVersions(resolver, [project, dependency("a", "1.+"), dependency("b", "1.0")])
+
+        then:
+        results.isEmpty()
+        0 * cacheLockingManager.longRunningOperation(_, _)
+        0 * resolver._
+    }
+
+    def "leaves a dependency that cannot be resolved to the traversal"() {
+        def broken = dependency("a", "1.+")
+        def dynamic = dependency("b", "1.+")
+
+        when:
+        def results = refresher.resolveDynamicVersions(resolver, [broken, dynamic])
+
+        then:
+        1 * cacheLockingManager.longRunningOperation(_, _ as Factory) >> { String name, Factory action -> action.create() }
+        1 * resolver.resolve(broken, _) >> { throw new RuntimeException("broken") }
+        1 * resolver.resolve(dynamic, _) >> { DependencyMetadata dependency, BuildableComponentIdResolveResult result -> resolved(result, "b") }
+
+        and:
+        results.keySet() as List == [dynamic]
+    }
+
+    def resolved(BuildableComponentIdResolveResult result, String module) {
+        result.resolved(DefaultModuleComponentIdentifier.newId("org", module, "1.1"), DefaultModuleVersionIdentifier.newId("org", module, "1.1"))
+    }
+
+    def dependency(String module, String version) {
+        def requested = new DefaultModuleVersionSelector("org", module, version)
+        return Stub(DependencyMetadata) {
+            getRequested() >> requested
+            getSelector() >> DefaultModuleComponentSelector.newSelector(requested)
+            toString() >> "org:$module:$version"
+        }
+    }
+}
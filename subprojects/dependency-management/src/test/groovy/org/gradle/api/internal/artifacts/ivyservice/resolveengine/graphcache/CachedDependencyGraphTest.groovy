@@ -0,0 +1,257 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graphcache
+
+import org.gradle.api.artifacts.ModuleDependency
+import org.gradle.api.artifacts.ResolvedModuleVersion
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyGraphVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DummyBinaryStore
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DummyStore
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolutionResultPrinter
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons
+import org.gradle.internal.Factory
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata
+import org.gradle.internal.component.model.ComponentResolveMetadata
+import org.gradle.internal.component.model.ConfigurationMetadata
+import org.gradle.internal.component.model.IvyArtifactName
+import org.gradle.internal.component.model.ModuleSource
+import org.gradle.internal.resolve.ModuleVersionResolveException
+import org.gradle.internal.resolve.resolver.ArtifactResolver
+import org.gradle.internal.serialize.SerializerSpec
+
+class CachedDependencyGraphTest extends SerializerSpec {
+    def moduleReplacements = Stub(ModuleReplacementsData)
+    def rootDependency = Stub(ModuleDependency)
+    def rootConfiguration = configuration(rootDependency)
+
+    def "replays a recorded graph after it has been serialized"() {
+        def root = node(1, "org", "root", "1.0", rootConfiguration)
+        def a = node(2, "org", "a", "1.0")
+        def b = node(3, "org", "b", "2.0")
+        connect(root, a, rootDependency)
+        connect(a, b)
+        def aArtifacts = artifacts(10, "org", "a", "1.0")
+        def bArtifacts = artifacts(11, "org", "b", "2.0")
+
+        def builder = new StreamingResolutionResultBuilder(new DummyBinaryStore(), new DummyStore())
+        def recorder = new DependencyGraphRecorder(builder, Stub(DependencyArtifactsVisitor), new DefaultVersionSelectorScheme(), moduleReplacements)
+        recorder.start(root)
+        [root, a, b].each { recorder.visitNode(it) }
+        recorder.visitEdge(root)
+        recorder.visitEdge(a)
+        recorder.visitArtifacts(root, a, aArtifacts)
+        recorder.visitEdge(b)
+        recorder.visitArtifacts(a, b, bArtifacts)
+        recorder.finish(root)
+        recorder.finishArtifacts()
+
+        def currentDependency = Stub(ModuleDependency)
+        def currentConfiguration = configuration(currentDependency)
+        def replayedBuilder = new StreamingResolutionResultBuilder(new DummyBinaryStore(), new DummyStore())
+        def artifactsVisitor = Mock(DependencyArtifactsVisitor)
+        def graphVisitor = Mock(DependencyGraphVisitor)
+
+        when:
+        def graph = serialize(recorder.graph, new CachedDependencyGraphSerializer())
+        graph.replay(Stub(ComponentResolveMetadata), currentConfiguration, Stub(ArtifactResolver), new CompositeDependencyGraphVisitor(replayedBuilder, graphVisitor), artifactsVisitor)
+
+        then:
+        ResolutionResultPrinter.printGraph(replayedBuilder.complete().root) == ResolutionResultPrinter.printGraph(builder.complete().root)
+
+        and:
+        1 * graphVisitor.visitEdge({ it.resultId == 2 }) >> { DependencyGraphNode node ->
+            def edge = node.incomingEdges.first()
+            assert edge.from.resultId == 1
+            assert edge.moduleDependency == currentDependency
+            assert node.nodeId == new ResolvedConfigurationIdentifier(DefaultModuleVersionIdentifier.newId("org", "a", "1.0"), "default")
+        }
+        1 * artifactsVisitor.visitArtifacts({ it.resultId == 1 }, { it.resultId == 2 }, { it.id == 10 && it.artifacts*.id == [artifactId("org", "a", "1.0")] })
+        1 * artifactsVisitor.visitArtifacts({ it.resultId == 2 }, { it.resultId == 3 }, { it.id == 11 && it.artifacts*.id == [artifactId("org", "b", "2.0")] })
+        1 * artifactsVisitor.finishArtifacts()
+    }
+
+    def "resolves the artifacts of the visited artifact sets only when the graph is requested"() {
+        def root = node(1, "org", "root", "1.0", rootConfiguration)
+        def a = node(2, "org", "a", "1.0")
+        connect(root, a, rootDependency)
+        def aArtifacts = Mock(ArtifactSet)
+        def artifact = new DefaultResolvedArtifact(Stub(ResolvedModuleVersion), Stub(IvyArtifactName), artifactId("org", "a", "1.0"), Stub(Factory))
+        aArtifacts.id >> 10
+
+        when:
+        def recorder = record(root, a)
+        recorder.visitArtifacts(root, a, aArtifacts)
+        recorder.visitArtifacts(root, a, aArtifacts)
+        recorder.finishArtifacts()
+
+        then:
+        0 * aArtifacts.artifacts
+
+        when:
+        def graph = recorder.graph
+
+        then:
+        1 * aArtifacts.artifacts >> ([artifact] as Set)
+
+        and:
+        graph.artifactSets == [10L: [artifactId("org", "a", "1.0")]]
+        graph.artifactSetVisits.size() == 2
+    }
+
+    def "does not record a graph with a dynamic version"() {
+        def root = node(1, "org", "root", "1.0", rootConfiguration)
+        def a = node(2, "org", "a", "1.2")
+        connect(root, a, rootDependency, "1.+")
+
+        when:
+        def recorder = record(root, a)
+
+        then:
+        recorder.graph == null
+    }
+
+    def "does not record a graph with a changing component"() {
+        def root = node(1, "org", "root", "1.0", rootConfiguration)
+        def a = node(2, "org", "a", "1.0-SNAPSHOT", null, true)
+        connect(root, a, rootDependency)
+
+        when:
+        def recorder = record(root, a)
+
+        then:
+        recorder.graph == null
+    }
+
+    def "does not record a graph with a failed dependency"() {
+        def root = node(1, "org", "root", "1.0", rootConfiguration)
+        def selector = DefaultModuleComponentSelector.newSelector("org", "a", "1.0")
+        def edge = Stub(DependencyGraphEdge) {
+            getFrom() >> root
+            getRequested() >> selector
+            getFailure() >> new ModuleVersionResolveException(selector, "broken")
+        }
+        root.outgoingEdges.add(edge)
+
+        when:
+        def recorder = record(root)
+
+        then:
+        recorder.graph == null
+    }
+
+    def "does not record a graph with a replaced module"() {
+        def root = node(1, "org", "root", "1.0", rootConfiguration)
+        def a = node(2, "org", "a", "1.0")
+        connect(root, a, rootDependency)
+        moduleReplacements.getReplacementFor(DefaultModuleIdentifier.newId("org", "a")) >> DefaultModuleIdentifier.newId("org", "b")
+
+        when:
+        def recorder = record(root, a)
+
+        then:
+        recorder.graph == null
+    }
+
+    def record(DependencyGraphNode root, DependencyGraphNode... others) {
+        def recorder = new DependencyGraphRecorder(Stub(DependencyGraphVisitor), Stub(DependencyArtifactsVisitor), new DefaultVersionSelectorScheme(), moduleReplacements)
+        recorder.start(root)
+        recorder.visitNode(root)
+        others.each { recorder.visitNode(it) }
+        recorder.visitEdge(root)
+        others.each { recorder.visitEdge(it) }
+        recorder.finish(root)
+        return recorder
+    }
+
+    def configuration(ModuleDependency dependency) {
+        def dependencyMetadata = Stub(DslOriginDependencyMetadata) {
+            getSource() >> dependency
+        }
+        return Stub(ConfigurationMetadata) {
+            getDependencies() >> [dependencyMetadata]
+        }
+    }
+
+    def node(long id, String group, String module, String version, ConfigurationMetadata metadata = null, boolean changing = false) {
+        def moduleVersion = DefaultModuleVersionIdentifier.newId(group, module, version)
+        def componentMetadata = Stub(ComponentResolveMetadata) {
+            getSource() >> new TestModuleSource(name: module)
+            isChanging() >> changing
+        }
+        def component = Stub(DependencyGraphComponent) {
+            getResultId() >> id
+            getModuleVersion() >> moduleVersion
+            getComponentId() >> DefaultModuleComponentIdentifier.newId(group, module, version)
+            getSelectionReason() >> (id == 1 ? VersionSelectionReasons.ROOT : VersionSelectionReasons.REQUESTED)
+            getMetadata() >> componentMetadata
+        }
+        def incoming = new LinkedHashSet()
+        def outgoing = new LinkedHashSet()
+        return Stub(DependencyGraphNode) {
+            getResultId() >> id
+            getOwner() >> component
+            getNodeId() >> new ResolvedConfigurationIdentifier(moduleVersion, "default")
+            getIncomingEdges() >> incoming
+            getOutgoingEdges() >> outgoing
+            getMetadata() >> metadata
+        }
+    }
+
+    def connect(DependencyGraphNode from, DependencyGraphNode to, ModuleDependency moduleDependency = null, String requestedVersion = null) {
+        def target = to.owner.moduleVersion
+        def edge = Stub(DependencyGraphEdge) {
+            getFrom() >> from
+            getRequested() >> DefaultModuleComponentSelector.newSelector(target.group, target.name, requestedVersion ?: target.version)
+            getSelected() >> to.owner.resultId
+            getModuleDependency() >> moduleDependency
+        }
+        from.outgoingEdges.add(edge)
+        to.incomingEdges.add(edge)
+    }
+
+    def artifacts(long id, String group, String module, String version) {
+        def artifact = new DefaultResolvedArtifact(Stub(ResolvedModuleVersion), Stub(IvyArtifactName), artifactId(group, module, version), Stub(Factory))
+        return Stub(ArtifactSet) {
+            getId() >> id
+            getArtifacts() >> ([artifact] as Set)
+        }
+    }
+
+    def artifactId(String group, String module, String version) {
+        return new DefaultModuleComponentArtifactIdentifier(DefaultModuleComponentIdentifier.newId(group, module, version), module, "jar", "jar")
+    }
+
+    static class TestModuleSource implements ModuleSource {
+        String name
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graphcache
+
+import org.gradle.api.Action
+import org.gradle.api.artifacts.DependencyResolveDetails
+import org.gradle.api.artifacts.DependencySubstitutions
+import org.gradle.api.internal.artifacts.ArtifactDependencyResolver
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor
+import org.gradle.api.internal.artifacts.ComponentModuleMetadataProcessor
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules
+import org.gradle.api.internal.artifacts.ResolveContext
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionRules
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultResolutionStrategy
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.model.ComponentResolveMetadata
+import org.gradle.internal.component.model.ConfigurationMetadata
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
+
+class CachingArtifactDependencyResolverTest extends Specification {
+    def delegate = Mock(ArtifactDependencyResolver)
+    def cache = Mock(PersistentIndexedCache)
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        createCache(_, _, _) >> cache
+    }
+    def ivyFactory = Stub(ResolveIvyFactory) {
+        create(_, _, _) >> Stub(ComponentResolvers)
+    }
+    def resolutionStrategy = new DefaultResolutionStrategy(DependencySubstitutionRules.NO_OP)
+    def metadataProcessor = Stub(ComponentMetadataProcessor)
+    def globalSubstitutionRules = Stub(DependencySubstitutionRules)
+    def metadataHandler = Stub(GlobalDependencyResolutionRules) {
+        getComponentMetadataProcessor() >> metadataProcessor
+        getModuleMetadataProcessor() >> ComponentModuleMetadataProcessor.NO_OP
+        getDependencySubstitutionRules() >> globalSubstitutionRules
+    }
+    def rootConfiguration = Stub(ConfigurationMetadata) {
+        getName() >> "conf"
+        getDependencies() >> []
+        getExcludes() >> []
+    }
+    def rootComponent = Stub(ComponentResolveMetadata) {
+        getId() >> newId("org", "root", "1.0")
+        getComponentId() >> DefaultModuleComponentIdentifier.newId("org", "root", "1.0")
+        getConfiguration("conf") >> rootConfiguration
+    }
+    def resolveContext = Stub(ResolveContext) {
+        getName() >> "conf"
+        toRootComponentMetaData() >> rootComponent
+        getResolutionStrategy() >> resolutionStrategy
+    }
+    def graph = Mock(CachedDependencyGraph) {
+        getComponents() >> []
+    }
+    def graphVisitor = Stub(DependencyGraphVisitor)
+    def artifactsVisitor = Stub(DependencyArtifactsVisitor)
+    def resolver = new CachingArtifactDependencyResolver(delegate, cacheLockingManager, ivyFactory, new DefaultVersionSelectorScheme(), false)
+
+    def "replays the cached graph when no rule applies"() {
+        when:
+        resolve()
+
+        then:
+        1 * cache.get(_) >> graph
+        1 * graph.replay(rootComponent, rootConfiguration, _, graphVisitor, artifactsVisitor)
+        0 * delegate._
+    }
+
+    @Unroll
+    def "does not replay a graph that was cached before #rule rule was added"() {
+        when:
+        resolve()
+
+        then:
+        1 * cache.get(_) >> graph
+        1 * graph.replay(*_)
+        0 * delegate._
+
+        when:
+        addRule.execute(resolutionStrategy)
+        resolve()
+
+        then:
+        0 * cache._
+        0 * graph.replay(*_)
+        1 * delegate.resolve(resolveContext, [], metadataHandler, graphVisitor, artifactsVisitor)
+
+        where:
+        rule                          | addRule
+        "a dependency substitution"   | { it.dependencySubstitution({ DependencySubstitutions substitutions -> substitutions.substitute(substitutions.module("org:a")).with(substitutions.module("org:b:1.0")) } as Action) } as Action
+        "an eachDependency"           | { it.eachDependency({ DependencyResolveDetails details -> } as Action) } as Action
+    }
+
+    def "does not use the cache when a global substitution or component meta-data rule applies"() {
+        given:
+        globalSubstitutionRules.hasRules() >> globalRules
+        metadataProcessor.hasRules() >> metadataRules
+
+        when:
+        resolve()
+
+        then:
+        0 * cache._
+        1 * delegate.resolve(resolveContext, [], metadataHandler, graphVisitor, artifactsVisitor)
+
+        where:
+        globalRules | metadataRules
+        true        | false
+        false       | true
+    }
+
+    private void resolve() {
+        resolver.resolve(resolveContext, [], metadataHandler, graphVisitor, artifactsVisitor)
+    }
+}
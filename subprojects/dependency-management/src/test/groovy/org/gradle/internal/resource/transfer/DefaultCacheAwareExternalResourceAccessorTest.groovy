@@ -142,6 +142,78 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         0 * _._
     }
 
+    def "revalidates expired cached resource and reuses it when it has not changed"() {
+        def uri = new URI("scheme:thing")
+        def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
+        def localCandidates = Mock(LocallyAvailableResourceCandidates)
+        def metaData = Mock(ExternalResourceMetaData)
+        def cachedResource = Stub(CachedExternalResource)
+
+        when:
+        def result = cache.getResource(uri, fileStore, localCandidates)
+
+        then:
+        result.localResource.file == cachedFile
+        result.metaData == metaData
+
+        and:
+        1 * index.lookup("scheme:thing") >> cachedResource
+        _ * timeProvider.currentTime >> 24000L
+        _ * cachedResource.cachedAt >> 23999L
+        _ * cachedResource.cachedFile >> cachedFile
+        _ * cachedResource.externalResourceMetaData >> metaData
+        1 * localCandidates.isNone() >> true
+        1 * repository.withProgressLogging() >> progressLoggingRepo
+        1 * progressLoggingRepo.revalidateResource(uri, metaData) >> ExternalResourceRevalidation.unchanged()
+
+        and:
+        1 * cacheLockingManager.useCache(_, _) >> { String description, org.gradle.internal.Factory factory ->
+            return factory.create()
+        }
+        1 * index.store("scheme:thing", cachedFile, metaData)
+        0 * _._
+    }
+
+    def "revalidates expired cached resource and downloads it when it has changed"() {
+        def uri = new URI("scheme:thing")
+        def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
+        def localCandidates = Mock(LocallyAvailableResourceCandidates)
+        def cachedMetaData = Mock(ExternalResourceMetaData)
+        def remoteMetaData = Mock(ExternalResourceMetaData)
+        def remoteResource = Mock(ExternalResource)
+        def cachedResource = Stub(CachedExternalResource)
+        def localResource = new DefaultLocallyAvailableResource(cachedFile)
+
+        when:
+        def result = cache.getResource(uri, fileStore, localCandidates)
+
+        then:
+        result.localResource.file == cachedFile
+        result.metaData == remoteMetaData
+
+        and:
+        1 * index.lookup("scheme:thing") >> cachedResource
+        _ * timeProvider.currentTime >> 24000L
+        _ * cachedResource.cachedAt >> 23999L
+        _ * cachedResource.externalResourceMetaData >> cachedMetaData
+        1 * localCandidates.isNone() >> true
+        1 * repository.withProgressLogging() >> progressLoggingRepo
+        1 * progressLoggingRepo.revalidateResource(uri, cachedMetaData) >> ExternalResourceRevalidation.changed(remoteResource)
+        _ * remoteResource.name >> "remoteResource"
+        1 * remoteResource.withContent(_) >> { ExternalResource.ContentAction a ->
+            a.execute(new ByteArrayInputStream(), remoteMetaData)
+        }
+        1 * remoteResource.close()
+
+        and:
+        1 * cacheLockingManager.useCache(_, _) >> { String description, org.gradle.internal.Factory factory ->
+            return factory.create()
+        }
+        1 * fileStore.moveIntoCache(tempFile) >> localResource
+        1 * index.store("scheme:thing", cachedFile, remoteMetaData)
+        0 * _._
+    }
+
     def "will use sha1 from metadata for finding candidates if available"() {
         given:
         def localCandidates = Mock(LocallyAvailableResourceCandidates)
@@ -56,7 +56,13 @@ import java.util.Collection;
 import java.util.Collections;
 
 public class HttpClientConfigurer {
+    /**
+     * The maximum number of connections the client keeps open to a single host.
+     */
+    public static final String MAX_CONNECTIONS_PER_HOST_PROPERTY = "org.gradle.internal.http.maxConnectionsPerHost";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientConfigurer.class);
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
 
     private final HttpSettings httpSettings;
 
@@ -71,9 +77,14 @@ public class HttpClientConfigurer {
         configureCredentials(builder, credentialsProvider, httpSettings.getAuthenticationSettings());
         configureProxy(builder, credentialsProvider, httpSettings);
         configureUserAgent(builder);
+        configureConnectionPool(builder);
         builder.setDefaultCredentialsProvider(credentialsProvider);
     }
 
+    private void configureConnectionPool(HttpClientBuilder builder) {
+        builder.setMaxConnPerRoute(Math.max(1, Integer.getInteger(MAX_CONNECTIONS_PER_HOST_PROPERTY, DEFAULT_MAX_CONNECTIONS_PER_HOST)));
+    }
+
     private void configureSslSocketConnectionFactory(HttpClientBuilder builder, SslContextFactory sslContextFactory) {
         builder.setSSLSocketFactory(new SSLConnectionSocketFactory(sslContextFactory.createSslContext(), new DefaultHostnameVerifier(null)));
     }
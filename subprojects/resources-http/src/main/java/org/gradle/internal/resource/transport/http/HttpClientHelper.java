@@ -25,6 +25,7 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.util.EntityUtils;
+import org.gradle.api.Nullable;
 import org.gradle.api.UncheckedIOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,11 +40,26 @@ public class HttpClientHelper implements Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientHelper.class);
     private CloseableHttpClient client;
-    private final BasicHttpContext httpContext = new BasicHttpContext();
+    // Each thread uses its own context, as a context holds the state of the request that uses it
+    private final ThreadLocal<BasicHttpContext> httpContext = new ThreadLocal<BasicHttpContext>() {
+        @Override
+        protected BasicHttpContext initialValue() {
+            return new BasicHttpContext();
+        }
+    };
     private final HttpSettings settings;
+    private final HttpConnectionPool connectionPool;
 
     public HttpClientHelper(HttpSettings settings) {
+        this(settings, null);
+    }
+
+    /**
+     * Creates a client that leases its connections from the given pool, or that uses its own connections when the pool is null.
+     */
+    public HttpClientHelper(HttpSettings settings, @Nullable HttpConnectionPool connectionPool) {
         this.settings = settings;
+        this.connectionPool = connectionPool;
     }
 
     public HttpResponse performRawHead(String source) {
@@ -62,6 +78,13 @@ public class HttpClientHelper implements Closeable {
         return processResponse(source, "GET", performRawGet(source));
     }
 
+    /**
+     * Performs the given GET request, which may be a conditional request. Returns null when the resource is missing.
+     */
+    public HttpResponse performGet(HttpGet request) {
+        return processResponse(request.getURI().toString(), "GET", performRequest(request));
+    }
+
     public HttpResponse performRequest(HttpRequestBase request) {
         String method = request.getMethod();
 
@@ -90,6 +113,11 @@ public class HttpClientHelper implements Closeable {
         return statusCode == 404;
     }
 
+    public boolean wasNotModified(HttpResponse response) {
+        int statusCode = response.getStatusLine().getStatusCode();
+        return statusCode == 304;
+    }
+
     public boolean wasSuccessful(HttpResponse response) {
         int statusCode = response.getStatusLine().getStatusCode();
         return statusCode >= 200 && statusCode < 400;
@@ -97,9 +125,10 @@ public class HttpClientHelper implements Closeable {
 
     public HttpResponse performHttpRequest(HttpRequestBase request) throws IOException {
         // Without this, HTTP Client prohibits multiple redirects to the same location within the same context
-        httpContext.removeAttribute(HttpClientContext.REDIRECT_LOCATIONS);
+        BasicHttpContext context = httpContext.get();
+        context.removeAttribute(HttpClientContext.REDIRECT_LOCATIONS);
         LOGGER.debug("Performing HTTP {}: {}", request.getMethod(), request.getURI());
-        return getClient().execute(request, httpContext);
+        return getClient().execute(request, context);
     }
 
     private HttpResponse processResponse(String source, String method, HttpResponse response) {
@@ -121,6 +150,9 @@ public class HttpClientHelper implements Closeable {
             HttpClientBuilder builder = HttpClientBuilder.create();
             builder.setRedirectStrategy(new AlwaysRedirectRedirectStrategy());
             new HttpClientConfigurer(settings).configure(builder);
+            if (connectionPool != null) {
+                connectionPool.configure(builder, settings.getSslContextFactory().createSslContext());
+            }
             this.client = builder.build();
         }
         return client;
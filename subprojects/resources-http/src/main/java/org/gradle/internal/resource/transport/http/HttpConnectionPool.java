@@ -0,0 +1,276 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.gradle.internal.concurrent.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of HTTP connections that is shared by the clients of all HTTP repositories, and that outlives a build when running in the daemon.
+ *
+ * <p>Each repository keeps its own client, with its own credentials and proxy settings, but leases its connections from this pool. This means that a connection to a host,
+ * and the TLS session negotiated for it, can be reused by every repository on that host and by later builds, instead of a new connection being opened for each repository in each build.</p>
+ *
+ * <p>Connections are kept per SSL context, so that a change to the SSL system properties does not reuse connections that were established with different key or trust stores.
+ * Connections that have been idle for longer than the idle timeout are closed whenever a new client starts using the pool.</p>
+ *
+ * <p>A response that is never consumed or closed keeps its connection leased. As the pool outlives the clients, such a lease is not reclaimed when the client goes away,
+ * so waiting for a connection times out after the connection request timeout rather than blocking forever, and the connections that are still leased when no build is running
+ * any more are closed. The number of requests and connections of each build is reported at the end of the build.</p>
+ */
+public class HttpConnectionPool implements Stoppable {
+    /**
+     * Shares HTTP connections between repositories and between builds.
+     */
+    public static final String SHARED_CONNECTION_POOL_PROPERTY = "org.gradle.internal.http.sharedConnectionPool";
+
+    /**
+     * The maximum number of connections the shared pool keeps open across all hosts.
+     */
+    public static final String MAX_CONNECTIONS_PROPERTY = "org.gradle.internal.http.maxConnections";
+
+    /**
+     * The number of seconds after which an idle connection in the shared pool is closed.
+     */
+    public static final String IDLE_CONNECTION_TIMEOUT_PROPERTY = "org.gradle.internal.http.idleConnectionTimeout";
+
+    /**
+     * The number of seconds a request waits for a connection from the shared pool before it fails.
+     */
+    public static final String CONNECTION_REQUEST_TIMEOUT_PROPERTY = "org.gradle.internal.http.connectionRequestTimeout";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpConnectionPool.class);
+    private static final int DEFAULT_MAX_CONNECTIONS = 32;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+    private static final int DEFAULT_IDLE_CONNECTION_TIMEOUT = 60;
+    private static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 60;
+
+    private final Map<SSLContext, PoolingHttpClientConnectionManager> connectionManagers = new IdentityHashMap<SSLContext, PoolingHttpClientConnectionManager>();
+    private final int maxConnections;
+    private final int maxConnectionsPerHost;
+    private final long idleConnectionTimeout;
+    private final long connectionRequestTimeout;
+    private int activeBuilds;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong secureConnections = new AtomicLong();
+
+    public HttpConnectionPool() {
+        this(Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS),
+            Integer.getInteger(HttpClientConfigurer.MAX_CONNECTIONS_PER_HOST_PROPERTY, DEFAULT_MAX_CONNECTIONS_PER_HOST),
+            Integer.getInteger(IDLE_CONNECTION_TIMEOUT_PROPERTY, DEFAULT_IDLE_CONNECTION_TIMEOUT),
+            Integer.getInteger(CONNECTION_REQUEST_TIMEOUT_PROPERTY, DEFAULT_CONNECTION_REQUEST_TIMEOUT));
+    }
+
+    public HttpConnectionPool(int maxConnections, int maxConnectionsPerHost, long idleConnectionTimeoutSeconds) {
+        this(maxConnections, maxConnectionsPerHost, idleConnectionTimeoutSeconds, DEFAULT_CONNECTION_REQUEST_TIMEOUT);
+    }
+
+    public HttpConnectionPool(int maxConnections, int maxConnectionsPerHost, long idleConnectionTimeoutSeconds, long connectionRequestTimeoutSeconds) {
+        this.maxConnectionsPerHost = Math.max(1, maxConnectionsPerHost);
+        this.maxConnections = Math.max(this.maxConnectionsPerHost, maxConnections);
+        this.idleConnectionTimeout = Math.max(0, idleConnectionTimeoutSeconds);
+        this.connectionRequestTimeout = Math.max(1, connectionRequestTimeoutSeconds);
+    }
+
+    /**
+     * Configures the given client to lease its connections from this pool. Must be called after the client has been configured by {@link HttpClientConfigurer}.
+     */
+    public void configure(HttpClientBuilder builder, SSLContext sslContext) {
+        builder.setConnectionManager(getConnectionManager(sslContext));
+        builder.setConnectionManagerShared(true);
+        builder.setDefaultRequestConfig(RequestConfig.custom().setConnectionRequestTimeout((int) TimeUnit.SECONDS.toMillis(connectionRequestTimeout)).build());
+        builder.addInterceptorLast(new HttpRequestInterceptor() {
+            @Override
+            public void process(HttpRequest request, HttpContext context) {
+                requests.incrementAndGet();
+            }
+        });
+    }
+
+    private synchronized PoolingHttpClientConnectionManager getConnectionManager(SSLContext sslContext) {
+        for (PoolingHttpClientConnectionManager connectionManager : connectionManagers.values()) {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleConnectionTimeout, TimeUnit.SECONDS);
+        }
+        PoolingHttpClientConnectionManager connectionManager = connectionManagers.get(sslContext);
+        if (connectionManager == null) {
+            connectionManager = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext, new DefaultHostnameVerifier(null)))
+                .build(), new CountingConnectionFactory());
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+            connectionManagers.put(sslContext, connectionManager);
+        }
+        return connectionManager;
+    }
+
+    /**
+     * Called when a build starts using the pool. The returned session reports the requests and connections of the build when it is stopped, at the end of the build.
+     */
+    public BuildSession startBuild() {
+        synchronized (this) {
+            activeBuilds++;
+        }
+        return new BuildSession();
+    }
+
+    private synchronized void finishBuild() {
+        activeBuilds--;
+        if (activeBuilds > 0) {
+            return;
+        }
+        // No build is running, so any connection that is still leased belongs to a response that was never consumed or closed
+        Iterator<PoolingHttpClientConnectionManager> iterator = connectionManagers.values().iterator();
+        while (iterator.hasNext()) {
+            PoolingHttpClientConnectionManager connectionManager = iterator.next();
+            int leased = connectionManager.getTotalStats().getLeased();
+            if (leased > 0) {
+                LOGGER.info("Closing {} HTTP connections that were not released by the build.", leased);
+                connectionManager.shutdown();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of connections of this pool that are currently leased to a client.
+     */
+    public synchronized int getLeasedConnectionCount() {
+        int leased = 0;
+        for (PoolingHttpClientConnectionManager connectionManager : connectionManagers.values()) {
+            leased += connectionManager.getTotalStats().getLeased();
+        }
+        return leased;
+    }
+
+    /**
+     * Returns the number of requests sent using connections from this pool.
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of connections opened by this pool.
+     */
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * Returns the number of TLS connections opened by this pool, each of which required a handshake.
+     */
+    public long getSecureConnectionCount() {
+        return secureConnections.get();
+    }
+
+    /**
+     * Returns the proportion of requests that were sent on a connection that had already been used.
+     */
+    public double getConnectionReuseRatio() {
+        long requestCount = requests.get();
+        if (requestCount == 0) {
+            return 0;
+        }
+        return Math.max(0, requestCount - connections.get()) / (double) requestCount;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (requests.get() > 0) {
+            LOGGER.debug("Sent {} HTTP requests using {} connections ({} secure), reuse ratio {}.", requests.get(), connections.get(), secureConnections.get(), String.format("%.2f", getConnectionReuseRatio()));
+        }
+        for (PoolingHttpClientConnectionManager connectionManager : connectionManagers.values()) {
+            connectionManager.shutdown();
+        }
+        connectionManagers.clear();
+    }
+
+    /**
+     * The use of the pool by a single build.
+     */
+    public class BuildSession implements Stoppable {
+        private final long startRequests = requests.get();
+        private final long startConnections = connections.get();
+        private final long startSecureConnections = secureConnections.get();
+        private boolean stopped;
+
+        public long getRequestCount() {
+            return requests.get() - startRequests;
+        }
+
+        public long getConnectionCount() {
+            return connections.get() - startConnections;
+        }
+
+        public long getSecureConnectionCount() {
+            return secureConnections.get() - startSecureConnections;
+        }
+
+        @Override
+        public void stop() {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            long requestCount = getRequestCount();
+            if (requestCount > 0) {
+                long connectionCount = getConnectionCount();
+                LOGGER.info("Sent {} HTTP requests using {} new connections ({} TLS handshakes), reuse ratio {}.", requestCount, connectionCount, getSecureConnectionCount(),
+                    String.format("%.2f", Math.max(0, requestCount - connectionCount) / (double) requestCount));
+            }
+            finishBuild();
+        }
+    }
+
+    private class CountingConnectionFactory implements HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> {
+        @Override
+        public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+            connections.incrementAndGet();
+            if (route.isSecure()) {
+                secureConnections.incrementAndGet();
+            }
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        }
+    }
+}
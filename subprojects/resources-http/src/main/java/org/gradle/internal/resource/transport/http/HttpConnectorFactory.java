@@ -17,6 +17,7 @@
 package org.gradle.internal.resource.transport.http;
 
 import com.google.common.collect.Sets;
+import org.gradle.api.Nullable;
 import org.gradle.authentication.Authentication;
 import org.gradle.authentication.http.BasicAuthentication;
 import org.gradle.authentication.http.DigestAuthentication;
@@ -31,9 +32,15 @@ import java.util.Set;
 
 public class HttpConnectorFactory implements ResourceConnectorFactory {
     private SslContextFactory sslContextFactory;
+    private final HttpConnectionPool connectionPool;
 
     public HttpConnectorFactory(SslContextFactory sslContextFactory) {
+        this(sslContextFactory, null);
+    }
+
+    public HttpConnectorFactory(SslContextFactory sslContextFactory, @Nullable HttpConnectionPool connectionPool) {
         this.sslContextFactory = sslContextFactory;
+        this.connectionPool = connectionPool;
     }
 
     @Override
@@ -52,7 +59,7 @@ public class HttpConnectorFactory implements ResourceConnectorFactory {
 
     @Override
     public ExternalResourceConnector createResourceConnector(ResourceConnectorSpecification connectionDetails) {
-        HttpClientHelper http = new HttpClientHelper(new DefaultHttpSettings(connectionDetails.getAuthentications(), sslContextFactory));
+        HttpClientHelper http = new HttpClientHelper(new DefaultHttpSettings(connectionDetails.getAuthentications(), sslContextFactory), connectionPool);
         HttpResourceAccessor accessor = new HttpResourceAccessor(http);
         HttpResourceLister lister = new HttpResourceLister(accessor);
         HttpResourceUploader uploader = new HttpResourceUploader(http);
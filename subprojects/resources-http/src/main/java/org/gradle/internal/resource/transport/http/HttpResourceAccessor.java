@@ -16,12 +16,17 @@
 
 package org.gradle.internal.resource.transport.http;
 
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.util.EntityUtils;
 import org.gradle.api.Nullable;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
 import org.gradle.internal.resource.transfer.ExternalResourceAccessor;
+import org.gradle.internal.resource.transfer.ExternalResourceReadResponse;
+import org.gradle.internal.resource.transfer.ExternalResourceRevalidation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,14 +34,22 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class HttpResourceAccessor implements ExternalResourceAccessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpResourceAccessor.class);
     private final HttpClientHelper http;
 
-    private final List<HttpResponseResource> openResources = new ArrayList<HttpResponseResource>();
+    /**
+     * The resources that have been opened and not closed yet, with the thread that opened each of them. The accessor can be used from several threads at
+     * once, so a thread only abandons the resources it opened itself.
+     */
+    private final Map<HttpResponseResource, Thread> openResources = new LinkedHashMap<HttpResponseResource, Thread>();
 
     public HttpResourceAccessor(HttpClientHelper http) {
         this.http = http;
@@ -78,6 +91,43 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
         return recordOpenGetResource(resource);
     }
 
+    /**
+     * Reads the resource with a conditional GET request, using the entity tag and last modified date of the given meta-data, so that an unchanged resource
+     * is revalidated and a changed resource is downloaded with a single request.
+     */
+    @Nullable
+    public ExternalResourceRevalidation<ExternalResourceReadResponse> revalidateResource(URI uri, ExternalResourceMetaData cachedMetaData) {
+        String etag = cachedMetaData.getEtag();
+        Date lastModified = cachedMetaData.getLastModified();
+        if (etag == null && lastModified == null) {
+            HttpResponseResource resource = openResource(uri);
+            return resource == null ? null : ExternalResourceRevalidation.<ExternalResourceReadResponse>changed(resource);
+        }
+
+        abortOpenResources();
+        LOGGER.debug("Revalidating external resource: {}", uri);
+        HttpGet request = new HttpGet(uri);
+        if (etag != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+            request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, DateUtils.formatDate(lastModified));
+        }
+        HttpResponse response = http.performGet(request);
+        if (response == null) {
+            return null;
+        }
+        if (http.wasNotModified(response)) {
+            try {
+                EntityUtils.consume(response.getEntity());
+            } catch (IOException e) {
+                LOGGER.debug("Failed to consume response for {}", uri, e);
+            }
+            return ExternalResourceRevalidation.unchanged();
+        }
+        return ExternalResourceRevalidation.<ExternalResourceReadResponse>changed(recordOpenGetResource(wrapResponse(uri, response)));
+    }
+
     public ExternalResourceMetaData getMetaData(URI uri) {
         abortOpenResources();
         String location = uri.toString();
@@ -87,12 +137,26 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
     }
 
     private HttpResponseResource recordOpenGetResource(HttpResponseResource httpResource) {
-        openResources.add(httpResource);
+        synchronized (openResources) {
+            openResources.put(httpResource, Thread.currentThread());
+        }
         return httpResource;
     }
 
     private void abortOpenResources() {
-        for (Closeable openResource : openResources) {
+        Thread current = Thread.currentThread();
+        List<HttpResponseResource> abandoned = new ArrayList<HttpResponseResource>();
+        synchronized (openResources) {
+            Iterator<Map.Entry<HttpResponseResource, Thread>> iterator = openResources.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<HttpResponseResource, Thread> entry = iterator.next();
+                if (entry.getValue() == current) {
+                    abandoned.add(entry.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+        for (Closeable openResource : abandoned) {
             LOGGER.warn("Forcing close on abandoned resource: {}", openResource);
             try {
                 openResource.close();
@@ -100,7 +164,6 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
                 LOGGER.warn("Failed to close abandoned resource", e);
             }
         }
-        openResources.clear();
     }
 
     private HttpResponseResource wrapResponse(URI uri, HttpResponse response) {
@@ -108,7 +171,9 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
             @Override
             public void close() throws IOException {
                 super.close();
-                HttpResourceAccessor.this.openResources.remove(this);
+                synchronized (openResources) {
+                    openResources.remove(this);
+                }
             }
         };
     }
@@ -24,6 +24,7 @@ import org.gradle.internal.authentication.AuthenticationSchemeRegistry;
 import org.gradle.internal.resource.connector.ResourceConnectorFactory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
+import org.gradle.internal.util.SystemPropertiesUtil;
 
 public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry {
     public void registerGlobalServices(ServiceRegistration registration) {
@@ -35,6 +36,7 @@ public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry
 
     public void registerBuildServices(ServiceRegistration registration) {
         registration.addProvider(new AuthenticationSchemeAction());
+        registration.addProvider(new ConnectionPoolBuildSessionAction());
     }
 
     public void registerGradleServices(ServiceRegistration registration) {
@@ -48,11 +50,25 @@ public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry
             return new DefaultSslContextFactory();
         }
 
-        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory) {
+        HttpConnectionPool createHttpConnectionPool() {
+            return new HttpConnectionPool();
+        }
+
+        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory, HttpConnectionPool connectionPool) {
+            if (SystemPropertiesUtil.isEnabled(HttpConnectionPool.SHARED_CONNECTION_POOL_PROPERTY)) {
+                return new HttpConnectorFactory(sslContextFactory, connectionPool);
+            }
             return new HttpConnectorFactory(sslContextFactory);
         }
     }
 
+    private static class ConnectionPoolBuildSessionAction {
+        public void configure(ServiceRegistration registration, HttpConnectionPool connectionPool) {
+            // Stopped with the other build services at the end of the build
+            registration.add(HttpConnectionPool.BuildSession.class, connectionPool.startBuild());
+        }
+    }
+
     private static class AuthenticationSchemeAction {
         public void configure(ServiceRegistration registration, AuthenticationSchemeRegistry authenticationSchemeRegistry) {
             authenticationSchemeRegistry.registerScheme(BasicAuthentication.class, DefaultBasicAuthentication.class);
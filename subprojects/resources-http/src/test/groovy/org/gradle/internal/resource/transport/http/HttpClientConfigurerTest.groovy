@@ -51,6 +51,17 @@ public class HttpClientConfigurerTest extends Specification {
         httpClientBuilder.credentialsProvider.getCredentials(AuthScope.ANY) == null
     }
 
+    def "limits the number of connections to a host"() {
+        httpSettings.authenticationSettings >> []
+        httpSettings.sslContextFactory >> sslContextFactory
+
+        when:
+        configurer.configure(httpClientBuilder)
+
+        then:
+        httpClientBuilder.maxConnPerRoute == 4
+    }
+
     def "configures http client with proxy credentials"() {
         httpSettings.authenticationSettings >> []
         httpSettings.sslContextFactory >> sslContextFactory
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import org.apache.http.ssl.SSLContexts
+import org.apache.http.util.EntityUtils
+import spock.lang.Specification
+
+class HttpConnectionPoolTest extends Specification {
+    def sslContext = SSLContexts.createDefault()
+    def pool = new HttpConnectionPool(10, 2, 60)
+    HttpServer server
+
+    def setup() {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/", new HttpHandler() {
+            @Override
+            void handle(HttpExchange exchange) throws IOException {
+                def content = "content".bytes
+                exchange.sendResponseHeaders(200, content.length)
+                exchange.responseBody.write(content)
+                exchange.close()
+            }
+        })
+        server.start()
+    }
+
+    def cleanup() {
+        pool.stop()
+        server.stop(0)
+    }
+
+    def "clients share connections from the pool"() {
+        def first = client()
+        def second = client()
+
+        when:
+        get(first, "/a")
+        get(second, "/b")
+        get(first, "/c")
+        get(second, "/d")
+
+        then:
+        pool.requestCount == 4
+        pool.connectionCount == 1
+        pool.secureConnectionCount == 0
+        pool.connectionReuseRatio == 0.75d
+    }
+
+    def "connections outlive the client that opened them"() {
+        def first = client()
+
+        when:
+        get(first, "/a")
+        first.close()
+        get(client(), "/b")
+
+        then:
+        pool.requestCount == 2
+        pool.connectionCount == 1
+    }
+
+    def "request for a connection times out when all connections are leaked"() {
+        pool = new HttpConnectionPool(10, 1, 60, 1)
+        def client = client()
+
+        given:
+        client.performGet("http://127.0.0.1:${server.address.port}/leaked")
+
+        when:
+        client.performGet("http://127.0.0.1:${server.address.port}/other")
+
+        then:
+        thrown(HttpRequestException)
+    }
+
+    def "closes leaked connections at the end of the last running build"() {
+        def build = pool.startBuild()
+        def nested = pool.startBuild()
+        client().performGet("http://127.0.0.1:${server.address.port}/leaked")
+
+        when:
+        nested.stop()
+
+        then:
+        pool.leasedConnectionCount == 1
+
+        when:
+        build.stop()
+
+        then:
+        pool.leasedConnectionCount == 0
+
+        and:
+        get(client(), "/a")
+    }
+
+    def "keeps released connections at the end of the build"() {
+        def build = pool.startBuild()
+        get(client(), "/a")
+
+        when:
+        build.stop()
+        get(client(), "/b")
+
+        then:
+        pool.connectionCount == 1
+    }
+
+    def "reports the requests and connections of each build"() {
+        def first = pool.startBuild()
+        get(client(), "/a")
+        get(client(), "/b")
+        first.stop()
+
+        when:
+        def second = pool.startBuild()
+        get(client(), "/c")
+        second.stop()
+
+        then:
+        first.requestCount == 2
+        first.connectionCount == 1
+        second.requestCount == 1
+        second.connectionCount == 0
+        second.secureConnectionCount == 0
+    }
+
+    def "reuse ratio is zero when no requests have been sent"() {
+        expect:
+        pool.connectionReuseRatio == 0
+    }
+
+    private HttpClientHelper client() {
+        return new HttpClientHelper(httpSettings, pool)
+    }
+
+    private void get(HttpClientHelper client, String path) {
+        def response = client.performGet("http://127.0.0.1:${server.address.port}${path}")
+        assert EntityUtils.toString(response.entity) == "content"
+    }
+
+    private HttpSettings getHttpSettings() {
+        return Stub(HttpSettings) {
+            getProxySettings() >> Mock(HttpProxySettings)
+            getSecureProxySettings() >> Mock(HttpProxySettings)
+            getAuthenticationSettings() >> []
+            getSslContextFactory() >> Mock(SslContextFactory) {
+                createSslContext() >> sslContext
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import com.sun.net.httpserver.Headers
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import org.apache.http.client.utils.DateUtils
+import org.apache.http.ssl.SSLContexts
+import org.gradle.internal.resource.metadata.DefaultExternalResourceMetaData
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class HttpResourceAccessorTest extends Specification {
+    def sslContext = SSLContexts.createDefault()
+    HttpServer server
+    HttpClientHelper client
+    HttpResourceAccessor accessor
+    def requestHeaders = new CopyOnWriteArrayList<Headers>()
+    def etag = '"1"'
+
+    def setup() {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/", new HttpHandler() {
+            @Override
+            void handle(HttpExchange exchange) throws IOException {
+                requestHeaders << exchange.requestHeaders
+                if (exchange.requestHeaders.getFirst("If-None-Match") == etag) {
+                    exchange.sendResponseHeaders(304, -1)
+                    exchange.close()
+                    return
+                }
+                exchange.responseHeaders.add("ETag", etag)
+                def content = ("content of " + exchange.requestURI.path).bytes
+                exchange.sendResponseHeaders(200, content.length)
+                exchange.responseBody.write(content)
+                exchange.close()
+            }
+        })
+        server.start()
+        client = new HttpClientHelper(httpSettings)
+        accessor = new HttpResourceAccessor(client)
+    }
+
+    def cleanup() {
+        client.close()
+        server.stop(0)
+    }
+
+    def "opening a resource on one thread does not close a resource that another thread is reading"() {
+        def firstOpened = new CountDownLatch(1)
+        def secondOpened = new CountDownLatch(1)
+        def contents = new CopyOnWriteArrayList<String>()
+
+        when:
+        def first = Thread.start {
+            def resource = accessor.openResource(uri("/a"))
+            firstOpened.countDown()
+            assert secondOpened.await(10, TimeUnit.SECONDS)
+            contents << resource.openStream().text
+            resource.close()
+        }
+        def second = Thread.start {
+            assert firstOpened.await(10, TimeUnit.SECONDS)
+            def resource = accessor.openResource(uri("/b"))
+            secondOpened.countDown()
+            contents << resource.openStream().text
+            resource.close()
+        }
+        first.join(10000)
+        second.join(10000)
+
+        then:
+        contents.sort() == ["content of /a", "content of /b"]
+    }
+
+    def "resources can be opened and closed from many threads at once"() {
+        def contents = new CopyOnWriteArrayList<String>()
+
+        when:
+        def threads = (1..8).collect { thread ->
+            Thread.start {
+                10.times { index ->
+                    def resource = accessor.openResource(uri("/${thread}/${index}"))
+                    contents << resource.openStream().text
+                    resource.close()
+                }
+            }
+        }
+        threads*.join(30000)
+
+        then:
+        contents.size() == 80
+        contents.every { it.startsWith("content of /") }
+    }
+
+    def "opening a resource closes a resource that the same thread abandoned"() {
+        when:
+        def abandoned = accessor.openResource(uri("/a"))
+        def resource = accessor.openResource(uri("/b"))
+
+        then:
+        resource.openStream().text == "content of /b"
+
+        when:
+        abandoned.openStream().text
+
+        then:
+        thrown(IOException)
+    }
+
+    def "revalidates a resource with a conditional request and consumes a not modified response"() {
+        def lastModified = new Date(1476000000000L)
+
+        when:
+        def revalidation = accessor.revalidateResource(uri("/a"), metaData("/a", lastModified, '"1"'))
+
+        then:
+        revalidation.unchanged
+        revalidation.resource == null
+
+        and:
+        requestHeaders.last().getFirst("If-None-Match") == '"1"'
+        requestHeaders.last().getFirst("If-Modified-Since") == DateUtils.formatDate(lastModified)
+
+        when:
+        def resource = accessor.openResource(uri("/b"))
+
+        then:
+        resource.openStream().text == "content of /b"
+
+        cleanup:
+        resource?.close()
+    }
+
+    def "revalidating a resource that has changed returns the new content"() {
+        when:
+        def revalidation = accessor.revalidateResource(uri("/a"), metaData("/a", new Date(1476000000000L), '"0"'))
+
+        then:
+        !revalidation.unchanged
+        requestHeaders.last().getFirst("If-None-Match") == '"0"'
+
+        and:
+        def resource = revalidation.resource
+        resource.metaData.etag == '"1"'
+        resource.openStream().text == "content of /a"
+
+        cleanup:
+        resource?.close()
+    }
+
+    def "revalidating a resource without validators requests it unconditionally"() {
+        when:
+        def revalidation = accessor.revalidateResource(uri("/a"), metaData("/a", null, null))
+
+        then:
+        !revalidation.unchanged
+        requestHeaders.last().getFirst("If-None-Match") == null
+        requestHeaders.last().getFirst("If-Modified-Since") == null
+
+        and:
+        def resource = revalidation.resource
+        resource.openStream().text == "content of /a"
+
+        cleanup:
+        resource?.close()
+    }
+
+    private DefaultExternalResourceMetaData metaData(String path, Date lastModified, String etag) {
+        return new DefaultExternalResourceMetaData(uri(path), lastModified, 20, null, etag, null)
+    }
+
+    private URI uri(String path) {
+        return new URI("http://127.0.0.1:${server.address.port}${path}")
+    }
+
+    private HttpSettings getHttpSettings() {
+        return Stub(HttpSettings) {
+            getProxySettings() >> Mock(HttpProxySettings)
+            getSecureProxySettings() >> Mock(HttpProxySettings)
+            getAuthenticationSettings() >> []
+            getSslContextFactory() >> Mock(SslContextFactory) {
+                createSslContext() >> sslContext
+            }
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.gradle.internal.resource.metadata.DefaultExternalResourceMetaData;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
 import org.gradle.internal.resource.transfer.ExternalResourceConnector;
 import org.gradle.internal.resource.transfer.ExternalResourceReadResponse;
+import org.gradle.internal.resource.transfer.ExternalResourceRevalidation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,6 +70,10 @@ public class S3ResourceConnector implements ExternalResourceConnector {
                 null); // Passing null for sha1 - TODO - consider using the etag which is an MD5 hash of the file (when less than 5Gb)
     }
 
+    public ExternalResourceRevalidation<ExternalResourceReadResponse> revalidateResource(URI location, ExternalResourceMetaData cachedMetaData) {
+        return ExternalResourceRevalidation.compareAndRead(this, location, cachedMetaData);
+    }
+
     @Override
     public void upload(LocalResource resource, URI destination) throws IOException {
         LOGGER.debug("Attempting to upload stream to : {}", destination);
@@ -63,6 +63,13 @@ public class DefaultExternalResourceConnector implements ExternalResourceConnect
         return accessor.getMetaData(location);
     }
 
+    @Nullable
+    @Override
+    public ExternalResourceRevalidation<ExternalResourceReadResponse> revalidateResource(URI location, ExternalResourceMetaData cachedMetaData) {
+        STATS.resource(location);
+        return accessor.revalidateResource(location, cachedMetaData);
+    }
+
     @Nullable
     @Override
     public List<String> list(URI parent) {
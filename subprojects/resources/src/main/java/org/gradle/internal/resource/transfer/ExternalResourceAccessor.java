@@ -53,5 +53,17 @@ public interface ExternalResourceAccessor {
      */
     @Nullable
     ExternalResourceMetaData getMetaData(URI location) throws ResourceException;
-    
+
+    /**
+     * Reads the resource at the given location, unless it has not changed since the given meta-data was obtained.
+     *
+     * If the resource does not exist, this method should return null.
+     *
+     * @param location The address of the resource to obtain
+     * @param cachedMetaData The meta-data of the resource that the caller already has
+     * @return The result of the read if the resource exists, otherwise null. Caller is responsible for closing the resource of the result.
+     * @throws ResourceException If the resource may exist, but not could be obtained for some reason.
+     */
+    @Nullable
+    ExternalResourceRevalidation<ExternalResourceReadResponse> revalidateResource(URI location, ExternalResourceMetaData cachedMetaData) throws ResourceException;
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transfer;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.Factory;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaDataCompare;
+
+import java.net.URI;
+
+/**
+ * The result of reading a resource again, which tells whether the resource has changed since the meta-data that the caller holds was obtained.
+ * Holds the resource when it has changed or when it is not known whether it has changed.
+ *
+ * @param <T> The type of the resource.
+ */
+public class ExternalResourceRevalidation<T> {
+    private static final ExternalResourceRevalidation<Object> UNCHANGED = new ExternalResourceRevalidation<Object>(null);
+
+    private final T resource;
+
+    private ExternalResourceRevalidation(T resource) {
+        this.resource = resource;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ExternalResourceRevalidation<T> unchanged() {
+        return (ExternalResourceRevalidation<T>) UNCHANGED;
+    }
+
+    public static <T> ExternalResourceRevalidation<T> changed(T resource) {
+        return new ExternalResourceRevalidation<T>(resource);
+    }
+
+    /**
+     * Revalidates a resource using a transport that cannot make conditional requests, by comparing the meta-data of the resource with the given meta-data
+     * before reading it.
+     */
+    @Nullable
+    public static ExternalResourceRevalidation<ExternalResourceReadResponse> compareAndRead(ExternalResourceAccessor accessor, URI location, ExternalResourceMetaData cachedMetaData) {
+        final ExternalResourceMetaData remoteMetaData = accessor.getMetaData(location);
+        if (remoteMetaData == null) {
+            return null;
+        }
+        boolean isUnchanged = ExternalResourceMetaDataCompare.isDefinitelyUnchanged(cachedMetaData, new Factory<ExternalResourceMetaData>() {
+            public ExternalResourceMetaData create() {
+                return remoteMetaData;
+            }
+        });
+        if (isUnchanged) {
+            return unchanged();
+        }
+        ExternalResourceReadResponse response = accessor.openResource(location);
+        return response == null ? null : changed(response);
+    }
+
+    public boolean isUnchanged() {
+        return resource == null;
+    }
+
+    /**
+     * Returns the resource that was read, or null when the resource has not changed. The caller is responsible for closing the resource.
+     */
+    public T getResource() {
+        return resource;
+    }
+}
@@ -29,6 +29,7 @@ import org.gradle.api.internal.ConventionTask;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
+import org.gradle.api.internal.tasks.TaskResourceRequirements;
 import org.gradle.api.internal.tasks.options.Option;
 import org.gradle.api.internal.tasks.testing.DefaultTestTaskReports;
 import org.gradle.api.internal.tasks.testing.NoMatchingTestsReporter;
@@ -1100,6 +1101,8 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
             throw new IllegalArgumentException("Cannot set maxParallelForks to a value less than 1.");
         }
         this.maxParallelForks = maxParallelForks;
+        // Each forked test process uses a worker lease
+        setResourceRequirements(new TaskResourceRequirements(maxParallelForks, getResourceRequirements().getMemoryMegabytes()));
     }
 
     /**